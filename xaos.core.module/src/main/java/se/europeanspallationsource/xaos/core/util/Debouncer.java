@@ -0,0 +1,339 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ * Copyright (C) 2018-2019 by European Spallation Source ERIC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.europeanspallationsource.xaos.core.util;
+
+
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Logger;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static java.util.logging.Level.WARNING;
+
+
+/**
+ * Coalesces bursts of requests identified by the same key into a single
+ * execution, performed when no new request for that key arrived for a given
+ * delay.
+ * <p>
+ * For example, the listeners of the lower and upper bounds of a chart axis can
+ * request a data refresh using the chart as key: only one refresh will be
+ * executed after the axis stopped moving, whatever the number of received
+ * events.</p>
+ * <p>
+ * All the keys share the same {@link ScheduledExecutorService}, so no thread
+ * is created per key. Actions are executed on the scheduler's thread, and
+ * should be short (e.g. posting a task to the JavaFX application thread or to
+ * another pool). A key is referenced only while its action is pending, so keys
+ * should have identity based {@link Object#equals(Object)} and
+ * {@link Object#hashCode()}.</p>
+ * <p>
+ * After {@link #shutdown()} pending actions are discarded, and new requests
+ * are rejected.</p>
+ *
+ * @author claudio.rosati@esss.se
+ */
+public final class Debouncer implements AutoCloseable {
+
+	/**
+	 * Default delay used by the {@link #getDefault() default} instance.
+	 */
+	public static final long DEFAULT_DELAY_MILLIS = 50;
+
+	private static final Logger LOGGER = Logger.getLogger(Debouncer.class.getName());
+	private static final Lazy<Debouncer> DEFAULT = Lazy.of(() -> {
+
+		ScheduledExecutorService scheduler = ThreadPools.singleThreadExecutor();
+
+		if ( scheduler == null ) {
+			throw new IllegalStateException("Thread pools already shutdown.");
+		}
+
+		return new Debouncer(scheduler, DEFAULT_DELAY_MILLIS, MILLISECONDS);
+
+	});
+
+	/**
+	 * @return The shared instance running on
+	 *         {@link ThreadPools#singleThreadExecutor()}, with a delay of
+	 *         {@link #DEFAULT_DELAY_MILLIS} milliseconds.
+	 * @throws IllegalStateException If the thread pools were already shutdown.
+	 */
+	public static Debouncer getDefault() throws IllegalStateException {
+
+		Debouncer debouncer = DEFAULT.get();
+
+		//	The cached instance outlives the thread pools, stopped by the
+		//	ThreadPools shutdown hook.
+		if ( debouncer.scheduler.isShutdown() ) {
+			throw new IllegalStateException("Thread pools already shutdown.");
+		}
+
+		return debouncer;
+
+	}
+
+	private final long delayNanos;
+	private final Map<Object, Pending> pending = new ConcurrentHashMap<>();
+	private final ScheduledExecutorService scheduler;
+	private final AtomicBoolean shutdown = new AtomicBoolean(false);
+
+	/**
+	 * Creates a new instance.
+	 *
+	 * @param scheduler The executor used to run the coalesced actions.
+	 * @param delay     The default delay after the last request before the
+	 *                  action is executed.
+	 * @param unit      The time unit of {@code delay}.
+	 * @throws NullPointerException     If {@code scheduler} or {@code unit} is
+	 *                                  {@code null}.
+	 * @throws IllegalArgumentException If {@code delay} is negative.
+	 */
+	public Debouncer( ScheduledExecutorService scheduler, long delay, TimeUnit unit )
+		throws NullPointerException, IllegalArgumentException
+	{
+
+		Objects.requireNonNull(scheduler, "Null scheduler.");
+		Objects.requireNonNull(unit, "Null time unit.");
+
+		if ( delay < 0 ) {
+			throw new IllegalArgumentException(MessageFormat.format("Negative delay [{0}].", delay));
+		}
+
+		this.scheduler = scheduler;
+		this.delayNanos = unit.toNanos(delay);
+
+	}
+
+	/**
+	 * Discards the pending action for the given {@code key}.
+	 *
+	 * @param key The key identifying the action.
+	 * @return {@code true} if an action was pending.
+	 */
+	public boolean cancel( Object key ) {
+		return pending.remove(key) != null;
+	}
+
+	/**
+	 * Same as {@link #shutdown()}.
+	 */
+	@Override
+	public void close() {
+		shutdown();
+	}
+
+	/**
+	 * Requests the given {@code action} to be executed after the default delay.
+	 * If an action is already pending for the same {@code key}, it is replaced
+	 * by the given one and the delay restarts.
+	 *
+	 * @param key    The key identifying the action.
+	 * @param action The action to be executed.
+	 * @throws NullPointerException  If {@code key} or {@code action} is
+	 *                               {@code null}.
+	 * @throws IllegalStateException If this instance or its scheduler was
+	 *                               shutdown.
+	 */
+	public void debounce( Object key, Runnable action ) throws NullPointerException, IllegalStateException {
+		debounce(key, delayNanos, NANOSECONDS, action);
+	}
+
+	/**
+	 * Requests the given {@code action} to be executed after the given delay.
+	 * If an action is already pending for the same {@code key}, it is replaced
+	 * by the given one and the delay restarts.
+	 *
+	 * @param key    The key identifying the action.
+	 * @param delay  The delay after which the action is executed.
+	 * @param unit   The time unit of {@code delay}.
+	 * @param action The action to be executed.
+	 * @throws NullPointerException  If {@code key}, {@code unit} or
+	 *                               {@code action} is {@code null}.
+	 * @throws IllegalStateException If this instance or its scheduler was
+	 *                               shutdown.
+	 */
+	public void debounce( Object key, long delay, TimeUnit unit, Runnable action )
+		throws NullPointerException, IllegalStateException
+	{
+
+		Objects.requireNonNull(key, "Null key.");
+		Objects.requireNonNull(unit, "Null time unit.");
+		Objects.requireNonNull(action, "Null action.");
+
+		if ( shutdown.get() ) {
+			throw new IllegalStateException("Debouncer already shutdown.");
+		}
+
+		long delayInNanos = Math.max(0, unit.toNanos(delay));
+		long deadline = System.nanoTime() + delayInNanos;
+
+		pending.compute(key, ( k, p ) -> {
+
+			if ( p == null ) {
+
+				Pending newPending = new Pending(action, deadline);
+
+				try {
+					scheduler.schedule(() -> fire(k, newPending), delayInNanos, NANOSECONDS);
+				} catch ( RejectedExecutionException ex ) {
+					throw new IllegalStateException("Debouncer scheduler already shutdown.", ex);
+				}
+
+				return newPending;
+
+			} else {
+
+				//	The scheduled task will reschedule itself up to the new deadline.
+				p.action = action;
+				p.deadline = deadline;
+
+				return p;
+
+			}
+
+		});
+
+	}
+
+	/**
+	 * Executes immediately, in the calling thread, all the pending actions.
+	 */
+	public void flush() {
+
+		List<Runnable> actions = new ArrayList<>(pending.size());
+
+		for ( Object key : pending.keySet() ) {
+
+			Pending p = pending.remove(key);
+
+			if ( p != null ) {
+				actions.add(p.action);
+			}
+
+		}
+
+		actions.forEach(this::execute);
+
+	}
+
+	/**
+	 * @return {@code true} if this instance was shutdown.
+	 */
+	public boolean isShutdown() {
+		return shutdown.get();
+	}
+
+	/**
+	 * @return The number of pending actions.
+	 */
+	public int pendingCount() {
+		return pending.size();
+	}
+
+	/**
+	 * Discards all the pending actions and rejects new requests. The
+	 * {@link #getDefault() default} instance is shared and should not be
+	 * shutdown: it is stopped together with the {@link ThreadPools}.
+	 *
+	 * @return The discarded actions.
+	 */
+	public List<Runnable> shutdown() {
+
+		List<Runnable> actions = new ArrayList<>(pending.size());
+
+		if ( shutdown.compareAndSet(false, true) ) {
+			for ( Object key : pending.keySet() ) {
+
+				Pending p = pending.remove(key);
+
+				if ( p != null ) {
+					actions.add(p.action);
+				}
+
+			}
+		}
+
+		return actions;
+
+	}
+
+	private void execute( Runnable action ) {
+		try {
+			action.run();
+		} catch ( RuntimeException ex ) {
+			LogUtils.log(LOGGER, WARNING, ex, "Debounced action failed.");
+		}
+	}
+
+	private void fire( Object key, Pending scheduled ) {
+
+		Runnable[] action = new Runnable[1];
+
+		pending.computeIfPresent(key, ( k, p ) -> {
+
+			if ( p != scheduled ) {
+				//	Cancelled and requested again: the new request has its own task.
+				return p;
+			}
+
+			long remaining = p.deadline - System.nanoTime();
+
+			if ( remaining > 0 && !shutdown.get() ) {
+				try {
+					scheduler.schedule(() -> fire(k, p), remaining, NANOSECONDS);
+					return p;
+				} catch ( RejectedExecutionException ex ) {
+					//	The scheduler is shutting down: execute the last
+					//	requested action now instead of losing it.
+				}
+			}
+
+			action[0] = p.action;
+
+			return null;
+
+		});
+
+		if ( action[0] != null ) {
+			execute(action[0]);
+		}
+
+	}
+
+	private static class Pending {
+
+		volatile Runnable action;
+		volatile long deadline;
+
+		Pending( Runnable action, long deadline ) {
+			this.action = action;
+			this.deadline = deadline;
+		}
+
+	}
+
+}
@@ -75,7 +75,7 @@ public class ThreadPools {
 					if ( cachedThreadPoolService == null && !WAS_SHUTDOWN.get() ) {
 
 						cachedThreadPoolService = Executors.newCachedThreadPool(
-							r -> new Thread(r, "ThreadPools.cachedThreadPool.thread-" + Long.toHexString(System.nanoTime()))
+							r -> daemonThread(r, "ThreadPools.cachedThreadPool.thread-")
 						);
 
 						registerShutdownHook();
@@ -134,7 +134,7 @@ public class ThreadPools {
 
 						fixedThreadPoolService = Executors.newScheduledThreadPool(
 							Runtime.getRuntime().availableProcessors(),
-							r -> new Thread(r, "ThreadPools.fixedThreadPool.thread-" + Long.toHexString(System.nanoTime()))
+							r -> daemonThread(r, "ThreadPools.fixedThreadPool.thread-")
 						);
 
 						registerShutdownHook();
@@ -192,7 +192,7 @@ public class ThreadPools {
 					if ( singleThreadExecutorService == null && !WAS_SHUTDOWN.get() ) {
 
 						singleThreadExecutorService = Executors.newSingleThreadScheduledExecutor(
-							r -> new Thread(r, "ThreadPools.singleThreadExecutor.thread-" + Long.toHexString(System.nanoTime()))
+							r -> daemonThread(r, "ThreadPools.singleThreadExecutor.thread-")
 						);
 
 						registerShutdownHook();
@@ -268,8 +268,24 @@ public class ThreadPools {
 
 	}
 
+	/**
+	 * Pool threads must not prevent the JVM to exit when the application is
+	 * closed.
+	 */
+	private static Thread daemonThread( Runnable runnable, String namePrefix ) {
+
+		Thread thread = new Thread(runnable, namePrefix + Long.toHexString(System.nanoTime()));
+
+		thread.setDaemon(true);
+
+		return thread;
+
+	}
+
 	private static void registerShutdownHook() {
-		throw new UnsupportedOperationException("Not supported yet."); //To change body of generated methods, choose Tools | Templates.
+		if ( WAS_REGISTERED.compareAndSet(false, true) ) {
+			Runtime.getRuntime().addShutdownHook(new Thread(ThreadPools::shutdown, "ThreadPools Shutdown Hook"));
+		}
 	}
 
 	/**
@@ -339,9 +355,7 @@ public class ThreadPools {
 	}
 
 	private ThreadPools() {
-		if ( WAS_REGISTERED.compareAndSet(false, true) ) {
-			Runtime.getRuntime().addShutdownHook(new Thread(ThreadPools::shutdown, "ThreadPools Shutdown Hook"));
-		}
+		//	Nothing to do.
 	}
 
 }
@@ -0,0 +1,153 @@
+/*
+ * Copyright 2018 European Spallation Source ERIC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.europeanspallationsource.xaos.core.util;
+
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+
+/**
+ * @author claudio.rosati@esss.se
+ */
+@SuppressWarnings( { "ClassWithoutLogger", "UseOfSystemOutOrSystemErr" } )
+public class DebouncerTest {
+
+	private static ScheduledExecutorService scheduler;
+
+	@BeforeClass
+	public static void setUpClass() {
+		System.out.println("---- DebouncerTest ---------------------------------------------");
+		scheduler = Executors.newSingleThreadScheduledExecutor();
+	}
+
+	@AfterClass
+	public static void tearDownClass() {
+		scheduler.shutdownNow();
+	}
+
+	/**
+	 * Test of {@link Debouncer#debounce(Object, Runnable)}, coalescing
+	 * requests per key.
+	 *
+	 * @throws InterruptedException If interrupted while waiting.
+	 */
+	@Test
+	public void testDebounce() throws InterruptedException {
+
+		System.out.println("  Testing 'debounce'...");
+
+		Debouncer debouncer = new Debouncer(scheduler, 50, MILLISECONDS);
+		AtomicInteger executions = new AtomicInteger();
+		AtomicInteger lastValue = new AtomicInteger();
+		CountDownLatch latch = new CountDownLatch(2);
+		Object key1 = new Object();
+		Object key2 = new Object();
+
+		for ( int i = 0; i < 100; i++ ) {
+
+			int value = i;
+
+			debouncer.debounce(key1, () -> {
+				executions.incrementAndGet();
+				lastValue.set(value);
+				latch.countDown();
+			});
+
+		}
+
+		debouncer.debounce(key2, 10, MILLISECONDS, () -> {
+			executions.incrementAndGet();
+			latch.countDown();
+		});
+
+		assertThat(debouncer.pendingCount()).isEqualTo(2);
+		assertThat(latch.await(5, SECONDS)).isTrue();
+
+		Thread.sleep(100);
+
+		assertThat(executions.get()).isEqualTo(2);
+		assertThat(lastValue.get()).isEqualTo(99);
+		assertThat(debouncer.pendingCount()).isEqualTo(0);
+
+	}
+
+	/**
+	 * Test of requests made after the scheduler was shutdown.
+	 */
+	@Test
+	public void testSchedulerShutdown() {
+
+		System.out.println("  Testing 'scheduler shutdown'...");
+
+		ScheduledExecutorService stopped = Executors.newSingleThreadScheduledExecutor();
+		Debouncer debouncer = new Debouncer(stopped, 50, MILLISECONDS);
+
+		stopped.shutdown();
+
+		assertThatThrownBy(() -> debouncer.debounce(new Object(), () -> { })).isInstanceOf(IllegalStateException.class);
+		assertThat(debouncer.pendingCount()).isZero();
+
+	}
+
+	/**
+	 * Test of {@link Debouncer#cancel(Object)}, {@link Debouncer#flush()} and
+	 * {@link Debouncer#shutdown()}.
+	 *
+	 * @throws InterruptedException If interrupted while waiting.
+	 */
+	@Test
+	public void testShutdown() throws InterruptedException {
+
+		System.out.println("  Testing 'shutdown'...");
+
+		Debouncer debouncer = new Debouncer(scheduler, 1, SECONDS);
+		AtomicInteger executions = new AtomicInteger();
+		Object key = new Object();
+
+		debouncer.debounce(key, executions::incrementAndGet);
+		assertThat(debouncer.cancel(key)).isTrue();
+		assertThat(debouncer.cancel(key)).isFalse();
+
+		debouncer.debounce(key, executions::incrementAndGet);
+		debouncer.flush();
+
+		assertThat(executions.get()).isEqualTo(1);
+
+		debouncer.debounce(key, executions::incrementAndGet);
+		debouncer.debounce(new Object(), executions::incrementAndGet);
+
+		assertThat(debouncer.shutdown()).hasSize(2);
+		assertThat(debouncer.isShutdown()).isTrue();
+		assertThatThrownBy(() -> debouncer.debounce(key, executions::incrementAndGet)).isInstanceOf(IllegalStateException.class);
+
+		Thread.sleep(1200);
+
+		assertThat(executions.get()).isEqualTo(1);
+
+	}
+
+}
@@ -0,0 +1,156 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ * Copyright (C) 2018-2019 by European Spallation Source ERIC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.europeanspallationsource.xaos.ui.plot;
+
+
+import java.util.List;
+import javafx.scene.paint.Color;
+import javafx.scene.paint.Stop;
+import se.europeanspallationsource.xaos.ui.plot.DensityChartFX.ColorGradient;
+
+
+/**
+ * Precomputed ARGB colors of a {@link ColorGradient}, used by
+ * {@link DensityChartFX} to map Z values into pixels without walking the
+ * gradient stops and allocating a {@link Color} for each value.
+ * <p>
+ * Offsets in the [0, 1] range are mapped to one of the {@link #SIZE} entries
+ * of the table. Offsets outside that range are mapped to the colors the
+ * gradient interpolation gives for them, i.e. black below 0 and white above
+ * 1, while {@code NaN} values are transparent.</p>
+ *
+ * @author claudio.rosati@esss.se
+ */
+final class ColorLookupTable {
+
+	/**
+	 * Number of entries in the table.
+	 */
+	static final int SIZE = 4096;
+
+	/**
+	 * Returns the color corresponding to the given offset in the given gradient
+	 * stops, linearly interpolating the colors of the enclosing stops.
+	 *
+	 * @param stops  The gradient stops.
+	 * @param log    {@code true} if the stops offsets must be converted into
+	 *               logarithmic values.
+	 * @param offset The offset whose color must be returned.
+	 * @return The color corresponding to the given offset.
+	 */
+	static Color getColor( List<Stop> stops, boolean log, double offset ) {
+
+		double lowerOffset = 0.0;
+		double upperOffset = 1.0;
+		Color lowerColor = Color.BLACK;
+		Color upperColor = Color.WHITE;
+
+		for ( Stop stop : stops ) {
+
+			double currentOffset = stop.getOffset();
+
+			if ( log ) {
+				if ( currentOffset > 0 ) {
+					currentOffset = Math.log(stop.getOffset());
+				}
+			}
+
+			if ( currentOffset == offset ) {
+				return stop.getColor();
+			} else if ( currentOffset < offset ) {
+				lowerOffset = currentOffset;
+				lowerColor = stop.getColor();
+			} else {
+				upperOffset = currentOffset;
+				upperColor = stop.getColor();
+				break;
+			}
+
+		}
+
+		double interpolationOffset = ( offset - lowerOffset ) / ( upperOffset - lowerOffset );
+
+		return lowerColor.interpolate(upperColor, interpolationOffset);
+
+	}
+
+	/**
+	 * @param color The color to be converted.
+	 * @return The given color as a non-premultiplied ARGB integer.
+	 */
+	static int toArgb( Color color ) {
+		return ( (int) Math.round(color.getOpacity() * 255) << 24 )
+			 | ( (int) Math.round(color.getRed() * 255) << 16 )
+			 | ( (int) Math.round(color.getGreen() * 255) << 8 )
+			 | (int) Math.round(color.getBlue() * 255);
+	}
+
+	private final int above;
+	private final int below;
+	private final ColorGradient gradient;
+	private final boolean log;
+	private final int[] table = new int[SIZE];
+
+	/**
+	 * Creates a new table for the given gradient.
+	 *
+	 * @param gradient The color gradient.
+	 * @param log      {@code true} if the stops offsets must be converted into
+	 *                 logarithmic values.
+	 */
+	ColorLookupTable( ColorGradient gradient, boolean log ) {
+
+		List<Stop> stops = gradient.getStops();
+
+		for ( int i = 0; i < SIZE; i++ ) {
+			table[i] = toArgb(getColor(stops, log, i / ( SIZE - 1.0 )));
+		}
+
+		this.above = toArgb(getColor(stops, log, Double.POSITIVE_INFINITY));
+		this.below = toArgb(getColor(stops, log, Double.NEGATIVE_INFINITY));
+		this.gradient = gradient;
+		this.log = log;
+
+	}
+
+	/**
+	 * @param offset The offset whose color must be returned.
+	 * @return The ARGB color corresponding to the given offset.
+	 */
+	int argb( double offset ) {
+		if ( offset >= 0 && offset <= 1 ) {
+			return table[(int) ( offset * ( SIZE - 1 ) + 0.5 )];
+		} else if ( offset < 0 ) {
+			return below;
+		} else if ( offset > 1 ) {
+			return above;
+		} else {
+			return 0;
+		}
+	}
+
+	/**
+	 * @param gradient The color gradient.
+	 * @param log      {@code true} if the stops offsets must be converted into
+	 *                 logarithmic values.
+	 * @return {@code true} if this table was built with the given parameters.
+	 */
+	boolean isBuiltFor( ColorGradient gradient, boolean log ) {
+		return this.gradient == gradient && this.log == log;
+	}
+
+}
@@ -17,11 +17,17 @@
 package se.europeanspallationsource.xaos.ui.plot;
 
 
+import java.nio.DoubleBuffer;
+import java.text.MessageFormat;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 import java.util.logging.Logger;
 import javafx.beans.InvalidationListener;
 import javafx.beans.Observable;
@@ -37,6 +43,7 @@ import javafx.css.SimpleStyleableBooleanProperty;
 import javafx.css.Styleable;
 import javafx.css.StyleableProperty;
 import javafx.css.converter.BooleanConverter;
+import javafx.geometry.Rectangle2D;
 import javafx.geometry.Side;
 import javafx.scene.Group;
 import javafx.scene.Node;
@@ -44,10 +51,9 @@ import javafx.scene.chart.Axis;
 import javafx.scene.chart.Chart;
 import javafx.scene.chart.ValueAxis;
 import javafx.scene.image.ImageView;
-import javafx.scene.image.PixelWriter;
+import javafx.scene.image.PixelFormat;
 import javafx.scene.image.WritableImage;
 import javafx.scene.layout.Region;
-import javafx.scene.paint.Color;
 import javafx.scene.paint.CycleMethod;
 import javafx.scene.paint.LinearGradient;
 import javafx.scene.paint.Stop;
@@ -56,6 +62,7 @@ import javafx.scene.shape.MoveTo;
 import javafx.scene.shape.Path;
 import javafx.scene.shape.Rectangle;
 import se.europeanspallationsource.xaos.core.util.LogUtils;
+import se.europeanspallationsource.xaos.core.util.ThreadPools;
 import se.europeanspallationsource.xaos.ui.plot.Legend.LegendItem;
 import se.europeanspallationsource.xaos.ui.plot.plugins.Pluggable;
 
@@ -122,17 +129,96 @@ public class DensityChartFX<X, Y> extends Chart implements Pluggable {
 
 	}
 
+	/**
+	 * Executes the given image rendering task on the work-stealing pool if
+	 * it involves more than {@link ColorMappingTask#PARALLEL_THRESHOLD}
+	 * cells, otherwise (or if the pool is not available) in the calling
+	 * thread.
+	 */
+	private static void invoke( RecursiveAction task, long cellsCount ) {
+
+		if ( cellsCount > ColorMappingTask.PARALLEL_THRESHOLD ) {
+
+			ExecutorService pool;
+
+			try {
+				pool = ThreadPools.workStealingThreadPool();
+			} catch ( IllegalStateException ex ) {
+				pool = null;
+			}
+
+			if ( pool instanceof ForkJoinPool ) {
+				( (ForkJoinPool) pool ).invoke(task);
+				return;
+			}
+
+		}
+
+		task.invoke();
+
+	}
+
+	/**
+	 * @return The first image pixel that could contain the given cell, when
+	 *         the given number of cells is mapped into the given number of
+	 *         pixels.
+	 */
+	private static int toFromPixel( int cell, int cells, int pixels ) {
+		return (int) Math.max(0, Math.min(pixels, (long) cell * pixels / cells - 1));
+	}
+
+	/**
+	 * @return The pixel after the last one that could contain the cell before
+	 *         the given one, when the given number of cells is mapped into the
+	 *         given number of pixels.
+	 */
+	private static int toToPixel( int cell, int cells, int pixels ) {
+		return (int) Math.max(0, Math.min(pixels, ( (long) cell * pixels + cells - 1 ) / cells + 1));
+	}
+
+	/**
+	 * @return The number of pixels of the image displaying the given number
+	 *         of cells into the given display size: cells are pooled if more
+	 *         than the pixels, otherwise replicated (unless smoothing is on).
+	 */
+	private int toPixels( int cells, double displaySize ) {
+
+		int pixels = Math.max(1, (int) Math.ceil(displaySize));
+
+		if ( cells >= pixels ) {
+			return pixels;
+		} else if ( isSmooth() ) {
+			return cells;
+		} else {
+			return cells * Math.max(pixels / cells, 1);
+		}
+
+	}
+
+	private ColorLookupTable colorLookupTable = null;
 	private final InvalidationListener dataListener = this::handeDataInvalidation;
 	private final Path horizontalGridLines = new Path();
+	private WritableImage image = null;
+	private int[] imageBuffer = null;
+	private DataRegion imageDirtyRegion = null;
+	private ColorLookupTable imageLookupTable = null;
+	private boolean imageValid = false;
+	private int[] imageViewport = null;
+	private double imageZMin = Double.NaN;
+	private double imageZRange = Double.NaN;
 	private final ImageView imageView = new ImageView();
 	private final Group pluginsNodesGroup = new Group();
 	private final PluginManager pluginManager = new PluginManager(this, pluginsNodesGroup);
+	private double[] projectionsLayout = null;
+	private boolean projectionsValid = false;
+	private final DensityStatistics statistics = new DensityStatistics();
 	private final ChangeListener<? super Boolean> updateXAxisRangeListener = ( ob, o, n ) -> updateXAxisRange();
 	private final ChangeListener<? super Boolean> updateYAxisRangeListener = ( ob, o, n ) -> updateYAxisRange();
 	private final Path verticalGridLines = new Path();
-	private ProjectionData<X, Y> xProjection;
+	private WaterfallData waterfall = null;
+	private long waterfallRowCount = 0;
+	private final ImageView wrappedImageView = new ImageView();
 	private final Path xProjectionPath = new Path();
-	private ProjectionData<X, Y> yProjection;
 	private final Path yProjectionPath = new Path();
 	private final Axis<X> xAxis;
 	private final Axis<Y> yAxis;
@@ -276,6 +362,44 @@ public class DensityChartFX<X, Y> extends Chart implements Pluggable {
 		logZAxisProperty().set(value);
 	}
 
+	/*
+	 * ---- pooling ------------------------------------------------------------
+	 */
+	private final ObjectProperty<Pooling> pooling = new SimpleObjectProperty<Pooling>(this, "pooling", Pooling.MAX) {
+		@Override
+		protected void invalidated() {
+			imageValid = false;
+			requestChartLayout();
+		}
+	};
+
+	/**
+	 * @return The property specifying how the Z values of the cells mapped
+	 *         into the same pixel are combined, when the displayed cells are
+	 *         more than the available pixels.
+	 */
+	public final ObjectProperty<Pooling> poolingProperty() {
+		return pooling;
+	}
+
+	/**
+	 * @return How the Z values of the cells mapped into the same pixel are
+	 *         combined.
+	 * @see #poolingProperty()
+	 */
+	public final Pooling getPooling() {
+		return poolingProperty().get();
+	}
+
+	/**
+	 * @param value How the Z values of the cells mapped into the same pixel
+	 *              must be combined.
+	 * @see #poolingProperty()
+	 */
+	public final void setPooling( Pooling value ) {
+		poolingProperty().set(value);
+	}
+
 	/*
 	 * ---- projectionLinesVisible ---------------------------------------------
 	 */
@@ -436,9 +560,11 @@ public class DensityChartFX<X, Y> extends Chart implements Pluggable {
 		});
 
 		imageView.setSmooth(false);
+		wrappedImageView.setSmooth(false);
+		wrappedImageView.setVisible(false);
 
 		setAnimated(false);
-		getChartChildren().addAll(imageView, xAxis, yAxis, verticalGridLines, horizontalGridLines, legend);
+		getChartChildren().addAll(imageView, wrappedImageView, xAxis, yAxis, verticalGridLines, horizontalGridLines, legend);
 
 		verticalGridLines.getStyleClass().setAll("chart-vertical-grid-lines");
 		horizontalGridLines.getStyleClass().setAll("chart-horizontal-grid-lines");
@@ -518,38 +644,15 @@ public class DensityChartFX<X, Y> extends Chart implements Pluggable {
 	 */
 	public final ProjectionData<Number, Number> getXProjection( DensityChartFX.Data<Number, Number> data ) {
 
-		double ymax = Double.MIN_VALUE;
-
-		for ( int yIndex = 0; yIndex < data.getYSize(); yIndex++ ) {
-			ymax = Math.max(ymax, data.getYValue(yIndex).doubleValue());
+		if ( data == getData() ) {
+			return getXProjection(data, statistics);
 		}
 
-		double yValues;
-		double datamin = Double.MAX_VALUE;
-		double datamax = Double.MIN_VALUE;
-		double[] seriesX = new double[data.getXSize()];
-		double[] seriesY = new double[data.getXSize()];
-
-		for ( int xIndex = 0; xIndex < data.getXSize(); xIndex++ ) {
-
-			yValues = 0.0;
-
-			for ( int yIndex = 0; yIndex < data.getYSize(); yIndex++ ) {
-				yValues += data.getZValue(xIndex, yIndex);
-			}
-
-			datamin = Math.min(datamin, yValues);
-			datamax = Math.max(datamax, yValues);
-			seriesX[xIndex] = data.getXValue(xIndex).doubleValue();
-			seriesY[xIndex] = yValues;
-
-		}
+		DensityStatistics dataStatistics = new DensityStatistics();
 
-		for ( int xIndex = 0; xIndex < data.getXSize(); xIndex++ ) {
-			seriesY[xIndex] = ( ( seriesY[xIndex] - datamin ) / ( datamax - datamin ) );
-		}
+		dataStatistics.update(data, null);
 
-		return new ProjectionData<>(toNumbers(seriesX), toNumbers(seriesY));
+		return getXProjection(data, dataStatistics);
 
 	}
 
@@ -564,38 +667,15 @@ public class DensityChartFX<X, Y> extends Chart implements Pluggable {
 
 	public final ProjectionData<Number, Number> getYProjection( DensityChartFX.Data<Number, Number> data ) {
 
-		double xmax = Double.MIN_VALUE;
-
-		for ( int xIndex = 0; xIndex < data.getXSize(); xIndex++ ) {
-			xmax = Math.max(xmax, data.getXValue(xIndex).doubleValue());
+		if ( data == getData() ) {
+			return getYProjection(data, statistics, ( data instanceof WaterfallData ) ? ( (WaterfallData) data ).getRowOffset() : 0);
 		}
 
-		double xValues;
-		double datamin = Double.MAX_VALUE;
-		double datamax = Double.MIN_VALUE;
-		double[] seriesX = new double[data.getYSize()];
-		double[] seriesY = new double[data.getYSize()];
-
-		for ( int yIndex = 0; yIndex < data.getYSize(); yIndex++ ) {
-
-			xValues = 0.0;
-
-			for ( int xIndex = 0; xIndex < data.getXSize(); xIndex++ ) {
-				xValues += data.getZValue(xIndex, yIndex);
-			}
-
-			datamin = Math.min(datamin, xValues);
-			datamax = Math.max(datamax, xValues);
-			seriesX[yIndex] = xValues;
-			seriesY[yIndex] = data.getYValue(yIndex).doubleValue();
+		DensityStatistics dataStatistics = new DensityStatistics();
 
-		}
-
-		for ( int yIndex = 0; yIndex < data.getYSize(); yIndex++ ) {
-			seriesX[yIndex] = ( ( seriesX[yIndex] - datamin ) / ( datamax - datamin ) );//*xmax*0.2);
-		}
+		dataStatistics.update(data, null);
 
-		return new ProjectionData<>(toNumbers(seriesX), toNumbers(seriesY));
+		return getYProjection(data, dataStatistics, 0);
 
 	}
 
@@ -649,51 +729,169 @@ public class DensityChartFX<X, Y> extends Chart implements Pluggable {
 
 	}
 
-	private Color getColor( final double offset ) {
+	/**
+	 * @return The color lookup table for the current gradient and Z axis
+	 *         scale, rebuilt only when one of them changed.
+	 */
+	private ColorLookupTable getColorLookupTable() {
 
-		double lowerOffset = 0.0;
-		double upperOffset = 1.0;
-		Color lowerColor = Color.BLACK;
-		Color upperColor = Color.WHITE;
+		ColorGradient gradient = getColorGradient();
+		boolean log = isLogZAxis();
 
-		for ( Stop stop : getColorGradient().getStops() ) {
+		if ( colorLookupTable == null || !colorLookupTable.isBuiltFor(gradient, log) ) {
+			colorLookupTable = new ColorLookupTable(gradient, log);
+		}
 
-			double currentOffset = stop.getOffset();
+		return colorLookupTable;
 
-			if ( isLogZAxis() ) {
-				if ( currentOffset > 0 ) {
-					currentOffset = Math.log(stop.getOffset());
-				}
-			}
+	}
 
-			if ( currentOffset == offset ) {
-				return stop.getColor();
-			} else if ( currentOffset < offset ) {
-				lowerOffset = currentOffset;
-				lowerColor = stop.getColor();
-			} else {
-				upperOffset = currentOffset;
-				upperColor = stop.getColor();
-				break;
-			}
+	private ProjectionData<Number, Number> getXProjection( Data<Number, Number> data, DensityStatistics dataStatistics ) {
+
+		double datamin = Double.MAX_VALUE;
+		double datamax = Double.NEGATIVE_INFINITY;
+		double[] columnSums = dataStatistics.getColumnSums();
+		double[] seriesX = new double[data.getXSize()];
+		double[] seriesY = new double[data.getXSize()];
 
+		for ( int xIndex = 0; xIndex < data.getXSize(); xIndex++ ) {
+			datamin = Math.min(datamin, columnSums[xIndex]);
+			datamax = Math.max(datamax, columnSums[xIndex]);
+			seriesX[xIndex] = data.getXValue(xIndex).doubleValue();
 		}
 
-		double interpolationOffset = ( offset - lowerOffset ) / ( upperOffset - lowerOffset );
+		for ( int xIndex = 0; xIndex < data.getXSize(); xIndex++ ) {
+			seriesY[xIndex] = ( ( columnSums[xIndex] - datamin ) / ( datamax - datamin ) );
+		}
 
-		return lowerColor.interpolate(upperColor, interpolationOffset);
+		return new ProjectionData<>(toNumbers(seriesX), toNumbers(seriesY));
 
 	}
 
-	@SuppressWarnings( "unchecked" )
+	/**
+	 * @param rowOffset The index of the row sum corresponding to the first
+	 *                  data row, when statistics are in ring buffer order.
+	 */
+	private ProjectionData<Number, Number> getYProjection( Data<Number, Number> data, DensityStatistics dataStatistics, int rowOffset ) {
+
+		double datamin = dataStatistics.getRowSumsMin();
+		double datamax = dataStatistics.getRowSumsMax();
+		double[] rowSums = dataStatistics.getRowSums();
+		double[] seriesX = new double[data.getYSize()];
+		double[] seriesY = new double[data.getYSize()];
+
+		for ( int yIndex = 0; yIndex < data.getYSize(); yIndex++ ) {
+			seriesY[yIndex] = data.getYValue(yIndex).doubleValue();
+		}
+
+		for ( int yIndex = 0; yIndex < data.getYSize(); yIndex++ ) {
+			seriesX[yIndex] = ( ( rowSums[( yIndex + rowOffset ) % rowSums.length] - datamin ) / ( datamax - datamin ) );
+		}
+
+		return new ProjectionData<>(toNumbers(seriesX), toNumbers(seriesY));
+
+	}
+
+	/**
+	 * When the data reports the changed {@link DataRegion}, X and Y axes are
+	 * left untouched, statistics are updated reading only the rows around the
+	 * region, and only the region will be colour-mapped again (unless the Z
+	 * range changed).
+	 */
 	private void handeDataInvalidation ( Observable obs ) {
 
-		updateXAxisRange();
-		updateYAxisRange();
+		Data<X, Y> data = getData();
+
+		if ( data == null ) {
+			return;
+		} else if ( data instanceof WaterfallData ) {
+			handleWaterfallInvalidation((WaterfallData) data);
+			return;
+		}
+
+		waterfall = null;
+
+		DataRegion region = data.getInvalidatedRegion();
+
+		if ( region == null ) {
+
+			updateXAxisRange();
+			updateYAxisRange();
+
+			imageValid = false;
+			imageDirtyRegion = null;
+
+		} else if ( imageDirtyRegion == null ) {
+			imageDirtyRegion = region;
+		} else {
+			imageDirtyRegion = imageDirtyRegion.union(region);
+		}
+
+		statistics.update(data, region);
+		updateZAxisRange();
+
+		projectionsValid = false;
+
+		requestChartLayout();
+
+	}
+
+	/**
+	 * Rows appended to a {@link WaterfallData} since the last invalidation are
+	 * found comparing the total number of appended rows. Statistics and image
+	 * are kept in ring buffer order (see {@link WaterfallRows}), so only the
+	 * new rows must be read and colour-mapped, and the Z range and projections
+	 * are updated without reading the other rows. Any other invalidation (e.g.
+	 * an explicit {@link AbstractData#fireInvalidated()} call) updates
+	 * everything.
+	 */
+	@SuppressWarnings( "unchecked" )
+	private void handleWaterfallInvalidation( WaterfallData data ) {
+
+		WaterfallRows rows = new WaterfallRows(data);
+		long totalRowCount = data.getTotalRowCount();
+		long newRowsCount = totalRowCount - waterfallRowCount;
+		int size = data.getYSize();
+
+		if ( data != waterfall || newRowsCount <= 0 || newRowsCount >= size ) {
+
+			updateXAxisRange();
+			updateYAxisRange();
+
+			imageValid = false;
+			imageDirtyRegion = null;
+
+			statistics.update(rows, null);
+
+		} else {
+
+			if ( yAxis.isAutoRanging() ) {
+				yAxis.invalidateRange(Arrays.asList(
+					(Y) data.getYValue(0),
+					(Y) data.getYValue(size - 1)
+				));
+			}
+
+			//	New rows are contiguous in the ring buffer, unless they wrap
+			//	around its end.
+			int fromRow = rows.toRowIndex(size - (int) newRowsCount);
+			int toRow = rows.toRowIndex(size - 1) + 1;
+
+			if ( fromRow < toRow ) {
+				updateWaterfallRows(rows, fromRow, toRow);
+			} else {
+				updateWaterfallRows(rows, fromRow, size);
+				updateWaterfallRows(rows, 0, toRow);
+			}
+
+		}
+
+		waterfall = data;
+		waterfallRowCount = totalRowCount;
+
 		updateZAxisRange();
 
-		xProjection = (ProjectionData<X, Y>) getXProjection((DefaultData<Number, Number>) getData());
-		yProjection = (ProjectionData<X, Y>) getYProjection((DefaultData<Number, Number>) getData());
+		projectionsValid = false;
 
 		requestChartLayout();
 
@@ -854,6 +1052,15 @@ public class DensityChartFX<X, Y> extends Chart implements Pluggable {
 	 * values of the X and Y axis and we clip it to the chart area i.e. to the
 	 * area between X and Y axis. This is to properly display the part of image
 	 * that corresponds to currently set X/Y bounds (if autoRanging is off).
+	 * <p>
+	 * Large maps are colour-mapped in parallel by a {@link ColorMappingTask}
+	 * on the work-stealing pool: only the final copy of the pixels into the
+	 * image is performed on this thread.</p>
+	 * <p>
+	 * When part of the data is outside the axes bounds, or cells are smaller
+	 * than pixels, only the visible cells are rendered (see
+	 * {@link #layoutViewportImageView(int[], double, double, double, double)}),
+	 * so that the image is never greater than the plot area.</p>
 	 */
 	private void layoutImageView() {
 
@@ -871,37 +1078,247 @@ public class DensityChartFX<X, Y> extends Chart implements Pluggable {
 		int scaleX = 1;
 		int scaleY = 1;
 
+		if ( !( densityMapData instanceof WaterfallData ) && imageWidth > 0 && imageHeight > 0 ) {
+
+			//	Cells outside the axes bounds are not rendered, and cells
+			//	smaller than a pixel are pooled together.
+			double cellWidth = imageWidth / xSize;
+			double cellHeight = imageHeight / ySize;
+			int fromColumn = (int) Math.max(0, Math.min(xSize, Math.floor(-xStart / cellWidth)));
+			int toColumn = (int) Math.max(0, Math.min(xSize, Math.ceil(( xAxis.getWidth() - xStart ) / cellWidth)));
+			int fromRow = (int) Math.max(0, Math.min(ySize, Math.floor(-yEnd / cellHeight)));
+			int toRow = (int) Math.max(0, Math.min(ySize, Math.ceil(( yAxis.getHeight() - yEnd ) / cellHeight)));
+
+			if ( fromColumn > 0 || toColumn < xSize || fromRow > 0 || toRow < ySize || xSize > imageWidth || ySize > imageHeight ) {
+				layoutViewportImageView(new int[] { fromColumn, toColumn, fromRow, toRow }, xStart, yEnd, cellWidth, cellHeight);
+				return;
+			}
+
+		}
+
+		//	Waterfall images have room for all the rows in the ring buffer,
+		//	and are kept in ring buffer order.
+		Data<?, ?> renderedData = densityMapData;
+		int rowOffset = 0;
+		int rowsCount = ySize;
+
+		if ( densityMapData instanceof WaterfallData ) {
+
+			WaterfallData waterfall = (WaterfallData) densityMapData;
+
+			renderedData = new WaterfallRows(waterfall);
+			rowOffset = waterfall.getRowOffset();
+			rowsCount = waterfall.getCapacity();
+
+		}
+
 		if ( !isSmooth() ) {
 			scaleX = Math.max((int) imageWidth / xSize, 1);
-			scaleY = Math.max((int) imageHeight / ySize, 1);
+			scaleY = Math.max((int) imageHeight / rowsCount, 1);
 		}
 
-		WritableImage image = new WritableImage(xSize * scaleX, ySize * scaleY);
-		PixelWriter pixelWriter = image.getPixelWriter();
+		int width = xSize * scaleX;
+		int height = rowsCount * scaleY;
 
+		ColorLookupTable lookupTable = getColorLookupTable();
 		double zMin = zAxis.getLowerBound();
-		double zMax = zAxis.getUpperBound();
+		double zRange = zAxis.getUpperBound() - zMin;
+		DataRegion region;
+
+		if ( image == null || image.getWidth() != width || image.getHeight() != height ) {
+			image = new WritableImage(width, height);
+			imageBuffer = new int[width * height];
+			region = new DataRegion(0, xSize, 0, ySize);
+		} else if ( !imageValid || imageViewport != null || lookupTable != imageLookupTable || zMin != imageZMin || zRange != imageZRange ) {
+			region = new DataRegion(0, xSize, 0, ySize);
+		} else if ( imageDirtyRegion != null ) {
+			region = imageDirtyRegion;
+		} else {
+			region = new DataRegion(0, 0, 0, 0);
+		}
 
-		for ( int x = 0; x < xSize; x++ ) {
-			for ( int y = 0; y < ySize; y++ ) {
+		imageDirtyRegion = null;
+		imageLookupTable = lookupTable;
+		imageValid = true;
+		imageViewport = null;
+		imageZMin = zMin;
+		imageZRange = zRange;
+
+		if ( !region.isEmpty() ) {
+
+			ColorMappingTask task = new ColorMappingTask(
+				renderedData,
+				lookupTable,
+				zMin,
+				zRange,
+				scaleX,
+				scaleY,
+				imageBuffer,
+				region.getFromXIndex(),
+				region.getToXIndex(),
+				region.getFromYIndex(),
+				region.getToYIndex()
+			);
+
+			invoke(task, (long) ( region.getToXIndex() - region.getFromXIndex() ) * ( region.getToYIndex() - region.getFromYIndex() ));
+
+			image.getPixelWriter().setPixels(
+				region.getFromXIndex() * scaleX,
+				region.getFromYIndex() * scaleY,
+				( region.getToXIndex() - region.getFromXIndex() ) * scaleX,
+				( region.getToYIndex() - region.getFromYIndex() ) * scaleY,
+				PixelFormat.getIntArgbInstance(),
+				imageBuffer,
+				region.getFromYIndex() * scaleY * width + region.getFromXIndex() * scaleX,
+				width
+			);
 
-				double offset = ( densityMapData.getZValue(x, y) - zMin ) / ( zMax - zMin );
-				Color color = getColor(offset);
+		}
 
-				for ( int dx = 0; dx < scaleX; dx++ ) {
-					for ( int dy = 0; dy < scaleY; dy++ ) {
-						pixelWriter.setColor(x * scaleX + dx, y * scaleY + dy, color);
-					}
-				}
+		//	Rows from the offset to the end of the ring buffer are displayed
+		//	first, followed by the wrapped ones from the beginning.
+		double wrappedImageHeight = imageHeight * rowOffset / ySize;
+
+		layoutImageView(
+			imageView,
+			new Rectangle2D(0, rowOffset * scaleY, width, ( ySize - rowOffset ) * scaleY),
+			xStart,
+			yEnd,
+			imageWidth,
+			imageHeight - wrappedImageHeight
+		);
+
+		if ( rowOffset > 0 ) {
+			layoutImageView(
+				wrappedImageView,
+				new Rectangle2D(0, 0, width, rowOffset * scaleY),
+				xStart,
+				yEnd + imageHeight - wrappedImageHeight,
+				imageWidth,
+				wrappedImageHeight
+			);
+		} else {
+			wrappedImageView.setImage(null);
+			wrappedImageView.setVisible(false);
+		}
+
+	}
+
+	/**
+	 * Displays the given viewport of the density image into the given view.
+	 */
+	private void layoutImageView( ImageView view, Rectangle2D viewport, double x, double y, double viewWidth, double viewHeight ) {
+
+		view.setImage(image);
+		view.setViewport(viewport);
+		view.setVisible(true);
+		view.setClip(new Rectangle(-x, -y, xAxis.getWidth(), yAxis.getHeight()));
+		view.resizeRelocate(xAxis.getLayoutX() + x, yAxis.getLayoutY() + y, viewWidth, viewHeight);
+		view.setFitWidth(viewWidth);
+		view.setFitHeight(viewHeight);
+
+	}
+
+	/**
+	 * Renders only the given viewport of the data, i.e. the cells from
+	 * {@code viewport[0]} (inclusive) to {@code viewport[1]} (exclusive)
+	 * along X, and from {@code viewport[2]} to {@code viewport[3]} along Y,
+	 * into an image not greater than the area they cover on screen. When
+	 * cells are more than the available pixels, each pixel is the
+	 * {@link #getPooling() pooling} of the cells mapped into it.
+	 *
+	 * @param viewport   The visible cells range.
+	 * @param xStart     The display position of the first X cell.
+	 * @param yEnd       The display position of the first Y cell.
+	 * @param cellWidth  The display width of a cell.
+	 * @param cellHeight The display height of a cell.
+	 */
+	private void layoutViewportImageView( int[] viewport, double xStart, double yEnd, double cellWidth, double cellHeight ) {
+
+		wrappedImageView.setImage(null);
+		wrappedImageView.setVisible(false);
+
+		int columns = viewport[1] - viewport[0];
+		int rows = viewport[3] - viewport[2];
+
+		if ( columns <= 0 || rows <= 0 ) {
+			imageView.setVisible(false);
+			return;
+		}
 
+		double viewX = xStart + viewport[0] * cellWidth;
+		double viewY = yEnd + viewport[2] * cellHeight;
+		double viewWidth = columns * cellWidth;
+		double viewHeight = rows * cellHeight;
+		int width = toPixels(columns, viewWidth);
+		int height = toPixels(rows, viewHeight);
+
+		ColorLookupTable lookupTable = getColorLookupTable();
+		double zMin = zAxis.getLowerBound();
+		double zRange = zAxis.getUpperBound() - zMin;
+		int fromPixelColumn = 0;
+		int toPixelColumn = width;
+		int fromPixelRow = 0;
+		int toPixelRow = height;
+
+		if ( image == null || image.getWidth() != width || image.getHeight() != height ) {
+			image = new WritableImage(width, height);
+			imageBuffer = new int[width * height];
+		} else if ( imageValid && Arrays.equals(viewport, imageViewport) && lookupTable == imageLookupTable && zMin == imageZMin && zRange == imageZRange ) {
+			if ( imageDirtyRegion == null
+			  || imageDirtyRegion.getToXIndex() <= viewport[0] || imageDirtyRegion.getFromXIndex() >= viewport[1]
+			  || imageDirtyRegion.getToYIndex() <= viewport[2] || imageDirtyRegion.getFromYIndex() >= viewport[3] ) {
+				toPixelColumn = 0;
+				toPixelRow = 0;
+			} else {
+				fromPixelColumn = toFromPixel(imageDirtyRegion.getFromXIndex() - viewport[0], columns, width);
+				toPixelColumn = toToPixel(imageDirtyRegion.getToXIndex() - viewport[0], columns, width);
+				fromPixelRow = toFromPixel(imageDirtyRegion.getFromYIndex() - viewport[2], rows, height);
+				toPixelRow = toToPixel(imageDirtyRegion.getToYIndex() - viewport[2], rows, height);
 			}
 		}
 
-		imageView.setImage(image);
-		imageView.setClip(new Rectangle(-xStart, -yEnd, xAxis.getWidth(), yAxis.getHeight()));
-		imageView.resizeRelocate(xAxis.getLayoutX() + xStart, yAxis.getLayoutY() + yEnd, imageWidth, imageHeight);
-		imageView.setFitWidth(imageWidth);
-		imageView.setFitHeight(imageHeight);
+		imageDirtyRegion = null;
+		imageLookupTable = lookupTable;
+		imageValid = true;
+		imageViewport = viewport;
+		imageZMin = zMin;
+		imageZRange = zRange;
+
+		if ( fromPixelColumn < toPixelColumn && fromPixelRow < toPixelRow ) {
+
+			PoolingTask task = new PoolingTask(
+				getData(),
+				lookupTable,
+				zMin,
+				zRange,
+				getPooling() == Pooling.MEAN,
+				viewport,
+				width,
+				height,
+				imageBuffer,
+				fromPixelColumn,
+				toPixelColumn,
+				fromPixelRow,
+				toPixelRow
+			);
+
+			invoke(task, task.getCellsCount());
+
+			image.getPixelWriter().setPixels(
+				fromPixelColumn,
+				fromPixelRow,
+				toPixelColumn - fromPixelColumn,
+				toPixelRow - fromPixelRow,
+				PixelFormat.getIntArgbInstance(),
+				imageBuffer,
+				fromPixelRow * width + fromPixelColumn,
+				width
+			);
+
+		}
+
+		layoutImageView(imageView, null, viewX, viewY, viewWidth, viewHeight);
 
 	}
 
@@ -956,8 +1373,43 @@ public class DensityChartFX<X, Y> extends Chart implements Pluggable {
 
 	}
 
+	/**
+	 * Projection paths are rebuilt only when projections changed (i.e. after
+	 * a data change), or the axes were moved, resized or re-ranged. They are
+	 * built directly from the column and row sums of the statistics,
+	 * normalized to their range, so that no projection data is created at
+	 * each data change. Row sums of a {@link WaterfallData} are in ring
+	 * buffer order.
+	 */
 	private void layoutProjections() {
 
+		Data<X, Y> data = getData();
+		double[] layout = null;
+
+		if ( isProjectionLinesVisible() && !isDataEmpty() ) {
+
+			layout = new double[] {
+				xAxis.getLayoutX(),
+				xAxis.getWidth(),
+				xAxis.getDisplayPosition(data.getXValue(0)),
+				xAxis.getDisplayPosition(data.getXValue(data.getXSize() - 1)),
+				yAxis.getLayoutY(),
+				yAxis.getHeight(),
+				yAxis.getDisplayPosition(data.getYValue(0)),
+				yAxis.getDisplayPosition(data.getYValue(data.getYSize() - 1))
+			};
+
+			if ( projectionsValid && Arrays.equals(layout, projectionsLayout) ) {
+				return;
+			}
+
+		} else if ( projectionsLayout == null && !getPlotChildren().contains(xProjectionPath) ) {
+			return;
+		}
+
+		projectionsValid = true;
+		projectionsLayout = layout;
+
 		getPlotChildren().remove(xProjectionPath);
 		getPlotChildren().remove(yProjectionPath);
 
@@ -965,14 +1417,23 @@ public class DensityChartFX<X, Y> extends Chart implements Pluggable {
 		yProjectionPath.getElements().clear();
 
 
-		if ( isProjectionLinesVisible() ) {
+		if ( layout != null ) {
 
 			boolean startProjection = false;
+			double[] columnSums = statistics.getColumnSums();
+			double columnSumsMin = Double.MAX_VALUE;
+			double columnSumsMax = Double.NEGATIVE_INFINITY;
+
+			for ( int xIndex = 0; xIndex < data.getXSize(); xIndex++ ) {
+				columnSumsMin = Math.min(columnSumsMin, columnSums[xIndex]);
+				columnSumsMax = Math.max(columnSumsMax, columnSums[xIndex]);
+			}
 
-			for ( int xIndex = 0; xIndex < getData().getXSize(); xIndex++ ) {
+			for ( int xIndex = 0; xIndex < data.getXSize(); xIndex++ ) {
 
-				double x = xAxis.getLayoutX() + xAxis.getDisplayPosition(xProjection.getXValue(xIndex));
-				double y = yAxis.getLayoutY() + yAxis.getHeight() - xProjection.getYDoubleValue(xIndex) * yAxis.getHeight() * 0.2;
+				double projection = ( columnSums[xIndex] - columnSumsMin ) / ( columnSumsMax - columnSumsMin );
+				double x = xAxis.getLayoutX() + xAxis.getDisplayPosition(data.getXValue(xIndex));
+				double y = yAxis.getLayoutY() + yAxis.getHeight() - projection * yAxis.getHeight() * 0.2;
 
 				if ( x > xAxis.getLayoutX() && x < ( xAxis.getWidth() + xAxis.getLayoutX() ) ) {
 
@@ -990,10 +1451,16 @@ public class DensityChartFX<X, Y> extends Chart implements Pluggable {
 
 			startProjection = false;
 
-			for ( int yIndex = 0; yIndex < getData().getYSize(); yIndex++ ) {
+			double[] rowSums = statistics.getRowSums();
+			double rowSumsMin = statistics.getRowSumsMin();
+			double rowSumsRange = statistics.getRowSumsMax() - rowSumsMin;
+			int rowOffset = ( data instanceof WaterfallData ) ? ( (WaterfallData) data ).getRowOffset() : 0;
+
+			for ( int yIndex = 0; yIndex < data.getYSize(); yIndex++ ) {
 
-				double x = xAxis.getLayoutX() + yProjection.getXDoubleValue(yIndex) * xAxis.getWidth() * 0.2;
-				double y = yAxis.getLayoutY() + yAxis.getDisplayPosition(yProjection.getYValue(yIndex));
+				double projection = ( rowSums[( yIndex + rowOffset ) % rowSums.length] - rowSumsMin ) / rowSumsRange;
+				double x = xAxis.getLayoutX() + projection * xAxis.getWidth() * 0.2;
+				double y = yAxis.getLayoutY() + yAxis.getDisplayPosition(data.getYValue(yIndex));
 
 				if ( y > yAxis.getLayoutY() && y < ( yAxis.getHeight() + yAxis.getLayoutY() ) ) {
 
@@ -1069,6 +1536,16 @@ public class DensityChartFX<X, Y> extends Chart implements Pluggable {
 
 
 
+	private void updateWaterfallRows( WaterfallRows rows, int fromRow, int toRow ) {
+
+		DataRegion region = new DataRegion(0, rows.getXSize(), fromRow, toRow);
+
+		statistics.update(rows, region);
+
+		imageDirtyRegion = ( imageDirtyRegion == null ) ? region : imageDirtyRegion.union(region);
+
+	}
+
 	private void updateZAxisRange() {
 
 		if ( zAxis.isAutoRanging() ) {
@@ -1080,7 +1557,7 @@ public class DensityChartFX<X, Y> extends Chart implements Pluggable {
 			}
 
 			double lowerBound = Double.MAX_VALUE;
-			double upperBound = Double.MIN_VALUE;
+			double upperBound = Double.NEGATIVE_INFINITY;
 
 			int xDataCount = densityMapData.getXSize();
 			int yDataCount = densityMapData.getYSize();
@@ -1090,16 +1567,8 @@ public class DensityChartFX<X, Y> extends Chart implements Pluggable {
 				upperBound = zAxis.getUpperBound();
 			}
 
-			for ( int xIndex = 0; xIndex < xDataCount; xIndex++ ) {
-				for ( int yIndex = 0; yIndex < yDataCount; yIndex++ ) {
-
-					double zValue = densityMapData.getZValue(xIndex, yIndex);
-
-					lowerBound = Math.min(lowerBound, zValue);
-					upperBound = Math.max(upperBound, zValue);
-
-				}
-			}
+			lowerBound = Math.min(lowerBound, statistics.getMin());
+			upperBound = Math.max(upperBound, statistics.getMax());
 
 			zAxis.setLowerBound(lowerBound);
 			zAxis.setUpperBound(upperBound);
@@ -1121,6 +1590,7 @@ public class DensityChartFX<X, Y> extends Chart implements Pluggable {
 	@SuppressWarnings( "PublicInnerClass" )
 	public abstract static class AbstractData<X, Y> implements Data<X, Y> {
 
+		private DataRegion invalidatedRegion = null;
 		private final List<InvalidationListener> listeners = new LinkedList<>();
 
 		@Override
@@ -1134,9 +1604,33 @@ public class DensityChartFX<X, Y> extends Chart implements Pluggable {
 		 * added to the chart, it triggers repaint.
 		 */
 		public void fireInvalidated() {
-			if ( !listeners.isEmpty() ) {
-				new ArrayList<>(listeners).forEach(listener -> listener.invalidated(this));
-			}
+			fireInvalidated(null);
+		}
+
+		/**
+		 * Notifies listeners that only the Z values in the given region have
+		 * been changed, while X and Y coordinates are the same. If the data is
+		 * added to the chart, only the changed part of the image is repainted.
+		 *
+		 * @param fromXIndex The first changed X index (inclusive).
+		 * @param toXIndex   The last changed X index (exclusive).
+		 * @param fromYIndex The first changed Y index (inclusive).
+		 * @param toYIndex   The last changed Y index (exclusive).
+		 * @throws IndexOutOfBoundsException If the region is not inside the
+		 *                                   data.
+		 */
+		public void fireInvalidated( int fromXIndex, int toXIndex, int fromYIndex, int toYIndex ) throws IndexOutOfBoundsException {
+
+			Objects.checkFromToIndex(fromXIndex, toXIndex, getXSize());
+			Objects.checkFromToIndex(fromYIndex, toYIndex, getYSize());
+
+			fireInvalidated(new DataRegion(fromXIndex, toXIndex, fromYIndex, toYIndex));
+
+		}
+
+		@Override
+		public DataRegion getInvalidatedRegion() {
+			return invalidatedRegion;
 		}
 
 		@Override
@@ -1144,6 +1638,20 @@ public class DensityChartFX<X, Y> extends Chart implements Pluggable {
 			listeners.remove(listener);
 		}
 
+		private void fireInvalidated( DataRegion region ) {
+			if ( !listeners.isEmpty() ) {
+
+				invalidatedRegion = region;
+
+				try {
+					new ArrayList<>(listeners).forEach(listener -> listener.invalidated(this));
+				} finally {
+					invalidatedRegion = null;
+				}
+
+			}
+		}
+
 	}
 
 	/**
@@ -1290,6 +1798,187 @@ public class DensityChartFX<X, Y> extends Chart implements Pluggable {
 		 */
 		double getZValue( int xIndex, int yIndex );
 
+		/**
+		 * Copies the Z values of the given column (i.e. for all the Y
+		 * coordinates at the given X index) into the given array.
+		 * Implementations should override this method when they can provide
+		 * a faster bulk access.
+		 *
+		 * @param xIndex Index of the X coordinate.
+		 * @param column The array, at least {@link #getYSize()} long, to be
+		 *               filled with the Z values.
+		 */
+		default void getZColumn( int xIndex, double[] column ) {
+			for ( int yIndex = 0; yIndex < getYSize(); yIndex++ ) {
+				column[yIndex] = getZValue(xIndex, yIndex);
+			}
+		}
+
+		/**
+		 * Copies the Z values of the given row (i.e. for all the X coordinates
+		 * at the given Y index) into the given array. Implementations should
+		 * override this method when they can provide a faster bulk access.
+		 *
+		 * @param yIndex Index of the Y coordinate.
+		 * @param row    The array, at least {@link #getXSize()} long, to be
+		 *               filled with the Z values.
+		 */
+		default void getZRow( int yIndex, double[] row ) {
+			for ( int xIndex = 0; xIndex < getXSize(); xIndex++ ) {
+				row[xIndex] = getZValue(xIndex, yIndex);
+			}
+		}
+
+		/**
+		 * Copies the Z values of the given row between the given X indices
+		 * into the given array, starting at index 0, so that only the visible
+		 * columns of a zoomed chart are read. Implementations should override
+		 * this method when they can provide a faster bulk access. The default
+		 * implementation calls {@link #getZRow(int, double[])} when the whole
+		 * row is requested.
+		 *
+		 * @param yIndex Index of the Y coordinate.
+		 * @param fromX  Index of the first X coordinate to be copied.
+		 * @param toX    Index after the last X coordinate to be copied.
+		 * @param row    The array, at least {@code toX - fromX} long, to be
+		 *               filled with the Z values.
+		 */
+		default void getZRow( int yIndex, int fromX, int toX, double[] row ) {
+			if ( fromX == 0 && toX == getXSize() ) {
+				getZRow(yIndex, row);
+			} else {
+				for ( int xIndex = fromX; xIndex < toX; xIndex++ ) {
+					row[xIndex - fromX] = getZValue(xIndex, yIndex);
+				}
+			}
+		}
+
+		/**
+		 * Returns the region of Z values changed by the invalidation being
+		 * notified. It is meaningful only while listeners are being notified,
+		 * and allows the chart to update only the changed part of the image,
+		 * projections and Z range.
+		 *
+		 * @return The changed region, or {@code null} if the whole data,
+		 *         including X and Y coordinates and sizes, could be changed.
+		 */
+		default DataRegion getInvalidatedRegion() {
+			return null;
+		}
+
+	}
+
+	/**
+	 * A rectangular region of {@link Data} Z values, made of the cells whose
+	 * X index is in the [{@link #getFromXIndex()}, {@link #getToXIndex()})
+	 * range and whose Y index is in the [{@link #getFromYIndex()},
+	 * {@link #getToYIndex()}) range.
+	 */
+	@SuppressWarnings( "PublicInnerClass" )
+	public static final class DataRegion {
+
+		private final int fromXIndex;
+		private final int fromYIndex;
+		private final int toXIndex;
+		private final int toYIndex;
+
+		/**
+		 * Creates a new region.
+		 *
+		 * @param fromXIndex The first X index (inclusive).
+		 * @param toXIndex   The last X index (exclusive).
+		 * @param fromYIndex The first Y index (inclusive).
+		 * @param toYIndex   The last Y index (exclusive).
+		 * @throws IllegalArgumentException If an index is negative, or a
+		 *                                  range is reversed.
+		 */
+		public DataRegion( int fromXIndex, int toXIndex, int fromYIndex, int toYIndex ) throws IllegalArgumentException {
+
+			if ( fromXIndex < 0 || fromXIndex > toXIndex || fromYIndex < 0 || fromYIndex > toYIndex ) {
+				throw new IllegalArgumentException(MessageFormat.format(
+					"Invalid region [x: {0}-{1}, y: {2}-{3}].",
+					fromXIndex,
+					toXIndex,
+					fromYIndex,
+					toYIndex
+				));
+			}
+
+			this.fromXIndex = fromXIndex;
+			this.toXIndex = toXIndex;
+			this.fromYIndex = fromYIndex;
+			this.toYIndex = toYIndex;
+
+		}
+
+		/**
+		 * @return The first X index (inclusive).
+		 */
+		public int getFromXIndex() {
+			return fromXIndex;
+		}
+
+		/**
+		 * @return The first Y index (inclusive).
+		 */
+		public int getFromYIndex() {
+			return fromYIndex;
+		}
+
+		/**
+		 * @return The last X index (exclusive).
+		 */
+		public int getToXIndex() {
+			return toXIndex;
+		}
+
+		/**
+		 * @return The last Y index (exclusive).
+		 */
+		public int getToYIndex() {
+			return toYIndex;
+		}
+
+		/**
+		 * @return {@code true} if this region contains no cells.
+		 */
+		public boolean isEmpty() {
+			return fromXIndex == toXIndex || fromYIndex == toYIndex;
+		}
+
+		@Override
+		public String toString() {
+			return MessageFormat.format(
+				"DataRegion[x: {0}-{1}, y: {2}-{3}]",
+				fromXIndex,
+				toXIndex,
+				fromYIndex,
+				toYIndex
+			);
+		}
+
+		/**
+		 * @param region The region to be merged with this one.
+		 * @return The smallest region containing both this and the given
+		 *         region.
+		 */
+		public DataRegion union( DataRegion region ) {
+
+			if ( region.isEmpty() ) {
+				return this;
+			} else if ( isEmpty() ) {
+				return region;
+			}
+
+			return new DataRegion(
+				Math.min(fromXIndex, region.fromXIndex),
+				Math.max(toXIndex, region.toXIndex),
+				Math.min(fromYIndex, region.fromYIndex),
+				Math.max(toYIndex, region.toYIndex)
+			);
+
+		}
+
 	}
 
 	/**
@@ -1337,6 +2026,11 @@ public class DensityChartFX<X, Y> extends Chart implements Pluggable {
 			return yValues[yIndex];
 		}
 
+		@Override
+		public final void getZColumn( int xIndex, double[] column ) {
+			System.arraycopy(zValues[xIndex], 0, column, 0, yValues.length);
+		}
+
 		@Override
 		public final double getZValue( int xIndex, int yIndex ) {
 			return zValues[xIndex][yIndex];
@@ -1369,6 +2063,253 @@ public class DensityChartFX<X, Y> extends Chart implements Pluggable {
 
 	}
 
+	/**
+	 * {@link Data} implementation based on primitive arrays: X and Y
+	 * coordinates are stored into {@code double[]} arrays, and Z values into a
+	 * single row-major {@link DoubleBuffer} (i.e. the Z value at
+	 * {@code [xIndex, yIndex]} is stored at index
+	 * {@code yIndex * getXSize() + xIndex}), either wrapping a
+	 * {@code double[]} array or a direct buffer.
+	 * <p>
+	 * Rows of Z values are copied in bulk, avoiding per-cell calls and boxing
+	 * in the chart rendering loops.</p>
+	 */
+	@SuppressWarnings( "PublicInnerClass" )
+	public static class DoubleGridData extends AbstractData<Number, Number> {
+
+		private double[] xValues;
+		private double[] yValues;
+		private double[] zArray;
+		private int zArrayOffset;
+		private DoubleBuffer zBuffer;
+
+		/**
+		 * Creates new instance.
+		 *
+		 * @param xValues X coordinates.
+		 * @param yValues Y coordinates.
+		 * @param zValues Z values, in row-major order.
+		 * @see #set(double[], double[], double[])
+		 */
+		public DoubleGridData( double[] xValues, double[] yValues, double[] zValues ) {
+			set(xValues, yValues, zValues);
+		}
+
+		/**
+		 * Creates new instance.
+		 *
+		 * @param xValues X coordinates.
+		 * @param yValues Y coordinates.
+		 * @param zValues Z values, in row-major order.
+		 * @see #set(double[], double[], DoubleBuffer)
+		 */
+		public DoubleGridData( double[] xValues, double[] yValues, DoubleBuffer zValues ) {
+			set(xValues, yValues, zValues);
+		}
+
+		/**
+		 * @param xIndex Index of the X coordinate.
+		 * @return The X coordinate at the given index.
+		 */
+		public final double getXDoubleValue( int xIndex ) {
+			return xValues[xIndex];
+		}
+
+		@Override
+		public final int getXSize() {
+			return xValues.length;
+		}
+
+		@Override
+		public final Number getXValue( int xIndex ) {
+			return xValues[xIndex];
+		}
+
+		/**
+		 * @param yIndex Index of the Y coordinate.
+		 * @return The Y coordinate at the given index.
+		 */
+		public final double getYDoubleValue( int yIndex ) {
+			return yValues[yIndex];
+		}
+
+		@Override
+		public final int getYSize() {
+			return yValues.length;
+		}
+
+		@Override
+		public final Number getYValue( int yIndex ) {
+			return yValues[yIndex];
+		}
+
+		@Override
+		public final void getZColumn( int xIndex, double[] column ) {
+
+			int xSize = xValues.length;
+			int ySize = yValues.length;
+
+			if ( zArray != null ) {
+				for ( int yIndex = 0, index = zArrayOffset + xIndex; yIndex < ySize; yIndex++, index += xSize ) {
+					column[yIndex] = zArray[index];
+				}
+			} else {
+				for ( int yIndex = 0, index = xIndex; yIndex < ySize; yIndex++, index += xSize ) {
+					column[yIndex] = zBuffer.get(index);
+				}
+			}
+
+		}
+
+		@Override
+		public final void getZRow( int yIndex, double[] row ) {
+			getZRow(yIndex, 0, xValues.length, row);
+		}
+
+		@Override
+		public final void getZRow( int yIndex, int fromX, int toX, double[] row ) {
+
+			int offset = yIndex * xValues.length + fromX;
+
+			if ( zArray != null ) {
+				System.arraycopy(zArray, zArrayOffset + offset, row, 0, toX - fromX);
+			} else {
+				zBuffer.duplicate().position(offset).get(row, 0, toX - fromX);
+			}
+
+		}
+
+		@Override
+		public final double getZValue( int xIndex, int yIndex ) {
+
+			int index = yIndex * xValues.length + xIndex;
+
+			return ( zArray != null ) ? zArray[zArrayOffset + index] : zBuffer.get(index);
+
+		}
+
+		/**
+		 * Replaces the Z values of one or more consecutive rows, notifying
+		 * listeners that only those rows changed.
+		 *
+		 * @param fromYIndex The Y index of the first row to be replaced.
+		 * @param zValues    The new Z values, in row-major order, whose length
+		 *                   must be a multiple of {@link #getXSize()}.
+		 * @throws NullPointerException      If {@code zValues} is {@code null}.
+		 * @throws IllegalArgumentException  If the Z values length is wrong.
+		 * @throws IndexOutOfBoundsException If the rows are not inside the
+		 *                                   data.
+		 * @throws java.nio.ReadOnlyBufferException If the Z values buffer is
+		 *                                          read-only.
+		 */
+		public final void setZRows( int fromYIndex, double[] zValues ) {
+
+			Objects.requireNonNull(zValues, "zValues must not be null");
+
+			int xSize = xValues.length;
+
+			if ( xSize == 0 || zValues.length % xSize != 0 ) {
+				throw new IllegalArgumentException(MessageFormat.format(
+					"Wrong number of Z values [expected a multiple of {0}, found: {1}].",
+					xSize,
+					zValues.length
+				));
+			}
+
+			int toYIndex = fromYIndex + zValues.length / xSize;
+
+			Objects.checkFromToIndex(fromYIndex, toYIndex, yValues.length);
+
+			if ( zArray != null ) {
+				System.arraycopy(zValues, 0, zArray, zArrayOffset + fromYIndex * xSize, zValues.length);
+			} else {
+				zBuffer.duplicate().position(fromYIndex * xSize).put(zValues);
+			}
+
+			fireInvalidated(0, xSize, fromYIndex, toYIndex);
+
+		}
+
+		/**
+		 * Sets the data.
+		 *
+		 * @param xValues X coordinates.
+		 * @param yValues Y coordinates.
+		 * @param zValues Z values, in row-major order, whose length must be
+		 *                equal to {@code xValues.length * yValues.length}.
+		 * @throws NullPointerException     If any of the parameters is
+		 *                                  {@code null}.
+		 * @throws IllegalArgumentException If the Z values length is wrong.
+		 */
+		public final void set( double[] xValues, double[] yValues, double[] zValues ) {
+			set(xValues, yValues, DoubleBuffer.wrap(Objects.requireNonNull(zValues, "zValues must not be null")));
+		}
+
+		/**
+		 * Sets the data.
+		 *
+		 * @param xValues X coordinates.
+		 * @param yValues Y coordinates.
+		 * @param zValues Z values, in row-major order, starting at the buffer
+		 *                position and whose remaining length must be equal to
+		 *                {@code xValues.length * yValues.length}.
+		 * @throws NullPointerException     If any of the parameters is
+		 *                                  {@code null}.
+		 * @throws IllegalArgumentException If the Z values length is wrong.
+		 */
+		@SuppressWarnings( "AssignmentToCollectionOrArrayFieldFromParameter" )
+		public final void set( double[] xValues, double[] yValues, DoubleBuffer zValues ) {
+
+			Objects.requireNonNull(xValues, "xValues must not be null");
+			Objects.requireNonNull(yValues, "yValues must not be null");
+			Objects.requireNonNull(zValues, "zValues must not be null");
+
+			if ( zValues.remaining() != xValues.length * yValues.length ) {
+				throw new IllegalArgumentException(MessageFormat.format(
+					"Wrong number of Z values [expected: {0}, found: {1}].",
+					xValues.length * yValues.length,
+					zValues.remaining()
+				));
+			}
+
+			this.xValues = xValues;
+			this.yValues = yValues;
+			this.zBuffer = zValues.slice();
+
+			if ( zBuffer.hasArray() ) {
+				this.zArray = zBuffer.array();
+				this.zArrayOffset = zBuffer.arrayOffset();
+			} else {
+				this.zArray = null;
+				this.zArrayOffset = 0;
+			}
+
+			fireInvalidated();
+
+		}
+
+	}
+
+	/**
+	 * How the Z values of the cells displayed into the same pixel are
+	 * combined, when cells are more than the available pixels.
+	 */
+	@SuppressWarnings( "PublicInnerClass" )
+	public static enum Pooling {
+
+		/**
+		 * The pixel displays the greatest Z value, so that isolated peaks
+		 * remain visible.
+		 */
+		MAX,
+
+		/**
+		 * The pixel displays the mean of the Z values.
+		 */
+		MEAN
+
+	}
+
 	/**
 	 * {@link Data} implementation based on arrays.
 	 *
@@ -1446,6 +2387,196 @@ public class DensityChartFX<X, Y> extends Chart implements Pluggable {
 
 	}
 
+	/**
+	 * {@link Data} implementation for waterfall (spectrogram) displays: a
+	 * fixed-capacity ring buffer of rows, each one made of the Z values for
+	 * all the X coordinates, and the Y coordinate of the row (e.g. the time it
+	 * was acquired). Once the capacity is reached, appending a new row
+	 * discards the oldest one.
+	 * <p>
+	 * Row 0 is always the oldest one, and rows must be appended in increasing
+	 * Y order. The chart colour-maps only the appended rows into a circular
+	 * image, so the cost of each new row is proportional to the number of X
+	 * coordinates, not to the number of displayed rows.</p>
+	 * <p>
+	 * This class is not thread-safe, and should be modified only from the
+	 * JavaFX application thread once bound to a chart.</p>
+	 */
+	@SuppressWarnings( "PublicInnerClass" )
+	public static class WaterfallData extends AbstractData<Number, Number> {
+
+		private int head = 0;
+		private int size = 0;
+		private long totalRowCount = 0;
+		private final double[] xValues;
+		private final double[] yValues;
+		private final double[] zValues;
+
+		/**
+		 * Creates a new empty instance.
+		 *
+		 * @param xValues  X coordinates.
+		 * @param capacity The maximum number of rows.
+		 * @throws NullPointerException     If {@code xValues} is {@code null}.
+		 * @throws IllegalArgumentException If {@code capacity} is not
+		 *                                  positive.
+		 */
+		@SuppressWarnings( "AssignmentToCollectionOrArrayFieldFromParameter" )
+		public WaterfallData( double[] xValues, int capacity ) throws NullPointerException, IllegalArgumentException {
+
+			Objects.requireNonNull(xValues, "xValues must not be null");
+
+			if ( capacity <= 0 ) {
+				throw new IllegalArgumentException(MessageFormat.format(
+					"Capacity must be positive [{0}].",
+					capacity
+				));
+			}
+
+			this.xValues = xValues;
+			this.yValues = new double[capacity];
+			this.zValues = new double[capacity * xValues.length];
+
+		}
+
+		/**
+		 * Appends a row, discarding the oldest one if the capacity is reached.
+		 *
+		 * @param y       The Y coordinate of the row, not smaller than the
+		 *                last one.
+		 * @param zValues The Z values of the row, one for each X coordinate.
+		 * @throws NullPointerException     If {@code zValues} is {@code null}.
+		 * @throws IllegalArgumentException If the Z values length is wrong.
+		 */
+		public void addRow( double y, double[] zValues ) throws NullPointerException, IllegalArgumentException {
+
+			Objects.requireNonNull(zValues, "zValues must not be null");
+
+			if ( zValues.length != xValues.length ) {
+				throw new IllegalArgumentException(MessageFormat.format(
+					"Wrong number of Z values [expected: {0}, found: {1}].",
+					xValues.length,
+					zValues.length
+				));
+			}
+
+			int capacity = yValues.length;
+			int tail = ( head + size ) % capacity;
+
+			yValues[tail] = y;
+			System.arraycopy(zValues, 0, this.zValues, tail * xValues.length, xValues.length);
+
+			if ( size < capacity ) {
+				size++;
+			} else {
+				head = ( head + 1 ) % capacity;
+			}
+
+			totalRowCount++;
+
+			fireInvalidated();
+
+		}
+
+		/**
+		 * Removes all the rows.
+		 */
+		public void clear() {
+			if ( totalRowCount > 0 ) {
+				head = 0;
+				size = 0;
+				totalRowCount = 0;
+				fireInvalidated();
+			}
+		}
+
+		/**
+		 * @return The maximum number of rows.
+		 */
+		public final int getCapacity() {
+			return yValues.length;
+		}
+
+		/**
+		 * @return The position in the ring buffer of the oldest row, i.e. the
+		 *         one at Y index 0.
+		 */
+		public final int getRowOffset() {
+			return head;
+		}
+
+		/**
+		 * @return The total number of rows appended since creation or last
+		 *         {@link #clear()}.
+		 */
+		public final long getTotalRowCount() {
+			return totalRowCount;
+		}
+
+		/**
+		 * @param xIndex Index of the X coordinate.
+		 * @return The X coordinate at the given index.
+		 */
+		public final double getXDoubleValue( int xIndex ) {
+			return xValues[xIndex];
+		}
+
+		@Override
+		public final int getXSize() {
+			return xValues.length;
+		}
+
+		@Override
+		public final Number getXValue( int xIndex ) {
+			return xValues[xIndex];
+		}
+
+		/**
+		 * @param yIndex Index of the Y coordinate.
+		 * @return The Y coordinate at the given index.
+		 */
+		public final double getYDoubleValue( int yIndex ) {
+			return yValues[toRowIndex(yIndex)];
+		}
+
+		@Override
+		public final int getYSize() {
+			return size;
+		}
+
+		@Override
+		public final Number getYValue( int yIndex ) {
+			return getYDoubleValue(yIndex);
+		}
+
+		@Override
+		public final void getZColumn( int xIndex, double[] column ) {
+			for ( int yIndex = 0; yIndex < size; yIndex++ ) {
+				column[yIndex] = zValues[toRowIndex(yIndex) * xValues.length + xIndex];
+			}
+		}
+
+		@Override
+		public final void getZRow( int yIndex, double[] row ) {
+			System.arraycopy(zValues, toRowIndex(yIndex) * xValues.length, row, 0, xValues.length);
+		}
+
+		@Override
+		public final void getZRow( int yIndex, int fromX, int toX, double[] row ) {
+			System.arraycopy(zValues, toRowIndex(yIndex) * xValues.length + fromX, row, 0, toX - fromX);
+		}
+
+		@Override
+		public final double getZValue( int xIndex, int yIndex ) {
+			return zValues[toRowIndex(yIndex) * xValues.length + xIndex];
+		}
+
+		private int toRowIndex( int yIndex ) {
+			return ( head + Objects.checkIndex(yIndex, size) ) % yValues.length;
+		}
+
+	}
+
 	/**
 	 * We layout the legend as a part of chart-content rather than relying on
 	 * the {@link Chart#layoutChildren()} to make the layout. The reason is that
@@ -1541,6 +2672,307 @@ public class DensityChartFX<X, Y> extends Chart implements Pluggable {
 		
 	}
 
+	/**
+	 * Maps a band of rows of the density data into the ARGB image buffer,
+	 * splitting it in halves until each band contains no more than
+	 * {@link #PARALLEL_THRESHOLD} cells. Only the cells between the given
+	 * columns are mapped. Bands write disjoint ranges of the buffer, so no
+	 * synchronization is needed. Data are only read, while the JavaFX
+	 * application thread waits for the task to complete.
+	 */
+	@SuppressWarnings( { "serial", "CloneableClassWithoutClone" } )
+	private static class ColorMappingTask extends RecursiveAction {
+
+		/**
+		 * Maximum number of cells mapped by a single band.
+		 */
+		static final int PARALLEL_THRESHOLD = 65536;
+
+		private final int[] buffer;
+		private final transient Data<?, ?> data;
+		private final int fromColumn;
+		private final int fromRow;
+		private final transient ColorLookupTable lookupTable;
+		private final int scaleX;
+		private final int scaleY;
+		private final int toColumn;
+		private final int toRow;
+		private final double zMin;
+		private final double zRange;
+
+		ColorMappingTask( Data<?, ?> data, ColorLookupTable lookupTable, double zMin, double zRange, int scaleX, int scaleY, int[] buffer, int fromColumn, int toColumn, int fromRow, int toRow ) {
+			this.data = data;
+			this.lookupTable = lookupTable;
+			this.zMin = zMin;
+			this.zRange = zRange;
+			this.scaleX = scaleX;
+			this.scaleY = scaleY;
+			this.buffer = buffer;
+			this.fromColumn = fromColumn;
+			this.toColumn = toColumn;
+			this.fromRow = fromRow;
+			this.toRow = toRow;
+		}
+
+		@Override
+		protected void compute() {
+
+			if ( toRow - fromRow <= 1 || (long) ( toRow - fromRow ) * ( toColumn - fromColumn ) <= PARALLEL_THRESHOLD ) {
+				map(data.getXSize());
+			} else {
+
+				int middle = ( fromRow + toRow ) >>> 1;
+
+				invokeAll(
+					new ColorMappingTask(data, lookupTable, zMin, zRange, scaleX, scaleY, buffer, fromColumn, toColumn, fromRow, middle),
+					new ColorMappingTask(data, lookupTable, zMin, zRange, scaleX, scaleY, buffer, fromColumn, toColumn, middle, toRow)
+				);
+
+			}
+
+		}
+
+		private void map( int xSize ) {
+
+			int width = xSize * scaleX;
+			int segmentStart = fromColumn * scaleX;
+			int segmentLength = ( toColumn - fromColumn ) * scaleX;
+			double[] row = new double[toColumn - fromColumn];
+
+			for ( int y = fromRow; y < toRow; y++ ) {
+
+				int rowStart = y * scaleY * width;
+
+				data.getZRow(y, fromColumn, toColumn, row);
+
+				for ( int x = fromColumn; x < toColumn; x++ ) {
+
+					int argb = lookupTable.argb(( row[x - fromColumn] - zMin ) / zRange);
+					int pixel = rowStart + x * scaleX;
+
+					for ( int dx = 0; dx < scaleX; dx++ ) {
+						buffer[pixel + dx] = argb;
+					}
+
+				}
+
+				for ( int dy = 1; dy < scaleY; dy++ ) {
+					System.arraycopy(buffer, rowStart + segmentStart, buffer, rowStart + dy * width + segmentStart, segmentLength);
+				}
+
+			}
+
+		}
+
+	}
+
+	/**
+	 * Maps a band of image rows into the ARGB image buffer, pooling the Z
+	 * values of the cells mapped into each pixel, and splitting the band in
+	 * halves until each one pools no more than
+	 * {@link ColorMappingTask#PARALLEL_THRESHOLD} cells. Pixel {@code p} of
+	 * an image {@code pixels} wide displaying {@code cells} cells pools the
+	 * cells from {@code p * cells / pixels} to {@code (p + 1) * cells / pixels}
+	 * (at least one), so that the same code replicates cells when they are
+	 * less than pixels.
+	 */
+	@SuppressWarnings( { "serial", "CloneableClassWithoutClone" } )
+	private static class PoolingTask extends RecursiveAction {
+
+		private final int[] buffer;
+		private final transient Data<?, ?> data;
+		private final int fromPixelColumn;
+		private final int fromPixelRow;
+		private final int height;
+		private final transient ColorLookupTable lookupTable;
+		private final boolean mean;
+		private final int toPixelColumn;
+		private final int toPixelRow;
+		private final int[] viewport;
+		private final int width;
+		private final double zMin;
+		private final double zRange;
+
+		@SuppressWarnings( "AssignmentToCollectionOrArrayFieldFromParameter" )
+		PoolingTask( Data<?, ?> data, ColorLookupTable lookupTable, double zMin, double zRange, boolean mean, int[] viewport, int width, int height, int[] buffer, int fromPixelColumn, int toPixelColumn, int fromPixelRow, int toPixelRow ) {
+			this.data = data;
+			this.lookupTable = lookupTable;
+			this.zMin = zMin;
+			this.zRange = zRange;
+			this.mean = mean;
+			this.viewport = viewport;
+			this.width = width;
+			this.height = height;
+			this.buffer = buffer;
+			this.fromPixelColumn = fromPixelColumn;
+			this.toPixelColumn = toPixelColumn;
+			this.fromPixelRow = fromPixelRow;
+			this.toPixelRow = toPixelRow;
+		}
+
+		/**
+		 * @return An estimate of the number of cells read by this task.
+		 */
+		long getCellsCount() {
+
+			int columns = viewport[1] - viewport[0];
+			int rows = viewport[3] - viewport[2];
+
+			return (long) ( toPixelRow - fromPixelRow ) * ( ( rows + height - 1 ) / height )
+				 * ( toPixelColumn - fromPixelColumn ) * ( ( columns + width - 1 ) / width );
+
+		}
+
+		@Override
+		protected void compute() {
+
+			if ( toPixelRow - fromPixelRow <= 1 || getCellsCount() <= ColorMappingTask.PARALLEL_THRESHOLD ) {
+				map();
+			} else {
+
+				int middle = ( fromPixelRow + toPixelRow ) >>> 1;
+
+				invokeAll(
+					new PoolingTask(data, lookupTable, zMin, zRange, mean, viewport, width, height, buffer, fromPixelColumn, toPixelColumn, fromPixelRow, middle),
+					new PoolingTask(data, lookupTable, zMin, zRange, mean, viewport, width, height, buffer, fromPixelColumn, toPixelColumn, middle, toPixelRow)
+				);
+
+			}
+
+		}
+
+		/**
+		 * @return The first cell pooled into the given pixel.
+		 */
+		private static int fromCell( int pixel, int firstCell, int cells, int pixels ) {
+			return firstCell + (int) ( (long) pixel * cells / pixels );
+		}
+
+		/**
+		 * @return The cell after the last one pooled into the given pixel.
+		 */
+		private static int toCell( int pixel, int firstCell, int cells, int pixels ) {
+			return Math.max(fromCell(pixel, firstCell, cells, pixels) + 1, firstCell + (int) ( (long) ( pixel + 1 ) * cells / pixels ));
+		}
+
+		private void map() {
+
+			int columns = viewport[1] - viewport[0];
+			int rows = viewport[3] - viewport[2];
+			int pixelColumns = toPixelColumn - fromPixelColumn;
+			int[] fromCells = new int[pixelColumns];
+			int[] toCells = new int[pixelColumns];
+			double[] pooled = new double[pixelColumns];
+			double[] row = new double[columns];
+
+			for ( int p = 0; p < pixelColumns; p++ ) {
+				fromCells[p] = fromCell(fromPixelColumn + p, viewport[0], columns, width);
+				toCells[p] = toCell(fromPixelColumn + p, viewport[0], columns, width);
+			}
+
+			for ( int pixelRow = fromPixelRow; pixelRow < toPixelRow; pixelRow++ ) {
+
+				int fromY = fromCell(pixelRow, viewport[2], rows, height);
+				int toY = toCell(pixelRow, viewport[2], rows, height);
+
+				Arrays.fill(pooled, mean ? 0.0 : Double.NEGATIVE_INFINITY);
+
+				for ( int y = fromY; y < toY; y++ ) {
+
+					data.getZRow(y, viewport[0], viewport[1], row);
+
+					for ( int p = 0; p < pixelColumns; p++ ) {
+						for ( int x = fromCells[p] - viewport[0]; x < toCells[p] - viewport[0]; x++ ) {
+							pooled[p] = mean ? pooled[p] + row[x] : Math.max(pooled[p], row[x]);
+						}
+					}
+
+				}
+
+				int pixel = pixelRow * width + fromPixelColumn;
+
+				for ( int p = 0; p < pixelColumns; p++ ) {
+
+					double value = mean
+						? pooled[p] / ( ( toCells[p] - fromCells[p] ) * ( toY - fromY ) )
+						: pooled[p];
+
+					buffer[pixel + p] = lookupTable.argb(( value - zMin ) / zRange);
+
+				}
+
+			}
+
+		}
+
+	}
+
+	/**
+	 * Read-only view of the rows of a {@link WaterfallData} in ring buffer
+	 * order, used to colour-map the circular image and keep statistics
+	 * without moving the existing rows when a new one is appended.
+	 */
+	static final class WaterfallRows extends AbstractData<Number, Number> {
+
+		private final WaterfallData waterfall;
+
+		WaterfallRows( WaterfallData waterfall ) {
+			this.waterfall = waterfall;
+		}
+
+		@Override
+		public int getXSize() {
+			return waterfall.getXSize();
+		}
+
+		@Override
+		public Number getXValue( int xIndex ) {
+			return waterfall.getXValue(xIndex);
+		}
+
+		@Override
+		public int getYSize() {
+			return waterfall.getYSize();
+		}
+
+		@Override
+		public Number getYValue( int row ) {
+			return waterfall.getYValue(toYIndex(row));
+		}
+
+		@Override
+		public void getZRow( int row, double[] zRow ) {
+			waterfall.getZRow(toYIndex(row), zRow);
+		}
+
+		@Override
+		public void getZRow( int row, int fromX, int toX, double[] zRow ) {
+			waterfall.getZRow(toYIndex(row), fromX, toX, zRow);
+		}
+
+		@Override
+		public double getZValue( int xIndex, int row ) {
+			return waterfall.getZValue(xIndex, toYIndex(row));
+		}
+
+		/**
+		 * @param yIndex The index of a row in the waterfall data.
+		 * @return The position of the row in the ring buffer.
+		 */
+		int toRowIndex( int yIndex ) {
+			return ( yIndex + waterfall.getRowOffset() ) % waterfall.getYSize();
+		}
+
+		/**
+		 * @param row The position of a row in the ring buffer.
+		 * @return The index of the row in the waterfall data.
+		 */
+		int toYIndex( int row ) {
+			return ( row - waterfall.getRowOffset() + waterfall.getYSize() ) % waterfall.getYSize();
+		}
+
+	}
+
 	private static class StyleableProperties {
 
 		private static final CssMetaData<DensityChartFX<?, ?>, Boolean> HORIZONTAL_GRID_LINE_VISIBLE = new CssMetaData<>(
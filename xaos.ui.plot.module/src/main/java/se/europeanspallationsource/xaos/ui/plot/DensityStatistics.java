@@ -0,0 +1,405 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ * Copyright (C) 2018-2019 by European Spallation Source ERIC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.europeanspallationsource.xaos.ui.plot;
+
+
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import se.europeanspallationsource.xaos.core.util.ThreadPools;
+import se.europeanspallationsource.xaos.ui.plot.DensityChartFX.Data;
+import se.europeanspallationsource.xaos.ui.plot.DensityChartFX.DataRegion;
+
+
+/**
+ * Sums of Z values along rows and columns, and Z values range, of a
+ * {@link DensityChartFX.Data}, used by {@link DensityChartFX} to build the
+ * projections and auto-range the Z axis.
+ * <p>
+ * Statistics are updated incrementally when only a {@link DataRegion} of the
+ * data changed: row sums and ranges are kept for each row, and column sums are
+ * kept for each block of {@link #ROWS_PER_BLOCK} rows, so only the rows of
+ * the blocks intersecting the region must be read again. Sums are always
+ * accumulated in the same order, so incremental and full updates give the
+ * same results.</p>
+ * <p>
+ * The ranges of Z values and of row sums are kept incrementally too: the
+ * ranges of the changed rows are merged into the current ones, that are
+ * computed again from all the rows only when a changed row held one of the
+ * extremes.</p>
+ * <p>
+ * If the number of rows grew, the new rows must be inside the changed
+ * region, and the statistics of the other rows are kept.</p>
+ * <p>
+ * Blocks are independent, so when more than {@link #PARALLEL_THRESHOLD}
+ * values must be read they are processed in parallel on the
+ * {@link ThreadPools#workStealingThreadPool() work-stealing pool}. Data are
+ * only read, and must not be modified during the update.</p>
+ *
+ * @author claudio.rosati@esss.se
+ */
+final class DensityStatistics {
+
+	/**
+	 * Minimum number of values to be read for the update to be performed in
+	 * parallel.
+	 */
+	static final int PARALLEL_THRESHOLD = 65536;
+
+	/**
+	 * Number of rows whose column sums are kept together.
+	 */
+	static final int ROWS_PER_BLOCK = 64;
+
+	private double[][] blockColumnSums = new double[0][0];
+	private double[] columnSums = new double[0];
+	private double max = Double.NEGATIVE_INFINITY;
+	private double min = Double.MAX_VALUE;
+	private double[] rowMaxs = new double[0];
+	private double[] rowMins = new double[0];
+	private double[] rowSums = new double[0];
+	private double rowSumsMax = Double.NEGATIVE_INFINITY;
+	private double rowSumsMin = Double.MAX_VALUE;
+	private int xSize = 0;
+	private int ySize = 0;
+
+	/**
+	 * @return The sums of Z values for each X index. The returned array must
+	 *         not be modified.
+	 */
+	double[] getColumnSums() {
+		return columnSums;
+	}
+
+	/**
+	 * @return The greatest Z value, or {@link Double#NEGATIVE_INFINITY} if
+	 *         there are no values.
+	 */
+	double getMax() {
+		return max;
+	}
+
+	/**
+	 * @return The smallest Z value, or {@link Double#MAX_VALUE} if there are
+	 *         no values.
+	 */
+	double getMin() {
+		return min;
+	}
+
+	/**
+	 * @return The sums of Z values for each Y index. The returned array must
+	 *         not be modified.
+	 */
+	double[] getRowSums() {
+		return rowSums;
+	}
+
+	/**
+	 * @return The greatest row sum, or {@link Double#NEGATIVE_INFINITY} if
+	 *         there are no rows.
+	 */
+	double getRowSumsMax() {
+		return rowSumsMax;
+	}
+
+	/**
+	 * @return The smallest row sum, or {@link Double#MAX_VALUE} if there are
+	 *         no rows.
+	 */
+	double getRowSumsMin() {
+		return rowSumsMin;
+	}
+
+	/**
+	 * Updates the statistics after the given region of the given data changed.
+	 * All the statistics are recomputed if the region is {@code null}, the
+	 * number of columns changed or the number of rows decreased.
+	 *
+	 * @param data   The data whose statistics must be updated.
+	 * @param region The changed region, or {@code null}.
+	 */
+	void update( Data<?, ?> data, DataRegion region ) {
+
+		int fromXIndex;
+		int toXIndex;
+		int fromYIndex;
+		int toYIndex;
+		boolean rescanValues = true;
+		boolean rescanRowSums = true;
+
+		if ( region == null || data.getXSize() != xSize || data.getYSize() < ySize ) {
+
+			resize(data.getXSize(), data.getYSize());
+
+			fromXIndex = 0;
+			toXIndex = xSize;
+			fromYIndex = 0;
+			toYIndex = ySize;
+
+		} else {
+
+			int oldYSize = ySize;
+
+			if ( data.getYSize() > ySize ) {
+				grow(data.getYSize());
+			}
+
+			fromXIndex = region.getFromXIndex();
+			toXIndex = region.getToXIndex();
+			fromYIndex = region.getFromYIndex();
+			toYIndex = region.getToYIndex();
+			rescanValues = false;
+			rescanRowSums = false;
+
+			//	Rows added by grow(...) held no values.
+			for ( int yIndex = fromYIndex; yIndex < Math.min(toYIndex, oldYSize); yIndex++ ) {
+				rescanValues |= rowMins[yIndex] <= min || rowMaxs[yIndex] >= max;
+				rescanRowSums |= rowSums[yIndex] <= rowSumsMin || rowSums[yIndex] >= rowSumsMax;
+			}
+
+		}
+
+		if ( fromXIndex >= toXIndex || fromYIndex >= toYIndex ) {
+			updateRanges(fromYIndex, fromYIndex, rescanValues, rescanRowSums);
+			return;
+		}
+
+		BlocksTask task = new BlocksTask(
+			data,
+			fromXIndex,
+			toXIndex,
+			fromYIndex,
+			toYIndex,
+			fromYIndex / ROWS_PER_BLOCK,
+			( toYIndex - 1 ) / ROWS_PER_BLOCK + 1
+		);
+
+		if ( task.getCellsCount() > PARALLEL_THRESHOLD ) {
+
+			ExecutorService pool;
+
+			try {
+				pool = ThreadPools.workStealingThreadPool();
+			} catch ( IllegalStateException ex ) {
+				pool = null;
+			}
+
+			if ( pool instanceof ForkJoinPool ) {
+				( (ForkJoinPool) pool ).invoke(task);
+			} else {
+				task.updateBlocks();
+			}
+
+		} else {
+			task.updateBlocks();
+		}
+
+		for ( int xIndex = fromXIndex; xIndex < toXIndex; xIndex++ ) {
+
+			double sum = 0.0;
+
+			for ( double[] blockSums : blockColumnSums ) {
+				sum += blockSums[xIndex];
+			}
+
+			columnSums[xIndex] = sum;
+
+		}
+
+		updateRanges(fromYIndex, toYIndex, rescanValues, rescanRowSums);
+
+	}
+
+	private void grow( int ySize ) {
+
+		int blocksCount = ( ySize + ROWS_PER_BLOCK - 1 ) / ROWS_PER_BLOCK;
+
+		if ( blocksCount > blockColumnSums.length ) {
+
+			int oldBlocksCount = blockColumnSums.length;
+
+			blockColumnSums = Arrays.copyOf(blockColumnSums, blocksCount);
+
+			for ( int block = oldBlocksCount; block < blocksCount; block++ ) {
+				blockColumnSums[block] = new double[xSize];
+			}
+
+		}
+
+		this.ySize = ySize;
+
+		rowMaxs = Arrays.copyOf(rowMaxs, ySize);
+		rowMins = Arrays.copyOf(rowMins, ySize);
+		rowSums = Arrays.copyOf(rowSums, ySize);
+
+	}
+
+	private void resize( int xSize, int ySize ) {
+
+		if ( this.xSize != xSize || this.ySize != ySize ) {
+
+			this.xSize = xSize;
+			this.ySize = ySize;
+
+			blockColumnSums = new double[( ySize + ROWS_PER_BLOCK - 1 ) / ROWS_PER_BLOCK][xSize];
+			columnSums = new double[xSize];
+			rowMaxs = new double[ySize];
+			rowMins = new double[ySize];
+			rowSums = new double[ySize];
+
+		}
+
+	}
+
+	/**
+	 * Merges the statistics of the given rows into the ranges of Z values and
+	 * row sums, or computes a range again from all the rows if the
+	 * corresponding {@code rescan} flag is {@code true}.
+	 */
+	private void updateRanges( int fromYIndex, int toYIndex, boolean rescanValues, boolean rescanRowSums ) {
+
+		if ( rescanValues ) {
+			min = Double.MAX_VALUE;
+			max = Double.NEGATIVE_INFINITY;
+		}
+
+		if ( rescanRowSums ) {
+			rowSumsMin = Double.MAX_VALUE;
+			rowSumsMax = Double.NEGATIVE_INFINITY;
+		}
+
+		for ( int yIndex = rescanValues ? 0 : fromYIndex; yIndex < ( rescanValues ? ySize : toYIndex ); yIndex++ ) {
+			min = Math.min(min, rowMins[yIndex]);
+			max = Math.max(max, rowMaxs[yIndex]);
+		}
+
+		for ( int yIndex = rescanRowSums ? 0 : fromYIndex; yIndex < ( rescanRowSums ? ySize : toYIndex ); yIndex++ ) {
+			rowSumsMin = Math.min(rowSumsMin, rowSums[yIndex]);
+			rowSumsMax = Math.max(rowSumsMax, rowSums[yIndex]);
+		}
+
+	}
+
+	/**
+	 * Updates the column sums of a range of blocks, and the statistics of the
+	 * changed rows inside them, splitting the range in halves until it
+	 * contains no more than {@link #PARALLEL_THRESHOLD} values. Each block
+	 * and row is written by one task only.
+	 */
+	@SuppressWarnings( { "serial", "CloneableClassWithoutClone" } )
+	private class BlocksTask extends RecursiveAction {
+
+		private final transient Data<?, ?> data;
+		private final int fromBlock;
+		private final int fromXIndex;
+		private final int fromYIndex;
+		private final int toBlock;
+		private final int toXIndex;
+		private final int toYIndex;
+
+		BlocksTask( Data<?, ?> data, int fromXIndex, int toXIndex, int fromYIndex, int toYIndex, int fromBlock, int toBlock ) {
+			this.data = data;
+			this.fromXIndex = fromXIndex;
+			this.toXIndex = toXIndex;
+			this.fromYIndex = fromYIndex;
+			this.toYIndex = toYIndex;
+			this.fromBlock = fromBlock;
+			this.toBlock = toBlock;
+		}
+
+		/**
+		 * @return The number of values read by this task.
+		 */
+		long getCellsCount() {
+			return (long) ( toBlock - fromBlock ) * ROWS_PER_BLOCK * xSize;
+		}
+
+		@Override
+		protected void compute() {
+
+			if ( toBlock - fromBlock <= 1 || getCellsCount() <= PARALLEL_THRESHOLD ) {
+				updateBlocks();
+			} else {
+
+				int middle = ( fromBlock + toBlock ) >>> 1;
+
+				invokeAll(
+					new BlocksTask(data, fromXIndex, toXIndex, fromYIndex, toYIndex, fromBlock, middle),
+					new BlocksTask(data, fromXIndex, toXIndex, fromYIndex, toYIndex, middle, toBlock)
+				);
+
+			}
+
+		}
+
+		void updateBlocks() {
+
+			double[] row = new double[xSize];
+
+			for ( int block = fromBlock; block < toBlock; block++ ) {
+
+				double[] blockSums = blockColumnSums[block];
+				int blockEnd = Math.min(ySize, ( block + 1 ) * ROWS_PER_BLOCK);
+
+				Arrays.fill(blockSums, fromXIndex, toXIndex, 0.0);
+
+				for ( int yIndex = block * ROWS_PER_BLOCK; yIndex < blockEnd; yIndex++ ) {
+
+					if ( yIndex < fromYIndex || yIndex >= toYIndex ) {
+
+						//	Only the column sums are updated for this row.
+						data.getZRow(yIndex, fromXIndex, toXIndex, row);
+
+						for ( int xIndex = fromXIndex; xIndex < toXIndex; xIndex++ ) {
+							blockSums[xIndex] += row[xIndex - fromXIndex];
+						}
+
+					} else {
+
+						data.getZRow(yIndex, row);
+
+						for ( int xIndex = fromXIndex; xIndex < toXIndex; xIndex++ ) {
+							blockSums[xIndex] += row[xIndex];
+						}
+
+						double sum = 0.0;
+						double min = Double.MAX_VALUE;
+						double max = Double.NEGATIVE_INFINITY;
+
+						for ( int xIndex = 0; xIndex < xSize; xIndex++ ) {
+							sum += row[xIndex];
+							min = Math.min(min, row[xIndex]);
+							max = Math.max(max, row[xIndex]);
+						}
+
+						rowSums[yIndex] = sum;
+						rowMins[yIndex] = min;
+						rowMaxs[yIndex] = max;
+
+					}
+
+				}
+
+			}
+
+		}
+
+	}
+
+}
@@ -0,0 +1,447 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ * Copyright (C) 2018-2019 by European Spallation Source ERIC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.europeanspallationsource.xaos.ui.plot;
+
+
+import java.text.MessageFormat;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.ToDoubleFunction;
+import java.util.stream.Stream;
+import se.europeanspallationsource.xaos.core.util.ThreadPools;
+import se.europeanspallationsource.xaos.ui.plot.DensityChartFX.AbstractData;
+import se.europeanspallationsource.xaos.ui.plot.data.HistogramBinning;
+
+
+/**
+ * {@link DensityChartFX.Data} implementation counting (x, y) pairs into a
+ * two-dimensional histogram, so that scatter data too dense to be displayed
+ * point by point can be displayed as a density map.
+ * <p>
+ * Bins are defined by a {@link HistogramBinning} for each axis: X and Y
+ * coordinates are the bins centers, and the Z value of each cell is the
+ * number of pairs counted into it. Pairs outside the bins, or having a
+ * {@code NaN} coordinate, are not counted.</p>
+ * <p>
+ * Pairs are accumulated incrementally: after each addition listeners are
+ * notified that only the rows containing new pairs changed. Arrays with more
+ * than {@link #PARALLEL_THRESHOLD} pairs are counted in parallel on the
+ * {@link ThreadPools#workStealingThreadPool() work-stealing pool}, each task
+ * counting a slice of the pairs into its own grid, merged at the end. Streams
+ * are counted in parallel if they are parallel.</p>
+ * <p>
+ * This class is not thread-safe, and should be modified only from the
+ * JavaFX application thread once added to a chart.</p>
+ *
+ * @author claudio.rosati@esss.se
+ */
+@SuppressWarnings( "ClassWithoutLogger" )
+public class Histogram2DData extends AbstractData<Number, Number> {
+
+	/**
+	 * Minimum number of pairs for an array to be counted in parallel.
+	 */
+	public static final int PARALLEL_THRESHOLD = 65536;
+
+	private final double[] counts;
+	private final HistogramBinning xBinning;
+	private final int xSize;
+	private final HistogramBinning yBinning;
+	private final int ySize;
+
+	/**
+	 * Creates a new empty histogram.
+	 *
+	 * @param xBinning The bins layout along the X axis.
+	 * @param yBinning The bins layout along the Y axis.
+	 * @throws NullPointerException     If any of the parameters is
+	 *                                  {@code null}.
+	 * @throws IllegalArgumentException If the number of cells is greater than
+	 *                                  {@link Integer#MAX_VALUE}.
+	 */
+	public Histogram2DData( HistogramBinning xBinning, HistogramBinning yBinning )
+		throws NullPointerException, IllegalArgumentException
+	{
+
+		Objects.requireNonNull(xBinning, "xBinning must not be null");
+		Objects.requireNonNull(yBinning, "yBinning must not be null");
+
+		long cellsCount = (long) xBinning.getBinsCount() * yBinning.getBinsCount();
+
+		if ( cellsCount > Integer.MAX_VALUE ) {
+			throw new IllegalArgumentException(MessageFormat.format("Too many cells [{0}].", cellsCount));
+		}
+
+		this.counts = new double[(int) cellsCount];
+		this.xBinning = xBinning;
+		this.xSize = xBinning.getBinsCount();
+		this.yBinning = yBinning;
+		this.ySize = yBinning.getBinsCount();
+
+	}
+
+	/**
+	 * Counts the given pairs.
+	 *
+	 * @param xValues The X values of the pairs.
+	 * @param yValues The Y values of the pairs.
+	 * @throws NullPointerException     If any of the parameters is
+	 *                                  {@code null}.
+	 * @throws IllegalArgumentException If the arrays have different lengths.
+	 */
+	public void add( double[] xValues, double[] yValues ) throws NullPointerException, IllegalArgumentException {
+
+		Objects.requireNonNull(xValues, "xValues must not be null");
+		Objects.requireNonNull(yValues, "yValues must not be null");
+
+		if ( xValues.length != yValues.length ) {
+			throw new IllegalArgumentException(MessageFormat.format(
+				"Different number of X and Y values [{0}, {1}].",
+				xValues.length,
+				yValues.length
+			));
+		}
+
+		add(xValues, yValues, 0, xValues.length);
+
+	}
+
+	/**
+	 * Counts the pairs in the given range of the given arrays.
+	 *
+	 * @param xValues   The X values of the pairs.
+	 * @param yValues   The Y values of the pairs.
+	 * @param fromIndex The index of the first pair to be counted.
+	 * @param toIndex   The index after the last pair to be counted.
+	 * @throws NullPointerException      If any of the arrays is {@code null}.
+	 * @throws IndexOutOfBoundsException If the given range is not inside both
+	 *                                   arrays.
+	 */
+	public void add( double[] xValues, double[] yValues, int fromIndex, int toIndex )
+		throws NullPointerException, IndexOutOfBoundsException
+	{
+
+		Objects.requireNonNull(xValues, "xValues must not be null");
+		Objects.requireNonNull(yValues, "yValues must not be null");
+		Objects.checkFromToIndex(fromIndex, toIndex, xValues.length);
+		Objects.checkFromToIndex(fromIndex, toIndex, yValues.length);
+
+		ForkJoinPool pool = null;
+
+		//	Each parallel task needs its own grid, so parallelism is used only
+		//	when pairs are many more than cells.
+		if ( toIndex - fromIndex > PARALLEL_THRESHOLD && counts.length < ( toIndex - fromIndex ) / 4 ) {
+
+			ExecutorService service;
+
+			try {
+				service = ThreadPools.workStealingThreadPool();
+			} catch ( IllegalStateException ex ) {
+				service = null;
+			}
+
+			if ( service instanceof ForkJoinPool && ( (ForkJoinPool) service ).getParallelism() > 1 ) {
+				pool = (ForkJoinPool) service;
+			}
+
+		}
+
+		add(xValues, yValues, fromIndex, toIndex, pool);
+
+	}
+
+	/**
+	 * Counts the pairs extracted from the given stream of objects, in parallel
+	 * if the stream is parallel.
+	 *
+	 * @param <T>     The type of the stream elements.
+	 * @param stream  The stream of objects to be counted.
+	 * @param xMapper The function extracting the X value from each object.
+	 * @param yMapper The function extracting the Y value from each object.
+	 * @throws NullPointerException If any of the parameters is {@code null}.
+	 */
+	public <T> void add( Stream<T> stream, ToDoubleFunction<? super T> xMapper, ToDoubleFunction<? super T> yMapper )
+		throws NullPointerException
+	{
+
+		Objects.requireNonNull(stream, "stream must not be null");
+		Objects.requireNonNull(xMapper, "xMapper must not be null");
+		Objects.requireNonNull(yMapper, "yMapper must not be null");
+
+		if ( stream.isParallel() ) {
+			add(stream.collect(
+				Grid::new,
+				( grid, element ) -> grid.count(xMapper.applyAsDouble(element), yMapper.applyAsDouble(element)),
+				Grid::merge
+			));
+		} else {
+
+			Grid grid = new Grid(counts);
+
+			stream.forEachOrdered(element -> grid.count(xMapper.applyAsDouble(element), yMapper.applyAsDouble(element)));
+			add(grid);
+
+		}
+
+	}
+
+	/**
+	 * Discards all the counted pairs.
+	 */
+	public void clear() {
+		Arrays.fill(counts, 0.0);
+		fireInvalidated();
+	}
+
+	/**
+	 * @return The bins layout along the X axis.
+	 */
+	public final HistogramBinning getXBinning() {
+		return xBinning;
+	}
+
+	/**
+	 * @param xIndex Index of the X coordinate.
+	 * @return The X coordinate at the given index.
+	 */
+	public final double getXDoubleValue( int xIndex ) {
+		return xBinning.getBinCenter(xIndex);
+	}
+
+	@Override
+	public final int getXSize() {
+		return xSize;
+	}
+
+	@Override
+	public final Number getXValue( int xIndex ) {
+		return getXDoubleValue(xIndex);
+	}
+
+	/**
+	 * @return The bins layout along the Y axis.
+	 */
+	public final HistogramBinning getYBinning() {
+		return yBinning;
+	}
+
+	/**
+	 * @param yIndex Index of the Y coordinate.
+	 * @return The Y coordinate at the given index.
+	 */
+	public final double getYDoubleValue( int yIndex ) {
+		return yBinning.getBinCenter(yIndex);
+	}
+
+	@Override
+	public final int getYSize() {
+		return ySize;
+	}
+
+	@Override
+	public final Number getYValue( int yIndex ) {
+		return getYDoubleValue(yIndex);
+	}
+
+	@Override
+	public final void getZColumn( int xIndex, double[] column ) {
+		for ( int yIndex = 0, index = xIndex; yIndex < ySize; yIndex++, index += xSize ) {
+			column[yIndex] = counts[index];
+		}
+	}
+
+	@Override
+	public final void getZRow( int yIndex, double[] row ) {
+		System.arraycopy(counts, yIndex * xSize, row, 0, xSize);
+	}
+
+	@Override
+	public final void getZRow( int yIndex, int fromX, int toX, double[] row ) {
+		System.arraycopy(counts, yIndex * xSize + fromX, row, 0, toX - fromX);
+	}
+
+	@Override
+	public final double getZValue( int xIndex, int yIndex ) {
+		return counts[yIndex * xSize + xIndex];
+	}
+
+	/**
+	 * Counts the pairs in the given range of the given arrays, in parallel on
+	 * the given pool if not {@code null}. Arguments are not validated.
+	 *
+	 * @param xValues   The X values of the pairs.
+	 * @param yValues   The Y values of the pairs.
+	 * @param fromIndex The index of the first pair to be counted.
+	 * @param toIndex   The index after the last pair to be counted.
+	 * @param pool      The pool where pairs are counted in parallel, or
+	 *                  {@code null} to count them in the calling thread.
+	 */
+	void add( double[] xValues, double[] yValues, int fromIndex, int toIndex, ForkJoinPool pool ) {
+
+		Grid grid;
+
+		if ( pool != null ) {
+
+			int slicesCount = pool.getParallelism();
+			int sliceSize = Math.max(PARALLEL_THRESHOLD, ( toIndex - fromIndex + slicesCount - 1 ) / slicesCount);
+			CountTask task = new CountTask(xValues, yValues, fromIndex, toIndex, sliceSize);
+
+			pool.invoke(task);
+
+			grid = task.grid;
+
+		} else {
+			grid = new Grid(counts).count(xValues, yValues, fromIndex, toIndex);
+		}
+
+		add(grid);
+
+	}
+
+	private void add( Grid grid ) {
+
+		if ( grid.fromYIndex < grid.toYIndex ) {
+
+			if ( grid.counts != counts ) {
+				for ( int index = grid.fromYIndex * xSize; index < grid.toYIndex * xSize; index++ ) {
+					counts[index] += grid.counts[index];
+				}
+			}
+
+			fireInvalidated(0, xSize, grid.fromYIndex, grid.toYIndex);
+
+		}
+
+	}
+
+	/**
+	 * Counts of a set of pairs, and the range of rows containing them. Pairs
+	 * are counted either into a new grid, to be merged later, or directly
+	 * into the histogram counts.
+	 */
+	private class Grid {
+
+		private final double[] counts;
+		private int fromYIndex = Integer.MAX_VALUE;
+		private int toYIndex = Integer.MIN_VALUE;
+
+		Grid() {
+			this(new double[xSize * ySize]);
+		}
+
+		Grid( double[] counts ) {
+			this.counts = counts;
+		}
+
+		void count( double x, double y ) {
+
+			int xIndex = xBinning.indexOf(x) - 1;
+			int yIndex = yBinning.indexOf(y) - 1;
+
+			if ( xIndex >= 0 && xIndex < xSize && yIndex >= 0 && yIndex < ySize ) {
+
+				counts[yIndex * xSize + xIndex]++;
+
+				if ( yIndex < fromYIndex ) {
+					fromYIndex = yIndex;
+				}
+				if ( yIndex >= toYIndex ) {
+					toYIndex = yIndex + 1;
+				}
+
+			}
+
+		}
+
+		Grid count( double[] xValues, double[] yValues, int fromIndex, int toIndex ) {
+
+			for ( int i = fromIndex; i < toIndex; i++ ) {
+				count(xValues[i], yValues[i]);
+			}
+
+			return this;
+
+		}
+
+		void merge( Grid grid ) {
+
+			//	An empty grid has an inverted rows range, whose indices must not
+			//	be multiplied by the row size.
+			if ( grid.fromYIndex >= grid.toYIndex ) {
+				return;
+			}
+
+			for ( int index = grid.fromYIndex * xSize; index < grid.toYIndex * xSize; index++ ) {
+				counts[index] += grid.counts[index];
+			}
+
+			fromYIndex = Math.min(fromYIndex, grid.fromYIndex);
+			toYIndex = Math.max(toYIndex, grid.toYIndex);
+
+		}
+
+	}
+
+	/**
+	 * Counts a range of pairs, splitting it in halves until it contains no
+	 * more than the given slice size, and merging the grids of the two halves.
+	 */
+	@SuppressWarnings( { "serial", "CloneableClassWithoutClone" } )
+	private class CountTask extends RecursiveAction {
+
+		private final int fromIndex;
+		private transient Grid grid;
+		private final int sliceSize;
+		private final int toIndex;
+		private final transient double[] xValues;
+		private final transient double[] yValues;
+
+		CountTask( double[] xValues, double[] yValues, int fromIndex, int toIndex, int sliceSize ) {
+			this.xValues = xValues;
+			this.yValues = yValues;
+			this.fromIndex = fromIndex;
+			this.toIndex = toIndex;
+			this.sliceSize = sliceSize;
+		}
+
+		@Override
+		protected void compute() {
+
+			if ( toIndex - fromIndex <= sliceSize ) {
+				grid = new Grid().count(xValues, yValues, fromIndex, toIndex);
+			} else {
+
+				int middle = ( fromIndex + toIndex ) >>> 1;
+				CountTask lower = new CountTask(xValues, yValues, fromIndex, middle, sliceSize);
+				CountTask upper = new CountTask(xValues, yValues, middle, toIndex, sliceSize);
+
+				invokeAll(lower, upper);
+
+				grid = lower.grid;
+
+				grid.merge(upper.grid);
+
+			}
+
+		}
+
+	}
+
+}
@@ -18,10 +18,10 @@ package se.europeanspallationsource.xaos.ui.plot;
 
 
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 import java.util.logging.Logger;
+import java.util.stream.DoubleStream;
 import javafx.beans.property.DoubleProperty;
 import javafx.beans.property.SimpleDoubleProperty;
 import javafx.collections.FXCollections;
@@ -37,6 +37,8 @@ import javafx.scene.chart.XYChart.Series;
 import org.apache.commons.lang3.Validate;
 import se.europeanspallationsource.xaos.core.util.LogUtils;
 import se.europeanspallationsource.xaos.ui.plot.Legend.LegendItem;
+import se.europeanspallationsource.xaos.ui.plot.data.HistogramBinning;
+import se.europeanspallationsource.xaos.ui.plot.data.StreamingHistogram;
 import se.europeanspallationsource.xaos.ui.plot.plugins.Pluggable;
 import se.europeanspallationsource.xaos.ui.plot.util.SeriesColorUtils;
 
@@ -57,13 +59,14 @@ public class HistogramChartFX<X extends Number, Y extends Number> extends LineCh
 	/**
 	 * Quick way of creating a histogram chart showing the given {@code data}.
 	 *
-	 * @param data       The data list to be charted.
+	 * @param data       The data array to be charted.
 	 * @param bars       The desired number of histogram bars.
-	 * @return A {@link AreaChartFX} chart.
 	 * @param seriesName The name of the {@link Series} created from the given
 	 *                   {@code data}.
+	 * @return A {@link HistogramChartFX} chart.
+	 * @see #seriesOf(double[], int, String)
 	 */
-	public static HistogramChartFX<Number, Number> of( List<Double> data, int bars, String seriesName ) {
+	public static HistogramChartFX<Number, Number> of( double[] data, int bars, String seriesName ) {
 		return new HistogramChartFX<>(
 			new NumberAxis(),
 			new NumberAxis(),
@@ -71,6 +74,40 @@ public class HistogramChartFX<X extends Number, Y extends Number> extends LineCh
 		);
 	}
 
+	/**
+	 * Quick way of creating a histogram chart showing the given {@code data}.
+	 *
+	 * @param data       The data array to be charted.
+	 * @param minVal     Minimum data value.
+	 * @param maxVal     Maximum data value.
+	 * @param bars       The desired number of histogram bars.
+	 * @param seriesName The name of the {@link Series} created from the given
+	 *                   {@code data}.
+	 * @return A {@link HistogramChartFX} chart.
+	 * @see #seriesOf(double[], double, double, int, String)
+	 */
+	public static HistogramChartFX<Number, Number> of( double[] data, double minVal, double maxVal, int bars, String seriesName ) {
+		return new HistogramChartFX<>(
+			new NumberAxis(),
+			new NumberAxis(),
+			FXCollections.singletonObservableList(seriesOf(data, minVal, maxVal, bars, seriesName))
+		);
+	}
+
+	/**
+	 * Quick way of creating a histogram chart showing the given {@code data}.
+	 *
+	 * @param data       The data list to be charted.
+	 * @param bars       The desired number of histogram bars.
+	 * @param seriesName The name of the {@link Series} created from the given
+	 *                   {@code data}.
+	 * @return A {@link HistogramChartFX} chart.
+	 * @see #seriesOf(List, int, String)
+	 */
+	public static HistogramChartFX<Number, Number> of( List<Double> data, int bars, String seriesName ) {
+		return of(toArray(data), bars, seriesName);
+	}
+
 	/**
 	 * Quick way of creating a histogram chart showing the given {@code data}.
 	 *
@@ -80,57 +117,149 @@ public class HistogramChartFX<X extends Number, Y extends Number> extends LineCh
 	 * @param bars       The desired number of histogram bars.
 	 * @param seriesName The name of the {@link Series} created from the given
 	 *                   {@code data}.
-	 * @return A {@link AreaChartFX} chart.
+	 * @return A {@link HistogramChartFX} chart.
+	 * @see #seriesOf(List, double, double, int, String)
 	 */
 	public static HistogramChartFX<Number, Number> of( List<Double> data, double minVal, double maxVal, int bars, String seriesName ) {
+		return of(toArray(data), minVal, maxVal, bars, seriesName);
+	}
+
+	/**
+	 * Quick way of creating a histogram chart showing the counts of the given
+	 * {@code histogram}, updated while new samples are added.
+	 *
+	 * @param histogram  The streaming histogram to be charted.
+	 * @param seriesName The name of the {@link Series} bound to the given
+	 *                   {@code histogram}.
+	 * @return A {@link HistogramChartFX} chart.
+	 * @see #seriesOf(StreamingHistogram, String)
+	 */
+	public static HistogramChartFX<Number, Number> of( StreamingHistogram histogram, String seriesName ) {
 		return new HistogramChartFX<>(
 			new NumberAxis(),
 			new NumberAxis(),
-			FXCollections.singletonObservableList(seriesOf(data, minVal, maxVal, bars, seriesName))
+			FXCollections.singletonObservableList(seriesOf(histogram, seriesName))
 		);
 	}
 
 	/**
 	 * Quick way of creating a histogram chart series from the given
-	 * {@code data}.
+	 * {@code data}, whose minimum and maximum values are used as range.
 	 *
-	 * @param data       The data list to be charted.
+	 * @param data       The data array to be charted.
 	 * @param bars       The desired number of histogram bars.
 	 * @param seriesName The name of the {@link Series} created from the given
 	 *                   {@code data}.
-	 * @return A {@link AreaChartFX} chart.
+	 * @return A {@link Series} with a point for each bar.
+	 * @throws IllegalArgumentException If {@code data} contains no values other
+	 *                                  than {@code NaN}, or {@code bars} is
+	 *                                  less than 2.
+	 * @see #seriesOf(double[], double, double, int, String)
 	 */
-	public static Series<Number, Number> seriesOf( List<Double> data, int bars, String seriesName ) {
+	public static Series<Number, Number> seriesOf( double[] data, int bars, String seriesName ) throws IllegalArgumentException {
 
-		List<Double> sortedData = new ArrayList<>(data);
+		double minVal = Double.POSITIVE_INFINITY;
+		double maxVal = Double.NEGATIVE_INFINITY;
 
-		Collections.sort(sortedData);
+		for ( double value : data ) {
+			if ( value < minVal ) {
+				minVal = value;
+			}
+			if ( value > maxVal ) {
+				maxVal = value;
+			}
+		}
 
-		Series<Number, Number> series = new Series<>();
+		Validate.isTrue(minVal <= maxVal, "No values in 'data' parameter.");
 
-		series.setName(seriesName);
+		if ( minVal == maxVal ) {
+			//	All values would be in the first bar, whatever the range width.
+			maxVal = minVal + 1;
+		}
 
-		double minVal = sortedData.get(0);
-		double maxVal = sortedData.get(sortedData.size() - 1);
-		double delta = ( maxVal - minVal ) / ( bars - 1 );
+		return seriesOf(data, minVal, maxVal, bars, seriesName);
 
-		for ( int bar = 0; bar < bars; bar++ ) {
+	}
+
+	/**
+	 * Quick way of creating a histogram chart series from the given
+	 * {@code data}.
+	 * <p>
+	 * The series has a point for each bar, at {@code minVal + bar * delta},
+	 * where {@code delta = ( maxVal - minVal ) / ( bars - 1 )}. The first bar
+	 * counts the values less than or equal to {@code minVal}, the other ones
+	 * the values greater than the previous bar position and less than or equal
+	 * to their own position. Values greater than {@code maxVal}, and
+	 * {@code NaN} ones, are not counted.</p>
+	 * <p>
+	 * Values are counted by a {@link HistogramBinning} in a single pass, in
+	 * parallel for big arrays.</p>
+	 *
+	 * @param data       The data array to be charted.
+	 * @param minVal     Minimum data value.
+	 * @param maxVal     Maximum data value.
+	 * @param bars       The desired number of histogram bars.
+	 * @param seriesName The name of the {@link Series} created from the given
+	 *                   {@code data}.
+	 * @return A {@link Series} with a point for each bar.
+	 * @throws IllegalArgumentException If {@code bars} is less than 2, or
+	 *                                  {@code minVal} and {@code maxVal} are
+	 *                                  not finite values with
+	 *                                  {@code minVal < maxVal}.
+	 */
+	public static Series<Number, Number> seriesOf( double[] data, double minVal, double maxVal, int bars, String seriesName )
+		throws IllegalArgumentException
+	{
 
-			int count = 0;
+		HistogramBinning binning = binningOf(minVal, maxVal, bars);
 
-			for ( int index = 0; index < sortedData.size(); index++ ) {
-				if ( ( sortedData.get(index) <= bar * delta + minVal ) ) {
-					count++;
-					sortedData.remove(sortedData.get(index));
-				}
-			}
+		return seriesOf(binning, binning.count(data), seriesName);
 
-			series.getData().add(new XYChart.Data<>(delta * bar + minVal, (double) count));
+	}
 
-		}
+	/**
+	 * Quick way of creating a histogram chart series from the given
+	 * {@code data} stream, counted in parallel if the stream is parallel.
+	 *
+	 * @param data       The data stream to be charted.
+	 * @param minVal     Minimum data value.
+	 * @param maxVal     Maximum data value.
+	 * @param bars       The desired number of histogram bars.
+	 * @param seriesName The name of the {@link Series} created from the given
+	 *                   {@code data}.
+	 * @return A {@link Series} with a point for each bar.
+	 * @throws IllegalArgumentException If {@code bars} is less than 2, or
+	 *                                  {@code minVal} and {@code maxVal} are
+	 *                                  not finite values with
+	 *                                  {@code minVal < maxVal}.
+	 * @see #seriesOf(double[], double, double, int, String)
+	 */
+	public static Series<Number, Number> seriesOf( DoubleStream data, double minVal, double maxVal, int bars, String seriesName )
+		throws IllegalArgumentException
+	{
 
-		return series;
+		HistogramBinning binning = binningOf(minVal, maxVal, bars);
 
+		return seriesOf(binning, binning.count(data), seriesName);
+
+	}
+
+	/**
+	 * Quick way of creating a histogram chart series from the given
+	 * {@code data}, whose minimum and maximum values are used as range.
+	 *
+	 * @param data       The data list to be charted.
+	 * @param bars       The desired number of histogram bars.
+	 * @param seriesName The name of the {@link Series} created from the given
+	 *                   {@code data}.
+	 * @return A {@link Series} with a point for each bar.
+	 * @throws IllegalArgumentException If {@code data} contains no values other
+	 *                                  than {@code NaN}, or {@code bars} is
+	 *                                  less than 2.
+	 * @see #seriesOf(double[], int, String)
+	 */
+	public static Series<Number, Number> seriesOf( List<Double> data, int bars, String seriesName ) throws IllegalArgumentException {
+		return seriesOf(toArray(data), bars, seriesName);
 	}
 
 	/**
@@ -143,39 +272,92 @@ public class HistogramChartFX<X extends Number, Y extends Number> extends LineCh
 	 * @param bars       The desired number of histogram bars.
 	 * @param seriesName The name of the {@link Series} created from the given
 	 *                   {@code data}.
-	 * @return A {@link AreaChartFX} chart.
+	 * @return A {@link Series} with a point for each bar.
+	 * @throws IllegalArgumentException If {@code bars} is less than 2, or
+	 *                                  {@code minVal} and {@code maxVal} are
+	 *                                  not finite values with
+	 *                                  {@code minVal < maxVal}.
+	 * @see #seriesOf(double[], double, double, int, String)
 	 */
-	public static Series<Number, Number> seriesOf( List<Double> data, double minVal, double maxVal, int bars, String seriesName ) {
-
-		List<Double> sortedData = new ArrayList<>(data);
+	public static Series<Number, Number> seriesOf( List<Double> data, double minVal, double maxVal, int bars, String seriesName )
+		throws IllegalArgumentException
+	{
+		return seriesOf(toArray(data), minVal, maxVal, bars, seriesName);
+	}
 
-		Collections.sort(sortedData);
+	/**
+	 * Creates a histogram chart series showing the counts of the given
+	 * {@code histogram}, with a point at the center of each bin. The series is
+	 * updated on the JavaFX application thread, at most once per frame, while
+	 * new samples are added to the histogram.
+	 * <p>
+	 * The histogram keeps a strong reference to the returned series until it
+	 * is passed to {@link StreamingHistogram#removeSeries(Series)}, that must
+	 * be called when the series is no longer displayed.</p>
+	 *
+	 * @param histogram  The streaming histogram to be charted.
+	 * @param seriesName The name of the created {@link Series}.
+	 * @return A {@link Series} with a point for each bin.
+	 * @see StreamingHistogram#addSeries(Series)
+	 * @see StreamingHistogram#removeSeries(Series)
+	 */
+	public static Series<Number, Number> seriesOf( StreamingHistogram histogram, String seriesName ) {
 
 		Series<Number, Number> series = new Series<>();
 
 		series.setName(seriesName);
+		histogram.addSeries(series);
 
-		double delta = ( maxVal - minVal ) / ( bars - 1 );
+		return series;
 
-		for ( int bar = 0; bar < bars; bar++ ) {
+	}
 
-			int count = 0;
+	/**
+	 * Returns the binning whose underflow and bins counts are the counts of the
+	 * histogram bars: right-closed bins whose upper edges are the bars
+	 * positions after the first one.
+	 */
+	private static HistogramBinning binningOf( double minVal, double maxVal, int bars ) {
 
-			for ( int index = 0; index < sortedData.size(); index++ ) {
-				if ( ( sortedData.get(index) <= bar * delta + minVal ) ) {
-					count++;
-					sortedData.remove(sortedData.get(index));
-				}
-			}
+		Validate.isTrue(bars > 1, "Out of range 'bars' parameter.");
+
+		return new HistogramBinning(minVal, maxVal, bars - 1, true);
+
+	}
+
+	private static Series<Number, Number> seriesOf( HistogramBinning binning, long[] counts, String seriesName ) {
 
-			series.getData().add(new XYChart.Data<>(delta * bar + minVal, (double) count));
+		int bars = binning.getBinsCount() + 1;
+		double minVal = binning.getMin();
+		double delta = binning.getBinWidth();
+		List<XYChart.Data<Number, Number>> points = new ArrayList<>(bars);
 
+		for ( int bar = 0; bar < bars; bar++ ) {
+			points.add(new XYChart.Data<>(delta * bar + minVal, (double) counts[bar]));
 		}
 
+		Series<Number, Number> series = new Series<>();
+
+		series.setName(seriesName);
+		series.getData().setAll(points);
+
 		return series;
 
 	}
 
+	private static double[] toArray( List<Double> data ) {
+
+		double[] array = new double[data.size()];
+		int index = 0;
+
+		for ( Double value : data ) {
+			array[index++] = ( value == null ) ? Double.NaN : value;
+		}
+
+		return array;
+
+	}
+
 	private List<String> notShownInLegend;
 	private final Group pluginsNodesGroup = new Group();
 	private final PluginManager pluginManager = new PluginManager(this, pluginsNodesGroup);
@@ -0,0 +1,352 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ * Copyright (C) 2018-2019 by European Spallation Source ERIC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.europeanspallationsource.xaos.ui.plot;
+
+
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.FloatBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.text.MessageFormat;
+import java.util.Objects;
+import se.europeanspallationsource.xaos.ui.plot.DensityChartFX.AbstractData;
+import se.europeanspallationsource.xaos.ui.plot.DensityChartFX.Data;
+
+
+/**
+ * Read-only {@link DensityChartFX.Data} implementation whose Z values are
+ * memory-mapped from a binary grid file, so that files greater than the heap
+ * can be displayed without loading them: only the pages actually read (e.g.
+ * the visible rows) are loaded by the operating system.
+ * <p>
+ * The file is made of a {@link #HEADER_SIZE} bytes header followed by the
+ * Z values, in row-major order (i.e. the Z value at {@code [xIndex,
+ * yIndex]} is the value number {@code yIndex * xSize + xIndex}). All
+ * numbers are little-endian. The header contains, in order:</p>
+ * <ul>
+ * <li>the {@link #MAGIC} integer ({@code "XDGD"} in ASCII);</li>
+ * <li>the format version integer (currently {@code 1});</li>
+ * <li>the size in bytes of each Z value integer: 4 for {@code float}, 8
+ * for {@code double} values;</li>
+ * <li>the number of X coordinates integer;</li>
+ * <li>the number of Y coordinates integer;</li>
+ * <li>an unused integer;</li>
+ * <li>the first and last X coordinates doubles;</li>
+ * <li>the first and last Y coordinates doubles;</li>
+ * <li>zero padding up to {@link #HEADER_SIZE} bytes.</li>
+ * </ul>
+ * <p>
+ * Coordinates are evenly spaced between the first and last ones. Files can
+ * be created with {@link #write(Path, Data, boolean)}.</p>
+ *
+ * @author claudio.rosati@esss.se
+ */
+@SuppressWarnings( "ClassWithoutLogger" )
+public class MappedGridData extends AbstractData<Number, Number> {
+
+	/**
+	 * The size in bytes of the file header.
+	 */
+	public static final int HEADER_SIZE = 64;
+
+	/**
+	 * The integer starting a binary grid file ({@code "XDGD"} in ASCII).
+	 */
+	public static final int MAGIC = 0x44474458;
+
+	/**
+	 * The current format version.
+	 */
+	public static final int VERSION = 1;
+
+	/**
+	 * Maximum size in bytes of each mapped region.
+	 */
+	private static final long MAX_CHUNK_SIZE = 1L << 30;
+
+	/**
+	 * Maps the given binary grid file.
+	 *
+	 * @param file The binary grid file.
+	 * @return A new instance whose Z values are mapped from the file.
+	 * @throws NullPointerException If {@code file} is {@code null}.
+	 * @throws IOException          If the file cannot be read or has an
+	 *                              invalid format.
+	 */
+	public static MappedGridData open( Path file ) throws NullPointerException, IOException {
+		return open(file, MAX_CHUNK_SIZE);
+	}
+
+	/**
+	 * Maps the given binary grid file in regions not greater than the given
+	 * size. Used by tests to map small files in more than one region.
+	 *
+	 * @param file         The binary grid file.
+	 * @param maxChunkSize The maximum size in bytes of each mapped region.
+	 * @return A new instance whose Z values are mapped from the file.
+	 * @throws NullPointerException If {@code file} is {@code null}.
+	 * @throws IOException          If the file cannot be read or has an
+	 *                              invalid format.
+	 */
+	static MappedGridData open( Path file, long maxChunkSize ) throws NullPointerException, IOException {
+
+		Objects.requireNonNull(file, "file must not be null");
+
+		try ( FileChannel channel = FileChannel.open(file, StandardOpenOption.READ) ) {
+
+			ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+
+			while ( header.hasRemaining() ) {
+				if ( channel.read(header) < 0 ) {
+					break;
+				}
+			}
+
+			header.flip();
+
+			if ( header.remaining() < HEADER_SIZE || header.getInt() != MAGIC ) {
+				throw new IOException(MessageFormat.format("Not a binary grid file [{0}].", file));
+			}
+
+			int version = header.getInt();
+			int valueSize = header.getInt();
+			int xSize = header.getInt();
+			int ySize = header.getInt();
+
+			header.getInt();
+
+			double xFirst = header.getDouble();
+			double xLast = header.getDouble();
+			double yFirst = header.getDouble();
+			double yLast = header.getDouble();
+
+			if ( version != VERSION ) {
+				throw new IOException(MessageFormat.format("Unsupported binary grid file version [{0}: {1}].", file, version));
+			} else if ( valueSize != Float.BYTES && valueSize != Double.BYTES ) {
+				throw new IOException(MessageFormat.format("Invalid Z value size [{0}: {1}].", file, valueSize));
+			} else if ( xSize < 0 || ySize < 0 || (long) xSize * valueSize > maxChunkSize ) {
+				throw new IOException(MessageFormat.format("Invalid grid size [{0}: {1}x{2}].", file, xSize, ySize));
+			} else if ( channel.size() < HEADER_SIZE + (long) xSize * ySize * valueSize ) {
+				throw new IOException(MessageFormat.format("Truncated binary grid file [{0}].", file));
+			}
+
+			long rowSize = (long) xSize * valueSize;
+			int rowsPerChunk = ( rowSize == 0 ) ? Math.max(ySize, 1) : (int) Math.min(Math.max(ySize, 1), maxChunkSize / rowSize);
+			Buffer[] chunks = new Buffer[( ySize + rowsPerChunk - 1 ) / rowsPerChunk];
+
+			for ( int chunk = 0; chunk < chunks.length; chunk++ ) {
+
+				int rows = Math.min(rowsPerChunk, ySize - chunk * rowsPerChunk);
+				ByteBuffer mapped = channel.map(
+					FileChannel.MapMode.READ_ONLY,
+					HEADER_SIZE + chunk * rowsPerChunk * rowSize,
+					rows * rowSize
+				).order(ByteOrder.LITTLE_ENDIAN);
+
+				chunks[chunk] = ( valueSize == Float.BYTES ) ? mapped.asFloatBuffer() : mapped.asDoubleBuffer();
+
+			}
+
+			return new MappedGridData(
+				spaced(xFirst, xLast, xSize),
+				spaced(yFirst, yLast, ySize),
+				chunks,
+				rowsPerChunk
+			);
+
+		}
+
+	}
+
+	/**
+	 * Writes the given data into a binary grid file. X and Y coordinates
+	 * are assumed to be evenly spaced, and only the first and last ones
+	 * are written.
+	 *
+	 * @param file             The file to be written, replaced if already
+	 *                         existing.
+	 * @param data             The data to be written.
+	 * @param singlePrecision  {@code true} if Z values must be written as
+	 *                         {@code float}, {@code false} for
+	 *                         {@code double}.
+	 * @throws NullPointerException If {@code file} or {@code data} is
+	 *                              {@code null}.
+	 * @throws IOException          If the file cannot be written.
+	 */
+	public static void write( Path file, Data<? extends Number, ? extends Number> data, boolean singlePrecision )
+		throws NullPointerException, IOException
+	{
+
+		Objects.requireNonNull(file, "file must not be null");
+		Objects.requireNonNull(data, "data must not be null");
+
+		int xSize = data.getXSize();
+		int ySize = data.getYSize();
+		int valueSize = singlePrecision ? Float.BYTES : Double.BYTES;
+		ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+
+		header.putInt(MAGIC);
+		header.putInt(VERSION);
+		header.putInt(valueSize);
+		header.putInt(xSize);
+		header.putInt(ySize);
+		header.putInt(0);
+		header.putDouble(( xSize > 0 ) ? data.getXValue(0).doubleValue() : 0.0);
+		header.putDouble(( xSize > 0 ) ? data.getXValue(xSize - 1).doubleValue() : 0.0);
+		header.putDouble(( ySize > 0 ) ? data.getYValue(0).doubleValue() : 0.0);
+		header.putDouble(( ySize > 0 ) ? data.getYValue(ySize - 1).doubleValue() : 0.0);
+		header.position(HEADER_SIZE);
+		header.flip();
+
+		try ( FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE) ) {
+
+			while ( header.hasRemaining() ) {
+				channel.write(header);
+			}
+
+			double[] row = new double[xSize];
+			ByteBuffer rowBuffer = ByteBuffer.allocate(xSize * valueSize).order(ByteOrder.LITTLE_ENDIAN);
+
+			for ( int yIndex = 0; yIndex < ySize; yIndex++ ) {
+
+				data.getZRow(yIndex, row);
+				rowBuffer.clear();
+
+				for ( int xIndex = 0; xIndex < xSize; xIndex++ ) {
+					if ( singlePrecision ) {
+						rowBuffer.putFloat((float) row[xIndex]);
+					} else {
+						rowBuffer.putDouble(row[xIndex]);
+					}
+				}
+
+				rowBuffer.flip();
+
+				while ( rowBuffer.hasRemaining() ) {
+					channel.write(rowBuffer);
+				}
+
+			}
+
+		}
+
+	}
+
+	private static double[] spaced( double first, double last, int size ) {
+
+		double[] values = new double[size];
+
+		for ( int i = 0; i < size; i++ ) {
+			values[i] = ( size == 1 ) ? first : first + ( last - first ) * i / ( size - 1 );
+		}
+
+		return values;
+
+	}
+
+	private final Buffer[] chunks;
+	private final int rowsPerChunk;
+	private final double[] xValues;
+	private final double[] yValues;
+
+	private MappedGridData( double[] xValues, double[] yValues, Buffer[] chunks, int rowsPerChunk ) {
+		this.xValues = xValues;
+		this.yValues = yValues;
+		this.chunks = chunks;
+		this.rowsPerChunk = rowsPerChunk;
+	}
+
+	/**
+	 * @param xIndex Index of the X coordinate.
+	 * @return The X coordinate at the given index.
+	 */
+	public final double getXDoubleValue( int xIndex ) {
+		return xValues[xIndex];
+	}
+
+	@Override
+	public final int getXSize() {
+		return xValues.length;
+	}
+
+	@Override
+	public final Number getXValue( int xIndex ) {
+		return xValues[xIndex];
+	}
+
+	/**
+	 * @param yIndex Index of the Y coordinate.
+	 * @return The Y coordinate at the given index.
+	 */
+	public final double getYDoubleValue( int yIndex ) {
+		return yValues[yIndex];
+	}
+
+	@Override
+	public final int getYSize() {
+		return yValues.length;
+	}
+
+	@Override
+	public final Number getYValue( int yIndex ) {
+		return yValues[yIndex];
+	}
+
+	@Override
+	public final void getZRow( int yIndex, double[] row ) {
+		getZRow(yIndex, 0, xValues.length, row);
+	}
+
+	@Override
+	public final void getZRow( int yIndex, int fromX, int toX, double[] row ) {
+
+		Buffer chunk = chunks[Objects.checkIndex(yIndex, yValues.length) / rowsPerChunk];
+		int offset = ( yIndex % rowsPerChunk ) * xValues.length + fromX;
+		int length = toX - fromX;
+
+		if ( chunk instanceof DoubleBuffer ) {
+			( (DoubleBuffer) chunk ).duplicate().position(offset).get(row, 0, length);
+		} else {
+
+			FloatBuffer floats = (FloatBuffer) chunk;
+
+			for ( int i = 0; i < length; i++ ) {
+				row[i] = floats.get(offset + i);
+			}
+
+		}
+
+	}
+
+	@Override
+	public final double getZValue( int xIndex, int yIndex ) {
+
+		Buffer chunk = chunks[Objects.checkIndex(yIndex, yValues.length) / rowsPerChunk];
+		int index = ( yIndex % rowsPerChunk ) * xValues.length + Objects.checkIndex(xIndex, xValues.length);
+
+		return ( chunk instanceof DoubleBuffer )
+			? ( (DoubleBuffer) chunk ).get(index)
+			: ( (FloatBuffer) chunk ).get(index);
+
+	}
+
+}
@@ -0,0 +1,256 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ * Copyright (C) 2018-2019 by European Spallation Source ERIC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.europeanspallationsource.xaos.ui.plot.data;
+
+
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Objects;
+import javafx.beans.InvalidationListener;
+
+
+/**
+ * {@link XYValues} implementation based on two growable {@code double[]}
+ * arrays, one for the X values and one for the Y values.
+ * <p>
+ * Each point costs 16 bytes, compared to the more than 100 bytes of a
+ * {@link javafx.scene.chart.XYChart.Data} instance holding two boxed
+ * values.</p>
+ * <p>
+ * Callers are responsible to add points with non-decreasing X values. This
+ * class is not thread-safe, and should be modified only from the JavaFX
+ * application thread once bound to a displayed series.</p>
+ *
+ * @author claudio.rosati@esss.se
+ */
+@SuppressWarnings( "ClassWithoutLogger" )
+public class ArrayXYValues implements XYValues {
+
+	private static final int DEFAULT_CAPACITY = 1024;
+
+	private final List<InvalidationListener> listeners = new LinkedList<>();
+	private long modificationCount = 0;
+	private int size = 0;
+	private double[] xValues;
+	private double[] yValues;
+
+	/**
+	 * Creates a new empty instance with default initial capacity.
+	 */
+	public ArrayXYValues() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * Creates a new empty instance with the given initial capacity.
+	 *
+	 * @param initialCapacity The initial number of points that can be stored
+	 *                        without growing the internal arrays.
+	 * @throws IllegalArgumentException If {@code initialCapacity} is negative.
+	 */
+	public ArrayXYValues( int initialCapacity ) throws IllegalArgumentException {
+
+		if ( initialCapacity < 0 ) {
+			throw new IllegalArgumentException(MessageFormat.format(
+				"Negative initial capacity [{0}].",
+				initialCapacity
+			));
+		}
+
+		xValues = new double[initialCapacity];
+		yValues = new double[initialCapacity];
+
+	}
+
+	/**
+	 * Creates a new instance containing a copy of the given values.
+	 *
+	 * @param xValues The X values.
+	 * @param yValues The Y values.
+	 * @throws NullPointerException     If {@code xValues} or {@code yValues} is
+	 *                                  {@code null}.
+	 * @throws IllegalArgumentException If {@code xValues} and {@code yValues}
+	 *                                  have different lengths.
+	 */
+	public ArrayXYValues( double[] xValues, double[] yValues ) throws NullPointerException, IllegalArgumentException {
+		this(Math.max(DEFAULT_CAPACITY, Objects.requireNonNull(xValues, "Null X values.").length));
+		addAll(xValues, yValues);
+	}
+
+	/**
+	 * Appends a single point.
+	 *
+	 * @param x The X value, not smaller than the last one.
+	 * @param y The Y value.
+	 */
+	public void add( double x, double y ) {
+
+		ensureCapacity(size + 1);
+
+		xValues[size] = x;
+		yValues[size] = y;
+		size++;
+
+		fireInvalidated();
+
+	}
+
+	/**
+	 * Appends all the given points, notifying listeners only once.
+	 *
+	 * @param xValues The X values, in non-decreasing order and not smaller than
+	 *                the last one.
+	 * @param yValues The Y values.
+	 * @throws NullPointerException     If {@code xValues} or {@code yValues} is
+	 *                                  {@code null}.
+	 * @throws IllegalArgumentException If {@code xValues} and {@code yValues}
+	 *                                  have different lengths.
+	 */
+	public void addAll( double[] xValues, double[] yValues ) throws NullPointerException, IllegalArgumentException {
+
+		Objects.requireNonNull(xValues, "Null X values.");
+		Objects.requireNonNull(yValues, "Null Y values.");
+
+		if ( xValues.length != yValues.length ) {
+			throw new IllegalArgumentException(MessageFormat.format(
+				"X and Y values must have the same length [x: {0}, y: {1}].",
+				xValues.length,
+				yValues.length
+			));
+		}
+
+		if ( xValues.length == 0 ) {
+			return;
+		}
+
+		ensureCapacity(size + xValues.length);
+
+		System.arraycopy(xValues, 0, this.xValues, size, xValues.length);
+		System.arraycopy(yValues, 0, this.yValues, size, yValues.length);
+
+		size += xValues.length;
+
+		fireInvalidated();
+
+	}
+
+	@Override
+	public void addListener( InvalidationListener listener ) {
+		Objects.requireNonNull(listener, "InvalidationListener must not be null");
+		listeners.add(listener);
+	}
+
+	/**
+	 * Removes all the points. The internal arrays are not shrunk.
+	 */
+	public void clear() {
+		if ( size > 0 ) {
+			size = 0;
+			modificationCount++;
+			fireInvalidated();
+		}
+	}
+
+	/**
+	 * Increases the capacity of this instance, if necessary, to ensure that it
+	 * can hold at least the given number of points without growing the
+	 * internal arrays.
+	 *
+	 * @param minCapacity The desired minimum capacity.
+	 */
+	public final void ensureCapacity( int minCapacity ) {
+
+		if ( minCapacity > xValues.length ) {
+
+			int newCapacity = Math.max(minCapacity, xValues.length + ( xValues.length >> 1 ));
+
+			if ( newCapacity < 0 ) {
+				//	Overflow.
+				newCapacity = Integer.MAX_VALUE - 8;
+			}
+
+			xValues = Arrays.copyOf(xValues, newCapacity);
+			yValues = Arrays.copyOf(yValues, newCapacity);
+
+		}
+
+	}
+
+	/**
+	 * Notifies listeners that the values have been invalidated. If this
+	 * instance is bound to a series displayed in a chart, it triggers data
+	 * reduction and repaint.
+	 */
+	public void fireInvalidated() {
+		if ( !listeners.isEmpty() ) {
+			new ArrayList<>(listeners).forEach(listener -> listener.invalidated(this));
+		}
+	}
+
+	@Override
+	public long getModificationCount() {
+		return modificationCount;
+	}
+
+	@Override
+	public double getXValue( int index ) throws IndexOutOfBoundsException {
+		return xValues[Objects.checkIndex(index, size)];
+	}
+
+	@Override
+	public double getYValue( int index ) throws IndexOutOfBoundsException {
+		return yValues[Objects.checkIndex(index, size)];
+	}
+
+	@Override
+	public void removeListener( InvalidationListener listener ) {
+		listeners.remove(listener);
+	}
+
+	/**
+	 * Replaces the Y value of the point at the given index.
+	 *
+	 * @param index The index of the point.
+	 * @param y     The new Y value.
+	 * @throws IndexOutOfBoundsException If {@code index} is not in the
+	 *                                   [0, {@link #size()}) range.
+	 */
+	public void setYValue( int index, double y ) throws IndexOutOfBoundsException {
+		yValues[Objects.checkIndex(index, size)] = y;
+		modificationCount++;
+		fireInvalidated();
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Trims the capacity of the internal arrays to the current size.
+	 */
+	public void trimToSize() {
+		if ( size < xValues.length ) {
+			xValues = Arrays.copyOf(xValues, size);
+			yValues = Arrays.copyOf(yValues, size);
+		}
+	}
+
+}
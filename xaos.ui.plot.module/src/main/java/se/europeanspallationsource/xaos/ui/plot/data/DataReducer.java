@@ -17,13 +17,20 @@
 package se.europeanspallationsource.xaos.ui.plot.data;
 
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.stream.IntStream;
 import javafx.scene.chart.XYChart.Data;
 
 
 /**
  * Defines the behavior of the algorithms used to reduce number of data points
  * to the desired amount.
+ * <p>
+ * Implementations must check their arguments as documented by each method:
+ * a {@code null} list or {@link XYValues} is reported with a
+ * {@link NullPointerException}, an invalid target number of points with an
+ * {@link IllegalArgumentException}.</p>
  *
  * @param <X> Type of X values.
  * @param <Y> Type of Y values.
@@ -58,4 +65,55 @@ public interface DataReducer<X, Y> {
 	List<Data<X, Y>> reduce( List<Data<X, Y>> data, int targetPointsCount )
 		throws NullPointerException, IllegalArgumentException;
 
+	/**
+	 * Reduces the number of points of the given primitive {@code values} in the
+	 * [{@code fromIndex}, {@code toIndex}) range to the specified
+	 * {@code targetPointsCount}, if it is smaller than the range size.
+	 * <p>
+	 * The default implementation boxes the values in the given range into
+	 * {@link Data} instances and calls {@link #reduce(List, int)}, so it works
+	 * only for reducers accessing X and Y values as {@link Number}s.
+	 * Implementations should override this method to consume the primitive
+	 * values directly.</p>
+	 *
+	 * @param values            The {@link XYValues} to be reduced.
+	 * @param fromIndex         The index of the first point in the range
+	 *                          (inclusive).
+	 * @param toIndex           The index of the last point in the range
+	 *                          (exclusive).
+	 * @param targetPointsCount The desired number of target points, not smaller
+	 *                          than {@link #MIN_TARGET_POINTS_COUNT}.
+	 * @return The sorted indices of the points retained by the reduction, or
+	 *         all the indices in range if its size is smaller or equal to
+	 *         {@code targetPointsCount}.
+	 * @throws NullPointerException      If {@code values} is {@code null}.
+	 * @throws IllegalArgumentException  If {@code targetPointsCount} is less
+	 *                                   than {@link #MIN_TARGET_POINTS_COUNT}.
+	 * @throws IndexOutOfBoundsException If the given range is not valid.
+	 */
+	@SuppressWarnings( "unchecked" )
+	default int[] reduce( XYValues values, int fromIndex, int toIndex, int targetPointsCount )
+		throws NullPointerException, IllegalArgumentException, IndexOutOfBoundsException
+	{
+
+		DataReducers.validate(values, fromIndex, toIndex, targetPointsCount);
+
+		if ( toIndex - fromIndex <= targetPointsCount ) {
+			return IntStream.range(fromIndex, toIndex).toArray();
+		}
+
+		List<Data<X, Y>> data = new ArrayList<>(toIndex - fromIndex);
+
+		//	The point index is kept as extra value to find it back after the
+		//	reduction.
+		for ( int i = fromIndex; i < toIndex; i++ ) {
+			data.add((Data<X, Y>) new Data<>(values.getXValue(i), values.getYValue(i), i));
+		}
+
+		return reduce(data, targetPointsCount).stream()
+			.mapToInt(d -> (Integer) d.getExtraValue())
+			.toArray();
+
+	}
+
 }
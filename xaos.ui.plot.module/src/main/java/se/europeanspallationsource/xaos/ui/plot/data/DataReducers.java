@@ -0,0 +1,91 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ * Copyright (C) 2018-2019 by European Spallation Source ERIC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.europeanspallationsource.xaos.ui.plot.data;
+
+
+import java.text.MessageFormat;
+import java.util.List;
+import java.util.Objects;
+
+
+/**
+ * Argument checks shared by the {@link DataReducer} implementations, so that
+ * all of them honour the same contract.
+ *
+ * @author claudio.rosati@esss.se
+ */
+@SuppressWarnings( "ClassWithoutLogger" )
+final class DataReducers {
+
+	/**
+	 * Validates the arguments of {@link DataReducer#reduce(List, int)}.
+	 *
+	 * @param points            The data points to be reduced.
+	 * @param targetPointsCount The desired number of target points.
+	 * @throws NullPointerException     If {@code points} is {@code null}.
+	 * @throws IllegalArgumentException If {@code targetPointsCount} is less
+	 *                                  than
+	 *                                  {@link DataReducer#MIN_TARGET_POINTS_COUNT}.
+	 */
+	static void validate( List<?> points, int targetPointsCount ) throws NullPointerException, IllegalArgumentException {
+
+		Objects.requireNonNull(points, "Null list of data points.");
+
+		validate(targetPointsCount);
+
+	}
+
+	/**
+	 * Validates the arguments of
+	 * {@link DataReducer#reduce(XYValues, int, int, int)}.
+	 *
+	 * @param values            The values to be reduced.
+	 * @param fromIndex         The index of the first point in the range
+	 *                          (inclusive).
+	 * @param toIndex           The index of the last point in the range
+	 *                          (exclusive).
+	 * @param targetPointsCount The desired number of target points.
+	 * @throws NullPointerException      If {@code values} is {@code null}.
+	 * @throws IllegalArgumentException  If {@code targetPointsCount} is less
+	 *                                   than
+	 *                                   {@link DataReducer#MIN_TARGET_POINTS_COUNT}.
+	 * @throws IndexOutOfBoundsException If the given range is not valid.
+	 */
+	static void validate( XYValues values, int fromIndex, int toIndex, int targetPointsCount )
+		throws NullPointerException, IllegalArgumentException, IndexOutOfBoundsException
+	{
+
+		Objects.requireNonNull(values, "Null values.");
+		Objects.checkFromToIndex(fromIndex, toIndex, values.size());
+
+		validate(targetPointsCount);
+
+	}
+
+	private static void validate( int targetPointsCount ) throws IllegalArgumentException {
+		if ( targetPointsCount < DataReducer.MIN_TARGET_POINTS_COUNT ) {
+			throw new IllegalArgumentException(MessageFormat.format(
+				"Target number of points expected to be greater or equal to {0}.",
+				DataReducer.MIN_TARGET_POINTS_COUNT
+			));
+		}
+	}
+
+	private DataReducers() {
+	}
+
+}
@@ -18,23 +18,29 @@ package se.europeanspallationsource.xaos.ui.plot.data;
 
 
 import java.text.MessageFormat;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Deque;
 import java.util.List;
-import java.util.Timer;
-import java.util.TimerTask;
+import java.util.Objects;
+import java.util.function.DoubleFunction;
+import java.util.function.IntConsumer;
+import java.util.function.ObjIntConsumer;
+import java.util.stream.IntStream;
 import javafx.application.Platform;
 import javafx.beans.property.IntegerProperty;
 import javafx.beans.property.ObjectProperty;
 import javafx.beans.property.SimpleIntegerProperty;
 import javafx.beans.property.SimpleObjectProperty;
 import javafx.beans.value.ChangeListener;
-import javafx.beans.value.ObservableValue;
 import javafx.collections.FXCollections;
 import javafx.collections.ListChangeListener;
 import javafx.collections.ModifiableObservableListBase;
 import javafx.collections.ObservableList;
 import javafx.scene.chart.ValueAxis;
 import javafx.scene.chart.XYChart.Data;
+import se.europeanspallationsource.xaos.core.util.Debouncer;
 import se.europeanspallationsource.xaos.ui.plot.util.AbscissaDataComparator;
 
 import static se.europeanspallationsource.xaos.ui.plot.data.DataReducer.DEFAULT_POINTS_COUNT;
@@ -44,6 +50,25 @@ import static se.europeanspallationsource.xaos.ui.plot.data.DataReducer.MIN_TARG
 /**
  * An {@link ObservableList} whose data is automatically reduced to the
  * specified {@link #pointsCountProperty() pointsCount}.
+ * <p>
+ * Source data can be provided either as an {@link ObservableList} of
+ * {@link Data} points, or as primitive {@link XYValues}. In the latter case
+ * only the reduced points are converted into {@link Data} objects.</p>
+ * <p>
+ * When the data is reduced again (e.g. because the X axis range changed) the
+ * new reduced points are compared with the old ones, and only the differences
+ * are notified to the list listeners, allowing charts to reuse the nodes of
+ * unchanged points. Reduced primitive values are matched by their source index,
+ * reusing the same {@link Data} instance if their values are unchanged.</p>
+ * <p>
+ * When the source values are a {@link RingBufferXYValues} the list works in
+ * streaming mode: the whole sliding window is displayed, independently of the
+ * X axis range, split into {@code pointsCount / 4} buckets of equal X width
+ * whose first, last, minimum and maximum points are retained (as done by
+ * {@link M4DataReducer}). Appended samples update only the tail buckets, and
+ * discarded ones only the head buckets, so that the reduction throughput
+ * scales with the append rate and not with the window size. The
+ * {@link #dataReducerProperty() data reducer} is not used in this mode.</p>
  *
  * @param <X> Type of X values.
  * @param <Y> Type of Y values.
@@ -54,11 +79,111 @@ import static se.europeanspallationsource.xaos.ui.plot.data.DataReducer.MIN_TARG
 @SuppressWarnings( "ClassWithoutLogger" )
 public final class DataReducingObservableList<X extends Number, Y extends Number> extends ModifiableObservableListBase<Data<X, Y>> {
 
-	private final ChangeListener<Number> axisRangeChangeListener = new AxisRangeChangeListener();
+	/**
+	 * Computes the changes transforming {@code oldData} into {@code newData}.
+	 * Both lists are sorted by X value, so they are merged: points present in
+	 * both lists (i.e. the same instance) are kept, the others are removed or
+	 * added according to their X value, or replaced when the X values are
+	 * equal and neither of them is kept. Positions are relative to the list
+	 * being transformed, as expected by
+	 * {@link javafx.collections.ObservableListBase}.
+	 *
+	 * @param <X>     Type of X values.
+	 * @param <Y>     Type of Y values.
+	 * @param oldData The list of points to be transformed.
+	 * @param newData The list of points {@code oldData} must be transformed
+	 *                into.
+	 * @param remove  Receives each removed old point and its position.
+	 * @param add     Receives the position of each added point.
+	 * @param set     Receives each replaced old point and its position.
+	 */
+	static <X extends Number, Y extends Number> void mergeChanges(
+		List<Data<X, Y>> oldData,
+		List<Data<X, Y>> newData,
+		ObjIntConsumer<Data<X, Y>> remove,
+		IntConsumer add,
+		ObjIntConsumer<Data<X, Y>> set
+	) {
+
+		int oldSize = oldData.size();
+		int newSize = newData.size();
+		int i = 0;
+		int j = 0;
+		int position = 0;
+
+		while ( i < oldSize || j < newSize ) {
+
+			Data<X, Y> oldPoint = ( i < oldSize ) ? oldData.get(i) : null;
+			Data<X, Y> newPoint = ( j < newSize ) ? newData.get(j) : null;
+
+			if ( oldPoint != null && oldPoint == newPoint ) {
+				i++;
+				j++;
+				position++;
+			} else if ( newPoint == null || oldPoint != null && oldPoint.getXValue().doubleValue() < newPoint.getXValue().doubleValue() ) {
+				remove.accept(oldPoint, position);
+				i++;
+			} else if ( oldPoint == null
+					 || newPoint.getXValue().doubleValue() < oldPoint.getXValue().doubleValue()
+					 || isInRun(newData, j + 1, oldPoint) ) {
+				add.accept(position);
+				j++;
+				position++;
+			} else if ( isInRun(oldData, i + 1, newPoint) ) {
+				remove.accept(oldPoint, position);
+				i++;
+			} else {
+				set.accept(oldPoint, position);
+				i++;
+				j++;
+				position++;
+			}
+
+		}
+
+	}
+
+	/**
+	 * @return {@code true} if the given point is in the given list, starting
+	 *         from the given index, before a different X value is found.
+	 */
+	private static <X extends Number, Y extends Number> boolean isInRun( List<Data<X, Y>> data, int fromIndex, Data<X, Y> point ) {
+
+		double x = point.getXValue().doubleValue();
+
+		for ( int k = fromIndex; k < data.size() && data.get(k).getXValue().doubleValue() == x; k++ ) {
+			if ( data.get(k) == point ) {
+				return true;
+			}
+		}
+
+		return false;
+
+	}
+
+	/**
+	 * Runs {@link #reduce()} only once when both lower and upper bound of the
+	 * X axis are changed (and therefore two events are fired).
+	 */
+	private final ChangeListener<Number> axisRangeChangeListener = ( ob, o, n ) -> Debouncer.getDefault().debounce(
+		this.debounceKey,
+		() -> Platform.runLater(this::reduce)
+	);
+	/**
+	 * The {@link Debouncer} key: the list itself cannot be used, because its
+	 * {@link Object#equals(Object)} and {@link Object#hashCode()} depend on
+	 * its content.
+	 */
+	private final Object debounceKey = new Object();
 	private final ObjectProperty<DataReducer<X, Y>> dataReducer = new SimpleObjectProperty<>(this, "dataReducer", new RamerDouglasPeuckerDataReducer<>());
 	private List<Data<X, Y>> reducedData = Collections.emptyList();
+	private int[] reducedIndices = new int[0];
 	private final ObservableList<Data<X, Y>> sourceData;
+	private final XYValues sourceValues;
+	private final StreamingReduction streaming;
 	private final ValueAxis<X> xAxis;
+	private final DoubleFunction<X> xConverter;
+	private final DoubleFunction<Y> yConverter;
 
 	/*
 	 * *********************************************************************** *
@@ -133,6 +258,10 @@ public final class DataReducingObservableList<X extends Number, Y extends Number
 
 		this.xAxis = xAxis;
 		this.sourceData = sourceData;
+		this.sourceValues = null;
+		this.streaming = null;
+		this.xConverter = null;
+		this.yConverter = null;
 
 		xAxis.lowerBoundProperty().addListener(axisRangeChangeListener);
 		xAxis.upperBoundProperty().addListener(axisRangeChangeListener);
@@ -141,6 +270,96 @@ public final class DataReducingObservableList<X extends Number, Y extends Number
 
 	}
 
+	/**
+	 * Creates a new instance of {@link DataReducingObservableList} whose source
+	 * data are the given primitive {@link XYValues}. Reduced values are
+	 * converted into {@link Double}s, so this constructor should be used only
+	 * when {@code X} and {@code Y} are {@link Number} or {@link Double}.
+	 *
+	 * @param xAxis        X coordinates axis of the chart displaying the data.
+	 * @param sourceValues Primitive values to be reduced.
+	 * @throws NullPointerException If the X value axis and/or the source values
+	 *                              is {@code null}.
+	 */
+	@SuppressWarnings( "unchecked" )
+	public DataReducingObservableList( ValueAxis<X> xAxis, XYValues sourceValues ) throws NullPointerException {
+		this(xAxis, sourceValues, v -> (X) Double.valueOf(v), v -> (Y) Double.valueOf(v));
+	}
+
+	/**
+	 * Creates a new instance of {@link DataReducingObservableList} whose source
+	 * data are the given primitive {@link XYValues}.
+	 *
+	 * @param xAxis        X coordinates axis of the chart displaying the data.
+	 * @param sourceValues Primitive values to be reduced.
+	 * @param xConverter   Function used to convert the primitive X values of
+	 *                     the reduced points into {@code X} instances.
+	 * @param yConverter   Function used to convert the primitive Y values of
+	 *                     the reduced points into {@code Y} instances.
+	 * @throws NullPointerException If any of the parameters is {@code null}.
+	 */
+	public DataReducingObservableList( ValueAxis<X> xAxis, XYValues sourceValues, DoubleFunction<X> xConverter, DoubleFunction<Y> yConverter )
+		throws NullPointerException
+	{
+		this(sourceValues, Objects.requireNonNull(xAxis, "X ValueAxis cannot be null."), xConverter, yConverter);
+	}
+
+	/**
+	 * Creates a new instance of {@link DataReducingObservableList} in
+	 * streaming mode. No X axis is needed, because the whole sliding window is
+	 * displayed.
+	 *
+	 * @param sourceValues Primitive values to be reduced.
+	 * @param xConverter   Function used to convert the primitive X values of
+	 *                     the reduced points into {@code X} instances.
+	 * @param yConverter   Function used to convert the primitive Y values of
+	 *                     the reduced points into {@code Y} instances.
+	 * @throws NullPointerException If any of the parameters is {@code null}.
+	 */
+	DataReducingObservableList( RingBufferXYValues sourceValues, DoubleFunction<X> xConverter, DoubleFunction<Y> yConverter )
+		throws NullPointerException
+	{
+		this(sourceValues, null, xConverter, yConverter);
+	}
+
+	/**
+	 * @param xAxis Can be {@code null} only if {@code sourceValues} is a
+	 *              {@link RingBufferXYValues}.
+	 */
+	private DataReducingObservableList( XYValues sourceValues, ValueAxis<X> xAxis, DoubleFunction<X> xConverter, DoubleFunction<Y> yConverter )
+		throws NullPointerException
+	{
+
+		Objects.requireNonNull(sourceValues, "Source values cannot be null.");
+		Objects.requireNonNull(xConverter, "X converter cannot be null.");
+		Objects.requireNonNull(yConverter, "Y converter cannot be null.");
+
+		this.xAxis = xAxis;
+		this.sourceData = FXCollections.emptyObservableList();
+		this.sourceValues = sourceValues;
+		this.xConverter = xConverter;
+		this.yConverter = yConverter;
+
+		if ( sourceValues instanceof RingBufferXYValues ) {
+
+			this.streaming = new StreamingReduction((RingBufferXYValues) sourceValues);
+
+			pointsCount.addListener(observable -> streaming.rebuild());
+			sourceValues.addListener(observable -> streaming.update());
+
+		} else {
+
+			this.streaming = null;
+
+			xAxis.lowerBoundProperty().addListener(axisRangeChangeListener);
+			xAxis.upperBoundProperty().addListener(axisRangeChangeListener);
+
+			sourceValues.addListener(observable -> reduce());
+
+		}
+
+	}
+
 	public ObjectProperty<DataReducer<X, Y>> dataReducerProperty() {
 		return dataReducer;
 	}
@@ -158,11 +377,23 @@ public final class DataReducingObservableList<X extends Number, Y extends Number
 		return dataReducer.get();
 	}
 
+	/**
+	 * @return The source data list, or an empty list if this instance was
+	 *         created with primitive {@link #getSourceValues() source values}.
+	 */
 	@SuppressWarnings( "ReturnOfCollectionOrArrayField" )
 	public ObservableList<Data<X, Y>> getSourceData() {
 		return sourceData;
 	}
 
+	/**
+	 * @return The primitive source values, or {@code null} if this instance
+	 *         was created with a {@link #getSourceData() source data} list.
+	 */
+	public XYValues getSourceValues() {
+		return sourceValues;
+	}
+
 	public void setDataReducer( DataReducer<X, Y> value ) {
 		dataReducer.set(value);
 	}
@@ -172,6 +403,22 @@ public final class DataReducingObservableList<X extends Number, Y extends Number
 		return reducedData.size();
 	}
 
+	/**
+	 * @param x An X value.
+	 * @return The index along the X axis of the streaming mode bucket
+	 *         containing the given X value.
+	 * @throws IllegalStateException If this list is not in streaming mode.
+	 */
+	long streamingBucketIndex( double x ) throws IllegalStateException {
+
+		if ( streaming == null ) {
+			throw new IllegalStateException("Not in streaming mode.");
+		}
+
+		return streaming.bucketIndex(x);
+
+	}
+
 	@Override
 	protected void doAdd( int index, Data<X, Y> element ) {
 		throw new UnsupportedOperationException("Add operation is not allowed. Use getSourceValues().add(...) instead");
@@ -253,53 +500,360 @@ public final class DataReducingObservableList<X extends Number, Y extends Number
 
 	private void reduce() {
 
-		beginChange();
-
-		//	Clear previous reduced data list.
-		nextRemove(0, reducedData);
-
 		DataReducer<X, Y> reducer = getDataReducer();
+		List<Data<X, Y>> newData;
 
-		if ( reducer == null ) {
-			reducedData = sourceData;
+		if ( sourceValues != null ) {
+			newData = reduceValues(reducer);
+		} else if ( reducer == null ) {
+			newData = new ArrayList<>(sourceData);
 		} else {
-			reducedData = reducer.reduce(getXRangeData(), getPointsCount());
+			//	Copied because reducers can return views of the source data.
+			newData = new ArrayList<>(reducer.reduce(getXRangeData(), getPointsCount()));
+		}
+
+		setReducedData(newData);
+
+	}
+
+	private Data<X, Y> createData( int index ) {
+		return new Data<>(
+			xConverter.apply(sourceValues.getXValue(index)),
+			yConverter.apply(sourceValues.getYValue(index))
+		);
+	}
+
+	/**
+	 * Reduces the source values. Points with the same source index of a
+	 * previously reduced point, and still the same values, reuse the old
+	 * {@link Data} instance.
+	 */
+	private List<Data<X, Y>> reduceValues( DataReducer<X, Y> reducer ) {
+
+		int fromIndex = sourceValues.fromIndex(xAxis.getLowerBound());
+		int toIndex = Math.max(fromIndex, sourceValues.toIndex(xAxis.getUpperBound()));
+		int[] indices = ( reducer == null )
+			? IntStream.range(fromIndex, toIndex).toArray()
+			: reducer.reduce(sourceValues, fromIndex, toIndex, getPointsCount());
+		List<Data<X, Y>> data = new ArrayList<>(indices.length);
+		int oldIndex = 0;
+
+		for ( int index : indices ) {
+
+			while ( oldIndex < reducedIndices.length && reducedIndices[oldIndex] < index ) {
+				oldIndex++;
+			}
+
+			Data<X, Y> oldData = ( oldIndex < reducedIndices.length && reducedIndices[oldIndex] == index )
+				? reducedData.get(oldIndex)
+				: null;
+
+			if ( oldData != null
+			  && oldData.getXValue().doubleValue() == sourceValues.getXValue(index)
+			  && oldData.getYValue().doubleValue() == sourceValues.getYValue(index) ) {
+				data.add(oldData);
+			} else {
+				data.add(createData(index));
+			}
+
 		}
 
-		//	Add new reduced data list elements.
-		nextAdd(0, reducedData.size());
+		reducedIndices = indices;
+
+		return data;
+
+	}
+
+	/**
+	 * Replaces the reduced data with the given one, firing only the changes
+	 * between the two lists.
+	 */
+	private void setReducedData( List<Data<X, Y>> newData ) {
+
+		beginChange();
+
+		mergeChanges(
+			reducedData,
+			newData,
+			( oldPoint, position ) -> nextRemove(position, oldPoint),
+			position -> nextAdd(position, position + 1),
+			( oldPoint, position ) -> nextSet(position, oldPoint)
+		);
+
+		reducedData = newData;
+
 		endChange();
 
 	}
 
 	/**
-	 * Listens to changes in lower and upper bound of the X axis and runs the 
-	 * {@link #reduce()} method after {@link #EVENT_DELAY_MILLIS} to schedule
-	 * only one reduction in case both lower and upper bound are changed (and
-	 * therefore two events are fired).
+	 * Bucket of the streaming reduction, identified by its index along the X
+	 * axis. Points are referenced by their sequence number, that doesn't
+	 * change when the window slides.
 	 */
-	private class AxisRangeChangeListener implements ChangeListener<Number> {
+	private static class Bucket {
+
+		private int entries = 0;
+		private long first;
+		final long index;
+		private long last;
+		private long max;
+		private double maxY;
+		private long min;
+		private double minY;
+
+		Bucket( long index, long sequence, double y ) {
+			this.index = index;
+			reset(sequence, y);
+		}
 
-		private static final int EVENT_DELAY_MILLIS = 50;
+		void accept( long sequence, double y ) {
 
-		private TimerTask task = null;
-		private final Timer timer = new Timer();
+			last = sequence;
 
-		@Override
-		public void changed( ObservableValue<? extends Number> observable, Number oldValue, Number newValue ) {
+			if ( y < minY ) {
+				min = sequence;
+				minY = y;
+			} else if ( y > maxY ) {
+				max = sequence;
+				maxY = y;
+			}
+
+		}
+
+		final void reset( long sequence, double y ) {
+			first = last = min = max = sequence;
+			minY = maxY = y;
+		}
+
+	}
+
+	/**
+	 * Incremental reduction of a {@link RingBufferXYValues} sliding window.
+	 */
+	private class StreamingReduction {
+
+		private double bucketOrigin;
+		private double bucketWidth;
+		private final Deque<Bucket> buckets = new ArrayDeque<>();
+		private long processed = 0;
+		private final RingBufferXYValues values;
+		private double windowSpan;
+
+		StreamingReduction( RingBufferXYValues values ) {
+			this.values = values;
+			rebuild();
+		}
+
+		/**
+		 * Reduces the whole window from scratch, replacing all the reduced
+		 * data.
+		 */
+		final void rebuild() {
+
+			int bucketsCount = Math.max(1, getPointsCount() / 4);
+
+			buckets.clear();
+
+			if ( values.isEmpty() ) {
+				windowSpan = 0;
+				bucketOrigin = 0;
+				bucketWidth = Double.MAX_VALUE;
+			} else {
+
+				windowSpan = values.getXValue(values.size() - 1) - values.getXValue(0);
+				bucketOrigin = values.getXValue(0);
+				bucketWidth = windowSpan / bucketsCount;
+
+				if ( !Double.isFinite(bucketWidth) || bucketWidth <= 0 ) {
+					bucketWidth = Double.MAX_VALUE;
+				}
+
+			}
+
+			processed = values.getFirstSequence();
+
+			beginChange();
+			nextRemove(0, reducedData);
+
+			reducedData = new ArrayList<>(4 * bucketsCount + 4);
+
+			appendSamples();
+			endChange();
+
+		}
+
+		/**
+		 * @return The index of the bucket containing the given X value.
+		 */
+		long bucketIndex( double x ) {
+			return (long) Math.floor(( x - bucketOrigin ) / bucketWidth);
+		}
+
+		/**
+		 * Updates the reduced data after some samples were appended to the
+		 * window, and the oldest ones discarded.
+		 */
+		void update() {
+
+			long firstSequence = values.getFirstSequence();
+
+			if ( values.getTotalCount() < processed || values.isEmpty() ) {
+				rebuild();
+				return;
+			}
+
+			double span = values.getXValue(values.size() - 1) - values.getXValue(0);
+
+			if ( span > 2 * windowSpan || span < windowSpan / 2 || buckets.size() > getPointsCount() / 2 ) {
+				rebuild();
+				return;
+			}
+
+			beginChange();
+			expireSamples(firstSequence);
+
+			if ( buckets.isEmpty() ) {
+				//	All the reduced data expired.
+				processed = firstSequence;
+			}
 
-			if ( task != null ) {
-				task.cancel();
+			appendSamples();
+			endChange();
+
+		}
+
+		/**
+		 * Processes the samples not yet processed, updating the tail bucket
+		 * and creating new ones. The reduced data of the tail bucket are
+		 * replaced and the ones of the new buckets appended.
+		 */
+		private void appendSamples() {
+
+			long firstSequence = values.getFirstSequence();
+			long totalCount = values.getTotalCount();
+
+			if ( processed >= totalCount ) {
+				return;
 			}
 
-			task = new TimerTask() {
-				@Override
-				public void run() {
-					Platform.runLater(DataReducingObservableList.this::reduce);
+			Bucket tail = buckets.peekLast();
+			int tailStart = reducedData.size();
+			int updatedBuckets = 0;
+
+			if ( tail != null ) {
+
+				List<Data<X, Y>> tailData = reducedData.subList(tailStart - tail.entries, tailStart);
+
+				tailStart -= tail.entries;
+				updatedBuckets++;
+
+				nextRemove(tailStart, new ArrayList<>(tailData));
+				tailData.clear();
+
+			}
+
+			for ( long sequence = Math.max(processed, firstSequence); sequence < totalCount; sequence++ ) {
+
+				int index = (int) ( sequence - firstSequence );
+				double y = values.getYValue(index);
+				long bucketIndex = bucketIndex(values.getXValue(index));
+
+				if ( tail != null && tail.index == bucketIndex ) {
+					tail.accept(sequence, y);
+				} else {
+					tail = new Bucket(bucketIndex, sequence, y);
+					buckets.addLast(tail);
+					updatedBuckets++;
+				}
+
+			}
+
+			processed = totalCount;
+
+			//	Re-create the data of the old tail bucket and of the new ones.
+			int[] keyPoints = new int[4];
+			int skippedBuckets = buckets.size() - updatedBuckets;
+
+			for ( Bucket bucket : buckets ) {
+				if ( skippedBuckets > 0 ) {
+					skippedBuckets--;
+				} else {
+					addBucketData(reducedData.size(), bucket, keyPoints, firstSequence);
 				}
-			};
+			}
+
+			nextAdd(tailStart, reducedData.size());
 
-			timer.schedule(task, EVENT_DELAY_MILLIS);
+		}
+
+		/**
+		 * Inserts the reduced data of the given bucket at the given index.
+		 *
+		 * @return The number of inserted data.
+		 */
+		private int addBucketData( int index, Bucket bucket, int[] keyPoints, long firstSequence ) {
+
+			int count = M4DataReducer.appendKeyPoints(
+				keyPoints,
+				0,
+				(int) ( bucket.first - firstSequence ),
+				(int) ( bucket.min - firstSequence ),
+				(int) ( bucket.max - firstSequence ),
+				(int) ( bucket.last - firstSequence )
+			);
+
+			for ( int i = 0; i < count; i++ ) {
+				reducedData.add(index + i, createData(keyPoints[i]));
+			}
+
+			bucket.entries = count;
+
+			return count;
+
+		}
+
+		/**
+		 * Removes the buckets whose samples were all discarded, and recomputes
+		 * the first one if some of its samples were discarded.
+		 */
+		private void expireSamples( long firstSequence ) {
+
+			int removed = 0;
+
+			while ( !buckets.isEmpty() && buckets.peekFirst().last < firstSequence ) {
+				removed += buckets.pollFirst().entries;
+			}
+
+			if ( removed > 0 ) {
+
+				List<Data<X, Y>> removedData = reducedData.subList(0, removed);
+
+				nextRemove(0, new ArrayList<>(removedData));
+				removedData.clear();
+
+			}
+
+			Bucket head = buckets.peekFirst();
+
+			if ( head != null && head.first < firstSequence ) {
+
+				List<Data<X, Y>> headData = reducedData.subList(0, head.entries);
+
+				nextRemove(0, new ArrayList<>(headData));
+				headData.clear();
+
+				long last = head.last;
+
+				head.reset(firstSequence, values.getYValue(0));
+
+				for ( long sequence = firstSequence + 1; sequence <= last; sequence++ ) {
+					head.accept(sequence, values.getYValue((int) ( sequence - firstSequence )));
+				}
+
+				nextAdd(0, addBucketData(0, head, new int[4], firstSequence));
+
+			}
 
 		}
 
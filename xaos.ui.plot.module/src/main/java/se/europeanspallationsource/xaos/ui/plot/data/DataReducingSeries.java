@@ -18,13 +18,17 @@ package se.europeanspallationsource.xaos.ui.plot.data;
 
 
 import java.text.MessageFormat;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.stream.Collectors;
-import javafx.application.Platform;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.BooleanSupplier;
+import java.util.function.DoubleFunction;
+import java.util.function.IntFunction;
+import java.util.stream.IntStream;
+import javafx.beans.InvalidationListener;
 import javafx.beans.property.BooleanProperty;
 import javafx.beans.property.DoubleProperty;
 import javafx.beans.property.IntegerProperty;
@@ -35,7 +39,6 @@ import javafx.beans.property.SimpleIntegerProperty;
 import javafx.beans.property.SimpleObjectProperty;
 import javafx.beans.property.StringProperty;
 import javafx.beans.value.ChangeListener;
-import javafx.beans.value.ObservableValue;
 import javafx.collections.FXCollections;
 import javafx.collections.ListChangeListener;
 import javafx.collections.ObservableList;
@@ -43,15 +46,31 @@ import javafx.scene.chart.ValueAxis;
 import javafx.scene.chart.XYChart;
 import javafx.scene.chart.XYChart.Data;
 import javafx.scene.chart.XYChart.Series;
-import se.europeanspallationsource.xaos.core.util.ThreadUtils;
 import se.europeanspallationsource.xaos.ui.plot.util.AbscissaDataComparator;
 
 import static se.europeanspallationsource.xaos.ui.plot.data.DataReducer.DEFAULT_POINTS_COUNT;
 import static se.europeanspallationsource.xaos.ui.plot.data.DataReducer.MIN_TARGET_POINTS_COUNT;
+import static se.europeanspallationsource.xaos.ui.plot.data.DataReductionScheduler.COALESCING_DELAY_MILLIS;
 
 
 /**
  * A data series capable of reducing data.
+ * <p>
+ * Data can be provided either as an {@link ObservableList} of {@link Data}
+ * points, or as primitive {@link XYValues}. In the latter case only the reduced
+ * points are converted into {@link Data} objects, saving a lot of memory and GC
+ * pressure when the series is made of millions of points.</p>
+ * <p>
+ * Data reduction is performed in background, and only the last requested
+ * reduction is published to the displayed {@link #getSeries() series}, so
+ * that the JavaFX application thread is not blocked while the chart axis is
+ * moving. The source data should be modified only from the JavaFX application
+ * thread, and {@link XYValues} should only be appended or cleared while
+ * displayed.</p>
+ * <p>
+ * The {@link Data} instances of the displayed series are recycled: when a new
+ * reduction is published, the existing ones are updated in place with the new
+ * X and Y values, and only the difference in size is added or removed.</p>
  *
  * @param <X> Type of X values.
  * @param <Y> Type of Y values.
@@ -63,27 +82,10 @@ public final class DataReducingSeries<X extends Number, Y extends Number> {
 
 	private static final double DEFAULT_CHART_WIDTH_TO_DATA_POINTS_RATIO = 2;
 	private final BooleanProperty autoPointsCount = new SimpleBooleanProperty(this, "autoPointsCount", true);
-	private final ChangeListener<Number> axisRangeChangeListener = new ChangeListener<Number>() {
-
-		private AtomicBoolean dataReductionNeeded = new AtomicBoolean(false);
-		private ExecutorService executor = Executors.newSingleThreadExecutor();
-
-		@Override
-		public void changed( ObservableValue<? extends Number> observable, Number oldValue, Number newValue ) {
-			dataReductionNeeded.set(true);
-			executor.submit(() -> {
-				//	Temporary hack to avoid reducing data twice (lowerBound and upperBound update).
-				ThreadUtils.sleep(5);
-				if ( dataReductionNeeded.compareAndSet(true, false) ) {
-					Platform.runLater(DataReducingSeries.this::reduceData);
-				}
-			});
-		}
-
-	};
+	private final ChangeListener<Number> axisRangeChangeListener = ( ob, o, n ) -> reduceData(COALESCING_DELAY_MILLIS);
 	private final ChangeListener<Number> axisWidthChangeListener = ( ob, o, n ) -> {
 		if ( isAutoPointsCount() ) {
-			Platform.runLater(DataReducingSeries.this::reduceData);
+			reduceData(COALESCING_DELAY_MILLIS);
 		}
 	};
 	private final DoubleProperty chartWidthToDataPointsRatio = new SimpleDoubleProperty(this, "chartWidthToDataPointsRatio", DEFAULT_CHART_WIDTH_TO_DATA_POINTS_RATIO);
@@ -112,9 +114,37 @@ public final class DataReducingSeries<X extends Number, Y extends Number> {
 
 	};
 	private final ListChangeListener<Data<X, Y>> dataChangeListener = e -> reduceData();
+	private final Set<Data<X, Y>> customNodeData = new HashSet<>();
 	private final ObjectProperty<DataReducer<X, Y>> dataReducer = new SimpleObjectProperty<>(DataReducingSeries.this, "dataReducer", new RamerDouglasPeuckerDataReducer<>());
 	private final IntegerProperty fixedPointsCount = new SimpleIntegerProperty(this, "fixedPointsCount", DEFAULT_POINTS_COUNT);
 	private final Series<X, Y> target = new Series<>();
+	private final ObjectProperty<XYValues> values = new SimpleObjectProperty<>(this, "values") {
+
+		private XYValues old;
+
+		@Override
+		protected void invalidated() {
+
+			XYValues current = get();
+
+			if ( old != null ) {
+				old.removeListener(valuesChangeListener);
+			}
+
+			if ( current != null ) {
+				current.addListener(valuesChangeListener);
+			}
+
+			reduceData();
+
+			old = current;
+
+		}
+
+	};
+	private final InvalidationListener valuesChangeListener = e -> reduceData();
+	private final DoubleFunction<X> xConverter;
+	private final DoubleFunction<Y> yConverter;
 
 	/**
 	 * Construct a empty series.
@@ -141,9 +171,71 @@ public final class DataReducingSeries<X extends Number, Y extends Number> {
 	 * @param data {@link ObservableList} of {@link Data} points.
 	 */
 	public DataReducingSeries( String name, ObservableList<Data<X, Y>> data ) {
+		this(name, data, null, defaultConverter(), defaultConverter());
+	}
+
+	/**
+	 * Constructs a series and populates it with the given primitive
+	 * {@link XYValues}. Reduced values are converted into {@link Double}s, so
+	 * this constructor should be used only when {@code X} and {@code Y} are
+	 * {@link Number} or {@link Double}.
+	 *
+	 * @param values Primitive {@link XYValues} to be reduced and displayed.
+	 */
+	public DataReducingSeries( XYValues values ) {
+		this(null, values);
+	}
+
+	/**
+	 * Constructs a named series and populates it with the given primitive
+	 * {@link XYValues}. Reduced values are converted into {@link Double}s, so
+	 * this constructor should be used only when {@code X} and {@code Y} are
+	 * {@link Number} or {@link Double}.
+	 *
+	 * @param name   The name for the series.
+	 * @param values Primitive {@link XYValues} to be reduced and displayed.
+	 */
+	public DataReducingSeries( String name, XYValues values ) {
+		this(name, values, defaultConverter(), defaultConverter());
+	}
+
+	/**
+	 * Constructs a named series and populates it with the given primitive
+	 * {@link XYValues}.
+	 *
+	 * @param name       The name for the series.
+	 * @param values     Primitive {@link XYValues} to be reduced and displayed.
+	 * @param xConverter Function used to convert the primitive X values of the
+	 *                   reduced points into {@code X} instances.
+	 * @param yConverter Function used to convert the primitive Y values of the
+	 *                   reduced points into {@code Y} instances.
+	 * @throws NullPointerException If {@code xConverter} or {@code yConverter}
+	 *                              is {@code null}.
+	 */
+	public DataReducingSeries( String name, XYValues values, DoubleFunction<X> xConverter, DoubleFunction<Y> yConverter )
+		throws NullPointerException
+	{
+		this(name, FXCollections.<Data<X, Y>>observableArrayList(), values, xConverter, yConverter);
+	}
+
+	private DataReducingSeries( String name, ObservableList<Data<X, Y>> data, XYValues values, DoubleFunction<X> xConverter, DoubleFunction<Y> yConverter ) {
+
+		Objects.requireNonNull(xConverter, "Null X converter.");
+		Objects.requireNonNull(yConverter, "Null Y converter.");
+
+		this.xConverter = xConverter;
+		this.yConverter = yConverter;
+
 		setName(name);
 		setData(data);
+		setValues(values);
 		bindListeners();
+
+	}
+
+	@SuppressWarnings( "unchecked" )
+	private static <T> DoubleFunction<T> defaultConverter() {
+		return v -> (T) Double.valueOf(v);
 	}
 
 	public BooleanProperty autoPointsCountProperty() {
@@ -190,6 +282,10 @@ public final class DataReducingSeries<X extends Number, Y extends Number> {
 		return this.target;
 	}
 
+	public XYValues getValues() {
+		return values.get();
+	}
+
 	public boolean isAutoPointsCount() {
 		return autoPointsCount.get();
 	}
@@ -240,6 +336,19 @@ public final class DataReducingSeries<X extends Number, Y extends Number> {
 		target.setName(value);
 	}
 
+	public void setValues( XYValues value ) {
+		values.set(value);
+	}
+
+	/**
+	 * @return The property holding the primitive values of this series. When
+	 *         not {@code null}, they take precedence over the
+	 *         {@link #dataProperty() data} list.
+	 */
+	public ObjectProperty<XYValues> valuesProperty() {
+		return values;
+	}
+
 	private void bindAxis( XYChart<X, Y> chart ) {
 
 		ValueAxis<X> xAxis = getXAxis(chart);
@@ -291,7 +400,7 @@ public final class DataReducingSeries<X extends Number, Y extends Number> {
 
 			return ( xAxis == null )
 				? getFixedPointsCount()
-				: (int) ( xAxis.getWidth() / getChartWidthToDataPointsRatio() );
+				: Math.max(MIN_TARGET_POINTS_COUNT, (int) ( xAxis.getWidth() / getChartWidthToDataPointsRatio() ));
 
 		} else {
 			return getFixedPointsCount();
@@ -308,6 +417,10 @@ public final class DataReducingSeries<X extends Number, Y extends Number> {
 		ValueAxis<X> xAxis = getXAxis(getSeries().getChart());
 		List<Data<X, Y>> originalData = getData();
 
+		if ( originalData == null ) {
+			return Collections.emptyList();
+		}
+
 		return ( xAxis == null )
 			? originalData
 			: subList(originalData, xAxis.getLowerBound(), xAxis.getUpperBound());
@@ -327,32 +440,234 @@ public final class DataReducingSeries<X extends Number, Y extends Number> {
 
 	}
 
-	private List<Data<X, Y>> recreateData( List<Data<X, Y>> reduced ) {
-		return reduced.stream()
-			.map(d -> {
+	/**
+	 * Updates the displayed data with the given reduced values, reusing the
+	 * existing {@link Data} instances. Nothing is done if the reduction was
+	 * abandoned or the source values were modified in the meantime, because
+	 * the reduced values could have been read from a torn window, and a new
+	 * reduction was already scheduled by the values change listener.
+	 *
+	 * @param xyValues          The reduced source values.
+	 * @param modificationCount The modification count of {@code xyValues}
+	 *                          when the reduction was scheduled.
+	 * @param reduced           An array of two elements, the reduced X and Y
+	 *                          values, or {@code null}.
+	 */
+	private void publishValues( XYValues xyValues, long modificationCount, double[][] reduced ) {
+
+		if ( reduced == null || xyValues.getModificationCount() != modificationCount ) {
+			return;
+		}
+
+		double[] reducedX = reduced[0];
+		double[] reducedY = reduced[1];
+		ObservableList<Data<X, Y>> targetData = target.getData();
+		int common = Math.min(targetData.size(), reducedX.length);
+
+		for ( int i = 0; i < common; i++ ) {
+
+			Data<X, Y> d = targetData.get(i);
+
+			if ( d.getXValue().doubleValue() != reducedX[i] ) {
+				d.setXValue(xConverter.apply(reducedX[i]));
+			}
+
+			if ( d.getYValue().doubleValue() != reducedY[i] ) {
+				d.setYValue(yConverter.apply(reducedY[i]));
+			}
+
+		}
+
+		resize(targetData, reducedX.length, i -> new Data<>(xConverter.apply(reducedX[i]), yConverter.apply(reducedY[i])));
+
+	}
+
+	/**
+	 * Updates the displayed data with the given reduced data, reusing the
+	 * existing {@link Data} instances. A displayed instance is replaced only
+	 * when the reduced one has a custom node, or when it is sharing the custom
+	 * node of a previously reduced one.
+	 *
+	 * @param reduced The reduced source data.
+	 */
+	private void publishData( List<Data<X, Y>> reduced ) {
+
+		ObservableList<Data<X, Y>> targetData = target.getData();
+		int common = Math.min(targetData.size(), reduced.size());
+
+		for ( int i = 0; i < common; i++ ) {
+
+			Data<X, Y> d = targetData.get(i);
+			Data<X, Y> r = reduced.get(i);
+
+			if ( ( r.getNode() != null ) ? r.getNode() != d.getNode() : customNodeData.contains(d) ) {
+				customNodeData.remove(d);
+				targetData.set(i, copyData(r));
+			} else {
+
+				if ( !Objects.equals(d.getXValue(), r.getXValue()) ) {
+					d.setXValue(r.getXValue());
+				}
+
+				if ( !Objects.equals(d.getYValue(), r.getYValue()) ) {
+					d.setYValue(r.getYValue());
+				}
+
+				if ( !Objects.equals(d.getExtraValue(), r.getExtraValue()) ) {
+					d.setExtraValue(r.getExtraValue());
+				}
+
+			}
+
+		}
+
+		resize(targetData, reduced.size(), i -> copyData(reduced.get(i)));
+
+	}
+
+	/**
+	 * @return A copy of the given source data, sharing its node. Source data
+	 *         cannot be displayed directly because it could belong to more
+	 *         series.
+	 */
+	private Data<X, Y> copyData( Data<X, Y> d ) {
 
-				Data<X, Y> newData = new Data<>(d.getXValue(), d.getYValue(), d.getExtraValue());
+		Data<X, Y> newData = new Data<>(d.getXValue(), d.getYValue(), d.getExtraValue());
 
-				newData.setNode(d.getNode());
+		if ( d.getNode() != null ) {
+			newData.setNode(d.getNode());
+			customNodeData.add(newData);
+		}
 
-				return newData;
+		return newData;
+
+	}
+
+	/**
+	 * Removes the exceeding elements from the given list, or adds the missing
+	 * ones using the given {@code factory}, so that its size becomes the given
+	 * one.
+	 */
+	private void resize( ObservableList<Data<X, Y>> list, int size, IntFunction<Data<X, Y>> factory ) {
+
+		int oldSize = list.size();
+
+		if ( size < oldSize ) {
+
+			if ( !customNodeData.isEmpty() ) {
+				list.subList(size, oldSize).forEach(customNodeData::remove);
+			}
+
+			list.remove(size, oldSize);
+
+		} else if ( size > oldSize ) {
+
+			List<Data<X, Y>> added = new ArrayList<>(size - oldSize);
+
+			for ( int i = oldSize; i < size; i++ ) {
+				added.add(factory.apply(i));
+			}
+
+			list.addAll(added);
+
+		}
+
+	}
+
+	/**
+	 * @return An array of two elements, the X and Y values at the given
+	 *         indices.
+	 */
+	private double[][] extractValues( XYValues xyValues, int[] indices ) {
+
+		double[] reducedX = new double[indices.length];
+		double[] reducedY = new double[indices.length];
+
+		for ( int i = 0; i < indices.length; i++ ) {
+			reducedX[i] = xyValues.getXValue(indices[i]);
+			reducedY[i] = xyValues.getYValue(indices[i]);
+		}
+
+		return new double[][] { reducedX, reducedY };
 
-			})
-			.collect(Collectors.toList());
 	}
 
 	private void reduceData() {
+		reduceData(0);
+	}
+
+	/**
+	 * Collects on the JavaFX application thread the data in the current X
+	 * range, and schedules its reduction in background.
+	 *
+	 * @param delay Milliseconds to wait before starting the reduction.
+	 */
+	private void reduceData( long delay ) {
 
 		DataReducer<X, Y> reducer = getDataReducer();
+		XYValues xyValues = getValues();
+		int pointsCount = getPointsCount();
+
+		if ( xyValues != null ) {
+
+			ValueAxis<X> xAxis = getXAxis(getSeries().getChart());
+			int fromIndex = ( xAxis == null ) ? 0 : xyValues.fromIndex(xAxis.getLowerBound());
+			int toIndex = ( xAxis == null ) ? xyValues.size() : Math.max(fromIndex, xyValues.toIndex(xAxis.getUpperBound()));
+			long modificationCount = xyValues.getModificationCount();
+
+			DataReductionScheduler.schedule(
+				this,
+				delay,
+				cancelled -> reduceValues(cancelled, reducer, xyValues, modificationCount, fromIndex, toIndex, pointsCount),
+				reduced -> publishValues(xyValues, modificationCount, reduced)
+			);
 
-		if ( reducer == null ) {
-			target.getData().setAll(recreateData(getXRangeData()));
 		} else {
 
-			List<Data<X, Y>> reduced = reducer.reduce(getXRangeData(), getPointsCount());
+			List<Data<X, Y>> rangeData = new ArrayList<>(getXRangeData());
+
+			DataReductionScheduler.schedule(
+				this,
+				delay,
+				cancelled -> ( reducer == null ) ? rangeData : reducer.reduce(rangeData, pointsCount),
+				this::publishData
+			);
+
+		}
+
+	}
+
+	/**
+	 * Reduces the given values in background. The values are read while they
+	 * can be modified on the JavaFX application thread (e.g. a full
+	 * {@link RingBufferXYValues} shifting its window), so the reduction is
+	 * abandoned as soon as their modification count changes.
+	 *
+	 * @return An array of two elements, the reduced X and Y values, or
+	 *         {@code null} if the reduction was cancelled or the values
+	 *         modified.
+	 */
+	private double[][] reduceValues( BooleanSupplier cancelled, DataReducer<X, Y> reducer, XYValues xyValues, long modificationCount, int fromIndex, int toIndex, int pointsCount ) {
+
+		try {
 
-			target.getData().setAll(recreateData(reduced));
+			int[] indices = ( reducer == null )
+				? IntStream.range(fromIndex, toIndex).toArray()
+				: reducer.reduce(xyValues, fromIndex, toIndex, pointsCount);
 
+			if ( cancelled.getAsBoolean() || xyValues.getModificationCount() != modificationCount ) {
+				return null;
+			}
+
+			return extractValues(xyValues, indices);
+
+		} catch ( IndexOutOfBoundsException ex ) {
+			if ( xyValues.getModificationCount() != modificationCount ) {
+				//	Values removed while reducing them.
+				return null;
+			} else {
+				throw ex;
+			}
 		}
 
 	}
@@ -0,0 +1,214 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ * Copyright (C) 2018-2019 by European Spallation Source ERIC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.europeanspallationsource.xaos.ui.plot.data;
+
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.logging.Logger;
+import javafx.application.Platform;
+import se.europeanspallationsource.xaos.core.util.Debouncer;
+import se.europeanspallationsource.xaos.core.util.LogUtils;
+import se.europeanspallationsource.xaos.core.util.ThreadPools;
+
+import static java.util.logging.Level.WARNING;
+
+
+/**
+ * Shared scheduler running data reductions off the JavaFX application thread.
+ * <p>
+ * Reductions are identified by a key (usually one per series): a new request
+ * for a key cancels the pending or running reduction for the same key, so
+ * that only the last one is completed while the axis keeps moving. Results are
+ * published on the JavaFX application thread, and all the results ready
+ * at the same time are published together in a single
+ * {@link Platform#runLater(Runnable)} call, i.e. at most once per pulse.</p>
+ * <p>
+ * Cancelled reductions are not interrupted: each {@link Reduction} receives
+ * a cancellation flag it should check between its expensive steps, so that
+ * the pool thread is released as soon as possible.</p>
+ *
+ * @author claudio.rosati@esss.se
+ */
+final class DataReductionScheduler {
+
+	/**
+	 * Delay used to coalesce consecutive requests, like the ones generated by
+	 * the lower and upper bound updates of an axis.
+	 */
+	static final long COALESCING_DELAY_MILLIS = 5;
+
+	private static final Logger LOGGER = Logger.getLogger(DataReductionScheduler.class.getName());
+	private static final Map<Object, Runnable> PENDING_RESULTS = new ConcurrentHashMap<>();
+	private static final AtomicBoolean PUBLISHING_SCHEDULED = new AtomicBoolean(false);
+	private static final Map<Object, Request<?>> REQUESTS = new ConcurrentHashMap<>();
+
+	/**
+	 * Schedules the given {@code reduction} to be executed in background after
+	 * the given {@code delay}, cancelling any previous request for the same
+	 * {@code key}. When completed, its result will be passed to the given
+	 * {@code publisher} on the JavaFX application thread.
+	 * <p>
+	 * Delayed requests are coalesced by the {@link Debouncer#getDefault()
+	 * default debouncer}, so that the delay restarts at each new request for
+	 * the same {@code key}.</p>
+	 *
+	 * @param <T>       The type of the reduction result.
+	 * @param key       The object identifying the reduction. Its
+	 *                  {@link Object#hashCode()} and
+	 *                  {@link Object#equals(Object)} should be the identity
+	 *                  ones.
+	 * @param delay     The delay in milliseconds after which the reduction is
+	 *                  started.
+	 * @param reduction The reduction to be executed in background. Its result
+	 *                  is discarded if it was cancelled.
+	 * @param publisher The consumer of the reduction result, called on the
+	 *                  JavaFX application thread.
+	 */
+	static <T> void schedule( Object key, long delay, Reduction<T> reduction, Consumer<T> publisher ) {
+
+		Request<T> request = new Request<>(key, reduction, publisher);
+		Request<?> previous = REQUESTS.put(key, request);
+
+		if ( previous != null ) {
+			previous.cancel();
+		}
+
+		if ( delay > 0 ) {
+			Debouncer.getDefault().debounce(key, delay, TimeUnit.MILLISECONDS, request::submit);
+		} else {
+			Debouncer.getDefault().cancel(key);
+			request.submit();
+		}
+
+	}
+
+	private static void publish( Object key, Runnable result ) {
+
+		PENDING_RESULTS.put(key, result);
+
+		if ( PUBLISHING_SCHEDULED.compareAndSet(false, true) ) {
+			Platform.runLater(() -> {
+
+				PUBLISHING_SCHEDULED.set(false);
+
+				for ( Object pendingKey : PENDING_RESULTS.keySet() ) {
+
+					Runnable runnable = PENDING_RESULTS.remove(pendingKey);
+
+					if ( runnable != null ) {
+						runnable.run();
+					}
+
+				}
+
+			});
+		}
+
+	}
+
+	private DataReductionScheduler() {
+		//	Nothing to do.
+	}
+
+	/**
+	 * A reduction executed in background.
+	 *
+	 * @param <T> The type of the reduction result.
+	 */
+	@FunctionalInterface
+	interface Reduction<T> {
+
+		/**
+		 * Performs the reduction.
+		 *
+		 * @param cancelled Returns {@code true} when the reduction was
+		 *                  cancelled by a newer request for the same key. In
+		 *                  this case the reduction can stop and return any
+		 *                  value (e.g. {@code null}), because it will be
+		 *                  discarded.
+		 * @return The reduction result.
+		 * @throws Exception If the reduction failed.
+		 */
+		T reduce( BooleanSupplier cancelled ) throws Exception;
+
+	}
+
+	private static class Request<T> implements Runnable {
+
+		private volatile boolean cancelled = false;
+		private volatile Future<?> future = null;
+		private final Object key;
+		private final Consumer<T> publisher;
+		private final Reduction<T> reduction;
+
+		Request( Object key, Reduction<T> reduction, Consumer<T> publisher ) {
+			this.key = key;
+			this.reduction = reduction;
+			this.publisher = publisher;
+		}
+
+		@Override
+		public void run() {
+
+			if ( cancelled ) {
+				return;
+			}
+
+			try {
+
+				T result = reduction.reduce(() -> cancelled);
+
+				if ( !cancelled && REQUESTS.remove(key, this) ) {
+					publish(key, () -> publisher.accept(result));
+				}
+
+			} catch ( Exception ex ) {
+				if ( !cancelled ) {
+					REQUESTS.remove(key, this);
+					LogUtils.log(LOGGER, WARNING, ex, "Data reduction failed.");
+				}
+			}
+
+		}
+
+		void submit() {
+			if ( !cancelled ) {
+				future = ThreadPools.fixedThreadPool().submit(this);
+			}
+		}
+
+		void cancel() {
+
+			cancelled = true;
+
+			Future<?> f = future;
+
+			if ( f != null ) {
+				f.cancel(false);
+			}
+
+		}
+
+	}
+
+}
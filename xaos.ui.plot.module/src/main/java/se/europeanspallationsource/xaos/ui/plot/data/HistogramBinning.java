@@ -0,0 +1,382 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ * Copyright (C) 2018-2019 by European Spallation Source ERIC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.europeanspallationsource.xaos.ui.plot.data;
+
+
+import java.text.MessageFormat;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.stream.DoubleStream;
+import se.europeanspallationsource.xaos.core.util.ThreadPools;
+
+
+/**
+ * Layout of equal width histogram bins between a minimum and a maximum value,
+ * counting the values falling in each bin with a single pass over them.
+ * <p>
+ * Bins are half-open intervals: {@code [lower, upper)} by default, or
+ * {@code (lower, upper]} if the binning is right-closed. Counts are returned
+ * as arrays of {@link #getBinsCount()}{@code  + 2} elements: element 0
+ * counts the values below the first bin (underflow), element
+ * {@link #getBinsCount()}{@code  + 1} the values above the last one
+ * (overflow), and the elements in between the values inside each bin.
+ * {@code NaN} values are not counted.</p>
+ * <p>
+ * Arrays with more than {@link #PARALLEL_THRESHOLD} values are counted in
+ * parallel on the {@link ThreadPools#workStealingThreadPool() work-stealing
+ * pool}, merging the partial counts at the end. Streams are counted in
+ * parallel if they are parallel.</p>
+ *
+ * @author claudio.rosati@esss.se
+ */
+@SuppressWarnings( "ClassWithoutLogger" )
+public final class HistogramBinning {
+
+	/**
+	 * Minimum number of values for an array to be counted in parallel.
+	 */
+	public static final int PARALLEL_THRESHOLD = 65536;
+
+	private final int binsCount;
+	private final double binWidth;
+	private final double max;
+	private final double min;
+	private final boolean rightClosed;
+
+	/**
+	 * Creates a new binning whose bins are closed on the left side.
+	 *
+	 * @param min       The lower edge of the first bin.
+	 * @param max       The upper edge of the last bin.
+	 * @param binsCount The number of bins.
+	 * @throws IllegalArgumentException If {@code binsCount} is not positive, or
+	 *                                  {@code min} and {@code max} are not
+	 *                                  finite values with {@code min < max}.
+	 */
+	public HistogramBinning( double min, double max, int binsCount ) throws IllegalArgumentException {
+		this(min, max, binsCount, false);
+	}
+
+	/**
+	 * Creates a new binning.
+	 *
+	 * @param min         The lower edge of the first bin.
+	 * @param max         The upper edge of the last bin.
+	 * @param binsCount   The number of bins.
+	 * @param rightClosed {@code true} if the bins are closed on the right side,
+	 *                    i.e. a value equal to a bin upper edge belongs to that
+	 *                    bin.
+	 * @throws IllegalArgumentException If {@code binsCount} is not positive, or
+	 *                                  {@code min} and {@code max} are not
+	 *                                  finite values with {@code min < max}.
+	 */
+	public HistogramBinning( double min, double max, int binsCount, boolean rightClosed ) throws IllegalArgumentException {
+
+		if ( binsCount <= 0 ) {
+			throw new IllegalArgumentException(MessageFormat.format("Non-positive bins count [{0}].", binsCount));
+		} else if ( !( min < max ) || !Double.isFinite(max - min) ) {
+			throw new IllegalArgumentException(MessageFormat.format("Invalid range [{0}, {1}].", min, max));
+		}
+
+		this.binsCount = binsCount;
+		this.binWidth = ( max - min ) / binsCount;
+		this.max = max;
+		this.min = min;
+		this.rightClosed = rightClosed;
+
+	}
+
+	/**
+	 * Counts the given values.
+	 *
+	 * @param values The values to be counted.
+	 * @return The counts array.
+	 * @throws NullPointerException If {@code values} is {@code null}.
+	 */
+	public long[] count( double[] values ) throws NullPointerException {
+		return count(values, 0, values.length);
+	}
+
+	/**
+	 * Counts the values in the given range of the given array.
+	 *
+	 * @param values    The values to be counted.
+	 * @param fromIndex The index of the first value to be counted.
+	 * @param toIndex   The index after the last value to be counted.
+	 * @return The counts array.
+	 * @throws NullPointerException      If {@code values} is {@code null}.
+	 * @throws IndexOutOfBoundsException If the given range is not inside the
+	 *                                   array.
+	 */
+	public long[] count( double[] values, int fromIndex, int toIndex )
+		throws NullPointerException, IndexOutOfBoundsException
+	{
+
+		Objects.requireNonNull(values, "Null values.");
+		Objects.checkFromToIndex(fromIndex, toIndex, values.length);
+
+		CountTask task = new CountTask(values, fromIndex, toIndex);
+
+		if ( toIndex - fromIndex > PARALLEL_THRESHOLD ) {
+
+			ExecutorService pool;
+
+			try {
+				pool = ThreadPools.workStealingThreadPool();
+			} catch ( IllegalStateException ex ) {
+				pool = null;
+			}
+
+			if ( pool instanceof ForkJoinPool ) {
+				return ( (ForkJoinPool) pool ).invoke(task);
+			}
+
+		}
+
+		return task.countValues();
+
+	}
+
+	/**
+	 * Counts the values of the given stream, in parallel if the stream is
+	 * parallel.
+	 *
+	 * @param values The values to be counted.
+	 * @return The counts array.
+	 * @throws NullPointerException If {@code values} is {@code null}.
+	 */
+	public long[] count( DoubleStream values ) throws NullPointerException {
+
+		Objects.requireNonNull(values, "Null values.");
+
+		return values.collect(
+			() -> new long[binsCount + 2],
+			( counts, value ) -> {
+
+				int index = indexOf(value);
+
+				if ( index >= 0 ) {
+					counts[index]++;
+				}
+
+			},
+			HistogramBinning::merge
+		);
+
+	}
+
+	/**
+	 * @param bin The bin index, between 0 (inclusive) and
+	 *            {@link #getBinsCount()} (exclusive).
+	 * @return The center value of the given bin.
+	 */
+	public double getBinCenter( int bin ) {
+		return ( getLowerEdge(bin) + getUpperEdge(bin) ) / 2;
+	}
+
+	/**
+	 * @return The width of each bin.
+	 */
+	public double getBinWidth() {
+		return binWidth;
+	}
+
+	/**
+	 * @return The number of bins.
+	 */
+	public int getBinsCount() {
+		return binsCount;
+	}
+
+	/**
+	 * @param bin The bin index, between 0 (inclusive) and
+	 *            {@link #getBinsCount()} (exclusive).
+	 * @return The lower edge of the given bin.
+	 */
+	public double getLowerEdge( int bin ) {
+		return edge(bin);
+	}
+
+	/**
+	 * @return The upper edge of the last bin.
+	 */
+	public double getMax() {
+		return max;
+	}
+
+	/**
+	 * @return The lower edge of the first bin.
+	 */
+	public double getMin() {
+		return min;
+	}
+
+	/**
+	 * @param bin The bin index, between 0 (inclusive) and
+	 *            {@link #getBinsCount()} (exclusive).
+	 * @return The upper edge of the given bin.
+	 */
+	public double getUpperEdge( int bin ) {
+		return edge(bin + 1);
+	}
+
+	/**
+	 * Returns the index in the counts arrays of the element counting the given
+	 * value: 0 for underflow, {@link #getBinsCount()}{@code  + 1} for
+	 * overflow, the bin index plus one otherwise.
+	 *
+	 * @param value The value whose counter index must be returned.
+	 * @return The index of the element counting the given value, or -1 if the
+	 *         value is {@code NaN}.
+	 */
+	public int indexOf( double value ) {
+
+		if ( Double.isNaN(value) ) {
+			return -1;
+		}
+
+		int bin;
+
+		if ( rightClosed ) {
+
+			if ( value <= min ) {
+				return 0;
+			} else if ( value > max ) {
+				return binsCount + 1;
+			}
+
+			bin = Math.max(0, Math.min(binsCount - 1, (int) Math.ceil(( value - min ) / binWidth) - 1));
+
+			//	Rounding errors can put the value in a neighbour bin.
+			if ( value <= edge(bin) ) {
+				bin--;
+			} else if ( value > edge(bin + 1) ) {
+				bin++;
+			}
+
+		} else {
+
+			if ( value < min ) {
+				return 0;
+			} else if ( value >= max ) {
+				return binsCount + 1;
+			}
+
+			bin = Math.max(0, Math.min(binsCount - 1, (int) ( ( value - min ) / binWidth )));
+
+			//	Rounding errors can put the value in a neighbour bin.
+			if ( value < edge(bin) ) {
+				bin--;
+			} else if ( value >= edge(bin + 1) ) {
+				bin++;
+			}
+
+		}
+
+		return bin + 1;
+
+	}
+
+	/**
+	 * @return {@code true} if the bins are closed on the right side.
+	 */
+	public boolean isRightClosed() {
+		return rightClosed;
+	}
+
+	@Override
+	public String toString() {
+		return MessageFormat.format(
+			rightClosed ? "HistogramBinning[({0}, {1}] / {2}]" : "HistogramBinning[[{0}, {1}) / {2}]",
+			min,
+			max,
+			binsCount
+		);
+	}
+
+	private static long[] merge( long[] counts, long[] other ) {
+
+		for ( int i = 0; i < counts.length; i++ ) {
+			counts[i] += other[i];
+		}
+
+		return counts;
+
+	}
+
+	private double edge( int index ) {
+		return ( index >= binsCount ) ? max : min + index * binWidth;
+	}
+
+	/**
+	 * Counts a range of values, splitting it in halves until it contains no
+	 * more than {@link #PARALLEL_THRESHOLD} values, and merging the partial
+	 * counts.
+	 */
+	@SuppressWarnings( { "serial", "CloneableClassWithoutClone" } )
+	private class CountTask extends RecursiveTask<long[]> {
+
+		private final int fromIndex;
+		private final int toIndex;
+		private final transient double[] values;
+
+		CountTask( double[] values, int fromIndex, int toIndex ) {
+			this.values = values;
+			this.fromIndex = fromIndex;
+			this.toIndex = toIndex;
+		}
+
+		@Override
+		protected long[] compute() {
+
+			if ( toIndex - fromIndex <= PARALLEL_THRESHOLD ) {
+				return countValues();
+			}
+
+			int middle = ( fromIndex + toIndex ) >>> 1;
+			CountTask lower = new CountTask(values, fromIndex, middle);
+			CountTask upper = new CountTask(values, middle, toIndex);
+
+			upper.fork();
+
+			return merge(lower.compute(), upper.join());
+
+		}
+
+		long[] countValues() {
+
+			long[] counts = new long[binsCount + 2];
+
+			for ( int i = fromIndex; i < toIndex; i++ ) {
+
+				int index = indexOf(values[i]);
+
+				if ( index >= 0 ) {
+					counts[index]++;
+				}
+
+			}
+
+			return counts;
+
+		}
+
+	}
+
+}
@@ -0,0 +1,135 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ * Copyright (C) 2018-2019 by European Spallation Source ERIC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.europeanspallationsource.xaos.ui.plot.data;
+
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+import javafx.scene.chart.XYChart.Data;
+
+
+/**
+ * {@link DataReducer} implementation based on the <a
+ * href="https://skemman.is/bitstream/1946/15343/3/SS_MSthesis.pdf">
+ * Largest-Triangle-Three-Buckets</a> algorithm.
+ * <p>
+ * The first and last points are always retained. All the other points are
+ * split into {@code targetPointsCount - 2} buckets with the same number of
+ * points, and from each bucket the point forming the largest triangle with
+ * the point selected in the previous bucket and the average point of the next
+ * one is retained.</p>
+ * <p>
+ * Every point is visited a constant number of times, so the cost is linear
+ * with the number of input points, and the size of the result is exactly
+ * {@code targetPointsCount}.</p>
+ *
+ * @param <X> Type of X values.
+ * @param <Y> Type of Y values.
+ * @author claudio.rosati@esss.se
+ */
+@SuppressWarnings( "ClassWithoutLogger" )
+public final class LargestTriangleThreeBucketsDataReducer<X extends Number, Y extends Number> implements DataReducer<X, Y> {
+
+	@Override
+	public List<Data<X, Y>> reduce( final List<Data<X, Y>> points, int targetPointsCount ) {
+
+		DataReducers.validate(points, targetPointsCount);
+
+		if ( points.size() <= targetPointsCount ) {
+			return points;
+		}
+
+		int[] indices = reduce(XYValues.wrap(points), 0, points.size(), targetPointsCount);
+		List<Data<X, Y>> dataPoints = new ArrayList<>(indices.length);
+
+		for ( int index : indices ) {
+			dataPoints.add(points.get(index));
+		}
+
+		return dataPoints;
+
+	}
+
+	@Override
+	public int[] reduce( XYValues values, int fromIndex, int toIndex, int targetPointsCount ) {
+
+		DataReducers.validate(values, fromIndex, toIndex, targetPointsCount);
+
+		if ( toIndex - fromIndex <= targetPointsCount ) {
+			return IntStream.range(fromIndex, toIndex).toArray();
+		}
+
+		int[] keyPoints = new int[targetPointsCount];
+		int lastIndex = toIndex - 1;
+		int bucketsCount = targetPointsCount - 2;
+		long middlePointsCount = toIndex - fromIndex - 2;
+		int selected = fromIndex;
+
+		keyPoints[0] = fromIndex;
+		keyPoints[targetPointsCount - 1] = lastIndex;
+
+		for ( int b = 0; b < bucketsCount; b++ ) {
+
+			int bucketStart = fromIndex + 1 + (int) ( b * middlePointsCount / bucketsCount );
+			int bucketEnd = fromIndex + 1 + (int) ( ( b + 1 ) * middlePointsCount / bucketsCount );
+
+			//	Average point of the next bucket (the last point for the last
+			//	bucket).
+			int nextStart = bucketEnd;
+			int nextEnd = ( b == bucketsCount - 1 ) ? toIndex : fromIndex + 1 + (int) ( ( b + 2 ) * middlePointsCount / bucketsCount );
+			double averageX = 0;
+			double averageY = 0;
+
+			for ( int i = nextStart; i < nextEnd; i++ ) {
+				averageX += values.getXValue(i);
+				averageY += values.getYValue(i);
+			}
+
+			averageX /= nextEnd - nextStart;
+			averageY /= nextEnd - nextStart;
+
+			//	Point of the current bucket forming the largest triangle.
+			double selectedX = values.getXValue(selected);
+			double selectedY = values.getYValue(selected);
+			double maxArea = -1;
+			int maxAreaIndex = bucketStart;
+
+			for ( int i = bucketStart; i < bucketEnd; i++ ) {
+
+				double area = Math.abs(
+					( selectedX - averageX ) * ( values.getYValue(i) - selectedY )
+						- ( selectedX - values.getXValue(i) ) * ( averageY - selectedY )
+				);
+
+				if ( area > maxArea ) {
+					maxArea = area;
+					maxAreaIndex = i;
+				}
+
+			}
+
+			selected = maxAreaIndex;
+			keyPoints[b + 1] = selected;
+
+		}
+
+		return keyPoints;
+
+	}
+
+}
@@ -0,0 +1,170 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ * Copyright (C) 2018-2019 by European Spallation Source ERIC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.europeanspallationsource.xaos.ui.plot.data;
+
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+import javafx.scene.chart.XYChart.Data;
+
+
+/**
+ * {@link DataReducer} implementation based on the <a
+ * href="http://www.vldb.org/pvldb/vol7/p797-jugel.pdf">M4 aggregation</a>.
+ * <p>
+ * The X range of the data is split into {@code targetPointsCount / 4} buckets
+ * of equal width (i.e. pixel columns, when the target number of points is
+ * proportional to the chart width), and for each bucket the first, last,
+ * minimum and maximum points are retained. The data is scanned only once, so
+ * the cost is linear with the number of input points.</p>
+ * <p>
+ * Differently from {@link RamerDouglasPeuckerDataReducer}, this algorithm
+ * preserves spikes exactly, whatever the target number of points is.</p>
+ *
+ * @param <X> Type of X values.
+ * @param <Y> Type of Y values.
+ * @author claudio.rosati@esss.se
+ */
+@SuppressWarnings( "ClassWithoutLogger" )
+public final class M4DataReducer<X extends Number, Y extends Number> implements DataReducer<X, Y> {
+
+	/**
+	 * Number of points retained for each bucket.
+	 */
+	private static final int POINTS_PER_BUCKET = 4;
+
+	@Override
+	public List<Data<X, Y>> reduce( final List<Data<X, Y>> points, int targetPointsCount ) {
+
+		DataReducers.validate(points, targetPointsCount);
+
+		if ( points.size() <= targetPointsCount ) {
+			return points;
+		}
+
+		int[] indices = reduce(XYValues.wrap(points), 0, points.size(), targetPointsCount);
+		List<Data<X, Y>> dataPoints = new ArrayList<>(indices.length);
+
+		for ( int index : indices ) {
+			dataPoints.add(points.get(index));
+		}
+
+		return dataPoints;
+
+	}
+
+	@Override
+	public int[] reduce( XYValues values, int fromIndex, int toIndex, int targetPointsCount ) {
+
+		DataReducers.validate(values, fromIndex, toIndex, targetPointsCount);
+
+		if ( toIndex - fromIndex <= targetPointsCount ) {
+			return IntStream.range(fromIndex, toIndex).toArray();
+		}
+
+		int bucketsCount = targetPointsCount / POINTS_PER_BUCKET;
+
+		if ( bucketsCount == 0 ) {
+			return new int[] { fromIndex, toIndex - 1 };
+		}
+
+		double firstX = values.getXValue(fromIndex);
+		double xRange = values.getXValue(toIndex - 1) - firstX;
+		boolean bucketByIndex = !Double.isFinite(xRange) || xRange <= 0;
+		double bucketScale = bucketByIndex
+			? (double) bucketsCount / ( toIndex - fromIndex )
+			: bucketsCount / xRange;
+		int[] keyPoints = new int[bucketsCount * POINTS_PER_BUCKET];
+		int keyPointsCount = 0;
+		int bucket = -1;
+		int first = -1;
+		int last = -1;
+		int min = -1;
+		int max = -1;
+		double minY = 0;
+		double maxY = 0;
+
+		for ( int i = fromIndex; i < toIndex; i++ ) {
+
+			double offset = bucketByIndex ? i - fromIndex : values.getXValue(i) - firstX;
+			int b = Math.min(bucketsCount - 1, Math.max(0, (int) ( offset * bucketScale )));
+			double y = values.getYValue(i);
+
+			if ( b != bucket ) {
+
+				if ( bucket >= 0 ) {
+					keyPointsCount = appendKeyPoints(keyPoints, keyPointsCount, first, min, max, last);
+				}
+
+				bucket = b;
+				first = last = min = max = i;
+				minY = maxY = y;
+
+			} else {
+
+				last = i;
+
+				if ( y < minY ) {
+					min = i;
+					minY = y;
+				} else if ( y > maxY ) {
+					max = i;
+					maxY = y;
+				}
+
+			}
+
+		}
+
+		keyPointsCount = appendKeyPoints(keyPoints, keyPointsCount, first, min, max, last);
+
+		return Arrays.copyOf(keyPoints, keyPointsCount);
+
+	}
+
+	/**
+	 * Appends the given bucket's indices in ascending order, skipping
+	 * duplicates.
+	 *
+	 * @return The new number of key points.
+	 */
+	static int appendKeyPoints( int[] keyPoints, int count, int first, int min, int max, int last ) {
+
+		int lower = Math.min(min, max);
+		int upper = Math.max(min, max);
+
+		keyPoints[count++] = first;
+
+		if ( lower != first ) {
+			keyPoints[count++] = lower;
+		}
+
+		if ( upper != lower && upper != last ) {
+			keyPoints[count++] = upper;
+		}
+
+		if ( last != first && last != lower ) {
+			keyPoints[count++] = last;
+		}
+
+		return count;
+
+	}
+
+}
@@ -0,0 +1,217 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ * Copyright (C) 2018-2019 by European Spallation Source ERIC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.europeanspallationsource.xaos.ui.plot.data;
+
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+
+/**
+ * Multi-resolution level-of-detail pyramid of minimum/maximum Y envelopes over
+ * some {@link XYValues}.
+ * <p>
+ * Level {@code k} of the pyramid splits the values into blocks of
+ * <code>2<sup>k</sup></code> consecutive points, and stores the indices of the
+ * minimum and maximum Y values of each complete block. The minimum and maximum
+ * of any index range can then be found combining at most two blocks per level,
+ * i.e. in time logarithmic with the range size.</p>
+ * <p>
+ * The pyramid is updated incrementally when values are appended, and rebuilt
+ * when they are cleared.</p>
+ *
+ * @author claudio.rosati@esss.se
+ */
+final class MinMaxPyramid {
+
+	/**
+	 * The finest level stored: lower levels are not worth their memory, and
+	 * are scanned directly from the values.
+	 */
+	static final int MIN_LEVEL = 3;
+
+	private final int[] blockCounts = new int[Integer.SIZE];
+	private final List<int[]> maxIndices = new ArrayList<>();
+	private final List<int[]> minIndices = new ArrayList<>();
+	private int size = 0;
+
+	/**
+	 * Finds the indices of minimum and maximum Y values in the given range.
+	 *
+	 * @param values    The values the pyramid was {@link #update(XYValues)
+	 *                  updated} with.
+	 * @param fromIndex The first index of the range (inclusive).
+	 * @param toIndex   The last index of the range (exclusive), greater than
+	 *                  {@code fromIndex}.
+	 * @param result    An array of 2 elements that will be filled with the
+	 *                  index of the minimum and maximum value.
+	 */
+	void minMax( XYValues values, int fromIndex, int toIndex, int[] result ) {
+
+		int min = fromIndex;
+		int max = fromIndex;
+		int index = fromIndex;
+
+		while ( index < toIndex ) {
+
+			int level = levels() - 1;
+
+			for ( ; level >= 0; level-- ) {
+
+				int k = level + MIN_LEVEL;
+				int blockSize = 1 << k;
+
+				if ( ( index & ( blockSize - 1 ) ) == 0
+				  && index + blockSize <= toIndex
+				  && ( index >> k ) < blockCounts[level] ) {
+					break;
+				}
+
+			}
+
+			if ( level < 0 ) {
+				min = lower(values, min, index);
+				max = upper(values, max, index);
+				index++;
+			} else {
+
+				int block = index >> ( level + MIN_LEVEL );
+
+				min = lower(values, min, minIndices.get(level)[block]);
+				max = upper(values, max, maxIndices.get(level)[block]);
+				index += 1 << ( level + MIN_LEVEL );
+
+			}
+
+		}
+
+		result[0] = min;
+		result[1] = max;
+
+	}
+
+	/**
+	 * @return The number of values the pyramid is built upon.
+	 */
+	int size() {
+		return size;
+	}
+
+	/**
+	 * Updates the pyramid with the given values. If their size is greater than
+	 * the previous one only the new blocks are computed, otherwise the pyramid
+	 * is rebuilt.
+	 *
+	 * @param values The values to be used to update the pyramid.
+	 */
+	void update( XYValues values ) {
+
+		int newSize = values.size();
+
+		if ( newSize < size ) {
+			Arrays.fill(blockCounts, 0);
+			maxIndices.clear();
+			minIndices.clear();
+			size = 0;
+		}
+
+		if ( newSize == size ) {
+			return;
+		}
+
+		for ( int level = 0; ( newSize >> ( level + MIN_LEVEL ) ) > 0; level++ ) {
+
+			int k = level + MIN_LEVEL;
+			int newCount = newSize >> k;
+
+			if ( level == levels() ) {
+				minIndices.add(new int[Math.max(16, newCount)]);
+				maxIndices.add(new int[Math.max(16, newCount)]);
+			}
+
+			int[] mins = ensureCapacity(minIndices, level, newCount);
+			int[] maxs = ensureCapacity(maxIndices, level, newCount);
+
+			for ( int block = blockCounts[level]; block < newCount; block++ ) {
+				if ( level == 0 ) {
+
+					int from = block << k;
+					int min = from;
+					int max = from;
+
+					for ( int i = from + 1; i < from + ( 1 << k ); i++ ) {
+						min = lower(values, min, i);
+						max = upper(values, max, i);
+					}
+
+					mins[block] = min;
+					maxs[block] = max;
+
+				} else {
+
+					int[] childMins = minIndices.get(level - 1);
+					int[] childMaxs = maxIndices.get(level - 1);
+
+					mins[block] = lower(values, childMins[2 * block], childMins[2 * block + 1]);
+					maxs[block] = upper(values, childMaxs[2 * block], childMaxs[2 * block + 1]);
+
+				}
+			}
+
+			blockCounts[level] = newCount;
+
+		}
+
+		size = newSize;
+
+	}
+
+	private int[] ensureCapacity( List<int[]> indices, int level, int capacity ) {
+
+		int[] array = indices.get(level);
+
+		if ( array.length < capacity ) {
+			array = Arrays.copyOf(array, Math.max(capacity, array.length + ( array.length >> 1 )));
+			indices.set(level, array);
+		}
+
+		return array;
+
+	}
+
+	private int levels() {
+		return minIndices.size();
+	}
+
+	/**
+	 * @return The index of the lower of the two Y values, preferring the first
+	 *         one when equal or not comparable.
+	 */
+	private int lower( XYValues values, int index1, int index2 ) {
+		return ( values.getYValue(index2) < values.getYValue(index1) ) ? index2 : index1;
+	}
+
+	/**
+	 * @return The index of the upper of the two Y values, preferring the first
+	 *         one when equal or not comparable.
+	 */
+	private int upper( XYValues values, int index1, int index2 ) {
+		return ( values.getYValue(index2) > values.getYValue(index1) ) ? index2 : index1;
+	}
+
+}
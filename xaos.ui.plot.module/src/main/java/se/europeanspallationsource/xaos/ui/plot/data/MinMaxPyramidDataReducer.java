@@ -0,0 +1,164 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ * Copyright (C) 2018-2019 by European Spallation Source ERIC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.europeanspallationsource.xaos.ui.plot.data;
+
+
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+import javafx.scene.chart.XYChart.Data;
+
+
+/**
+ * {@link DataReducer} implementation producing the same kind of result of
+ * {@link M4DataReducer} (first, last, minimum and maximum point for each
+ * {@code targetPointsCount / 4} buckets of equal X width), but using a
+ * precomputed multi-resolution pyramid of minimum/maximum envelopes built
+ * over the reduced {@link XYValues}.
+ * <p>
+ * The pyramid is built the first time some values are reduced, and then
+ * updated incrementally when values are appended. Each reduction costs a time
+ * proportional to the number of target points (i.e. to the chart width in
+ * pixels) and logarithmic with the number of values in the reduced range,
+ * making zooming and panning on huge series fluid.</p>
+ * <p>
+ * The pyramid is bound to the last reduced {@link XYValues} instance, so a
+ * different reducer should be used for each series. The pyramid is rebuilt
+ * when the {@link XYValues#getModificationCount() modification count} of the
+ * values changes, e.g. when a value is replaced, values are cleared, or the
+ * window of a {@link RingBufferXYValues} slides. {@link Data} lists are
+ * reduced with an {@link M4DataReducer} because they cannot be tracked.</p>
+ *
+ * @param <X> Type of X values.
+ * @param <Y> Type of Y values.
+ * @author claudio.rosati@esss.se
+ */
+@SuppressWarnings( "ClassWithoutLogger" )
+public final class MinMaxPyramidDataReducer<X extends Number, Y extends Number> implements DataReducer<X, Y> {
+
+	/**
+	 * Number of points retained for each bucket.
+	 */
+	private static final int POINTS_PER_BUCKET = 4;
+
+	private final M4DataReducer<X, Y> listReducer = new M4DataReducer<>();
+	private MinMaxPyramid pyramid = new MinMaxPyramid();
+	private long pyramidModificationCount = 0;
+	private WeakReference<XYValues> pyramidValues = new WeakReference<>(null);
+
+	/**
+	 * Discards the current pyramid, forcing it to be rebuilt at the next
+	 * reduction. Needed only for {@link XYValues} implementations not
+	 * tracking their modification count.
+	 */
+	public synchronized void invalidate() {
+		pyramid = new MinMaxPyramid();
+		pyramidValues = new WeakReference<>(null);
+	}
+
+	@Override
+	public List<Data<X, Y>> reduce( final List<Data<X, Y>> points, int targetPointsCount ) {
+		return listReducer.reduce(points, targetPointsCount);
+	}
+
+	@Override
+	public synchronized int[] reduce( XYValues values, int fromIndex, int toIndex, int targetPointsCount ) {
+
+		DataReducers.validate(values, fromIndex, toIndex, targetPointsCount);
+
+		if ( toIndex - fromIndex <= targetPointsCount ) {
+			return IntStream.range(fromIndex, toIndex).toArray();
+		}
+
+		int bucketsCount = targetPointsCount / POINTS_PER_BUCKET;
+
+		if ( bucketsCount == 0 ) {
+			return new int[] { fromIndex, toIndex - 1 };
+		}
+
+		long modificationCount = values.getModificationCount();
+
+		if ( pyramidValues.get() != values || pyramidModificationCount != modificationCount ) {
+			pyramid = new MinMaxPyramid();
+			pyramidValues = new WeakReference<>(values);
+			pyramidModificationCount = modificationCount;
+		}
+
+		pyramid.update(values);
+
+		double firstX = values.getXValue(fromIndex);
+		double xRange = values.getXValue(toIndex - 1) - firstX;
+		boolean bucketByIndex = !Double.isFinite(xRange) || xRange <= 0;
+		int[] keyPoints = new int[bucketsCount * POINTS_PER_BUCKET];
+		int[] minMax = new int[2];
+		int keyPointsCount = 0;
+		int bucketStart = fromIndex;
+
+		for ( int b = 1; b <= bucketsCount && bucketStart < toIndex; b++ ) {
+
+			int bucketEnd;
+
+			if ( b == bucketsCount ) {
+				bucketEnd = toIndex;
+			} else if ( bucketByIndex ) {
+				bucketEnd = fromIndex + (int) ( (long) b * ( toIndex - fromIndex ) / bucketsCount );
+			} else {
+				bucketEnd = lowerBound(values, bucketStart, toIndex, firstX + b * xRange / bucketsCount);
+			}
+
+			if ( bucketEnd > bucketStart ) {
+
+				pyramid.minMax(values, bucketStart, bucketEnd, minMax);
+
+				keyPointsCount = M4DataReducer.appendKeyPoints(keyPoints, keyPointsCount, bucketStart, minMax[0], minMax[1], bucketEnd - 1);
+				bucketStart = bucketEnd;
+
+			}
+
+		}
+
+		return Arrays.copyOf(keyPoints, keyPointsCount);
+
+	}
+
+	/**
+	 * @return The index of the first point in the given range whose X value is
+	 *         not smaller than the given one, or {@code toIndex}.
+	 */
+	private int lowerBound( XYValues values, int fromIndex, int toIndex, double x ) {
+
+		int low = fromIndex;
+		int high = toIndex;
+
+		while ( low < high ) {
+
+			int mid = ( low + high ) >>> 1;
+
+			if ( values.getXValue(mid) < x ) {
+				low = mid + 1;
+			} else {
+				high = mid;
+			}
+
+		}
+
+		return low;
+
+	}
+
+}
@@ -17,14 +17,18 @@
 package se.europeanspallationsource.xaos.ui.plot.data;
 
 
-import java.text.MessageFormat;
 import java.util.ArrayList;
 import java.util.BitSet;
 import java.util.Comparator;
 import java.util.List;
 import java.util.PriorityQueue;
 import java.util.Queue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.stream.IntStream;
 import javafx.scene.chart.XYChart.Data;
+import se.europeanspallationsource.xaos.core.util.ThreadPools;
 
 
 /**
@@ -38,6 +42,13 @@ import javafx.scene.chart.XYChart.Data;
  * error size introduced i.e. points whose removal introduces smallest error are
  * removed first. The algorithm stops once the curve has the desired number of
  * points.</p>
+ * <p>
+ * A parallel instance can be created to split the distance scan of large
+ * ranges (typically the ones at the first levels of recursion) into chunks
+ * processed on the {@link ThreadPools#workStealingThreadPool() work-stealing
+ * thread pool}. Ranges are still selected in the same order, and ties are
+ * resolved in favour of the lowest index, so that the parallel and sequential
+ * instances produce the same key points.</p>
  *
  * @param <X> Type of X values.
  * @param <Y> Type of Y values.
@@ -47,90 +58,142 @@ import javafx.scene.chart.XYChart.Data;
 @SuppressWarnings( "ClassWithoutLogger" )
 public final class RamerDouglasPeuckerDataReducer<X extends Number, Y extends Number> implements DataReducer<X, Y> {
 
+	/**
+	 * Number of points below which a range is scanned by a single thread.
+	 */
+	static final int PARALLEL_THRESHOLD = 16384;
+
 	private static final Comparator<Range> RANGE_KEY_POINT_DISTANCE_INVERTED_COMPARATOR = ( r1, r2 ) -> (int) Math.signum(r2.keyPointDistance - r1.keyPointDistance);
 
+	private final boolean parallel;
+
+	/**
+	 * Creates a new sequential instance of the reducer.
+	 */
+	public RamerDouglasPeuckerDataReducer() {
+		this(false);
+	}
+
+	/**
+	 * Creates a new instance of the reducer.
+	 *
+	 * @param parallel {@code true} if large ranges must be scanned in parallel.
+	 */
+	public RamerDouglasPeuckerDataReducer( boolean parallel ) {
+		this.parallel = parallel;
+	}
+
+	/**
+	 * @return {@code true} if large ranges are scanned in parallel.
+	 */
+	public boolean isParallel() {
+		return parallel;
+	}
+
 	@Override
 	public List<Data<X, Y>> reduce( final List<Data<X, Y>> points, int targetPointsCount ) {
 
-		if ( points == null ) {
-			throw new IllegalArgumentException("Null list of data points.");
-		} else if ( targetPointsCount < MIN_TARGET_POINTS_COUNT ) {
-			throw new IllegalArgumentException(MessageFormat.format(
-				"Target number of points expected to be greater or equal to {0}.",
-				MIN_TARGET_POINTS_COUNT
-			));
-		}
+		DataReducers.validate(points, targetPointsCount);
 
 		if ( points.size() <= targetPointsCount ) {
 			return points;
 		}
 
-		BitSet keyPoints = new BitSet(points.size());
+		BitSet keyPoints = reduce(XYValues.wrap(points), 0, points.size(), targetPointsCount, 0);
+
+		return extractKeyPoints(points, keyPoints);
+
+	}
+
+	@Override
+	public int[] reduce( XYValues values, int fromIndex, int toIndex, int targetPointsCount ) {
+
+		DataReducers.validate(values, fromIndex, toIndex, targetPointsCount);
+
+		if ( toIndex - fromIndex <= targetPointsCount ) {
+			return IntStream.range(fromIndex, toIndex).toArray();
+		}
+
+		return reduce(values, fromIndex, toIndex, targetPointsCount, fromIndex)
+			.stream()
+			.map(i -> i + fromIndex)
+			.toArray();
+
+	}
+
+	/**
+	 * @param offset The value to be subtracted from the points indices before
+	 *               setting them into the returned {@link BitSet}.
+	 * @return The key points, relative to the given {@code offset}.
+	 */
+	private BitSet reduce( XYValues values, int fromIndex, int toIndex, int targetPointsCount, int offset ) {
 
-		keyPoints.set(0);
-		keyPoints.set(points.size() - 1);
+		BitSet keyPoints = new BitSet(toIndex - offset);
+
+		keyPoints.set(fromIndex - offset);
+		keyPoints.set(toIndex - 1 - offset);
 
 		if ( targetPointsCount > MIN_TARGET_POINTS_COUNT ) {
-			appendKeyPoints(points, targetPointsCount, keyPoints);
+			appendKeyPoints(values, fromIndex, toIndex - 1, targetPointsCount, keyPoints, offset);
 		}
 
-		return extractKeyPoints(points, keyPoints);
+		return keyPoints;
 
 	}
 
-	private void appendKeyPoints( List<Data<X, Y>> points, int targetPointsCount, BitSet keyPoints ) {
+	private void appendKeyPoints( XYValues values, int firstIndex, int lastIndex, int targetPointsCount, BitSet keyPoints, int offset ) {
 
 		Queue<Range> queue = new PriorityQueue<>(RANGE_KEY_POINT_DISTANCE_INVERTED_COMPARATOR);
+		int keyPointsCount = MIN_TARGET_POINTS_COUNT;
 
-		queue.add(computeRange(0, points.size() - 1, points));
+		queue.add(computeRange(firstIndex, lastIndex, values));
 
 		do {
 
 			Range range = queue.poll();
 
-			keyPoints.set(range.keyPointIndex);
+			if ( range == null ) {
+				break;
+			}
+
+			if ( !keyPoints.get(range.keyPointIndex - offset) ) {
+				keyPoints.set(range.keyPointIndex - offset);
+				keyPointsCount++;
+			}
 
 			if ( !range.leftSubRangeEmpty() ) {
-				queue.add(computeRange(range.firstIndex, range.keyPointIndex, points));
+				queue.add(computeRange(range.firstIndex, range.keyPointIndex, values));
 			}
 
 			if ( !range.rightSubRangeEmpty() ) {
-				queue.add(computeRange(range.keyPointIndex, range.lastIndex, points));
+				queue.add(computeRange(range.keyPointIndex, range.lastIndex, values));
 			}
 
-		} while ( keyPoints.cardinality() < targetPointsCount );
+		} while ( keyPointsCount < targetPointsCount );
 
 	}
 
-	private Range computeRange( int firstIndex, int lastIndex, List<Data<X, Y>> points ) {
+	private Range computeRange( int firstIndex, int lastIndex, XYValues values ) {
 
-		int keyPointIndex = -1;
-		double keyPointDistance = -1;
+		Line line = new Line(values, firstIndex, lastIndex);
 
-		for ( int i = firstIndex + 1; i < lastIndex; ++i ) {
+		if ( parallel && lastIndex - firstIndex > PARALLEL_THRESHOLD ) {
 
-			double distance = distance(points.get(firstIndex), points.get(lastIndex), points.get(i));
+			ExecutorService pool = ThreadPools.workStealingThreadPool();
 
-			if ( distance > keyPointDistance ) {
-				keyPointIndex = i;
-				keyPointDistance = distance;
-			}
+			if ( pool instanceof ForkJoinPool ) {
 
-		}
+				KeyPoint keyPoint = ( (ForkJoinPool) pool ).invoke(new ScanTask(values, line, firstIndex + 1, lastIndex));
 
-		return new Range(firstIndex, lastIndex, keyPointIndex, keyPointDistance);
+				return new Range(firstIndex, lastIndex, keyPoint.index, keyPoint.distance);
 
-	}
+			}
 
-	private double distance( Data<X, Y> lineStart, Data<X, Y> lineEnd, Data<X, Y> point ) {
+		}
 
-		double deltaX = lineStart.getXValue().doubleValue() - lineEnd.getXValue().doubleValue();
-		double deltaY = lineStart.getYValue().doubleValue() - lineEnd.getYValue().doubleValue();
-		double sxey = lineStart.getXValue().doubleValue() * lineEnd.getYValue().doubleValue();
-		double exsy = lineEnd.getXValue().doubleValue() * lineStart.getYValue().doubleValue();
-		double length = Math.sqrt(deltaX * deltaX + deltaY * deltaY);
+		KeyPoint keyPoint = line.scan(values, firstIndex + 1, lastIndex);
 
-		return Math.abs(deltaY * point.getXValue().doubleValue() - deltaX * point.getYValue().doubleValue() + sxey - exsy) / length;
+		return new Range(firstIndex, lastIndex, keyPoint.index, keyPoint.distance);
 
 	}
 
@@ -169,4 +232,114 @@ public final class RamerDouglasPeuckerDataReducer<X extends Number, Y extends Nu
 		}
 	}
 
+	/**
+	 * The farthest point of a scanned range.
+	 */
+	private static class KeyPoint {
+
+		final double distance;
+		final int index;
+
+		KeyPoint( int index, double distance ) {
+			this.index = index;
+			this.distance = distance;
+		}
+
+	}
+
+	/**
+	 * The line joining the first and last point of a range.
+	 */
+	private static class Line {
+
+		final double constant;
+		final double deltaX;
+		final double deltaY;
+		final double length;
+		final double startX;
+		final double startY;
+
+		Line( XYValues values, int firstIndex, int lastIndex ) {
+
+			double endX = values.getXValue(lastIndex);
+			double endY = values.getYValue(lastIndex);
+
+			startX = values.getXValue(firstIndex);
+			startY = values.getYValue(firstIndex);
+			deltaX = startX - endX;
+			deltaY = startY - endY;
+			constant = startX * endY - endX * startY;
+			length = Math.sqrt(deltaX * deltaX + deltaY * deltaY);
+
+		}
+
+		/**
+		 * @return The first point in the given range having the maximum
+		 *         distance from this line.
+		 */
+		KeyPoint scan( XYValues values, int fromIndex, int toIndex ) {
+
+			int keyPointIndex = -1;
+			double keyPointDistance = -1;
+
+			for ( int i = fromIndex; i < toIndex; ++i ) {
+
+				double distance = ( length == 0 )
+					? Math.hypot(values.getXValue(i) - startX, values.getYValue(i) - startY)
+					: Math.abs(deltaY * values.getXValue(i) - deltaX * values.getYValue(i) + constant) / length;
+
+				if ( distance > keyPointDistance ) {
+					keyPointIndex = i;
+					keyPointDistance = distance;
+				}
+
+			}
+
+			return new KeyPoint(keyPointIndex, keyPointDistance);
+
+		}
+
+	}
+
+	/**
+	 * Scans a range splitting it in halves until they are smaller than
+	 * {@link #PARALLEL_THRESHOLD}. When merging, the right half wins only if
+	 * strictly farther, as in the sequential scan.
+	 */
+	@SuppressWarnings( { "serial", "CloneableClassWithoutClone" } )
+	private static class ScanTask extends RecursiveTask<KeyPoint> {
+
+		private final int fromIndex;
+		private final transient Line line;
+		private final int toIndex;
+		private final transient XYValues values;
+
+		ScanTask( XYValues values, Line line, int fromIndex, int toIndex ) {
+			this.values = values;
+			this.line = line;
+			this.fromIndex = fromIndex;
+			this.toIndex = toIndex;
+		}
+
+		@Override
+		protected KeyPoint compute() {
+
+			if ( toIndex - fromIndex <= PARALLEL_THRESHOLD ) {
+				return line.scan(values, fromIndex, toIndex);
+			}
+
+			int middle = ( fromIndex + toIndex ) >>> 1;
+			ScanTask right = new ScanTask(values, line, middle, toIndex);
+
+			right.fork();
+
+			KeyPoint leftKeyPoint = new ScanTask(values, line, fromIndex, middle).compute();
+			KeyPoint rightKeyPoint = right.join();
+
+			return ( rightKeyPoint.distance > leftKeyPoint.distance ) ? rightKeyPoint : leftKeyPoint;
+
+		}
+
+	}
+
 }
@@ -0,0 +1,228 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ * Copyright (C) 2018-2019 by European Spallation Source ERIC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.europeanspallationsource.xaos.ui.plot.data;
+
+
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Objects;
+import javafx.beans.InvalidationListener;
+
+
+/**
+ * {@link XYValues} implementation based on a bounded ring buffer: once the
+ * capacity is reached, appending a new point discards the oldest one, so that
+ * the values are a sliding window over a never ending stream of samples.
+ * <p>
+ * Index 0 always refers to the oldest point in the window. Each appended point
+ * also gets a sequence number, starting from 0 and never reused, allowing
+ * consumers to find out which points were appended and which were discarded
+ * since the last time they looked at the values.</p>
+ * <p>
+ * This class is not thread-safe, and should be modified only from the JavaFX
+ * application thread once bound to a displayed series.</p>
+ *
+ * @author claudio.rosati@esss.se
+ * @see DataReducingObservableList
+ */
+@SuppressWarnings( "ClassWithoutLogger" )
+public class RingBufferXYValues implements XYValues {
+
+	private int head = 0;
+	private final List<InvalidationListener> listeners = new LinkedList<>();
+	private long modificationCount = 0;
+	private int size = 0;
+	private long totalCount = 0;
+	private final double[] xValues;
+	private final double[] yValues;
+
+	/**
+	 * Creates a new empty instance with the given capacity.
+	 *
+	 * @param capacity The maximum number of points in the window.
+	 * @throws IllegalArgumentException If {@code capacity} is not positive.
+	 */
+	public RingBufferXYValues( int capacity ) throws IllegalArgumentException {
+
+		if ( capacity <= 0 ) {
+			throw new IllegalArgumentException(MessageFormat.format(
+				"Capacity must be positive [{0}].",
+				capacity
+			));
+		}
+
+		xValues = new double[capacity];
+		yValues = new double[capacity];
+
+	}
+
+	/**
+	 * Appends a single point, discarding the oldest one if the buffer is full.
+	 *
+	 * @param x The X value, not smaller than the last one.
+	 * @param y The Y value.
+	 */
+	public void add( double x, double y ) {
+		append(x, y);
+		fireInvalidated();
+	}
+
+	/**
+	 * Appends all the given points, discarding the oldest ones if needed, and
+	 * notifying listeners only once.
+	 *
+	 * @param xValues The X values, in non-decreasing order and not smaller than
+	 *                the last one.
+	 * @param yValues The Y values.
+	 * @throws NullPointerException     If {@code xValues} or {@code yValues} is
+	 *                                  {@code null}.
+	 * @throws IllegalArgumentException If {@code xValues} and {@code yValues}
+	 *                                  have different lengths.
+	 */
+	public void addAll( double[] xValues, double[] yValues ) throws NullPointerException, IllegalArgumentException {
+
+		Objects.requireNonNull(xValues, "Null X values.");
+		Objects.requireNonNull(yValues, "Null Y values.");
+
+		if ( xValues.length != yValues.length ) {
+			throw new IllegalArgumentException(MessageFormat.format(
+				"X and Y values must have the same length [x: {0}, y: {1}].",
+				xValues.length,
+				yValues.length
+			));
+		}
+
+		if ( xValues.length == 0 ) {
+			return;
+		}
+
+		for ( int i = 0; i < xValues.length; i++ ) {
+			append(xValues[i], yValues[i]);
+		}
+
+		fireInvalidated();
+
+	}
+
+	@Override
+	public void addListener( InvalidationListener listener ) {
+		Objects.requireNonNull(listener, "InvalidationListener must not be null");
+		listeners.add(listener);
+	}
+
+	/**
+	 * Removes all the points and resets the sequence numbers.
+	 */
+	public void clear() {
+		if ( totalCount > 0 ) {
+			head = 0;
+			size = 0;
+			totalCount = 0;
+			modificationCount++;
+			fireInvalidated();
+		}
+	}
+
+	/**
+	 * Notifies listeners that the values have been invalidated.
+	 */
+	public void fireInvalidated() {
+		if ( !listeners.isEmpty() ) {
+			new ArrayList<>(listeners).forEach(listener -> listener.invalidated(this));
+		}
+	}
+
+	/**
+	 * @return The maximum number of points in the window.
+	 */
+	public int getCapacity() {
+		return xValues.length;
+	}
+
+	/**
+	 * @return The sequence number of the point at index 0, i.e. the total
+	 *         number of points discarded so far.
+	 */
+	public long getFirstSequence() {
+		return totalCount - size;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * Discarding the oldest point when the buffer is full shifts all the
+	 * others, and is therefore a modification.</p>
+	 */
+	@Override
+	public long getModificationCount() {
+		return modificationCount;
+	}
+
+	/**
+	 * @return The total number of points appended so far, i.e. the sequence
+	 *         number the next appended point will have.
+	 */
+	public long getTotalCount() {
+		return totalCount;
+	}
+
+	@Override
+	public double getXValue( int index ) throws IndexOutOfBoundsException {
+		return xValues[physicalIndex(index)];
+	}
+
+	@Override
+	public double getYValue( int index ) throws IndexOutOfBoundsException {
+		return yValues[physicalIndex(index)];
+	}
+
+	@Override
+	public void removeListener( InvalidationListener listener ) {
+		listeners.remove(listener);
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	private void append( double x, double y ) {
+
+		int capacity = xValues.length;
+		int tail = ( head + size ) % capacity;
+
+		xValues[tail] = x;
+		yValues[tail] = y;
+
+		if ( size < capacity ) {
+			size++;
+		} else {
+			head = ( head + 1 ) % capacity;
+			modificationCount++;
+		}
+
+		totalCount++;
+
+	}
+
+	private int physicalIndex( int index ) {
+		return ( head + Objects.checkIndex(index, size) ) % xValues.length;
+	}
+
+}
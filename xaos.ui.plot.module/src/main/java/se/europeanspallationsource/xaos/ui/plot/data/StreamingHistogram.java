@@ -0,0 +1,431 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ * Copyright (C) 2018-2019 by European Spallation Source ERIC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.europeanspallationsource.xaos.ui.plot.data;
+
+
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.stream.DoubleStream;
+import javafx.animation.AnimationTimer;
+import javafx.application.Platform;
+import javafx.collections.ObservableList;
+import javafx.scene.chart.XYChart.Data;
+import javafx.scene.chart.XYChart.Series;
+
+
+/**
+ * Histogram accumulating samples over time with a fixed
+ * {@link HistogramBinning}, and publishing its counts to chart series.
+ * <p>
+ * Samples can be added from any thread. They are counted into striped atomic
+ * counters, so that concurrent producers rarely contend, and are collected
+ * only when a {@link #snapshot() snapshot} is taken. The counts of the
+ * histogram can be:</p>
+ * <ul>
+ * <li>cumulative, counting all the samples added since creation or the last
+ * {@link #clear()};</li>
+ * <li>{@link #decaying(HistogramBinning, double) decaying}, multiplying the
+ * previous counts by a factor at each snapshot before adding the new
+ * samples;</li>
+ * <li>{@link #slidingWindow(HistogramBinning, int) windowed}, counting only
+ * the samples collected by the last snapshots.</li>
+ * </ul>
+ * <p>
+ * Series {@link #addSeries(Series) added} to the histogram have a point for
+ * each bin, at the bin center. While there are series, an
+ * {@link AnimationTimer} runs on the JavaFX application thread and, at each
+ * frame in which new samples were added, takes a single snapshot and
+ * publishes it to the series. Decaying and windowed histograms bound to
+ * series therefore advance by at most one snapshot per frame, whatever the
+ * rate of the producers, and {@link #snapshot()} should not be called
+ * directly on them.</p>
+ *
+ * @author claudio.rosati@esss.se
+ */
+@SuppressWarnings( "ClassWithoutLogger" )
+public final class StreamingHistogram {
+
+	private static final int STRIPES_COUNT = Integer.highestOneBit(Runtime.getRuntime().availableProcessors()) * 2;
+
+	/**
+	 * Creates a new histogram whose counts are multiplied by the given
+	 * {@code factor} at each snapshot, before adding the new samples.
+	 *
+	 * @param binning The bins layout.
+	 * @param factor  The decay factor, greater than 0 and less than or equal
+	 *                to 1 (no decay).
+	 * @return A new decaying histogram.
+	 * @throws NullPointerException     If {@code binning} is {@code null}.
+	 * @throws IllegalArgumentException If {@code factor} is out of range.
+	 */
+	public static StreamingHistogram decaying( HistogramBinning binning, double factor )
+		throws NullPointerException, IllegalArgumentException
+	{
+
+		if ( !( factor > 0 && factor <= 1 ) ) {
+			throw new IllegalArgumentException(MessageFormat.format("Decay factor out of (0, 1] range [{0}].", factor));
+		}
+
+		return new StreamingHistogram(binning, factor, 0);
+
+	}
+
+	/**
+	 * Creates a new histogram counting only the samples collected by the last
+	 * {@code snapshots} snapshots.
+	 *
+	 * @param binning   The bins layout.
+	 * @param snapshots The number of snapshots in the window.
+	 * @return A new windowed histogram.
+	 * @throws NullPointerException     If {@code binning} is {@code null}.
+	 * @throws IllegalArgumentException If {@code snapshots} is not positive.
+	 */
+	public static StreamingHistogram slidingWindow( HistogramBinning binning, int snapshots )
+		throws NullPointerException, IllegalArgumentException
+	{
+
+		if ( snapshots <= 0 ) {
+			throw new IllegalArgumentException(MessageFormat.format("Non-positive window size [{0}].", snapshots));
+		}
+
+		return new StreamingHistogram(binning, 1, snapshots);
+
+	}
+
+	private final HistogramBinning binning;
+	private final double decay;
+	private final AtomicBoolean samplesPending = new AtomicBoolean(false);
+	private final List<Series<Number, Number>> series = new CopyOnWriteArrayList<>();
+	private final AtomicLongArray[] stripes = new AtomicLongArray[STRIPES_COUNT];
+	private AnimationTimer timer = null;
+	private final double[] totals;
+	private final long[][] window;
+	private int windowIndex = 0;
+
+	/**
+	 * Creates a new cumulative histogram.
+	 *
+	 * @param binning The bins layout.
+	 * @throws NullPointerException If {@code binning} is {@code null}.
+	 */
+	public StreamingHistogram( HistogramBinning binning ) throws NullPointerException {
+		this(binning, 1, 0);
+	}
+
+	private StreamingHistogram( HistogramBinning binning, double decay, int windowSize ) {
+
+		Objects.requireNonNull(binning, "Null binning.");
+
+		int length = binning.getBinsCount() + 2;
+
+		for ( int i = 0; i < STRIPES_COUNT; i++ ) {
+			stripes[i] = new AtomicLongArray(length);
+		}
+
+		this.binning = binning;
+		this.decay = decay;
+		this.totals = new double[length];
+		this.window = ( windowSize > 0 ) ? new long[windowSize][length] : null;
+
+	}
+
+	/**
+	 * Adds the given sample. {@code NaN} values are ignored.
+	 *
+	 * @param value The sample to be added.
+	 */
+	public void add( double value ) {
+
+		int index = binning.indexOf(value);
+
+		if ( index >= 0 ) {
+			stripe().incrementAndGet(index);
+			requestPublishing();
+		}
+
+	}
+
+	/**
+	 * Adds the given samples, counting them before updating the shared
+	 * counters.
+	 *
+	 * @param values The samples to be added.
+	 * @throws NullPointerException If {@code values} is {@code null}.
+	 */
+	public void addAll( double[] values ) throws NullPointerException {
+		addAll(values, 0, values.length);
+	}
+
+	/**
+	 * Adds the samples in the given range of the given array, counting them
+	 * before updating the shared counters.
+	 *
+	 * @param values    The samples to be added.
+	 * @param fromIndex The index of the first sample to be added.
+	 * @param toIndex   The index after the last sample to be added.
+	 * @throws NullPointerException      If {@code values} is {@code null}.
+	 * @throws IndexOutOfBoundsException If the given range is not inside the
+	 *                                   array.
+	 */
+	public void addAll( double[] values, int fromIndex, int toIndex ) throws NullPointerException, IndexOutOfBoundsException {
+		addCounts(binning.count(values, fromIndex, toIndex));
+	}
+
+	/**
+	 * Adds the samples of the given stream, counting them before updating the
+	 * shared counters.
+	 *
+	 * @param values The samples to be added.
+	 * @throws NullPointerException If {@code values} is {@code null}.
+	 */
+	public void addAll( DoubleStream values ) throws NullPointerException {
+		addCounts(binning.count(values));
+	}
+
+	/**
+	 * Adds the given series to the ones updated by this histogram. The series
+	 * data are immediately replaced by the counts of the last snapshot.
+	 * <p>
+	 * The series is strongly referenced by this histogram, and the histogram
+	 * by the running {@link AnimationTimer}, until the series is
+	 * {@link #removeSeries(Series) removed}: series no longer displayed must
+	 * be removed to let both be garbage collected.</p>
+	 * <p>
+	 * <b>Note:</b> If the series is already displayed, this method must be
+	 * called on the JavaFX application thread.</p>
+	 *
+	 * @param series The series to be updated.
+	 * @throws NullPointerException If {@code series} is {@code null}.
+	 */
+	public void addSeries( Series<Number, Number> series ) throws NullPointerException {
+
+		Objects.requireNonNull(series, "Null series.");
+
+		this.series.add(series);
+
+		publish(series, getCounts());
+		requestPublishing();
+		updateTimer();
+
+	}
+
+	/**
+	 * Discards all the samples, and the history of the decaying and windowed
+	 * histograms.
+	 */
+	public synchronized void clear() {
+
+		for ( AtomicLongArray stripe : stripes ) {
+			for ( int i = 0; i < stripe.length(); i++ ) {
+				stripe.set(i, 0);
+			}
+		}
+
+		Arrays.fill(totals, 0.0);
+
+		if ( window != null ) {
+			for ( long[] counts : window ) {
+				Arrays.fill(counts, 0);
+			}
+		}
+
+		requestPublishing();
+
+	}
+
+	/**
+	 * @return The bins layout.
+	 */
+	public HistogramBinning getBinning() {
+		return binning;
+	}
+
+	/**
+	 * @return A new array with the counts of the last snapshot.
+	 * @see #snapshot()
+	 */
+	public synchronized double[] getCounts() {
+		return totals.clone();
+	}
+
+	/**
+	 * Removes the given series from the ones updated by this histogram. The
+	 * series data are not modified. When the last series is removed the
+	 * {@link AnimationTimer} publishing the counts is stopped.
+	 *
+	 * @param series The series to be removed.
+	 * @return {@code true} if the series was updated by this histogram.
+	 */
+	public boolean removeSeries( Series<Number, Number> series ) {
+
+		boolean removed = this.series.remove(series);
+
+		if ( removed ) {
+			updateTimer();
+		}
+
+		return removed;
+
+	}
+
+	/**
+	 * Collects the samples added since the previous snapshot, and returns the
+	 * histogram counts as described in {@link HistogramBinning}: underflow
+	 * first, overflow last, and the counts of each bin in between.
+	 * <p>
+	 * Decaying and windowed histograms advance by one step at each snapshot.
+	 * While series are bound to this histogram, snapshots are taken once per
+	 * frame by the publishing {@link AnimationTimer}.</p>
+	 *
+	 * @return A new array with the current counts.
+	 */
+	public synchronized double[] snapshot() {
+
+		long[] counts = new long[totals.length];
+
+		for ( AtomicLongArray stripe : stripes ) {
+			for ( int i = 0; i < counts.length; i++ ) {
+				if ( stripe.get(i) != 0 ) {
+					counts[i] += stripe.getAndSet(i, 0);
+				}
+			}
+		}
+
+		if ( window != null ) {
+
+			long[] oldest = window[windowIndex];
+
+			for ( int i = 0; i < totals.length; i++ ) {
+				totals[i] += counts[i] - oldest[i];
+			}
+
+			window[windowIndex] = counts;
+			windowIndex = ( windowIndex + 1 ) % window.length;
+
+		} else {
+			for ( int i = 0; i < totals.length; i++ ) {
+				totals[i] = totals[i] * decay + counts[i];
+			}
+		}
+
+		return totals.clone();
+
+	}
+
+	private void addCounts( long[] counts ) {
+
+		AtomicLongArray stripe = stripe();
+		boolean added = false;
+
+		for ( int i = 0; i < counts.length; i++ ) {
+			if ( counts[i] != 0 ) {
+				stripe.addAndGet(i, counts[i]);
+				added = true;
+			}
+		}
+
+		if ( added ) {
+			requestPublishing();
+		}
+
+	}
+
+	private void publish( Series<Number, Number> target, double[] counts ) {
+
+		int binsCount = binning.getBinsCount();
+		ObservableList<Data<Number, Number>> data = target.getData();
+
+		if ( data.size() == binsCount ) {
+			for ( int bin = 0; bin < binsCount; bin++ ) {
+
+				Data<Number, Number> point = data.get(bin);
+
+				if ( point.getYValue().doubleValue() != counts[bin + 1] ) {
+					point.setYValue(counts[bin + 1]);
+				}
+
+			}
+		} else {
+
+			List<Data<Number, Number>> points = new ArrayList<>(binsCount);
+
+			for ( int bin = 0; bin < binsCount; bin++ ) {
+				points.add(new Data<>(binning.getBinCenter(bin), counts[bin + 1]));
+			}
+
+			data.setAll(points);
+
+		}
+
+	}
+
+	/**
+	 * Called by the {@link AnimationTimer} at each frame.
+	 */
+	private void publishPending() {
+		if ( samplesPending.get() && samplesPending.getAndSet(false) ) {
+
+			double[] counts = snapshot();
+
+			series.forEach(s -> publish(s, counts));
+
+		}
+	}
+
+	private void requestPublishing() {
+		if ( !samplesPending.get() ) {
+			samplesPending.set(true);
+		}
+	}
+
+	private AtomicLongArray stripe() {
+		return stripes[(int) Thread.currentThread().getId() & ( STRIPES_COUNT - 1 )];
+	}
+
+	/**
+	 * Starts the publishing {@link AnimationTimer} if there are series, or
+	 * stops it otherwise, on the JavaFX application thread.
+	 */
+	private void updateTimer() {
+		if ( !Platform.isFxApplicationThread() ) {
+			Platform.runLater(this::updateTimer);
+		} else if ( series.isEmpty() ) {
+			if ( timer != null ) {
+				timer.stop();
+				timer = null;
+			}
+		} else if ( timer == null ) {
+
+			timer = new AnimationTimer() {
+				@Override
+				public void handle( long now ) {
+					publishPending();
+				}
+			};
+
+			timer.start();
+
+		}
+	}
+
+}
@@ -0,0 +1,295 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ * Copyright (C) 2018-2019 by European Spallation Source ERIC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.europeanspallationsource.xaos.ui.plot.data;
+
+
+import java.text.MessageFormat;
+import java.util.Objects;
+
+
+/**
+ * Streaming statistics of a sequence of (X, Y) pairs: mean and variance of
+ * X and Y values, computed with Welford's algorithm, and integral and
+ * absolute integral of Y over X, computed with the trapezoidal rule between
+ * consecutive pairs.
+ * <p>
+ * Pairs are added one at a time or in bulk, without storing them, so that
+ * statistics can be kept updated while a series grows. Statistics of
+ * consecutive parts of a sequence can be computed separately (e.g. in
+ * parallel) and then {@link #combine(XYStatistics) combined}.</p>
+ * <p>
+ * This class is not thread-safe.</p>
+ *
+ * @author claudio.rosati@esss.se
+ */
+@SuppressWarnings( "ClassWithoutLogger" )
+public final class XYStatistics {
+
+	/**
+	 * Returns the statistics of the given values.
+	 *
+	 * @param values The values whose statistics must be computed.
+	 * @return A new instance containing the statistics of all the given
+	 *         values.
+	 * @throws NullPointerException If {@code values} is {@code null}.
+	 */
+	public static XYStatistics of( XYValues values ) throws NullPointerException {
+
+		XYStatistics statistics = new XYStatistics();
+
+		statistics.addAll(values, 0, values.size());
+
+		return statistics;
+
+	}
+
+	private double absoluteIntegral = 0.0;
+	private long count = 0;
+	private double firstX = Double.NaN;
+	private double firstY = Double.NaN;
+	private double integral = 0.0;
+	private double lastX = Double.NaN;
+	private double lastY = Double.NaN;
+	private double meanX = 0.0;
+	private double meanY = 0.0;
+	private double squaresX = 0.0;
+	private double squaresY = 0.0;
+
+	/**
+	 * Adds the given pair, following the previously added ones.
+	 *
+	 * @param x The X value.
+	 * @param y The Y value.
+	 */
+	public void add( double x, double y ) {
+
+		count++;
+
+		double deltaX = x - meanX;
+		double deltaY = y - meanY;
+
+		meanX += deltaX / count;
+		meanY += deltaY / count;
+		squaresX += deltaX * ( x - meanX );
+		squaresY += deltaY * ( y - meanY );
+
+		if ( count == 1 ) {
+			firstX = x;
+			firstY = y;
+		} else {
+
+			double area = ( x - lastX ) / 2 * ( lastY + y );
+
+			integral += area;
+			absoluteIntegral += Math.abs(area);
+
+		}
+
+		lastX = x;
+		lastY = y;
+
+	}
+
+	/**
+	 * Adds the pairs in the given range of the given arrays.
+	 *
+	 * @param xValues   The X values.
+	 * @param yValues   The Y values.
+	 * @param fromIndex The index of the first pair to be added.
+	 * @param toIndex   The index after the last pair to be added.
+	 * @throws NullPointerException      If any of the arrays is {@code null}.
+	 * @throws IndexOutOfBoundsException If the given range is not inside both
+	 *                                   arrays.
+	 */
+	public void addAll( double[] xValues, double[] yValues, int fromIndex, int toIndex )
+		throws NullPointerException, IndexOutOfBoundsException
+	{
+
+		Objects.requireNonNull(xValues, "Null X values.");
+		Objects.requireNonNull(yValues, "Null Y values.");
+		Objects.checkFromToIndex(fromIndex, toIndex, xValues.length);
+		Objects.checkFromToIndex(fromIndex, toIndex, yValues.length);
+
+		for ( int i = fromIndex; i < toIndex; i++ ) {
+			add(xValues[i], yValues[i]);
+		}
+
+	}
+
+	/**
+	 * Adds the pairs in the given range of the given values.
+	 *
+	 * @param values    The values to be added.
+	 * @param fromIndex The index of the first pair to be added.
+	 * @param toIndex   The index after the last pair to be added.
+	 * @throws NullPointerException      If {@code values} is {@code null}.
+	 * @throws IndexOutOfBoundsException If the given range is not inside the
+	 *                                   values.
+	 */
+	public void addAll( XYValues values, int fromIndex, int toIndex ) throws NullPointerException, IndexOutOfBoundsException {
+
+		Objects.requireNonNull(values, "Null values.");
+		Objects.checkFromToIndex(fromIndex, toIndex, values.size());
+
+		for ( int i = fromIndex; i < toIndex; i++ ) {
+			add(values.getXValue(i), values.getYValue(i));
+		}
+
+	}
+
+	/**
+	 * Combines into this instance the statistics of the given one, whose pairs
+	 * follow the ones of this instance. The given instance is not modified.
+	 *
+	 * @param other The statistics of the following pairs.
+	 * @return This instance.
+	 * @throws NullPointerException If {@code other} is {@code null}.
+	 */
+	public XYStatistics combine( XYStatistics other ) throws NullPointerException {
+
+		Objects.requireNonNull(other, "Null statistics.");
+
+		if ( other.count == 0 ) {
+			return this;
+		} else if ( count == 0 ) {
+
+			absoluteIntegral = other.absoluteIntegral;
+			count = other.count;
+			firstX = other.firstX;
+			firstY = other.firstY;
+			integral = other.integral;
+			lastX = other.lastX;
+			lastY = other.lastY;
+			meanX = other.meanX;
+			meanY = other.meanY;
+			squaresX = other.squaresX;
+			squaresY = other.squaresY;
+
+			return this;
+
+		}
+
+		long total = count + other.count;
+		double deltaX = other.meanX - meanX;
+		double deltaY = other.meanY - meanY;
+		double weight = (double) count * other.count / total;
+		double area = ( other.firstX - lastX ) / 2 * ( lastY + other.firstY );
+
+		meanX += deltaX * other.count / total;
+		meanY += deltaY * other.count / total;
+		squaresX += other.squaresX + deltaX * deltaX * weight;
+		squaresY += other.squaresY + deltaY * deltaY * weight;
+		integral += area + other.integral;
+		absoluteIntegral += Math.abs(area) + other.absoluteIntegral;
+		count = total;
+		lastX = other.lastX;
+		lastY = other.lastY;
+
+		return this;
+
+	}
+
+	/**
+	 * @return A new instance with the same statistics of this one.
+	 */
+	public XYStatistics copy() {
+		return new XYStatistics().combine(this);
+	}
+
+	/**
+	 * @return The sum of the absolute values of the trapezoidal areas between
+	 *         consecutive pairs.
+	 */
+	public double getAbsoluteIntegral() {
+		return absoluteIntegral;
+	}
+
+	/**
+	 * @return The number of added pairs.
+	 */
+	public long getCount() {
+		return count;
+	}
+
+	/**
+	 * @return The integral of Y over X, computed with the trapezoidal rule.
+	 */
+	public double getIntegral() {
+		return integral;
+	}
+
+	/**
+	 * @return The mean of the X values, or {@code NaN} if no pairs were added.
+	 */
+	public double getMeanX() {
+		return ( count > 0 ) ? meanX : Double.NaN;
+	}
+
+	/**
+	 * @return The mean of the Y values, or {@code NaN} if no pairs were added.
+	 */
+	public double getMeanY() {
+		return ( count > 0 ) ? meanY : Double.NaN;
+	}
+
+	/**
+	 * @return The sample standard deviation of the X values.
+	 * @see #getVarianceX()
+	 */
+	public double getStandardDeviationX() {
+		return Math.sqrt(getVarianceX());
+	}
+
+	/**
+	 * @return The sample standard deviation of the Y values.
+	 * @see #getVarianceY()
+	 */
+	public double getStandardDeviationY() {
+		return Math.sqrt(getVarianceY());
+	}
+
+	/**
+	 * @return The sample variance of the X values, or {@code NaN} if less than
+	 *         two pairs were added.
+	 */
+	public double getVarianceX() {
+		return ( count > 1 ) ? squaresX / ( count - 1 ) : Double.NaN;
+	}
+
+	/**
+	 * @return The sample variance of the Y values, or {@code NaN} if less than
+	 *         two pairs were added.
+	 */
+	public double getVarianceY() {
+		return ( count > 1 ) ? squaresY / ( count - 1 ) : Double.NaN;
+	}
+
+	@Override
+	public String toString() {
+		return MessageFormat.format(
+			"XYStatistics[count: {0}, mean: ({1}, {2}), variance: ({3}, {4}), integral: {5}, absolute integral: {6}]",
+			count,
+			getMeanX(),
+			getMeanY(),
+			getVarianceX(),
+			getVarianceY(),
+			integral,
+			absoluteIntegral
+		);
+	}
+
+}
@@ -0,0 +1,223 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ * Copyright (C) 2018-2019 by European Spallation Source ERIC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.europeanspallationsource.xaos.ui.plot.data;
+
+
+import java.util.List;
+import java.util.Objects;
+import javafx.beans.InvalidationListener;
+import javafx.beans.Observable;
+import javafx.collections.ObservableList;
+import javafx.scene.chart.XYChart.Data;
+
+
+/**
+ * A primitive, columnar view over a sequence of (X, Y) pairs of
+ * {@code double} values, sorted by non-decreasing X values.
+ * <p>
+ * Compared to a {@link List} of {@link Data} points, implementations of this
+ * interface are meant to store huge amount of points without paying the
+ * memory and GC costs of boxed values. {@link DataReducer}s can consume this
+ * view directly, so that only the reduced points have to be converted into
+ * {@link Data} objects for display.</p>
+ * <p>
+ * Listeners are notified with an invalidation event every time the values
+ * change. Consumers keeping incremental state over the values (e.g. the
+ * {@link MinMaxPyramidDataReducer}) can compare the
+ * {@link #getModificationCount() modification count} to find out if it is
+ * still valid.</p>
+ *
+ * @author claudio.rosati@esss.se
+ * @see ArrayXYValues
+ */
+public interface XYValues extends Observable {
+
+	/**
+	 * Returns a read-only {@link XYValues} view of the given {@link List} of
+	 * {@link Data} points. Values are converted calling
+	 * {@link Number#doubleValue()} every time they are accessed.
+	 * <p>
+	 * If {@code data} is an {@link ObservableList} the listeners added to the
+	 * returned view will be notified when the list changes.</p>
+	 *
+	 * @param data The {@link List} of {@link Data} points to be wrapped.
+	 * @return A read-only {@link XYValues} view of the given {@code data}.
+	 * @throws NullPointerException If {@code data} is {@code null}.
+	 */
+	static XYValues wrap( final List<? extends Data<? extends Number, ? extends Number>> data ) throws NullPointerException {
+
+		Objects.requireNonNull(data, "Null list of data points.");
+
+		return new XYValues() {
+			@Override
+			public void addListener( InvalidationListener listener ) {
+				if ( data instanceof ObservableList<?> ) {
+					( (ObservableList<?>) data ).addListener(listener);
+				}
+			}
+			@Override
+			public double getXValue( int index ) {
+				return data.get(index).getXValue().doubleValue();
+			}
+			@Override
+			public double getYValue( int index ) {
+				return data.get(index).getYValue().doubleValue();
+			}
+			@Override
+			public void removeListener( InvalidationListener listener ) {
+				if ( data instanceof ObservableList<?> ) {
+					( (ObservableList<?>) data ).removeListener(listener);
+				}
+			}
+			@Override
+			public int size() {
+				return data.size();
+			}
+		};
+
+	}
+
+	/**
+	 * Returns the X value at the given index.
+	 *
+	 * @param index The index of the point.
+	 * @return The X value at the given {@code index}.
+	 * @throws IndexOutOfBoundsException If {@code index} is not in the
+	 *                                   [0, {@link #size()}) range.
+	 */
+	double getXValue( int index ) throws IndexOutOfBoundsException;
+
+	/**
+	 * Returns the Y value at the given index.
+	 *
+	 * @param index The index of the point.
+	 * @return The Y value at the given {@code index}.
+	 * @throws IndexOutOfBoundsException If {@code index} is not in the
+	 *                                   [0, {@link #size()}) range.
+	 */
+	double getYValue( int index ) throws IndexOutOfBoundsException;
+
+	/**
+	 * Returns the index of the first point to be displayed when the X axis
+	 * lower bound is the given one. The returned index includes the point
+	 * preceding the bound, if any, so that a line can be drawn to it.
+	 *
+	 * @param lowerBound The X axis lower bound.
+	 * @return The inclusive index of the first point to be displayed.
+	 */
+	default int fromIndex( double lowerBound ) {
+
+		int fromIndex = search(lowerBound);
+
+		if ( fromIndex < 0 ) {
+
+			fromIndex = -fromIndex - 1;
+
+			if ( fromIndex > 0 ) {
+				//	Include previous point to draw a line to it.
+				fromIndex--;
+			}
+
+		}
+
+		return fromIndex;
+
+	}
+
+	/**
+	 * Returns the number of modifications of the points already in this
+	 * sequence, i.e. every time points are changed, removed or shifted to
+	 * different indices. Appending points at the end is not a modification,
+	 * so that state computed over the previous points remains valid.
+	 * <p>
+	 * The default implementation returns 0, and is suitable only for
+	 * sequences whose points are never modified, like the views returned by
+	 * {@link #wrap(List)}, that are created anew at each reduction.</p>
+	 *
+	 * @return The number of modifications of this sequence.
+	 */
+	default long getModificationCount() {
+		return 0;
+	}
+
+	/**
+	 * @return {@code true} if there are no values.
+	 */
+	default boolean isEmpty() {
+		return size() == 0;
+	}
+
+	/**
+	 * Searches the given X value using the binary search algorithm. Values
+	 * must be sorted by non-decreasing X values.
+	 *
+	 * @param x The X value to be searched for.
+	 * @return The index of the given {@code x} value, or
+	 *         {@code (-(insertion point) - 1)} if not found.
+	 * @see java.util.Arrays#binarySearch(double[], double)
+	 */
+	default int search( double x ) {
+
+		int low = 0;
+		int high = size() - 1;
+
+		while ( low <= high ) {
+
+			int mid = ( low + high ) >>> 1;
+			double midX = getXValue(mid);
+
+			if ( midX < x ) {
+				low = mid + 1;
+			} else if ( midX > x ) {
+				high = mid - 1;
+			} else {
+				return mid;
+			}
+
+		}
+
+		return -( low + 1 );
+
+	}
+
+	/**
+	 * @return The number of (X, Y) pairs.
+	 */
+	int size();
+
+	/**
+	 * Returns the index following the last point to be displayed when the X
+	 * axis upper bound is the given one. The returned index includes the point
+	 * following the bound, if any, so that a line can be drawn to it.
+	 *
+	 * @param upperBound The X axis upper bound.
+	 * @return The exclusive index of the last point to be displayed.
+	 */
+	default int toIndex( double upperBound ) {
+
+		int toIndex = search(upperBound);
+
+		if ( toIndex < 0 ) {
+			toIndex = -toIndex - 1;
+		}
+
+		//	Include next point to draw a line to it.
+		return Math.min(toIndex + 1, size());
+
+	}
+
+}
@@ -22,15 +22,18 @@ import java.net.URL;
 import java.text.DecimalFormat;
 import java.text.ParseException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 import java.util.Random;
 import java.util.ResourceBundle;
 import java.util.WeakHashMap;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 import javafx.beans.binding.Bindings;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
+import javafx.concurrent.Task;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
@@ -48,6 +51,7 @@ import javafx.scene.control.ContentDisplay;
 import javafx.scene.control.Label;
 import javafx.scene.control.ListCell;
 import javafx.scene.control.ListView;
+import javafx.scene.control.ProgressIndicator;
 import javafx.scene.control.Spinner;
 import javafx.scene.control.SpinnerValueFactory.DoubleSpinnerValueFactory;
 import javafx.scene.image.ImageView;
@@ -59,6 +63,7 @@ import javafx.util.Callback;
 import javafx.util.StringConverter;
 import org.apache.commons.lang3.StringUtils;
 import se.europeanspallationsource.xaos.core.util.LogUtils;
+import se.europeanspallationsource.xaos.core.util.ThreadPools;
 import se.europeanspallationsource.xaos.tools.annotation.Bundle;
 import se.europeanspallationsource.xaos.tools.annotation.BundleItem;
 import se.europeanspallationsource.xaos.tools.annotation.BundleItems;
@@ -69,6 +74,7 @@ import se.europeanspallationsource.xaos.ui.plot.Plugin;
 import se.europeanspallationsource.xaos.ui.plot.plugins.Pluggable;
 import se.europeanspallationsource.xaos.ui.plot.spi.impl.trend.ExponentialTrendLine;
 import se.europeanspallationsource.xaos.ui.plot.spi.impl.trend.GaussianTrendLine;
+import se.europeanspallationsource.xaos.ui.plot.spi.impl.trend.LeastSquaresAccumulator;
 import se.europeanspallationsource.xaos.ui.plot.spi.impl.trend.LogarithmicTrendLine;
 import se.europeanspallationsource.xaos.ui.plot.spi.impl.trend.PolynomialTrendLine;
 import se.europeanspallationsource.xaos.ui.plot.spi.impl.trend.PowerTrendLine;
@@ -177,6 +183,7 @@ public class FitController extends GridPane implements Initializable {
 	private static final Map<Pluggable, ObservableList<XYChart.Series<Number, Number>>> SERIES_MAP = new WeakHashMap<>(1);
 
 	@FXML private Button applyButton;
+	@FXML private Button cancelButton;
 	@FXML private Button clearAllButton;
 	@FXML private Button clearButton;
 	@FXML private Button closeButton;
@@ -184,6 +191,8 @@ public class FitController extends GridPane implements Initializable {
 	@FXML private Label degreeCaption;
 	@FXML private Spinner<Double> degreeOrOffsetValue;
 	@FXML private Spinner<Double> discretizationValue;
+	@FXML private ProgressIndicator fitProgress;
+		  private FitTask fitTask = null;
 		  private List<Label> fittingLabelsList;
 		  private ObservableList<XYChart.Series<Number, Number>> fittingSeriesList;
 	@FXML private ComboBox<String> fittingValue;
@@ -323,7 +332,6 @@ public class FitController extends GridPane implements Initializable {
 		@BundleItem( key = "power.series.name", message = "Power Trend Line [{0}]" )
 	} )
 	@FXML
-	@SuppressWarnings( "null" )
 	void apply( ActionEvent event ) {
 
 		@SuppressWarnings( "unchecked" )
@@ -334,145 +342,92 @@ public class FitController extends GridPane implements Initializable {
 			.filter(s -> s.getName().equals(selection.getText()))
 			.findFirst()
 			.get();
-		List<Double> x = new ArrayList<>(series.getData().size());
-		List<Double> y = new ArrayList<>(series.getData().size());
-		boolean polyOrLog = getString("polynomial.trend.line").equals(fittingValue.getValue())
-						 || getString("logarithmic.trend.line").equals(fittingValue.getValue());
+		String fitting = fittingValue.getValue();
+		boolean polyOrLog = getString("polynomial.trend.line").equals(fitting)
+						 || getString("logarithmic.trend.line").equals(fitting);
 		double maxXVal = maxXValue.getValue();
 		double minXVal = minXValue.getValue();
 		double degreeOrOffset = degreeOrOffsetValue.getValue();
+		double yOffset = polyOrLog ? 0 : degreeOrOffset;
+		ObservableList<Data<Number, Number>> data = series.getData();
+		double[] x = new double[data.size()];
+		double[] y = new double[data.size()];
+		int count = 0;
 
-		series.getData().forEach(data -> {
-			if ( data.getXValue().doubleValue() >= minXVal && data.getXValue().doubleValue() <= maxXVal ) {
-				x.add(data.getXValue().doubleValue());
-				y.add(data.getYValue().doubleValue() - ( polyOrLog ? 0 : degreeOrOffset ));
-			}
-		});
-
-		Double disc = discretizationValue.getValue();
-		double maxX = x.stream().mapToDouble(v -> v).max().getAsDouble();
-		double minX = x.stream().mapToDouble(v -> v).min().getAsDouble();
-		double range = maxX - minX;
-		XYChart.Series<Number, Number> interpolatedVals = new Series<>();
-		TrendLine t = null;
-
-		if ( getString("polynomial.trend.line").equals(fittingValue.getValue()) ) {
-
-			t = new PolynomialTrendLine((int) degreeOrOffset);
+		//	Points are extracted once, on the JavaFX thread, into primitive arrays.
+		for ( Data<Number, Number> point : data ) {
 
-			t.setValues(y.stream().mapToDouble(d -> d).toArray(), x.stream().mapToDouble(d -> d).toArray());
+			double xValue = point.getXValue().doubleValue();
 
-			for ( int i = 0; i <= disc; i++ ) {
-				interpolatedVals.getData().add(new Data<>(minX + range / disc * i, t.predict(minX + range / disc * i)));
+			if ( xValue >= minXVal && xValue <= maxXVal ) {
+				x[count] = xValue;
+				y[count] = point.getYValue().doubleValue() - yOffset;
+				count++;
 			}
 
-			interpolatedVals.setName(getString("polynomial.series.name", selection.getText()));
-
-		} else if ( getString("logarithmic.trend.line").equals(fittingValue.getValue()) ) {
-			
-			t = new LogarithmicTrendLine();
-
-			t.setValues(y.stream().mapToDouble(d -> d).toArray(), x.stream().mapToDouble(d -> d).toArray());
-
-			for ( int i = 0; i <= disc; i++ ) {
-				interpolatedVals.getData().add(new Data<>(minX + range / disc * i, t.predict(minX + range / disc * i)));
-			}
+		}
 
-			interpolatedVals.setName(getString("logarithmic.series.name", selection.getText()));
+		if ( count == 0 ) {
+			LogUtils.log(LOGGER, Level.WARNING, "No points of ''{0}'' in the [{1}, {2}] range.", selection.getText(), minXVal, maxXVal);
+			return;
+		}
 
-		} else if ( getString("power.trend.line").equals(fittingValue.getValue()) ) {
+		TrendLine t;
+		String seriesName;
+		double predictionOffset = 0;
 
+		if ( getString("polynomial.trend.line").equals(fitting) ) {
+			t = new PolynomialTrendLine((int) degreeOrOffset);
+			seriesName = getString("polynomial.series.name", selection.getText());
+		} else if ( getString("logarithmic.trend.line").equals(fitting) ) {
+			t = new LogarithmicTrendLine();
+			seriesName = getString("logarithmic.series.name", selection.getText());
+		} else if ( getString("power.trend.line").equals(fitting) ) {
 			t = new PowerTrendLine(degreeOrOffset);
-
-			t.setValues(y.stream().mapToDouble(d -> d).toArray(), x.stream().mapToDouble(d -> d).toArray());
-
-			for ( int i = 0; i <= disc; i++ ) {
-				interpolatedVals.getData().add(new Data<>(minX + range / disc * i, t.predict(minX + range / disc * i) + t.getOffset()));
-			}
-
-			interpolatedVals.setName(getString("power.series.name", selection.getText()));
-
-		} else if ( getString("exponential.trend.line").equals(fittingValue.getValue()) ) {
-
+			seriesName = getString("power.series.name", selection.getText());
+			predictionOffset = t.getOffset();
+		} else if ( getString("exponential.trend.line").equals(fitting) ) {
 			t = new ExponentialTrendLine(degreeOrOffset);
-
-			t.setValues(y.stream().mapToDouble(d -> d).toArray(), x.stream().mapToDouble(d -> d).toArray());
-
-			for ( int i = 0; i <= disc; i++ ) {
-				interpolatedVals.getData().add(new Data<>(minX + range / disc * i, t.predict(minX + range / disc * i) + t.getOffset()));
-			}
-
-			interpolatedVals.setName(getString("exponential.series.name", selection.getText()));
-
-		} else if ( getString("gaussian.trend.line").equals(fittingValue.getValue()) ) {
-
+			seriesName = getString("exponential.series.name", selection.getText());
+			predictionOffset = t.getOffset();
+		} else {
 			t = new GaussianTrendLine();
-
-			t.setValues(y.stream().mapToDouble(d -> d).toArray(), x.stream().mapToDouble(d -> d).toArray());
-
-			for ( int i = 0; i <= disc; i++ ) {
-				interpolatedVals.getData().add(new Data<>(minX + range / disc * i, t.predict(minX + range / disc * i) + degreeOrOffset));
-			}
-
-			interpolatedVals.setName(getString("gaussian.series.name", selection.getText()));
-
+			seriesName = getString("gaussian.series.name", selection.getText());
+			predictionOffset = degreeOrOffset;
 		}
 
-		chart.getData().add(interpolatedVals);
-		pluggable.setNotShownInLegend(interpolatedVals.getName());
-
-		interpolatedVals.getData().forEach(data -> data.getNode().setVisible(false));
-
-		String[] styles = createStyles();
-		Node interpolatedValsNode = interpolatedVals.getNode();
-
-		if ( interpolatedValsNode != null ) {
-			if ( interpolatedValsNode instanceof Group ) {
-
-				Group group = (Group) interpolatedValsNode;
-
-				for ( int i = 0; i < group.getChildren().size() - 1; i++ ) {
-					group.getChildren().get(i).setStyle("-fx-fill: null;");
-				}
-
-				group.getChildren().get(group.getChildren().size() - 1).setStyle(styles[0]);
-
-
-			} else {
-				interpolatedValsNode.setStyle(styles[0]);
-			}
-		}
-
-		fittingSeriesList.add(interpolatedVals);
-
-		Label fittingLabel = new Label(t.nameFor(interpolatedVals.getName()));
-
-		fittingLabel.getStyleClass().add("chart-fitting-label");
-		fittingLabel.setStyle(styles[1]);
-		fittingLabel.setManaged(false);;
-		fittingLabel.resizeRelocate(
-			chart.getLayoutX() + 10,
-			chart.getLayoutY() + fittingLabelsList.size() * 60 + 10,
-			getLabelWidth(fittingLabel.getText()),
-			50
+		FitTask task = new FitTask(
+			t,
+			Arrays.copyOf(x, count),
+			Arrays.copyOf(y, count),
+			discretizationValue.getValue(),
+			predictionOffset
 		);
 
-		if ( t.isErrorOccurred() ) {
-
-			Text icon = (Text) Icons.iconFor(WARNING, 16);
+		task.setOnSucceeded(e -> showFit(chart, seriesName, t, task.getValue()));
+		task.setOnFailed(e -> LogUtils.log(LOGGER, Level.WARNING, task.getException(), "Unable to fit ''{0}''.", selection.getText()));
 
-			icon.setFill(Color.RED);
+		applyButton.disableProperty().bind(task.runningProperty());
+		cancelButton.disableProperty().bind(task.runningProperty().not());
+		fitProgress.progressProperty().bind(task.progressProperty());
+		fitProgress.visibleProperty().bind(task.runningProperty());
 
-			fittingLabel.setGraphic(icon);
-			fittingLabel.setContentDisplay(ContentDisplay.RIGHT);
-			fittingLabel.setGraphicTextGap(6);
-			fittingLabel.resize(getLabelWidth(fittingLabel.getText()) + 10, 50);
+		fitTask = task;
 
+		try {
+			ThreadPools.fixedThreadPool().execute(task);
+		} catch ( IllegalStateException ex ) {
+			LogUtils.log(LOGGER, Level.WARNING, "Thread pools not available: fitting performed on the JavaFX thread.");
+			task.run();
 		}
 
-		fittingLabelsList.add(fittingLabel);
-		pluggable.getPlotChildren().add(fittingLabel);
+	}
 
+	@FXML
+	void cancel( ActionEvent event ) {
+		if ( fitTask != null ) {
+			fitTask.cancel();
+		}
 	}
 
 	@FXML
@@ -500,8 +455,16 @@ public class FitController extends GridPane implements Initializable {
 	}
 
 	void dispose() {
+
+		cancel(null);
+
+		applyButton.disableProperty().unbind();
+		cancelButton.disableProperty().unbind();
 		clearAllButton.disableProperty().unbind();
 		clearButton.disableProperty().unbind();
+		fitProgress.progressProperty().unbind();
+		fitProgress.visibleProperty().unbind();
+
 	}
 
 	/**
@@ -568,4 +531,168 @@ public class FitController extends GridPane implements Initializable {
 
 	}
 
+	/**
+	 * Adds the fitting series, built with the given points, and its label to
+	 * the chart.
+	 */
+	private void showFit( XYChart<Number, Number> chart, String seriesName, TrendLine t, List<Data<Number, Number>> points ) {
+
+		XYChart.Series<Number, Number> interpolatedVals = new Series<>();
+
+		interpolatedVals.setName(seriesName);
+		interpolatedVals.getData().setAll(points);
+
+		chart.getData().add(interpolatedVals);
+		pluggable.setNotShownInLegend(interpolatedVals.getName());
+
+		interpolatedVals.getData().forEach(data -> data.getNode().setVisible(false));
+
+		String[] styles = createStyles();
+		Node interpolatedValsNode = interpolatedVals.getNode();
+
+		if ( interpolatedValsNode != null ) {
+			if ( interpolatedValsNode instanceof Group ) {
+
+				Group group = (Group) interpolatedValsNode;
+
+				for ( int i = 0; i < group.getChildren().size() - 1; i++ ) {
+					group.getChildren().get(i).setStyle("-fx-fill: null;");
+				}
+
+				group.getChildren().get(group.getChildren().size() - 1).setStyle(styles[0]);
+
+
+			} else {
+				interpolatedValsNode.setStyle(styles[0]);
+			}
+		}
+
+		fittingSeriesList.add(interpolatedVals);
+
+		Label fittingLabel = new Label(t.nameFor(interpolatedVals.getName()));
+
+		fittingLabel.getStyleClass().add("chart-fitting-label");
+		fittingLabel.setStyle(styles[1]);
+		fittingLabel.setManaged(false);
+		fittingLabel.resizeRelocate(
+			chart.getLayoutX() + 10,
+			chart.getLayoutY() + fittingLabelsList.size() * 60 + 10,
+			getLabelWidth(fittingLabel.getText()),
+			50
+		);
+
+		if ( t.isErrorOccurred() ) {
+
+			Text icon = (Text) Icons.iconFor(WARNING, 16);
+
+			icon.setFill(Color.RED);
+
+			fittingLabel.setGraphic(icon);
+			fittingLabel.setContentDisplay(ContentDisplay.RIGHT);
+			fittingLabel.setGraphicTextGap(6);
+			fittingLabel.resize(getLabelWidth(fittingLabel.getText()) + 10, 50);
+
+		}
+
+		fittingLabelsList.add(fittingLabel);
+		pluggable.getPlotChildren().add(fittingLabel);
+
+	}
+
+	/**
+	 * Fits the given points and evaluates the fitted function at the
+	 * discretization steps, off the JavaFX application thread. Only the
+	 * resulting points are returned, to be displayed when the task succeeds.
+	 * The points are accumulated in chunks, and the fitted function is
+	 * evaluated at all the steps with a single batch prediction. The task can
+	 * be cancelled between chunks, before the evaluation and between steps.
+	 */
+	private static class FitTask extends Task<List<Data<Number, Number>>> {
+
+		/**
+		 * Number of points accumulated between two cancellation checks.
+		 */
+		private static final int CHUNK_SIZE = 8192;
+
+		private final double discretization;
+		private final double predictionOffset;
+		private final TrendLine trendLine;
+		private final double[] x;
+		private final double[] y;
+
+		FitTask( TrendLine trendLine, double[] x, double[] y, double discretization, double predictionOffset ) {
+			this.trendLine = trendLine;
+			this.x = x;
+			this.y = y;
+			this.discretization = discretization;
+			this.predictionOffset = predictionOffset;
+		}
+
+		@Override
+		protected List<Data<Number, Number>> call() throws Exception {
+
+			LeastSquaresAccumulator accumulator = trendLine.newAccumulator();
+			double maxX = Double.NEGATIVE_INFINITY;
+			double minX = Double.POSITIVE_INFINITY;
+			int steps = ( discretization >= 0 ) ? (int) discretization + 1 : 0;
+			long work = (long) x.length + steps;
+
+			for ( int fromIndex = 0; fromIndex < x.length; fromIndex += CHUNK_SIZE ) {
+
+				if ( isCancelled() ) {
+					return new ArrayList<>(0);
+				}
+
+				int toIndex = Math.min(x.length, fromIndex + CHUNK_SIZE);
+
+				trendLine.accumulate(accumulator, y, x, fromIndex, toIndex);
+
+				for ( int i = fromIndex; i < toIndex; i++ ) {
+					maxX = Math.max(maxX, x[i]);
+					minX = Math.min(minX, x[i]);
+				}
+
+				updateProgress(toIndex, work);
+
+			}
+
+			if ( isCancelled() ) {
+				return new ArrayList<>(0);
+			}
+
+			trendLine.setValues(accumulator);
+
+			double range = maxX - minX;
+			double[] xValues = new double[steps];
+			double[] yValues = new double[steps];
+
+			for ( int i = 0; i < steps; i++ ) {
+				xValues[i] = minX + range / discretization * i;
+			}
+
+			if ( isCancelled() ) {
+				return new ArrayList<>(0);
+			}
+
+			trendLine.predict(xValues, yValues);
+
+			List<Data<Number, Number>> points = new ArrayList<>(steps);
+
+			for ( int i = 0; i < steps; i++ ) {
+
+				if ( isCancelled() ) {
+					return points;
+				}
+
+				points.add(new Data<>(xValues[i], yValues[i] + predictionOffset));
+				updateProgress(x.length + i + 1, work);
+
+			}
+
+			return points;
+
+		}
+
+	}
+
 }
@@ -22,7 +22,12 @@ import java.net.URL;
 import java.text.DecimalFormat;
 import java.text.ParseException;
 import java.util.ResourceBundle;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 import java.util.logging.Logger;
+import javafx.application.Platform;
+import javafx.collections.ListChangeListener;
+import javafx.collections.ListChangeListener.Change;
 import javafx.collections.ObservableList;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
@@ -33,7 +38,6 @@ import javafx.scene.chart.AreaChart;
 import javafx.scene.chart.LineChart;
 import javafx.scene.chart.XYChart;
 import javafx.scene.chart.XYChart.Data;
-import javafx.scene.chart.XYChart.Series;
 import javafx.scene.control.Button;
 import javafx.scene.control.ComboBox;
 import javafx.scene.control.ListCell;
@@ -48,7 +52,9 @@ import javafx.util.Callback;
 import javafx.util.StringConverter;
 import org.apache.commons.lang3.StringUtils;
 import se.europeanspallationsource.xaos.core.util.LogUtils;
+import se.europeanspallationsource.xaos.core.util.ThreadPools;
 import se.europeanspallationsource.xaos.ui.plot.Legend.LegendItem;
+import se.europeanspallationsource.xaos.ui.plot.data.XYStatistics;
 import se.europeanspallationsource.xaos.ui.plot.plugins.Pluggable;
 
 import static java.util.logging.Level.SEVERE;
@@ -100,15 +106,26 @@ public class StatisticsController extends GridPane implements Initializable {
 		}
 
 	};
+	/**
+	 * Number of points above which statistics are updated off the JavaFX
+	 * application thread.
+	 */
+	private static final int BACKGROUND_THRESHOLD = 10000;
 	private static final Logger LOGGER = Logger.getLogger(StatisticsController.class.getName());
 
 	@FXML private Button closeButton;
+		  private int countedSize = 0;
+		  private final ListChangeListener<Data<Number, Number>> dataListener = this::dataChanged;
 	@FXML private ComboBox<LegendItem> dataSetValue;
+		  private int generation = 0;
 	@FXML private TextField intAbsFxValue;
 	@FXML private TextField intFxValue;
+		  private boolean integrable = false;
+		  private ObservableList<Data<Number, Number>> listenedData = null;
 	@FXML private TextField meanXValue;
 	@FXML private TextField meanYValue;
 		  private final Pluggable pluggable;
+		  private CompletableFuture<XYStatistics> statistics = CompletableFuture.completedFuture(new XYStatistics());
 	@FXML private TextField stdevXValue;
 	@FXML private TextField stdevYValue;
 
@@ -156,102 +173,77 @@ public class StatisticsController extends GridPane implements Initializable {
 		getScene().getWindow().fireEvent(new WindowEvent(getScene().getWindow(), WINDOW_CLOSE_REQUEST));
 	}
 
-    @FXML
-	@SuppressWarnings( "unchecked" )
-    void dataSetSelected(ActionEvent event) {
+	@FXML
+	void dataSetSelected( ActionEvent event ) {
 
 		@SuppressWarnings( "unchecked" )
 		XYChart<Number, Number> chart = (XYChart<Number, Number>) pluggable.getChart();
 		LegendItem selection = dataSetValue.getValue();
-		@SuppressWarnings( "unchecked" )
-		Series<Number, Number> series = chart.getData().stream()
-			.filter(s -> s.getName().equals(selection.getText()))
-			.findFirst()
-			.get();
 
-		//	Calculate mean values.
-		double meanX = 0.0;
-		double meanY = 0.0;
+		stopListening();
 
-		for ( Data<Number, Number> data : series.getData() ) {
+		if ( selection == null ) {
+			return;
+		}
 
-			if ( ( data.getXValue() instanceof Number ) ) {
-				meanX += data.getXValue().doubleValue();
-			}
+		chart.getData().stream()
+			.filter(s -> s.getName().equals(selection.getText()))
+			.findFirst()
+			.ifPresent(series -> {
 
-			if ( ( data.getYValue() instanceof Number ) ) {
-				meanY += data.getYValue().doubleValue();
-			}
+				integrable = ( chart instanceof AreaChart ) || ( chart instanceof LineChart );
+				listenedData = series.getData();
 
-		}
+				listenedData.addListener(dataListener);
+				recompute();
 
-		meanX /= series.getData().size();
-		meanY /= series.getData().size();
+			});
 
-		((TextFormatter<Double>) meanXValue.getTextFormatter()).setValue(meanX);
-		((TextFormatter<Double>) meanYValue.getTextFormatter()).setValue(meanY);
+	}
 
-		//	Calculate rms values.
-		double rmsX = 0.0;
-		double rmsY = 0.0;
+	void dispose() {
+		stopListening();
+	}
 
-		for ( Data<Number, Number> data : series.getData() ) {
+	/**
+	 * Updates the statistics when points are appended to the selected series,
+	 * recomputing them from scratch for any other change.
+	 */
+	private void dataChanged( Change<? extends Data<Number, Number>> change ) {
 
-			if ( ( data.getXValue() instanceof Number ) ) {
-				rmsX += ( data.getXValue().doubleValue() - meanX ) * ( data.getXValue().doubleValue() - meanX );
-			}
+		boolean appended = true;
 
-			if ( ( data.getYValue() instanceof Number ) ) {
-				rmsY += ( data.getYValue().doubleValue() - meanY ) * ( data.getYValue().doubleValue() - meanY );
+		while ( change.next() ) {
+			if ( change.wasRemoved() || change.wasPermutated() || change.wasUpdated() || change.getFrom() < countedSize ) {
+				appended = false;
 			}
-
 		}
 
-		rmsX /= ( series.getData().size() - 1 );
-		rmsY /= ( series.getData().size() - 1 );
-
-		((TextFormatter<Double>) stdevXValue.getTextFormatter()).setValue(rmsX);
-		((TextFormatter<Double>) stdevYValue.getTextFormatter()).setValue(rmsY);
-
-		try {
-			((TextFormatter<Double>) intFxValue.getTextFormatter()).setValue(trapezoidalRule(chart, series));
-			((TextFormatter<Double>) intAbsFxValue.getTextFormatter()).setValue(absTrapezoidalRule(chart, series));
-		} catch ( RuntimeException rex ) {
-			((TextFormatter<Double>) intFxValue.getTextFormatter()).setValue(null);
-			((TextFormatter<Double>) intAbsFxValue.getTextFormatter()).setValue(null);
-			LogUtils.log(LOGGER, WARNING, rex.getMessage());
+		if ( appended ) {
+			update(countedSize, listenedData.size());
+		} else {
+			recompute();
 		}
 
-    }
-	
-	void dispose() {
 	}
 
-	@SuppressWarnings( { "unchecked", "rawtypes" } )
-	private double absTrapezoidalRule( XYChart<Number, Number> chart, Series<Number, Number> series ) {
-
-		if ( !( ( chart instanceof AreaChart ) || ( chart instanceof LineChart ) ) ) {
-			return 0;
-		} else {
-
-			ObservableList<Data<Number, Number>> data = series.getData();
-			double area = 0.0;
-
-			for ( int index = 1; index < data.size(); index++ ) {
-
-				double b = data.get(index).getXValue().doubleValue();
-				double a = data.get(index - 1).getXValue().doubleValue();
-				double fb = data.get(index).getYValue().doubleValue();
-				double fa = data.get(index - 1).getYValue().doubleValue();
-
-				area += Math.abs(( b - a ) / 2 * ( fa + fb ));
+	/**
+	 * @return The executor used to add the given number of points to the
+	 *         statistics: the calling thread for few points, a background
+	 *         thread otherwise.
+	 */
+	private Executor executorFor( int pointsCount ) {
 
+		if ( pointsCount > BACKGROUND_THRESHOLD ) {
+			try {
+				return ThreadPools.fixedThreadPool();
+			} catch ( IllegalStateException ex ) {
+				LogUtils.log(LOGGER, WARNING, "Thread pools not available: statistics computed on the JavaFX thread.");
 			}
-
-			return area;
-
 		}
 
+		return Runnable::run;
+
 	}
 
 	private void init() {
@@ -273,31 +265,108 @@ public class StatisticsController extends GridPane implements Initializable {
 
 	}
 
-	@SuppressWarnings( { "unchecked", "rawtypes" } )
-	private double trapezoidalRule( XYChart<Number, Number> chart, Series<Number, Number> series ) {
+	@SuppressWarnings( "unchecked" )
+	private void publish( int requestGeneration, XYStatistics result ) {
 
-		if ( !( ( chart instanceof AreaChart ) || ( chart instanceof LineChart ) ) ) {
-			return 0;
-		} else {
+		if ( requestGeneration != generation ) {
+			//	Statistics of a previous selection, or of replaced data.
+			return;
+		}
+
+		( (TextFormatter<Double>) meanXValue.getTextFormatter()).setValue(toValue(result.getMeanX()));
+		( (TextFormatter<Double>) meanYValue.getTextFormatter()).setValue(toValue(result.getMeanY()));
+		( (TextFormatter<Double>) stdevXValue.getTextFormatter()).setValue(toValue(result.getStandardDeviationX()));
+		( (TextFormatter<Double>) stdevYValue.getTextFormatter()).setValue(toValue(result.getStandardDeviationY()));
+		( (TextFormatter<Double>) intFxValue.getTextFormatter()).setValue(integrable ? toValue(result.getIntegral()) : 0.0);
+		( (TextFormatter<Double>) intAbsFxValue.getTextFormatter()).setValue(integrable ? toValue(result.getAbsoluteIntegral()) : 0.0);
 
-			ObservableList<Data<Number, Number>> data = series.getData();
-			double area = 0.0;
+	}
 
-			for ( int index = 1; index < data.size(); index++ ) {
+	/**
+	 * Discards the current statistics, and computes them again from all the
+	 * points of the selected series.
+	 */
+	private void recompute() {
 
-				double b = data.get(index).getXValue().doubleValue();
-				double a = data.get(index - 1).getXValue().doubleValue();
-				double fb = data.get(index).getYValue().doubleValue();
-				double fa = data.get(index - 1).getYValue().doubleValue();
+		generation++;
+		statistics = CompletableFuture.completedFuture(new XYStatistics());
+		countedSize = 0;
 
-				area += ( b - a ) / 2 * ( fa + fb );
+		update(0, listenedData.size());
 
-			}
+	}
+
+	private void stopListening() {
+
+		generation++;
+
+		if ( listenedData != null ) {
+			listenedData.removeListener(dataListener);
+			listenedData = null;
+		}
 
-			return area;
+	}
+
+	private static Double toValue( double value ) {
+		return Double.isFinite(value) ? value : null;
+	}
+
+	/**
+	 * Adds to the statistics the points of the selected series in the given
+	 * range. Points are copied into primitive arrays on the JavaFX application
+	 * thread, while the statistics are updated in background if they are
+	 * many. Updates are chained, so points are added in order, and the result
+	 * is published back on the JavaFX application thread.
+	 */
+	private void update( int fromIndex, int toIndex ) {
+
+		int pointsCount = toIndex - fromIndex;
+		double[] xValues = new double[pointsCount];
+		double[] yValues = new double[pointsCount];
+		int count = 0;
+
+		for ( int index = fromIndex; index < toIndex; index++ ) {
+
+			Data<Number, Number> point = listenedData.get(index);
+			Number x = point.getXValue();
+			Number y = point.getYValue();
+
+			if ( x != null && y != null ) {
+				xValues[count] = x.doubleValue();
+				yValues[count] = y.doubleValue();
+				count++;
+			}
 
 		}
 
+		int requestGeneration = generation;
+		int valuesCount = count;
+
+		countedSize = toIndex;
+		statistics = statistics.thenApplyAsync(
+			s -> {
+
+				s.addAll(xValues, yValues, 0, valuesCount);
+
+				XYStatistics result = s.copy();
+
+				if ( Platform.isFxApplicationThread() ) {
+					publish(requestGeneration, result);
+				} else {
+					Platform.runLater(() -> publish(requestGeneration, result));
+				}
+
+				return s;
+
+			},
+			executorFor(pointsCount)
+		);
+
+		statistics.exceptionally(ex -> {
+			LogUtils.log(LOGGER, WARNING, ex, "Unable to compute statistics.");
+			return null;
+		});
+
 	}
 
 }
@@ -17,10 +17,7 @@
 package se.europeanspallationsource.xaos.ui.plot.spi.impl.trend;
 
 
-import java.util.Arrays;
-import org.apache.commons.math3.linear.MatrixUtils;
-import org.apache.commons.math3.linear.RealMatrix;
-import org.apache.commons.math3.stat.regression.OLSMultipleLinearRegression;
+import java.text.MessageFormat;
 
 
 /**
@@ -32,20 +29,31 @@ import org.apache.commons.math3.stat.regression.OLSMultipleLinearRegression;
 public abstract class BaseOLSTrendLine implements TrendLine {
 
 	//	Will hold prediction coefs once we get values.
-	private RealMatrix coefficients = null;
-	private boolean errorOccurred = false;
+	private double[] coefficients = null;
+	//	Set also by accumulate, that can run concurrently on different threads.
+	private volatile boolean errorOccurred = false;
 
 	@Override
-	public double[] getCoefficients() {
+	public void accumulate( LeastSquaresAccumulator accumulator, double[] y, double[] x, int fromIndex, int toIndex ) {
+
+		boolean logY = logY();
+
+		for ( int i = fromIndex; i < toIndex; i++ ) {
+
+			//	In some models we are predicting ln(y), so we replace each y with ln y
+			double value = logY ? safeLog(y[i]) : y[i];
 
-		double[] coefs = new double[coefficients.getData().length];
+			//	The implementation determines how to produce a vector of
+			//	predictors from a single x.
+			accumulator.add(xVector(x[i]), value);
 
-		for ( int i = 0; i < coefficients.getData().length; i++ ) {
-			coefs[i] = coefficients.getEntry(i, 0);
 		}
 
-		return coefs;
+	}
 
+	@Override
+	public double[] getCoefficients() {
+		return coefficients.clone();
 	}
 
 	@Override
@@ -53,11 +61,16 @@ public abstract class BaseOLSTrendLine implements TrendLine {
 		return errorOccurred;
 	}
 
+	@Override
+	public LeastSquaresAccumulator newAccumulator() {
+		//	Let the implementation include a constant in xVector if desired.
+		return new LeastSquaresAccumulator(xVector(1.0).length);
+	}
+
 	@Override
 	public double predict( double x ) {
 
-		//	Apply coefs to xVector.
-		double y = coefficients.preMultiply(xVector(x))[0];
+		double y = linearPredict(x);
 
 		if ( logY() ) {
 			//	If we predicted ln(y), we need to get y.
@@ -68,12 +81,42 @@ public abstract class BaseOLSTrendLine implements TrendLine {
 
 	}
 
+	@Override
+	public void predict( double[] xs, double[] out ) throws IllegalArgumentException {
+
+		if ( out.length < xs.length ) {
+			throw new IllegalArgumentException(MessageFormat.format(
+				"Output array too short [{0} < {1}].",
+				out.length,
+				xs.length
+			));
+		}
+
+		for ( int i = 0; i < xs.length; i++ ) {
+			out[i] = linearPredict(xs[i]);
+		}
+
+		if ( logY() ) {
+			for ( int i = 0; i < xs.length; i++ ) {
+				//	If we predicted ln(y), we need to get y.
+				out[i] = Math.exp(out[i]);
+			}
+		}
+
+	}
+
 	public final void setErrorOccurred() {
 		this.errorOccurred = true;
 	}
 
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * Points are accumulated in parallel when they are more than
+	 * {@link LeastSquaresAccumulator#PARALLEL_THRESHOLD}, and no matrix of
+	 * predictors is built.</p>
+	 */
 	@Override
-	@SuppressWarnings( "AssignmentToMethodParameter" )
 	public void setValues( double[] y, double[] x ) {
 
 		if ( x.length != y.length ) {
@@ -88,43 +131,45 @@ public abstract class BaseOLSTrendLine implements TrendLine {
 
 		}
 
-		double[][] xData = new double[x.length][];
+		setValues(LeastSquaresAccumulator.accumulate(this, y, x));
 
-		for ( int i = 0; i < x.length; i++ ) {
-			//	The implementation determines how to produce a vector of
-			//	predictors from a single x.
-			xData[i] = xVector(x[i]);
-		}
-
-		if ( logY() ) { 
-		
-			//	In some models we are predicting ln(y), so we replace each y with ln y
-			y = Arrays.copyOf(y, y.length);
+	}
 
-			for ( int i = 0; i < x.length; i++ ) {
-				
-				y[i] = Math.log(y[i]);
+	@Override
+	public void setValues( LeastSquaresAccumulator accumulator ) {
+		coefficients = accumulator.solve();
+	}
 
-				if ( !Double.isFinite(y[i])) {
+	/**
+	 * @param index The index of the coefficient.
+	 * @return The given coefficient of the fitting function.
+	 */
+	protected final double coefficient( int index ) {
+		return coefficients[index];
+	}
 
-					setErrorOccurred();
-					
-					y[i] = 0;
-					
-				}
+	/**
+	 * Returns the linear combination of the coefficients with the
+	 * {@link #xVector(double) predictors} of the given {@code x}, i.e. the
+	 * prediction before the {@link #logY()} transformation is undone.
+	 * <p>
+	 * Subclasses should override this method with a kernel not allocating the
+	 * vector of predictors, because it is called for each predicted
+	 * value.</p>
+	 *
+	 * @param x The x value.
+	 * @return The linear prediction for the given {@code x}.
+	 */
+	protected double linearPredict( double x ) {
 
-			}
+		double[] vector = xVector(x);
+		double y = 0;
 
+		for ( int i = 0; i < vector.length; i++ ) {
+			y += vector[i] * coefficients[i];
 		}
 
-		OLSMultipleLinearRegression ols = new OLSMultipleLinearRegression();
-
-		//	Let the implementation include a constant in xVector if desired.
-		ols.setNoIntercept(true);
-		//	Provide the data to the model.
-		ols.newSampleData(y, xData);
-
-		coefficients = MatrixUtils.createColumnRealMatrix(ols.estimateRegressionParameters());
+		return y;
 
 	}
 
@@ -133,6 +178,29 @@ public abstract class BaseOLSTrendLine implements TrendLine {
 	 */
 	protected abstract boolean logY();
 
+	/**
+	 * Returns the natural logarithm of the given value, or 0 if it is not
+	 * finite (e.g. for non-positive values), setting the error flag.
+	 *
+	 * @param value The value whose logarithm must be returned.
+	 * @return The natural logarithm of the given value, or 0.
+	 */
+	protected final double safeLog( double value ) {
+
+		double log = Math.log(value);
+
+		if ( !Double.isFinite(log) ) {
+
+			setErrorOccurred();
+
+			log = 0;
+
+		}
+
+		return log;
+
+	}
+
 	/**
 	 * @param x The x value.
 	 * @return A vector of values for the given {@code x}.
@@ -58,6 +58,11 @@ public class ExponentialTrendLine extends BaseOLSTrendLine {
 
 	}
 
+	@Override
+	protected double linearPredict( double x ) {
+		return coefficient(0) + coefficient(1) * x;
+	}
+
 	@Override
 	protected boolean logY() {
 		return true;
@@ -17,8 +17,11 @@
 package se.europeanspallationsource.xaos.ui.plot.spi.impl.trend;
 
 
+import java.text.MessageFormat;
 import java.util.logging.Logger;
+import org.apache.commons.math3.exception.MathIllegalArgumentException;
 import org.apache.commons.math3.exception.MathIllegalStateException;
+import org.apache.commons.math3.exception.util.LocalizedFormats;
 import org.apache.commons.math3.fitting.GaussianCurveFitter;
 import org.apache.commons.math3.fitting.WeightedObservedPoints;
 import se.europeanspallationsource.xaos.core.util.LogUtils;
@@ -27,6 +30,14 @@ import static java.util.logging.Level.WARNING;
 
 
 /**
+ * A Gaussian {@link TrendLine}, <em>f(x) = a·exp(-(x - μ)²/(2σ²))</em>.
+ * <p>
+ * {@link #setValues(double[], double[])} fits the points with the iterative
+ * {@link GaussianCurveFitter}, while the streaming
+ * {@link #setValues(LeastSquaresAccumulator)} uses Guo's closed form
+ * solution: a parabola fitted to <em>ln(y)</em>, weighting each point by
+ * <em>y²</em>. Points with non-positive ordinate are not accumulated.</p>
+ *
  * @author natalia@milas@esss.se
  * @author claudio.rosati@esss.se
  */
@@ -35,10 +46,36 @@ public class GaussianTrendLine implements TrendLine {
 
 	private static final Logger LOGGER = Logger.getLogger(GaussianTrendLine.class.getName());
 
-	private boolean errorOccurred = false;
+	private volatile boolean errorOccurred = false;
 	private final WeightedObservedPoints obs = new WeightedObservedPoints();
 	private double[] parameters;
 
+	@Override
+	public void accumulate( LeastSquaresAccumulator accumulator, double[] y, double[] x, int fromIndex, int toIndex ) {
+
+		double[] predictors = new double[3];
+
+		for ( int i = fromIndex; i < toIndex; i++ ) {
+
+			double yi = y[i];
+
+			if ( yi > 0 && Double.isFinite(yi) ) {
+
+				double xi = x[i];
+
+				//	Weight by y: y·ln(y) = y·(a + b·x + c·x²).
+				predictors[0] = yi;
+				predictors[1] = yi * xi;
+				predictors[2] = yi * xi * xi;
+
+				accumulator.add(predictors, yi * Math.log(yi));
+
+			}
+
+		}
+
+	}
+
 	@Override
 	@SuppressWarnings( "ReturnOfCollectionOrArrayField" )
 	public double[] getCoefficients() {
@@ -60,6 +97,11 @@ public class GaussianTrendLine implements TrendLine {
 		return errorOccurred;
 	}
 
+	@Override
+	public LeastSquaresAccumulator newAccumulator() {
+		return new LeastSquaresAccumulator(3);
+	}
+
 	@Override
 	public String nameFor( String seriesName ) {
 		return seriesName + String.format(
@@ -75,6 +117,31 @@ public class GaussianTrendLine implements TrendLine {
 		return parameters[0] * Math.exp(-( x - parameters[1] ) * ( x - parameters[1] ) / ( 2 * parameters[2] * parameters[2] ));
 	}
 
+	@Override
+	public void predict( double[] xs, double[] out ) throws IllegalArgumentException {
+
+		if ( out.length < xs.length ) {
+			throw new IllegalArgumentException(MessageFormat.format(
+				"Output array too short [{0} < {1}].",
+				out.length,
+				xs.length
+			));
+		}
+
+		double norm = parameters[0];
+		double mean = parameters[1];
+		double factor = -1 / ( 2 * parameters[2] * parameters[2] );
+
+		for ( int i = 0; i < xs.length; i++ ) {
+
+			double delta = xs[i] - mean;
+
+			out[i] = norm * Math.exp(delta * delta * factor);
+
+		}
+
+	}
+
 	@Override
 	public void setValues( double[] y, double[] x ) {
 
@@ -103,4 +170,35 @@ public class GaussianTrendLine implements TrendLine {
 
 	}
 
+	@Override
+	public void setValues( LeastSquaresAccumulator accumulator ) {
+
+		try {
+
+			double[] abc = accumulator.solve();
+
+			if ( !( abc[2] < 0 ) ) {
+				throw new MathIllegalStateException(LocalizedFormats.NOT_POSITIVE_DEFINITE_MATRIX);
+			}
+
+			double variance = -1 / ( 2 * abc[2] );
+			double mean = abc[1] * variance;
+
+			parameters = new double[] {
+				Math.exp(abc[0] + mean * mean / ( 2 * variance )),
+				mean,
+				Math.sqrt(variance)
+			};
+
+		} catch ( IllegalStateException | MathIllegalArgumentException ex ) {
+
+			LogUtils.log(LOGGER, WARNING, ex, "Unable to performa gaussian fitting.");
+
+			errorOccurred = true;
+			parameters = new double[] { 0.0, 0.0, 0.0 };
+
+		}
+
+	}
+
 }
@@ -0,0 +1,395 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ * Copyright (C) 2018-2019 by European Spallation Source ERIC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.europeanspallationsource.xaos.ui.plot.spi.impl.trend;
+
+
+import java.text.MessageFormat;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import org.apache.commons.math3.linear.SingularMatrixException;
+import se.europeanspallationsource.xaos.core.util.ThreadPools;
+
+
+/**
+ * Streaming solver of linear least squares problems, accumulating one
+ * observation (a vector of predictors and the corresponding response) at a
+ * time into an incremental QR decomposition.
+ * <p>
+ * Each observation is rotated into the upper triangular {@code R} factor
+ * with Givens rotations, so that the memory used is proportional to the
+ * square of the number of parameters, whatever the number of observations,
+ * and the accuracy is the one of a QR decomposition of the whole design
+ * matrix, not affected by the squared condition number of the normal
+ * equations.</p>
+ * <p>
+ * Observations can be accumulated in chunks from any source, and
+ * accumulators of different parts of the observations can be
+ * {@link #combine(LeastSquaresAccumulator) combined}, e.g. after being
+ * filled in parallel by {@link #accumulate(TrendLine, double[], double[])}.
+ * </p>
+ * <p>
+ * This class is not thread-safe.</p>
+ *
+ * @author claudio.rosati@esss.se
+ */
+@SuppressWarnings( "ClassWithoutLogger" )
+public final class LeastSquaresAccumulator {
+
+	/**
+	 * Minimum number of points to be accumulated in parallel.
+	 */
+	public static final int PARALLEL_THRESHOLD = 65536;
+
+	/**
+	 * Returns a new accumulator filled with the given points by the given
+	 * trend line. Points are accumulated in parallel on the
+	 * {@link ThreadPools#workStealingThreadPool() work-stealing pool} if they
+	 * are more than {@link #PARALLEL_THRESHOLD}.
+	 *
+	 * @param trendLine The trend line converting points into observations.
+	 * @param y         The ordinate of the points.
+	 * @param x         The abscissa of the points.
+	 * @return A new accumulator containing the given points.
+	 * @throws IllegalArgumentException If {@code y} and {@code x} have
+	 *                                  different lengths.
+	 */
+	public static LeastSquaresAccumulator accumulate( TrendLine trendLine, double[] y, double[] x )
+		throws IllegalArgumentException
+	{
+
+		if ( x.length != y.length ) {
+			throw new IllegalArgumentException(MessageFormat.format(
+				"The numbers of y and x values must be equal ({0} != {1}).",
+				y.length,
+				x.length
+			));
+		}
+
+		return accumulate(trendLine, y, x, 0, x.length);
+
+	}
+
+	/**
+	 * Returns a new accumulator filled with the points in the given range by
+	 * the given trend line. Points are accumulated in parallel on the
+	 * {@link ThreadPools#workStealingThreadPool() work-stealing pool} if they
+	 * are more than {@link #PARALLEL_THRESHOLD}.
+	 *
+	 * @param trendLine The trend line converting points into observations.
+	 * @param y         The ordinate of the points.
+	 * @param x         The abscissa of the points.
+	 * @param fromIndex The index of the first point to be accumulated.
+	 * @param toIndex   The index after the last point to be accumulated.
+	 * @return A new accumulator containing the given points.
+	 * @throws IndexOutOfBoundsException If the given range is not inside both
+	 *                                   arrays.
+	 */
+	public static LeastSquaresAccumulator accumulate( TrendLine trendLine, double[] y, double[] x, int fromIndex, int toIndex )
+		throws IndexOutOfBoundsException
+	{
+
+		Objects.checkFromToIndex(fromIndex, toIndex, x.length);
+		Objects.checkFromToIndex(fromIndex, toIndex, y.length);
+
+		AccumulateTask task = new AccumulateTask(trendLine, y, x, fromIndex, toIndex);
+
+		if ( toIndex - fromIndex > PARALLEL_THRESHOLD ) {
+
+			ExecutorService pool;
+
+			try {
+				pool = ThreadPools.workStealingThreadPool();
+			} catch ( IllegalStateException ex ) {
+				pool = null;
+			}
+
+			if ( pool instanceof ForkJoinPool ) {
+				return ( (ForkJoinPool) pool ).invoke(task);
+			}
+
+		}
+
+		return task.accumulate();
+
+	}
+
+	private long count = 0;
+	private final int parametersCount;
+	private final double[] r;
+	private double residualSumOfSquares = 0.0;
+	private final double[] row;
+	private final double[] z;
+
+	/**
+	 * Creates a new empty accumulator.
+	 *
+	 * @param parametersCount The number of parameters, i.e. the number of
+	 *                        predictors of each observation.
+	 * @throws IllegalArgumentException If {@code parametersCount} is not
+	 *                                  positive.
+	 */
+	public LeastSquaresAccumulator( int parametersCount ) throws IllegalArgumentException {
+
+		if ( parametersCount <= 0 ) {
+			throw new IllegalArgumentException(MessageFormat.format("Non-positive number of parameters [{0}].", parametersCount));
+		}
+
+		this.parametersCount = parametersCount;
+		this.r = new double[parametersCount * parametersCount];
+		this.row = new double[parametersCount];
+		this.z = new double[parametersCount];
+
+	}
+
+	/**
+	 * Adds an observation.
+	 *
+	 * @param predictors The predictors of the observation, whose length must
+	 *                   be the number of parameters. The array is not
+	 *                   modified.
+	 * @param response   The response of the observation.
+	 * @throws IllegalArgumentException If {@code predictors} has the wrong
+	 *                                  length.
+	 */
+	public void add( double[] predictors, double response ) throws IllegalArgumentException {
+
+		if ( predictors.length != parametersCount ) {
+			throw new IllegalArgumentException(MessageFormat.format(
+				"Wrong number of predictors [expected: {0}, found: {1}].",
+				parametersCount,
+				predictors.length
+			));
+		}
+
+		System.arraycopy(predictors, 0, row, 0, parametersCount);
+		rotate(0, response);
+
+		count++;
+
+	}
+
+	/**
+	 * Combines into this accumulator the observations of the given one, that
+	 * is not modified.
+	 *
+	 * @param other The accumulator to be combined into this one.
+	 * @return This accumulator.
+	 * @throws IllegalArgumentException If {@code other} has a different
+	 *                                  number of parameters.
+	 */
+	public LeastSquaresAccumulator combine( LeastSquaresAccumulator other ) throws IllegalArgumentException {
+
+		if ( other.parametersCount != parametersCount ) {
+			throw new IllegalArgumentException(MessageFormat.format(
+				"Different number of parameters [{0} != {1}].",
+				parametersCount,
+				other.parametersCount
+			));
+		}
+
+		//	The rows of the other R factor are observations equivalent to all
+		//	the other ones.
+		for ( int k = 0; k < parametersCount; k++ ) {
+
+			System.arraycopy(other.r, k * parametersCount + k, row, k, parametersCount - k);
+			rotate(k, other.z[k]);
+
+		}
+
+		count += other.count;
+		residualSumOfSquares += other.residualSumOfSquares;
+
+		return this;
+
+	}
+
+	/**
+	 * @return The number of accumulated observations.
+	 */
+	public long getCount() {
+		return count;
+	}
+
+	/**
+	 * @return The number of parameters.
+	 */
+	public int getParametersCount() {
+		return parametersCount;
+	}
+
+	/**
+	 * @return The sum of the squared residuals of the least squares solution.
+	 */
+	public double getResidualSumOfSquares() {
+		return residualSumOfSquares;
+	}
+
+	/**
+	 * Returns the parameters minimizing the sum of the squared residuals of
+	 * the accumulated observations.
+	 *
+	 * @return A new array containing the parameters.
+	 * @throws IllegalStateException   If less observations than parameters
+	 *                                 were accumulated.
+	 * @throws SingularMatrixException If the observations do not determine
+	 *                                 all the parameters.
+	 */
+	public double[] solve() throws IllegalStateException, SingularMatrixException {
+
+		if ( count < parametersCount ) {
+			throw new IllegalStateException(MessageFormat.format(
+				"Not enough observations [{0}] for {1} parameters.",
+				count,
+				parametersCount
+			));
+		}
+
+		double[] parameters = new double[parametersCount];
+
+		for ( int i = parametersCount - 1; i >= 0; i-- ) {
+
+			double diagonal = r[i * parametersCount + i];
+
+			if ( diagonal == 0 ) {
+				throw new SingularMatrixException();
+			}
+
+			double sum = z[i];
+
+			for ( int j = i + 1; j < parametersCount; j++ ) {
+				sum -= r[i * parametersCount + j] * parameters[j];
+			}
+
+			parameters[i] = sum / diagonal;
+
+		}
+
+		return parameters;
+
+	}
+
+	/**
+	 * Rotates into the R factor the observation in {@link #row}, whose
+	 * predictors before {@code fromColumn} are zero.
+	 */
+	private void rotate( int fromColumn, double response ) {
+
+		double y = response;
+
+		for ( int k = fromColumn; k < parametersCount; k++ ) {
+
+			double xk = row[k];
+
+			if ( xk == 0 ) {
+				continue;
+			}
+
+			int diagonalIndex = k * parametersCount + k;
+			double rkk = r[diagonalIndex];
+
+			if ( rkk == 0 ) {
+
+				//	Empty row: the observation becomes the row.
+				System.arraycopy(row, k, r, diagonalIndex, parametersCount - k);
+
+				z[k] = y;
+
+				return;
+
+			}
+
+			double h = Math.sqrt(rkk * rkk + xk * xk);
+			double c = rkk / h;
+			double s = xk / h;
+
+			r[diagonalIndex] = h;
+
+			for ( int j = k + 1, index = diagonalIndex + 1; j < parametersCount; j++, index++ ) {
+
+				double rkj = r[index];
+				double xj = row[j];
+
+				r[index] = c * rkj + s * xj;
+				row[j] = c * xj - s * rkj;
+
+			}
+
+			double zk = z[k];
+
+			z[k] = c * zk + s * y;
+			y = c * y - s * zk;
+
+		}
+
+		residualSumOfSquares += y * y;
+
+	}
+
+	/**
+	 * Accumulates a range of points, splitting it in halves until it contains
+	 * no more than {@link #PARALLEL_THRESHOLD} points, and combining the
+	 * accumulators of the two halves.
+	 */
+	@SuppressWarnings( { "serial", "CloneableClassWithoutClone" } )
+	private static class AccumulateTask extends RecursiveTask<LeastSquaresAccumulator> {
+
+		private final int fromIndex;
+		private final int toIndex;
+		private final transient TrendLine trendLine;
+		private final transient double[] x;
+		private final transient double[] y;
+
+		AccumulateTask( TrendLine trendLine, double[] y, double[] x, int fromIndex, int toIndex ) {
+			this.trendLine = trendLine;
+			this.y = y;
+			this.x = x;
+			this.fromIndex = fromIndex;
+			this.toIndex = toIndex;
+		}
+
+		@Override
+		protected LeastSquaresAccumulator compute() {
+
+			if ( toIndex - fromIndex <= PARALLEL_THRESHOLD ) {
+				return accumulate();
+			}
+
+			int middle = ( fromIndex + toIndex ) >>> 1;
+			AccumulateTask lower = new AccumulateTask(trendLine, y, x, fromIndex, middle);
+			AccumulateTask upper = new AccumulateTask(trendLine, y, x, middle, toIndex);
+
+			upper.fork();
+
+			return lower.compute().combine(upper.join());
+
+		}
+
+		LeastSquaresAccumulator accumulate() {
+
+			LeastSquaresAccumulator accumulator = trendLine.newAccumulator();
+
+			trendLine.accumulate(accumulator, y, x, fromIndex, toIndex);
+
+			return accumulator;
+
+		}
+
+	}
+
+}
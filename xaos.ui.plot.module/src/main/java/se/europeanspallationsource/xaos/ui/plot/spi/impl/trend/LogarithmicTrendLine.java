@@ -42,6 +42,11 @@ public class LogarithmicTrendLine extends BaseOLSTrendLine {
 
 	}
 
+	@Override
+	protected double linearPredict( double x ) {
+		return coefficient(0) + coefficient(1) * safeLog(x);
+	}
+
 	@Override
 	protected boolean logY() {
 		return false;
@@ -49,19 +54,7 @@ public class LogarithmicTrendLine extends BaseOLSTrendLine {
 
 	@Override
 	protected double[] xVector( double x ) {
-
-		double logx = Math.log(x);
-
-		if ( !Double.isFinite(logx) ) {
-
-			setErrorOccurred();
-			
-			logx = 0;
-
-		}
-
-		return new double[] { 1, logx };
-
+		return new double[] { 1, safeLog(x) };
 	}
 
 }
@@ -81,6 +81,25 @@ public class PolynomialTrendLine extends BaseOLSTrendLine {
 
 	}
 
+	/**
+	 * Evaluates the polynomial with Horner's scheme.
+	 *
+	 * @param x The x value.
+	 * @return The polynomial value for the given {@code x}.
+	 */
+	@Override
+	protected double linearPredict( double x ) {
+
+		double y = coefficient(degree);
+
+		for ( int i = degree - 1; i >= 0; i-- ) {
+			y = y * x + coefficient(i);
+		}
+
+		return y;
+
+	}
+
 	@Override
 	protected boolean logY() {
 		return false;
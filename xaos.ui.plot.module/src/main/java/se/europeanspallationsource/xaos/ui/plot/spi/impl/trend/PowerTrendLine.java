@@ -102,6 +102,11 @@ public class PowerTrendLine extends BaseOLSTrendLine {
 
 	}
 
+	@Override
+	protected double linearPredict( double x ) {
+		return coefficient(0) + coefficient(1) * safeLog(x);
+	}
+
 	@Override
 	protected boolean logY() {
 		return true;
@@ -109,19 +114,7 @@ public class PowerTrendLine extends BaseOLSTrendLine {
 
 	@Override
 	protected double[] xVector( double x ) {
-
-		double logx = Math.log(x);
-
-		if ( !Double.isFinite(logx) ) {
-
-			setErrorOccurred();
-
-			logx = 0;
-
-		}
-
-		return new double[] { 1, logx };
-
+		return new double[] { 1, safeLog(x) };
 	}
 
 }
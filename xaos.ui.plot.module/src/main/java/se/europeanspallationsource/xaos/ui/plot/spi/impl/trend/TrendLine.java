@@ -16,11 +16,36 @@
  */
 package se.europeanspallationsource.xaos.ui.plot.spi.impl.trend;
 
+
+import java.text.MessageFormat;
+import java.util.stream.DoubleStream;
+
+
 /**
  * @author claudio.rosati@esss.se
  */
 public interface TrendLine {
 
+	/**
+	 * Accumulates the points in the given range into the given accumulator,
+	 * transforming them into the observations of the least squares problem
+	 * solved by {@link #setValues(LeastSquaresAccumulator)}. The accumulator
+	 * must have been created by {@link #newAccumulator()}.
+	 * <p>
+	 * The only state of the trend line this method can modify is its error
+	 * flag, set when a point cannot be transformed (e.g. the logarithm of a
+	 * non-positive value): implementations must keep that flag thread-safe,
+	 * so that this method can be called concurrently with different
+	 * accumulators.</p>
+	 *
+	 * @param accumulator The accumulator to be filled.
+	 * @param y           The ordinate of the points.
+	 * @param x           The abscissa of the points.
+	 * @param fromIndex   The index of the first point to be accumulated.
+	 * @param toIndex     The index after the last point to be accumulated.
+	 */
+	void accumulate( LeastSquaresAccumulator accumulator, double[] y, double[] x, int fromIndex, int toIndex );
+
 	/**
 	 * @return The coefficients of the fitting function.
 	 */
@@ -38,7 +63,9 @@ public interface TrendLine {
 
 	/**
 	 * @return {@code true} if one or more errors occurred on any method call
-	 *         since the construction of this trend line.
+	 *         since the construction of this trend line, including
+	 *         {@link #accumulate(LeastSquaresAccumulator, double[], double[], int, int)}
+	 *         calls.
 	 */
 	boolean isErrorOccurred();
 
@@ -48,6 +75,12 @@ public interface TrendLine {
 	 */
 	String nameFor( String seriesName );
 
+	/**
+	 * @return A new empty accumulator for the points of this trend line.
+	 * @see #accumulate(LeastSquaresAccumulator, double[], double[], int, int)
+	 */
+	LeastSquaresAccumulator newAccumulator();
+
 	/**
 	 * Gets a predicted <em>y = f(x)</em> for a given {@code x}.
 	 *
@@ -56,6 +89,45 @@ public interface TrendLine {
 	 */
 	double predict( double x );
 
+	/**
+	 * Gets the predicted <em>y = f(x)</em> for each of the given {@code xs}.
+	 * Implementations should override this method with a kernel faster than
+	 * calling {@link #predict(double)} for each value.
+	 *
+	 * @param xs  The abscissa values for which ordinates must be predicted.
+	 * @param out The array receiving the predicted ordinates, at the same
+	 *            indices of the corresponding abscissa values. It can be
+	 *            {@code xs} itself.
+	 * @throws IllegalArgumentException If {@code out} is shorter than
+	 *                                  {@code xs}.
+	 */
+	default void predict( double[] xs, double[] out ) throws IllegalArgumentException {
+
+		if ( out.length < xs.length ) {
+			throw new IllegalArgumentException(MessageFormat.format(
+				"Output array too short [{0} < {1}].",
+				out.length,
+				xs.length
+			));
+		}
+
+		for ( int i = 0; i < xs.length; i++ ) {
+			out[i] = predict(xs[i]);
+		}
+
+	}
+
+	/**
+	 * Gets a stream of the predicted <em>y = f(x)</em> for each {@code x} of
+	 * the given stream.
+	 *
+	 * @param xs The abscissa values for which ordinates must be predicted.
+	 * @return The stream of the predicted ordinates.
+	 */
+	default DoubleStream predict( DoubleStream xs ) {
+		return xs.map(this::predict);
+	}
+
 	/**
 	 * Sets the known points.
 	 *
@@ -64,4 +136,13 @@ public interface TrendLine {
 	 */
 	void setValues( double[] y, double[] x );
 
+	/**
+	 * Sets the known points from the given accumulator, filled (possibly in
+	 * chunks, or in parallel and then combined) by
+	 * {@link #accumulate(LeastSquaresAccumulator, double[], double[], int, int)}.
+	 *
+	 * @param accumulator The accumulator of the known points.
+	 */
+	void setValues( LeastSquaresAccumulator accumulator );
+
 }
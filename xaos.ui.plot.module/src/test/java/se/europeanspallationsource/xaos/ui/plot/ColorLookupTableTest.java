@@ -0,0 +1,134 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ * Copyright (C) 2018-2019 by European Spallation Source ERIC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.europeanspallationsource.xaos.ui.plot;
+
+
+import java.util.List;
+import java.util.Random;
+import javafx.scene.paint.Color;
+import javafx.scene.paint.Stop;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import se.europeanspallationsource.xaos.ui.plot.DensityChartFX.ColorGradient;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+
+/**
+ * @author claudio.rosati@esss.se
+ */
+@SuppressWarnings( { "ClassWithoutLogger", "UseOfSystemOutOrSystemErr" } )
+public class ColorLookupTableTest {
+
+	@BeforeClass
+	public static void setUpClass() {
+		System.out.println("---- ColorLookupTableTest --------------------------------------");
+	}
+
+	private static void assertSameColor( int actual, int expected, int tolerance ) {
+		for ( int shift = 0; shift < 32; shift += 8 ) {
+			assertThat(( actual >>> shift ) & 0xFF).isCloseTo(( expected >>> shift ) & 0xFF, within(tolerance));
+		}
+	}
+
+	/**
+	 * Test of {@link ColorLookupTable#argb(double)} against
+	 * {@link ColorLookupTable#getColor(List, boolean, double)}.
+	 */
+	@Test
+	public void testArgb() {
+
+		System.out.println("  Testing 'argb'...");
+
+		Random random = new Random(3);
+
+		for ( ColorGradient gradient : new ColorGradient[] { ColorGradient.JET_COLOR, ColorGradient.RAINBOW, ColorGradient.WHITE_BLACK } ) {
+			for ( boolean log : new boolean[] { false, true } ) {
+
+				ColorLookupTable table = new ColorLookupTable(gradient, log);
+				List<Stop> stops = gradient.getStops();
+
+				//	Offsets of the table entries are mapped exactly.
+				for ( int i = 0; i < ColorLookupTable.SIZE; i++ ) {
+
+					double offset = i / ( ColorLookupTable.SIZE - 1.0 );
+
+					assertThat(table.argb(offset)).isEqualTo(ColorLookupTable.toArgb(ColorLookupTable.getColor(stops, log, offset)));
+
+				}
+
+				//	Other offsets are mapped to the nearest entry. Logarithmic
+				//	stops offsets make the gradient discontinuous at 0, where
+				//	the nearest entry can have a very different color.
+				for ( int i = 0; !log && i < 1000; i++ ) {
+
+					double offset = random.nextDouble();
+
+					assertSameColor(table.argb(offset), ColorLookupTable.toArgb(ColorLookupTable.getColor(stops, log, offset)), 1);
+
+				}
+
+				assertThat(table.argb(-0.5)).isEqualTo(ColorLookupTable.toArgb(Color.BLACK));
+				assertThat(table.argb(Double.NEGATIVE_INFINITY)).isEqualTo(ColorLookupTable.toArgb(Color.BLACK));
+				assertThat(table.argb(1.5)).isEqualTo(ColorLookupTable.toArgb(Color.WHITE));
+				assertThat(table.argb(Double.POSITIVE_INFINITY)).isEqualTo(ColorLookupTable.toArgb(Color.WHITE));
+				assertThat(table.argb(Double.NaN)).isZero();
+
+			}
+		}
+
+		ColorLookupTable table = new ColorLookupTable(ColorGradient.JET_COLOR, false);
+		List<Stop> stops = ColorGradient.JET_COLOR.getStops();
+
+		assertThat(table.argb(0)).isEqualTo(ColorLookupTable.toArgb(stops.get(0).getColor()));
+		assertThat(table.argb(1)).isEqualTo(ColorLookupTable.toArgb(stops.get(stops.size() - 1).getColor()));
+
+	}
+
+	/**
+	 * Test of {@link ColorLookupTable#isBuiltFor(ColorGradient, boolean)}.
+	 */
+	@Test
+	public void testIsBuiltFor() {
+
+		System.out.println("  Testing 'isBuiltFor'...");
+
+		ColorLookupTable table = new ColorLookupTable(ColorGradient.RAINBOW, false);
+
+		assertThat(table.isBuiltFor(ColorGradient.RAINBOW, false)).isTrue();
+		assertThat(table.isBuiltFor(ColorGradient.RAINBOW, true)).isFalse();
+		assertThat(table.isBuiltFor(ColorGradient.JET_COLOR, false)).isFalse();
+
+	}
+
+	/**
+	 * Test of {@link ColorLookupTable#toArgb(Color)}.
+	 */
+	@Test
+	public void testToArgb() {
+
+		System.out.println("  Testing 'toArgb'...");
+
+		assertThat(ColorLookupTable.toArgb(Color.rgb(0x12, 0x34, 0x56, 0.5))).isEqualTo(0x80123456);
+		assertThat(ColorLookupTable.toArgb(Color.BLACK)).isEqualTo(0xFF000000);
+		assertThat(ColorLookupTable.toArgb(Color.WHITE)).isEqualTo(0xFFFFFFFF);
+		assertThat(ColorLookupTable.toArgb(Color.TRANSPARENT)).isZero();
+
+	}
+
+}
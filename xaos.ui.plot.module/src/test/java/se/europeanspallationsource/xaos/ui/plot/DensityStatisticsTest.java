@@ -0,0 +1,226 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ * Copyright (C) 2018-2019 by European Spallation Source ERIC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.europeanspallationsource.xaos.ui.plot;
+
+
+import java.util.Random;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import se.europeanspallationsource.xaos.ui.plot.DensityChartFX.DataRegion;
+import se.europeanspallationsource.xaos.ui.plot.DensityChartFX.DoubleGridData;
+import se.europeanspallationsource.xaos.ui.plot.DensityChartFX.WaterfallData;
+import se.europeanspallationsource.xaos.ui.plot.DensityChartFX.WaterfallRows;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+
+/**
+ * @author claudio.rosati@esss.se
+ */
+@SuppressWarnings( { "ClassWithoutLogger", "UseOfSystemOutOrSystemErr" } )
+public class DensityStatisticsTest {
+
+	private static final int X_SIZE = 400;
+	private static final int Y_SIZE = 300;
+
+	@BeforeClass
+	public static void setUpClass() {
+		System.out.println("---- DensityStatisticsTest -------------------------------------");
+	}
+
+	/*
+	 * Checks that the incrementally updated ranges are the ones of a full
+	 * update of the same data.
+	 */
+	private static void assertRanges( DensityStatistics incremental, DensityChartFX.Data<?, ?> data ) {
+
+		DensityStatistics full = new DensityStatistics();
+
+		full.update(data, null);
+
+		assertThat(incremental.getMin()).isEqualTo(full.getMin());
+		assertThat(incremental.getMax()).isEqualTo(full.getMax());
+		assertThat(incremental.getRowSumsMin()).isEqualTo(full.getRowSumsMin());
+		assertThat(incremental.getRowSumsMax()).isEqualTo(full.getRowSumsMax());
+
+	}
+
+	private static double[] randomValues( Random random, int count, double offset ) {
+
+		double[] values = new double[count];
+
+		for ( int i = 0; i < count; i++ ) {
+			values[i] = offset + 10 * random.nextDouble();
+		}
+
+		return values;
+
+	}
+
+	private static double[] sequence( int count ) {
+
+		double[] values = new double[count];
+
+		for ( int i = 0; i < count; i++ ) {
+			values[i] = i;
+		}
+
+		return values;
+
+	}
+
+	/**
+	 * Test of statistics of data with only negative Z values.
+	 */
+	@Test
+	public void testNegativeValues() {
+
+		System.out.println("  Testing negative values...");
+
+		DoubleGridData data = new DoubleGridData(sequence(20), sequence(10), randomValues(new Random(1), 200, -20));
+		DensityStatistics statistics = new DensityStatistics();
+
+		statistics.update(data, null);
+
+		double max = Double.NEGATIVE_INFINITY;
+		double min = Double.POSITIVE_INFINITY;
+
+		for ( int yIndex = 0; yIndex < 10; yIndex++ ) {
+			for ( int xIndex = 0; xIndex < 20; xIndex++ ) {
+				max = Math.max(max, data.getZValue(xIndex, yIndex));
+				min = Math.min(min, data.getZValue(xIndex, yIndex));
+			}
+		}
+
+		assertThat(statistics.getMax()).isEqualTo(max).isNegative();
+		assertThat(statistics.getMin()).isEqualTo(min);
+
+	}
+
+	/**
+	 * Test of incremental updates after partial data changes, compared with
+	 * full updates and direct computation.
+	 */
+	@Test
+	public void testPartialUpdates() {
+
+		System.out.println("  Testing partial updates...");
+
+		Random random = new Random(2);
+		DoubleGridData data = new DoubleGridData(sequence(X_SIZE), sequence(Y_SIZE), randomValues(random, X_SIZE * Y_SIZE, 0));
+		DensityStatistics incremental = new DensityStatistics();
+		int[] updates = new int[1];
+
+		incremental.update(data, null);
+		data.addListener(o -> {
+			updates[0]++;
+			incremental.update(data, data.getInvalidatedRegion());
+			assertRanges(incremental, data);
+		});
+
+		for ( int k = 0; k < 20; k++ ) {
+
+			int rows = 1 + random.nextInt(100);
+
+			data.setZRows(random.nextInt(Y_SIZE - rows + 1), randomValues(random, rows * X_SIZE, k - 10));
+
+		}
+
+		assertThat(updates[0]).isEqualTo(20);
+
+		DensityStatistics full = new DensityStatistics();
+
+		full.update(data, null);
+
+		assertThat(incremental.getColumnSums()).containsExactly(full.getColumnSums());
+		assertThat(incremental.getRowSums()).containsExactly(full.getRowSums());
+		assertThat(incremental.getMin()).isEqualTo(full.getMin());
+		assertThat(incremental.getMax()).isEqualTo(full.getMax());
+
+		double[] columnSums = new double[X_SIZE];
+		double[] rowSums = new double[Y_SIZE];
+		double max = Double.NEGATIVE_INFINITY;
+		double min = Double.POSITIVE_INFINITY;
+
+		for ( int yIndex = 0; yIndex < Y_SIZE; yIndex++ ) {
+			for ( int xIndex = 0; xIndex < X_SIZE; xIndex++ ) {
+
+				double z = data.getZValue(xIndex, yIndex);
+
+				columnSums[xIndex] += z;
+				rowSums[yIndex] += z;
+				max = Math.max(max, z);
+				min = Math.min(min, z);
+
+			}
+		}
+
+		for ( int xIndex = 0; xIndex < X_SIZE; xIndex++ ) {
+			assertThat(incremental.getColumnSums()[xIndex]).isCloseTo(columnSums[xIndex], within(1E-9));
+		}
+
+		for ( int yIndex = 0; yIndex < Y_SIZE; yIndex++ ) {
+			assertThat(incremental.getRowSums()[yIndex]).isCloseTo(rowSums[yIndex], within(1E-9));
+		}
+
+		assertThat(incremental.getMin()).isEqualTo(min);
+		assertThat(incremental.getMax()).isEqualTo(max);
+
+	}
+
+	/**
+	 * Test of the ranges of a waterfall, updated reading only the appended
+	 * rows, also when the overwritten rows held the extremes.
+	 */
+	@Test
+	public void testWaterfallRanges() {
+
+		System.out.println("  Testing waterfall ranges...");
+
+		Random random = new Random(3);
+		WaterfallData data = new WaterfallData(sequence(40), 30);
+		WaterfallRows rows = new WaterfallRows(data);
+		DensityStatistics statistics = new DensityStatistics();
+
+		statistics.update(rows, null);
+
+		assertThat(statistics.getMin()).isEqualTo(Double.MAX_VALUE);
+		assertThat(statistics.getMax()).isEqualTo(Double.NEGATIVE_INFINITY);
+
+		for ( int k = 0; k < 100; k++ ) {
+
+			double[] values = randomValues(random, 40, 0);
+
+			if ( k % 17 == 0 ) {
+				//	Extremes to be overwritten when the ring buffer wraps.
+				values[random.nextInt(40)] = 1000;
+				values[random.nextInt(40)] = -1000;
+			}
+
+			data.addRow(k, values);
+
+			int row = rows.toRowIndex(data.getYSize() - 1);
+
+			statistics.update(rows, new DataRegion(0, 40, row, row + 1));
+			assertRanges(statistics, rows);
+
+		}
+
+	}
+
+}
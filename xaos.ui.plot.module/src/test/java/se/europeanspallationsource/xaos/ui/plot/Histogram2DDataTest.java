@@ -0,0 +1,229 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ * Copyright (C) 2018-2019 by European Spallation Source ERIC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.europeanspallationsource.xaos.ui.plot;
+
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import se.europeanspallationsource.xaos.ui.plot.DensityChartFX.DataRegion;
+import se.europeanspallationsource.xaos.ui.plot.data.HistogramBinning;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+
+/**
+ * @author claudio.rosati@esss.se
+ */
+@SuppressWarnings( { "ClassWithoutLogger", "UseOfSystemOutOrSystemErr" } )
+public class Histogram2DDataTest {
+
+	/*
+	 * Large enough to be split in several parallel slices.
+	 */
+	private static final int COUNT = 5 * Histogram2DData.PARALLEL_THRESHOLD;
+	private static final HistogramBinning X_BINNING = new HistogramBinning(-3, 3, 40);
+	private static final HistogramBinning Y_BINNING = new HistogramBinning(-2, 4, 30);
+
+	/*
+	 * A pool with more than one thread, so that the parallel counting is
+	 * exercised even on single processor machines.
+	 */
+	private static ForkJoinPool pool;
+	private static double[] xValues;
+	private static double[] yValues;
+
+	@BeforeClass
+	public static void setUpClass() {
+
+		System.out.println("---- Histogram2DDataTest ---------------------------------------");
+
+		pool = new ForkJoinPool(4);
+
+		Random random = new Random(11);
+
+		xValues = new double[COUNT];
+		yValues = new double[COUNT];
+
+		//	The last slices contain only pairs that are not counted, so that
+		//	empty grids are merged too.
+		for ( int i = 0; i < COUNT; i++ ) {
+			if ( i >= 3 * COUNT / 5 ) {
+				xValues[i] = ( i % 2 == 0 ) ? Double.NaN : 10 + random.nextDouble();
+				yValues[i] = random.nextGaussian();
+			} else {
+				xValues[i] = 1.5 * random.nextGaussian();
+				yValues[i] = 1 + 1.5 * random.nextGaussian();
+			}
+		}
+
+	}
+
+	@AfterClass
+	public static void tearDownClass() {
+		pool.shutdownNow();
+	}
+
+	private static void assertCounts( Histogram2DData data, double[] expected ) {
+
+		double[] row = new double[X_BINNING.getBinsCount()];
+		double[] range = new double[X_BINNING.getBinsCount()];
+
+		for ( int yIndex = 0; yIndex < Y_BINNING.getBinsCount(); yIndex++ ) {
+
+			data.getZRow(yIndex, row);
+			data.getZRow(yIndex, 1, X_BINNING.getBinsCount() - 1, range);
+
+			for ( int xIndex = 0; xIndex < X_BINNING.getBinsCount(); xIndex++ ) {
+				assertThat(row[xIndex]).as("Cell [%d, %d]", xIndex, yIndex).isEqualTo(expected[yIndex * X_BINNING.getBinsCount() + xIndex]);
+				assertThat(data.getZValue(xIndex, yIndex)).isEqualTo(row[xIndex]);
+			}
+
+			for ( int xIndex = 1; xIndex < X_BINNING.getBinsCount() - 1; xIndex++ ) {
+				assertThat(range[xIndex - 1]).isEqualTo(row[xIndex]);
+			}
+
+		}
+
+	}
+
+	private static double[] naiveCounts( int fromIndex, int toIndex ) {
+
+		double[] counts = new double[X_BINNING.getBinsCount() * Y_BINNING.getBinsCount()];
+
+		for ( int i = fromIndex; i < toIndex; i++ ) {
+
+			int xIndex = X_BINNING.indexOf(xValues[i]) - 1;
+			int yIndex = Y_BINNING.indexOf(yValues[i]) - 1;
+
+			if ( xIndex >= 0 && xIndex < X_BINNING.getBinsCount() && yIndex >= 0 && yIndex < Y_BINNING.getBinsCount() ) {
+				counts[yIndex * X_BINNING.getBinsCount() + xIndex]++;
+			}
+
+		}
+
+		return counts;
+
+	}
+
+	/**
+	 * Test of argument validation.
+	 */
+	@Test
+	public void testArgumentsValidation() {
+
+		System.out.println("  Testing 'arguments validation'...");
+
+		Histogram2DData data = new Histogram2DData(X_BINNING, Y_BINNING);
+
+		assertThatThrownBy(() -> new Histogram2DData(null, Y_BINNING)).isInstanceOf(NullPointerException.class);
+		assertThatThrownBy(() -> new Histogram2DData(new HistogramBinning(0, 1, 65536), new HistogramBinning(0, 1, 65536))).isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> data.add(null, yValues)).isInstanceOf(NullPointerException.class);
+		assertThatThrownBy(() -> data.add(new double[2], new double[3])).isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> data.add(new double[2], new double[3], 1, 3)).isInstanceOf(IndexOutOfBoundsException.class);
+
+	}
+
+	/**
+	 * Test of incremental accumulation of pairs, and of the rows invalidated
+	 * by each addition.
+	 */
+	@Test
+	public void testIncrementalAccumulation() {
+
+		System.out.println("  Testing 'incremental accumulation'...");
+
+		Histogram2DData sequential = new Histogram2DData(X_BINNING, Y_BINNING);
+		Histogram2DData parallel = new Histogram2DData(X_BINNING, Y_BINNING);
+		int[] bounds = { 0, 1000, 3 * COUNT / 5 - 3, 3 * COUNT / 5, 4 * COUNT / 5, COUNT };
+
+		for ( int i = 1; i < bounds.length; i++ ) {
+
+			sequential.add(xValues, yValues, bounds[i - 1], bounds[i], null);
+			parallel.add(xValues, yValues, bounds[i - 1], bounds[i], pool);
+
+			double[] expected = naiveCounts(0, bounds[i]);
+
+			assertCounts(sequential, expected);
+			assertCounts(parallel, expected);
+
+		}
+
+		Histogram2DData data = new Histogram2DData(X_BINNING, Y_BINNING);
+		DataRegion[] region = new DataRegion[1];
+
+		data.addListener(o -> region[0] = data.getInvalidatedRegion());
+		data.add(new double[] { 0.1, 0.1 }, new double[] { 0.1, 2.1 });
+
+		assertThat(region[0]).isNotNull();
+		assertThat(region[0].getFromYIndex()).isEqualTo(Y_BINNING.indexOf(0.1) - 1);
+		assertThat(region[0].getToYIndex()).isEqualTo(Y_BINNING.indexOf(2.1));
+
+		data.clear();
+
+		assertCounts(data, new double[X_BINNING.getBinsCount() * Y_BINNING.getBinsCount()]);
+
+	}
+
+	/**
+	 * Test of counting in parallel, compared with the sequential counting.
+	 */
+	@Test
+	public void testParallelCounts() {
+
+		System.out.println("  Testing 'parallel counts'...");
+
+		Histogram2DData sequential = new Histogram2DData(X_BINNING, Y_BINNING);
+		Histogram2DData parallel = new Histogram2DData(X_BINNING, Y_BINNING);
+		Histogram2DData automatic = new Histogram2DData(X_BINNING, Y_BINNING);
+		double[] expected = naiveCounts(0, COUNT);
+
+		sequential.add(xValues, yValues, 0, COUNT, null);
+		parallel.add(xValues, yValues, 0, COUNT, pool);
+		automatic.add(xValues, yValues);
+
+		assertCounts(sequential, expected);
+		assertCounts(parallel, expected);
+		assertCounts(automatic, expected);
+
+	}
+
+	/**
+	 * Test of counting sequential and parallel streams.
+	 */
+	@Test
+	public void testStreams() {
+
+		System.out.println("  Testing 'streams'...");
+
+		Histogram2DData sequential = new Histogram2DData(X_BINNING, Y_BINNING);
+		Histogram2DData parallel = new Histogram2DData(X_BINNING, Y_BINNING);
+		double[] expected = naiveCounts(0, COUNT);
+
+		sequential.add(IntStream.range(0, COUNT).boxed(), i -> xValues[i], i -> yValues[i]);
+		parallel.add(IntStream.range(0, COUNT).boxed().parallel(), i -> xValues[i], i -> yValues[i]);
+
+		assertCounts(sequential, expected);
+		assertCounts(parallel, expected);
+
+	}
+
+}
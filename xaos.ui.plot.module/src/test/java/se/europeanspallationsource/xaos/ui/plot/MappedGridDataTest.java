@@ -0,0 +1,183 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ * Copyright (C) 2018-2019 by European Spallation Source ERIC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.europeanspallationsource.xaos.ui.plot;
+
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import se.europeanspallationsource.xaos.ui.plot.DensityChartFX.DoubleGridData;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+
+/**
+ * @author claudio.rosati@esss.se
+ */
+@SuppressWarnings( { "ClassWithoutLogger", "UseOfSystemOutOrSystemErr" } )
+public class MappedGridDataTest {
+
+	/*
+	 * Small enough to split the test grid in several mapped regions, the
+	 * last one being only partially filled.
+	 */
+	private static final long CHUNK_SIZE = 1000;
+	private static final int X_SIZE = 37;
+	private static final int Y_SIZE = 23;
+
+	@BeforeClass
+	public static void setUpClass() {
+		System.out.println("---- MappedGridDataTest ----------------------------------------");
+	}
+
+	private static void assertRoundTrip( boolean singlePrecision ) throws IOException {
+
+		DoubleGridData data = new DoubleGridData(spaced(-2.5, 7.5, X_SIZE), spaced(100, 122, Y_SIZE), randomValues(new Random(7), X_SIZE * Y_SIZE));
+		Path file = Files.createTempFile("MGD_", ".grid");
+
+		file.toFile().deleteOnExit();
+		MappedGridData.write(file, data, singlePrecision);
+
+		assertThat(Files.size(file)).isEqualTo(MappedGridData.HEADER_SIZE + (long) X_SIZE * Y_SIZE * ( singlePrecision ? Float.BYTES : Double.BYTES ));
+
+		MappedGridData mapped = MappedGridData.open(file, CHUNK_SIZE);
+
+		assertThat(mapped.getXSize()).isEqualTo(X_SIZE);
+		assertThat(mapped.getYSize()).isEqualTo(Y_SIZE);
+
+		for ( int xIndex = 0; xIndex < X_SIZE; xIndex++ ) {
+			assertThat(mapped.getXDoubleValue(xIndex)).isCloseTo(data.getXDoubleValue(xIndex), within(1E-12));
+			assertThat(mapped.getXValue(xIndex).doubleValue()).isEqualTo(mapped.getXDoubleValue(xIndex));
+		}
+
+		for ( int yIndex = 0; yIndex < Y_SIZE; yIndex++ ) {
+			assertThat(mapped.getYDoubleValue(yIndex)).isCloseTo(data.getYDoubleValue(yIndex), within(1E-12));
+			assertThat(mapped.getYValue(yIndex).doubleValue()).isEqualTo(mapped.getYDoubleValue(yIndex));
+		}
+
+		double[] expectedRow = new double[X_SIZE];
+		double[] row = new double[X_SIZE];
+		double[] dataRange = new double[X_SIZE];
+		double[] range = new double[X_SIZE];
+
+		for ( int yIndex = 0; yIndex < Y_SIZE; yIndex++ ) {
+
+			data.getZRow(yIndex, expectedRow);
+			mapped.getZRow(yIndex, row);
+			data.getZRow(yIndex, 3, X_SIZE - 2, dataRange);
+			mapped.getZRow(yIndex, 3, X_SIZE - 2, range);
+
+			for ( int xIndex = 3; xIndex < X_SIZE - 2; xIndex++ ) {
+				assertThat(dataRange[xIndex - 3]).isEqualTo(expectedRow[xIndex]);
+				assertThat(range[xIndex - 3]).isEqualTo(row[xIndex]);
+			}
+
+			for ( int xIndex = 0; xIndex < X_SIZE; xIndex++ ) {
+
+				double expected = singlePrecision ? (float) expectedRow[xIndex] : expectedRow[xIndex];
+
+				assertThat(row[xIndex]).isEqualTo(expected);
+				assertThat(mapped.getZValue(xIndex, yIndex)).isEqualTo(expected);
+
+			}
+
+		}
+
+	}
+
+	private static double[] randomValues( Random random, int count ) {
+
+		double[] values = new double[count];
+
+		for ( int i = 0; i < count; i++ ) {
+			values[i] = 1000 * random.nextGaussian();
+		}
+
+		return values;
+
+	}
+
+	private static double[] spaced( double first, double last, int size ) {
+
+		double[] values = new double[size];
+
+		for ( int i = 0; i < size; i++ ) {
+			values[i] = first + ( last - first ) * i / ( size - 1 );
+		}
+
+		return values;
+
+	}
+
+	/**
+	 * Test of write and open with double precision Z values.
+	 *
+	 * @throws java.io.IOException
+	 */
+	@Test
+	public void testDoublePrecision() throws IOException {
+		System.out.println("  Testing 'double precision'...");
+		assertRoundTrip(false);
+	}
+
+	/**
+	 * Test of open with invalid files.
+	 *
+	 * @throws java.io.IOException
+	 */
+	@Test
+	public void testInvalidFiles() throws IOException {
+
+		System.out.println("  Testing 'invalid files'...");
+
+		DoubleGridData data = new DoubleGridData(spaced(0, 1, X_SIZE), spaced(0, 1, Y_SIZE), new double[X_SIZE * Y_SIZE]);
+		Path file = Files.createTempFile("MGD_", ".grid");
+
+		file.toFile().deleteOnExit();
+		MappedGridData.write(file, data, false);
+
+		assertThatThrownBy(() -> MappedGridData.open(file, X_SIZE * Double.BYTES - 1))
+			.isInstanceOf(IOException.class)
+			.hasMessageContaining("Invalid grid size");
+
+		Files.write(file, new byte[MappedGridData.HEADER_SIZE]);
+
+		assertThatThrownBy(() -> MappedGridData.open(file))
+			.isInstanceOf(IOException.class);
+
+		assertThatThrownBy(() -> MappedGridData.open(null))
+			.isInstanceOf(NullPointerException.class);
+
+	}
+
+	/**
+	 * Test of write and open with single precision Z values.
+	 *
+	 * @throws java.io.IOException
+	 */
+	@Test
+	public void testSinglePrecision() throws IOException {
+		System.out.println("  Testing 'single precision'...");
+		assertRoundTrip(true);
+	}
+
+}
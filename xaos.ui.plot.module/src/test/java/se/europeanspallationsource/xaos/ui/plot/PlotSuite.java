@@ -26,7 +26,12 @@ import org.junit.runners.Suite;
  */
 @RunWith( Suite.class )
 @Suite.SuiteClasses( {
-	LegendUITest.class
+	ColorLookupTableTest.class,
+	DensityStatisticsTest.class,
+	Histogram2DDataTest.class,
+	LegendUITest.class,
+	MappedGridDataTest.class,
+	WaterfallDataTest.class
 } )
 @SuppressWarnings( { "ClassMayBeInterface", "ClassWithoutLogger", "UtilityClassWithoutPrivateConstructor" } )
 public class PlotSuite {
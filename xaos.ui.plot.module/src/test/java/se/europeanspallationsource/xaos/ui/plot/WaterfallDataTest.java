@@ -0,0 +1,194 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ * Copyright (C) 2018-2019 by European Spallation Source ERIC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.europeanspallationsource.xaos.ui.plot;
+
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+import se.europeanspallationsource.xaos.ui.plot.DensityChartFX.WaterfallData;
+import se.europeanspallationsource.xaos.ui.plot.DensityChartFX.WaterfallRows;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+
+/**
+ * @author claudio.rosati@esss.se
+ */
+@SuppressWarnings( { "ClassWithoutLogger", "UseOfSystemOutOrSystemErr" } )
+public class WaterfallDataTest {
+
+	private static final int CAPACITY = 5;
+	private static final double[] X_VALUES = { 1, 2, 3 };
+
+	@BeforeClass
+	public static void setUpClass() {
+		System.out.println("---- WaterfallDataTest -----------------------------------------");
+	}
+
+	/*
+	 * Row k has Y coordinate k and Z values k, 10k, 100k.
+	 */
+	private static void addRow( WaterfallData data, long k ) {
+		data.addRow(k, new double[] { k, 10 * k, 100 * k });
+	}
+
+	/*
+	 * Checks that the rows of the given data are the last ones appended, the
+	 * oldest one first, and that the ring buffer view keeps each row in the
+	 * slot where it was written.
+	 */
+	private static void assertRows( WaterfallData data, long appended ) {
+
+		int size = (int) Math.min(appended, CAPACITY);
+		WaterfallRows rows = new WaterfallRows(data);
+		double[] row = new double[X_VALUES.length];
+		double[] range = new double[X_VALUES.length - 1];
+		double[] column = new double[size];
+
+		assertThat(data.getTotalRowCount()).isEqualTo(appended);
+		assertThat(data.getYSize()).isEqualTo(size);
+		assertThat(data.getRowOffset()).isEqualTo(( appended > CAPACITY ) ? (int) ( appended % CAPACITY ) : 0);
+
+		for ( int yIndex = 0; yIndex < size; yIndex++ ) {
+
+			long k = appended - size + yIndex;
+
+			assertThat(data.getYDoubleValue(yIndex)).isEqualTo(k);
+			assertThat(data.getYValue(yIndex).doubleValue()).isEqualTo(k);
+
+			data.getZRow(yIndex, row);
+
+			assertThat(row).containsExactly(k, 10 * k, 100 * k);
+
+			data.getZRow(yIndex, 1, 3, range);
+
+			assertThat(range).containsExactly(10 * k, 100 * k);
+
+			for ( int xIndex = 0; xIndex < X_VALUES.length; xIndex++ ) {
+				assertThat(data.getZValue(xIndex, yIndex)).isEqualTo(row[xIndex]);
+			}
+
+			assertThat(rows.toYIndex(rows.toRowIndex(yIndex))).isEqualTo(yIndex);
+
+		}
+
+		for ( int xIndex = 0; xIndex < X_VALUES.length; xIndex++ ) {
+
+			data.getZColumn(xIndex, column);
+
+			for ( int yIndex = 0; yIndex < size; yIndex++ ) {
+				assertThat(column[yIndex]).isEqualTo(data.getZValue(xIndex, yIndex));
+			}
+
+		}
+
+		for ( int r = 0; r < size; r++ ) {
+
+			long k = (long) rows.getYValue(r).doubleValue();
+
+			assertThat(k % CAPACITY).isEqualTo(r);
+
+			rows.getZRow(r, row);
+
+			assertThat(row).containsExactly(k, 10 * k, 100 * k);
+
+			rows.getZRow(r, 2, 3, range);
+
+			assertThat(range[0]).isEqualTo(100 * k);
+			assertThat(rows.getZValue(2, r)).isEqualTo(100 * k);
+
+		}
+
+	}
+
+	/**
+	 * Test of argument validation.
+	 */
+	@Test
+	public void testArgumentsValidation() {
+
+		System.out.println("  Testing 'arguments validation'...");
+
+		WaterfallData data = new WaterfallData(X_VALUES, CAPACITY);
+
+		assertThatThrownBy(() -> new WaterfallData(null, CAPACITY)).isInstanceOf(NullPointerException.class);
+		assertThatThrownBy(() -> new WaterfallData(X_VALUES, 0)).isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> data.addRow(0, null)).isInstanceOf(NullPointerException.class);
+		assertThatThrownBy(() -> data.addRow(0, new double[2])).isInstanceOf(IllegalArgumentException.class);
+
+		addRow(data, 0);
+
+		assertThatThrownBy(() -> data.getZValue(0, 1)).isInstanceOf(IndexOutOfBoundsException.class);
+
+	}
+
+	/**
+	 * Test of {@link WaterfallData#clear()}.
+	 */
+	@Test
+	public void testClear() {
+
+		System.out.println("  Testing 'clear'...");
+
+		WaterfallData data = new WaterfallData(X_VALUES, CAPACITY);
+		int[] invalidations = new int[1];
+
+		data.addListener(o -> invalidations[0]++);
+		data.clear();
+
+		assertThat(invalidations[0]).isZero();
+
+		for ( int k = 0; k < 2 * CAPACITY + 2; k++ ) {
+			addRow(data, k);
+		}
+
+		assertThat(invalidations[0]).isEqualTo(2 * CAPACITY + 2);
+
+		data.clear();
+
+		assertThat(invalidations[0]).isEqualTo(2 * CAPACITY + 3);
+		assertRows(data, 0);
+
+		for ( int k = 0; k < 3; k++ ) {
+			addRow(data, k);
+		}
+
+		assertRows(data, 3);
+
+	}
+
+	/**
+	 * Test of row order while the ring buffer fills up and wraps around.
+	 */
+	@Test
+	public void testRowOrder() {
+
+		System.out.println("  Testing 'row order'...");
+
+		WaterfallData data = new WaterfallData(X_VALUES, CAPACITY);
+
+		assertRows(data, 0);
+
+		for ( int k = 0; k < 3 * CAPACITY + 2; k++ ) {
+			addRow(data, k);
+			assertRows(data, k + 1);
+		}
+
+	}
+
+}
@@ -0,0 +1,328 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ * Copyright (C) 2018-2019 by European Spallation Source ERIC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.europeanspallationsource.xaos.ui.plot.data;
+
+
+import java.util.ArrayList;
+import java.util.List;
+import javafx.scene.chart.XYChart.Data;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+
+/**
+ * @author claudio.rosati@esss.se
+ */
+@SuppressWarnings( { "ClassWithoutLogger", "UseOfSystemOutOrSystemErr" } )
+public class DataReducersTest {
+
+	private static final int SIZE = 10000;
+
+	@BeforeClass
+	public static void setUpClass() {
+		System.out.println("---- DataReducersTest ------------------------------------------");
+	}
+
+	private static ArrayXYValues createValues() {
+
+		ArrayXYValues values = new ArrayXYValues();
+
+		for ( int i = 0; i < SIZE; i++ ) {
+			values.add(i, Math.sin(i / 100.0) + ( ( i % 1000 == 500 ) ? 10 : 0 ));
+		}
+
+		return values;
+
+	}
+
+	private static List<Data<Number, Number>> toData( XYValues values ) {
+
+		List<Data<Number, Number>> data = new ArrayList<>(values.size());
+
+		for ( int i = 0; i < values.size(); i++ ) {
+			data.add(new Data<>(values.getXValue(i), values.getYValue(i)));
+		}
+
+		return data;
+
+	}
+
+	/**
+	 * Test that all the reducers validate their arguments in the same way.
+	 */
+	@Test
+	public void testArgumentsValidation() {
+
+		System.out.println("  Testing arguments validation...");
+
+		ArrayXYValues values = createValues();
+		List<DataReducer<Number, Number>> reducers = List.of(
+			new LargestTriangleThreeBucketsDataReducer<>(),
+			new M4DataReducer<>(),
+			new MinMaxPyramidDataReducer<>(),
+			new RamerDouglasPeuckerDataReducer<>()
+		);
+
+		for ( DataReducer<Number, Number> reducer : reducers ) {
+			assertThatThrownBy(() -> reducer.reduce(null, 100)).isInstanceOf(NullPointerException.class);
+			assertThatThrownBy(() -> reducer.reduce(toData(values), 1)).isInstanceOf(IllegalArgumentException.class);
+			assertThatThrownBy(() -> reducer.reduce((XYValues) null, 0, 0, 100)).isInstanceOf(NullPointerException.class);
+			assertThatThrownBy(() -> reducer.reduce(values, 0, SIZE, 1)).isInstanceOf(IllegalArgumentException.class);
+			assertThatThrownBy(() -> reducer.reduce(values, 0, SIZE + 1, 100)).isInstanceOf(IndexOutOfBoundsException.class);
+		}
+
+		//	The default primitive values reduction.
+		DataReducer<Number, Number> reducer = ( data, targetPointsCount ) -> data;
+
+		assertThatThrownBy(() -> reducer.reduce((XYValues) null, 0, 0, 100)).isInstanceOf(NullPointerException.class);
+		assertThatThrownBy(() -> reducer.reduce(values, 0, SIZE, 1)).isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> reducer.reduce(values, 0, SIZE + 1, 100)).isInstanceOf(IndexOutOfBoundsException.class);
+
+	}
+
+	/**
+	 * Test of {@link ArrayXYValues} range searching.
+	 */
+	@Test
+	public void testArrayXYValues() {
+
+		System.out.println("  Testing 'ArrayXYValues'...");
+
+		ArrayXYValues values = createValues();
+		int[] invalidations = new int[1];
+
+		values.addListener(o -> invalidations[0]++);
+
+		assertThat(values.size()).isEqualTo(SIZE);
+		assertThat(values.fromIndex(-10)).isEqualTo(0);
+		assertThat(values.fromIndex(100)).isEqualTo(100);
+		assertThat(values.fromIndex(100.5)).isEqualTo(100);
+		assertThat(values.toIndex(200)).isEqualTo(201);
+		assertThat(values.toIndex(200.5)).isEqualTo(202);
+		assertThat(values.toIndex(SIZE * 2)).isEqualTo(SIZE);
+
+		values.addAll(new double[] { SIZE, SIZE + 1 }, new double[] { 0, 0 });
+
+		assertThat(values.size()).isEqualTo(SIZE + 2);
+		assertThat(invalidations[0]).isEqualTo(1);
+
+	}
+
+	/**
+	 * Test of {@link LargestTriangleThreeBucketsDataReducer} on both
+	 * {@link Data} lists and primitive values.
+	 */
+	@Test
+	public void testLargestTriangleThreeBucketsDataReducer() {
+
+		System.out.println("  Testing 'LargestTriangleThreeBucketsDataReducer'...");
+
+		ArrayXYValues values = createValues();
+		List<Data<Number, Number>> data = toData(values);
+		LargestTriangleThreeBucketsDataReducer<Number, Number> reducer = new LargestTriangleThreeBucketsDataReducer<>();
+		List<Data<Number, Number>> reducedData = reducer.reduce(data, 100);
+		int[] reducedIndices = reducer.reduce(values, 0, SIZE, 100);
+
+		assertThat(reducedIndices).hasSize(100).isSorted().doesNotHaveDuplicates();
+		assertThat(reducedIndices[0]).isEqualTo(0);
+		assertThat(reducedIndices[99]).isEqualTo(SIZE - 1);
+		assertThat(reducedIndices).contains(500, 1500, 2500);
+		assertThat(reducedData).hasSize(100);
+
+		for ( int i = 0; i < reducedIndices.length; i++ ) {
+			assertThat(reducedData.get(i)).isSameAs(data.get(reducedIndices[i]));
+		}
+
+		assertThat(reducer.reduce(values, 1000, 3000, 2)).containsExactly(1000, 2999);
+		assertThat(reducer.reduce(values, 1000, 3000, 3)).containsExactly(1000, 1500, 2999);
+
+	}
+
+	/**
+	 * Test of {@link M4DataReducer} on both {@link Data} lists and primitive
+	 * values.
+	 */
+	@Test
+	public void testM4DataReducer() {
+
+		System.out.println("  Testing 'M4DataReducer'...");
+
+		ArrayXYValues values = createValues();
+		List<Data<Number, Number>> data = toData(values);
+		M4DataReducer<Number, Number> reducer = new M4DataReducer<>();
+		List<Data<Number, Number>> reducedData = reducer.reduce(data, 40);
+		int[] reducedIndices = reducer.reduce(values, 0, SIZE, 40);
+
+		assertThat(reducedIndices).hasSizeLessThanOrEqualTo(40).isSorted().doesNotHaveDuplicates();
+		assertThat(reducedIndices[0]).isEqualTo(0);
+		assertThat(reducedIndices[reducedIndices.length - 1]).isEqualTo(SIZE - 1);
+		assertThat(reducedData).hasSize(reducedIndices.length);
+
+		for ( int i = 0; i < reducedIndices.length; i++ ) {
+			assertThat(reducedData.get(i)).isSameAs(data.get(reducedIndices[i]));
+		}
+
+		//	Spikes are preserved even with very few points.
+		assertThat(reducedIndices).contains(500, 1500, 2500, 3500, 4500, 5500, 6500, 7500, 8500, 9500);
+		assertThat(reducer.reduce(values, 1000, 3000, 4)).hasSize(4).contains(1000, 1500, 2999);
+
+	}
+
+	/**
+	 * Test of {@link MinMaxPyramidDataReducer}, comparing its results with
+	 * the ones of {@link M4DataReducer}, also after values are appended.
+	 */
+	@Test
+	public void testMinMaxPyramidDataReducer() {
+
+		System.out.println("  Testing 'MinMaxPyramidDataReducer'...");
+
+		ArrayXYValues values = createValues();
+		M4DataReducer<Number, Number> m4Reducer = new M4DataReducer<>();
+		MinMaxPyramidDataReducer<Number, Number> reducer = new MinMaxPyramidDataReducer<>();
+
+		assertThat(reducer.reduce(values, 0, SIZE, 40)).containsExactly(m4Reducer.reduce(values, 0, SIZE, 40));
+		assertThat(reducer.reduce(values, 1234, 5678, 100)).containsExactly(m4Reducer.reduce(values, 1234, 5678, 100));
+		assertThat(reducer.reduce(values, 10, 15, 4)).containsExactly(m4Reducer.reduce(values, 10, 15, 4));
+
+		for ( int i = SIZE; i < 3 * SIZE; i++ ) {
+			values.add(i, Math.cos(i / 50.0) + ( ( i % 1000 == 300 ) ? -10 : 0 ));
+		}
+
+		assertThat(reducer.reduce(values, 0, 3 * SIZE, 400)).containsExactly(m4Reducer.reduce(values, 0, 3 * SIZE, 400));
+		assertThat(reducer.reduce(values, 777, 25000, 80)).containsExactly(m4Reducer.reduce(values, 777, 25000, 80));
+
+		//	In-place modifications must not reuse the stale pyramid.
+		long modificationCount = values.getModificationCount();
+
+		values.setYValue(12345, 100);
+
+		assertThat(values.getModificationCount()).isGreaterThan(modificationCount);
+		assertThat(reducer.reduce(values, 0, 3 * SIZE, 400)).containsExactly(m4Reducer.reduce(values, 0, 3 * SIZE, 400)).contains(12345);
+
+		values.clear();
+
+		for ( int i = 0; i < 3 * SIZE; i++ ) {
+			values.add(i, Math.sin(i / 70.0) + ( ( i % 1000 == 700 ) ? 10 : 0 ));
+		}
+
+		assertThat(reducer.reduce(values, 0, 3 * SIZE, 400)).containsExactly(m4Reducer.reduce(values, 0, 3 * SIZE, 400));
+
+	}
+
+	/**
+	 * Test of {@link RamerDouglasPeuckerDataReducer} on both {@link Data}
+	 * lists and primitive values.
+	 */
+	@Test
+	public void testRamerDouglasPeuckerDataReducer() {
+
+		System.out.println("  Testing 'RamerDouglasPeuckerDataReducer'...");
+
+		ArrayXYValues values = createValues();
+		List<Data<Number, Number>> data = toData(values);
+		RamerDouglasPeuckerDataReducer<Number, Number> reducer = new RamerDouglasPeuckerDataReducer<>();
+		List<Data<Number, Number>> reducedData = reducer.reduce(data, 100);
+		int[] reducedIndices = reducer.reduce(values, 0, SIZE, 100);
+
+		assertThat(reducedData).hasSize(100);
+		assertThat(reducedIndices).hasSize(100);
+
+		for ( int i = 0; i < reducedIndices.length; i++ ) {
+			assertThat(reducedData.get(i)).isSameAs(data.get(reducedIndices[i]));
+		}
+
+		int[] rangeIndices = reducer.reduce(values, 1000, 3000, 50);
+
+		assertThat(rangeIndices).hasSize(50).isSorted();
+		assertThat(rangeIndices[0]).isEqualTo(1000);
+		assertThat(rangeIndices[49]).isEqualTo(2999);
+		assertThat(rangeIndices).contains(1500, 2500);
+
+		ArrayXYValues largeValues = new ArrayXYValues();
+
+		for ( int i = 0; i < 20 * SIZE; i++ ) {
+			largeValues.add(i, Math.sin(i / 1000.0) + Math.cos(i / 77.0) + ( ( i % 10000 == 5000 ) ? 10 : 0 ));
+		}
+
+		RamerDouglasPeuckerDataReducer<Number, Number> parallelReducer = new RamerDouglasPeuckerDataReducer<>(true);
+
+		assertThat(parallelReducer.isParallel()).isTrue();
+		assertThat(parallelReducer.reduce(largeValues, 0, 20 * SIZE, 1000)).containsExactly(reducer.reduce(largeValues, 0, 20 * SIZE, 1000));
+		assertThat(parallelReducer.reduce(largeValues, 123, 150000, 300)).containsExactly(reducer.reduce(largeValues, 123, 150000, 300));
+
+	}
+
+	/**
+	 * Test of {@link RingBufferXYValues} sliding window, and of
+	 * {@link MinMaxPyramidDataReducer} when the window slides.
+	 */
+	@Test
+	public void testRingBufferXYValues() {
+
+		System.out.println("  Testing 'RingBufferXYValues'...");
+
+		RingBufferXYValues values = new RingBufferXYValues(5000);
+		int[] invalidations = new int[1];
+		double[] x = new double[100];
+		double[] y = new double[100];
+
+		values.addListener(o -> invalidations[0]++);
+
+		for ( int batch = 0; batch < 200; batch++ ) {
+
+			for ( int i = 0; i < x.length; i++ ) {
+
+				int n = batch * x.length + i;
+
+				x[i] = n;
+				y[i] = Math.sin(n / 100.0) + ( ( n % 1000 == 500 ) ? 10 : 0 );
+
+			}
+
+			values.addAll(x, y);
+
+		}
+
+		assertThat(invalidations[0]).isEqualTo(200);
+		assertThat(values.getCapacity()).isEqualTo(5000);
+		assertThat(values.size()).isEqualTo(5000);
+		assertThat(values.getFirstSequence()).isEqualTo(15000);
+		assertThat(values.getTotalCount()).isEqualTo(20000);
+		assertThat(values.getXValue(0)).isEqualTo(15000.0);
+		assertThat(values.getXValue(4999)).isEqualTo(19999.0);
+		assertThat(values.fromIndex(17500.5)).isEqualTo(2500);
+
+		MinMaxPyramidDataReducer<Number, Number> reducer = new MinMaxPyramidDataReducer<>();
+		M4DataReducer<Number, Number> m4Reducer = new M4DataReducer<>();
+
+		assertThat(reducer.reduce(values, 0, 5000, 40)).containsExactly(m4Reducer.reduce(values, 0, 5000, 40));
+		values.add(20000, -20);
+		assertThat(reducer.reduce(values, 0, 5000, 40)).containsExactly(m4Reducer.reduce(values, 0, 5000, 40));
+		assertThat(values.getXValue(0)).isEqualTo(15001.0);
+
+		values.clear();
+
+		assertThat(values.isEmpty()).isTrue();
+		assertThat(values.getTotalCount()).isEqualTo(0);
+
+	}
+
+}
@@ -0,0 +1,276 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ * Copyright (C) 2018-2019 by European Spallation Source ERIC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.europeanspallationsource.xaos.ui.plot.data;
+
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import javafx.collections.ListChangeListener.Change;
+import javafx.collections.ObservableListBase;
+import javafx.scene.chart.XYChart.Data;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+
+/**
+ * @author claudio.rosati@esss.se
+ */
+@SuppressWarnings( { "ClassWithoutLogger", "UseOfSystemOutOrSystemErr" } )
+public class DataReducingObservableListTest {
+
+	private static final int SIZE = 200;
+	private static final List<Data<Number, Number>> POINTS = new ArrayList<>(SIZE);
+
+	@BeforeClass
+	public static void setUpClass() {
+
+		System.out.println("---- DataReducingObservableListTest ----------------------------");
+
+		for ( int i = 0; i < SIZE; i++ ) {
+			POINTS.add(new Data<>(i, Math.sin(i / 10.0)));
+		}
+
+	}
+
+	/*
+	 * Merges the old list into the new one, applies the fired changes to a
+	 * copy of the old list, and checks that the result is the new list, and
+	 * that points present in both lists are neither removed nor added.
+	 */
+	private static void assertMerge( List<Data<Number, Number>> oldData, List<Data<Number, Number>> newData ) {
+
+		MergingList list = new MergingList(oldData);
+		List<Data<Number, Number>> copy = new ArrayList<>(oldData);
+		Map<Data<Number, Number>, Boolean> kept = new IdentityHashMap<>();
+		int[] changes = new int[1];
+
+		oldData.forEach(point -> kept.put(point, Boolean.FALSE));
+		newData.stream().filter(kept::containsKey).forEach(point -> kept.put(point, Boolean.TRUE));
+		kept.values().removeIf(Boolean.FALSE::equals);
+
+		list.addListener(( Change<? extends Data<Number, Number>> change ) -> {
+
+			changes[0]++;
+
+			while ( change.next() ) {
+
+				assertThat(change.wasPermutated()).isFalse();
+
+				if ( change.wasRemoved() ) {
+
+					assertThat(copy.subList(change.getFrom(), change.getFrom() + change.getRemovedSize())).containsExactlyElementsOf(change.getRemoved());
+					assertThat(change.getRemoved()).noneMatch(kept::containsKey);
+
+					copy.subList(change.getFrom(), change.getFrom() + change.getRemovedSize()).clear();
+
+				}
+
+				if ( change.wasAdded() ) {
+
+					assertThat(change.getAddedSubList()).noneMatch(kept::containsKey);
+
+					copy.addAll(change.getFrom(), change.getAddedSubList());
+
+				}
+
+			}
+
+		});
+		list.setData(newData);
+
+		assertThat(copy).containsExactlyElementsOf(newData);
+		assertThat(list).containsExactlyElementsOf(newData);
+		assertThat(changes[0]).isEqualTo(( kept.size() == oldData.size() && kept.size() == newData.size() ) ? 0 : 1);
+
+	}
+
+	private static List<Data<Number, Number>> points( int fromIndex, int toIndex, int step ) {
+
+		List<Data<Number, Number>> points = new ArrayList<>();
+
+		for ( int i = fromIndex; i < toIndex; i += step ) {
+			points.add(POINTS.get(i));
+		}
+
+		return points;
+
+	}
+
+	private static List<Data<Number, Number>> randomPoints( Random random ) {
+
+		List<Data<Number, Number>> points = new ArrayList<>();
+		int fromIndex = random.nextInt(SIZE);
+		int toIndex = fromIndex + random.nextInt(SIZE - fromIndex + 1);
+
+		for ( int i = fromIndex; i < toIndex; i++ ) {
+			if ( random.nextInt(3) == 0 ) {
+
+				points.add(( random.nextInt(4) == 0 ) ? new Data<>(i, random.nextDouble()) : POINTS.get(i));
+
+				if ( random.nextInt(8) == 0 ) {
+					points.add(new Data<>(i, random.nextDouble()));
+				}
+
+			}
+		}
+
+		return points;
+
+	}
+
+	/**
+	 * Test of merging disjoint, empty and equal lists.
+	 */
+	@Test
+	public void testDisjointAndEmpty() {
+
+		System.out.println("  Testing 'disjoint and empty lists'...");
+
+		assertMerge(points(0, 40, 1), points(100, 140, 1));
+		assertMerge(points(100, 140, 1), points(0, 40, 1));
+		assertMerge(points(0, 200, 2), points(1, 200, 2));
+		assertMerge(Collections.emptyList(), points(0, 40, 1));
+		assertMerge(points(0, 40, 1), Collections.emptyList());
+		assertMerge(Collections.emptyList(), Collections.emptyList());
+		assertMerge(points(0, 40, 1), points(0, 40, 1));
+
+	}
+
+	/**
+	 * Test of merging lists whose points have the same X values but are
+	 * different instances, including repeated X values.
+	 */
+	@Test
+	public void testEqualXValues() {
+
+		System.out.println("  Testing 'equal X values'...");
+
+		List<Data<Number, Number>> oldData = points(0, 40, 1);
+		List<Data<Number, Number>> newData = new ArrayList<>(oldData);
+
+		newData.set(0, new Data<>(0, 1.0));
+		newData.set(10, new Data<>(10, 1.0));
+		newData.set(11, new Data<>(11, 1.0));
+		newData.set(39, new Data<>(39, 1.0));
+
+		assertMerge(oldData, newData);
+
+		oldData = List.of(new Data<>(1, 1), new Data<>(1, 2), new Data<>(2, 3));
+
+		assertMerge(oldData, List.of(new Data<>(1, 4), oldData.get(2)));
+		assertMerge(oldData, List.of(oldData.get(1), new Data<>(1, 5), new Data<>(1, 6), oldData.get(2)));
+
+	}
+
+	/**
+	 * Test of merging lists obtained panning the X axis.
+	 */
+	@Test
+	public void testPan() {
+
+		System.out.println("  Testing 'pan'...");
+
+		assertMerge(points(50, 100, 1), points(40, 90, 1));
+		assertMerge(points(50, 100, 1), points(60, 110, 1));
+		assertMerge(points(50, 100, 1), points(0, 51, 1));
+		assertMerge(points(50, 100, 1), points(99, 150, 1));
+
+	}
+
+	/**
+	 * Test of merging random sorted subsets of the same points, some of them
+	 * replaced or followed by new instances with the same X value.
+	 */
+	@Test
+	public void testRandomLists() {
+
+		System.out.println("  Testing 'random lists'...");
+
+		Random random = new Random(5);
+
+		for ( int n = 0; n < 500; n++ ) {
+			assertMerge(randomPoints(random), randomPoints(random));
+		}
+
+	}
+
+	/**
+	 * Test of merging lists obtained zooming the X axis, where the reduced
+	 * points are sparser than the source ones.
+	 */
+	@Test
+	public void testZoom() {
+
+		System.out.println("  Testing 'zoom'...");
+
+		assertMerge(points(0, 200, 5), points(60, 100, 1));
+		assertMerge(points(60, 100, 1), points(0, 200, 5));
+		assertMerge(points(0, 200, 4), points(0, 200, 6));
+		assertMerge(points(50, 150, 2), points(0, 200, 3));
+
+	}
+
+	/**
+	 * Read-only list firing the changes computed by
+	 * {@link DataReducingObservableList#mergeChanges}, as done by
+	 * {@link DataReducingObservableList} when its data is reduced again.
+	 */
+	private static class MergingList extends ObservableListBase<Data<Number, Number>> {
+
+		private List<Data<Number, Number>> data;
+
+		MergingList( List<Data<Number, Number>> data ) {
+			this.data = data;
+		}
+
+		@Override
+		public Data<Number, Number> get( int index ) {
+			return data.get(index);
+		}
+
+		@Override
+		public int size() {
+			return data.size();
+		}
+
+		void setData( List<Data<Number, Number>> newData ) {
+
+			beginChange();
+
+			DataReducingObservableList.mergeChanges(
+				data,
+				newData,
+				( oldPoint, position ) -> nextRemove(position, oldPoint),
+				position -> nextAdd(position, position + 1),
+				( oldPoint, position ) -> nextSet(position, oldPoint)
+			);
+
+			data = newData;
+
+			endChange();
+
+		}
+
+	}
+
+}
@@ -0,0 +1,126 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ * Copyright (C) 2018-2019 by European Spallation Source ERIC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.europeanspallationsource.xaos.ui.plot.data;
+
+
+import java.util.Random;
+import java.util.stream.DoubleStream;
+import java.util.stream.LongStream;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+
+/**
+ * @author claudio.rosati@esss.se
+ */
+@SuppressWarnings( { "ClassWithoutLogger", "UseOfSystemOutOrSystemErr" } )
+public class HistogramBinningTest {
+
+	@BeforeClass
+	public static void setUpClass() {
+		System.out.println("---- HistogramBinningTest --------------------------------------");
+	}
+
+	/**
+	 * Test of {@link HistogramBinning#indexOf(double)} on bins edges.
+	 */
+	@Test
+	public void testIndexOf() {
+
+		System.out.println("  Testing 'indexOf'...");
+
+		HistogramBinning leftClosed = new HistogramBinning(0, 1, 10);
+
+		assertThat(leftClosed.indexOf(-0.1)).isEqualTo(0);
+		assertThat(leftClosed.indexOf(0.0)).isEqualTo(1);
+		assertThat(leftClosed.indexOf(0.31)).isEqualTo(4);
+		assertThat(leftClosed.indexOf(0.35)).isEqualTo(4);
+		assertThat(leftClosed.indexOf(0.99)).isEqualTo(10);
+		assertThat(leftClosed.indexOf(1.0)).isEqualTo(11);
+		assertThat(leftClosed.indexOf(Double.POSITIVE_INFINITY)).isEqualTo(11);
+		assertThat(leftClosed.indexOf(Double.NaN)).isEqualTo(-1);
+
+		HistogramBinning rightClosed = new HistogramBinning(0, 1, 10, true);
+
+		assertThat(rightClosed.indexOf(0.0)).isEqualTo(0);
+		assertThat(rightClosed.indexOf(0.01)).isEqualTo(1);
+		assertThat(rightClosed.indexOf(0.29)).isEqualTo(3);
+		assertThat(rightClosed.indexOf(0.35)).isEqualTo(4);
+		assertThat(rightClosed.indexOf(1.0)).isEqualTo(10);
+		assertThat(rightClosed.indexOf(1.01)).isEqualTo(11);
+		assertThat(rightClosed.indexOf(Double.NEGATIVE_INFINITY)).isEqualTo(0);
+
+		for ( int bin = 0; bin < 10; bin++ ) {
+			assertThat(leftClosed.indexOf(leftClosed.getLowerEdge(bin))).isEqualTo(bin + 1);
+			assertThat(rightClosed.indexOf(rightClosed.getUpperEdge(bin))).isEqualTo(bin + 1);
+		}
+
+	}
+
+	/**
+	 * Test of {@link HistogramBinning#count(double[])} and
+	 * {@link HistogramBinning#count(DoubleStream)}, sequential and parallel.
+	 */
+	@Test
+	public void testCount() {
+
+		System.out.println("  Testing 'count'...");
+
+		Random random = new Random(19);
+		double[] values = new double[3 * HistogramBinning.PARALLEL_THRESHOLD + 17];
+
+		for ( int i = 0; i < values.length; i++ ) {
+			values[i] = random.nextGaussian();
+		}
+
+		values[5] = Double.NaN;
+
+		HistogramBinning binning = new HistogramBinning(-2, 2, 40);
+		long[] expected = new long[42];
+
+		for ( double value : values ) {
+			if ( value < -2 ) {
+				expected[0]++;
+			} else if ( value >= 2 ) {
+				expected[41]++;
+			} else if ( !Double.isNaN(value) ) {
+				expected[1 + (int) Math.floor(( value + 2 ) / 0.1)]++;
+			}
+		}
+
+		long[] counts = binning.count(values);
+
+		assertThat(counts).isEqualTo(binning.count(DoubleStream.of(values)));
+		assertThat(counts).isEqualTo(binning.count(DoubleStream.of(values).parallel()));
+		assertThat(counts).hasSize(42);
+		assertThat(DoubleStream.of(values).filter(v -> !Double.isNaN(v)).count()).isEqualTo(LongStream.of(counts).sum());
+
+		long differences = 0;
+
+		for ( int i = 0; i < counts.length; i++ ) {
+			differences += Math.abs(counts[i] - expected[i]);
+		}
+
+		//	Values on the edges can be binned differently by the naive formula.
+		assertThat(differences).isLessThanOrEqualTo(2);
+		assertThat(binning.count(values, 0, 100)).isEqualTo(binning.count(DoubleStream.of(values).limit(100)));
+
+	}
+
+}
@@ -0,0 +1,112 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ * Copyright (C) 2018-2019 by European Spallation Source ERIC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.europeanspallationsource.xaos.ui.plot.data;
+
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+
+/**
+ * @author claudio.rosati@esss.se
+ */
+@SuppressWarnings( { "ClassWithoutLogger", "UseOfSystemOutOrSystemErr" } )
+public class StreamingHistogramTest {
+
+	@BeforeClass
+	public static void setUpClass() {
+		System.out.println("---- StreamingHistogramTest ------------------------------------");
+	}
+
+	/**
+	 * Test of samples added concurrently to a cumulative histogram.
+	 *
+	 * @throws InterruptedException If interrupted while waiting for producers.
+	 */
+	@Test
+	public void testCumulative() throws InterruptedException {
+
+		System.out.println("  Testing 'cumulative'...");
+
+		StreamingHistogram histogram = new StreamingHistogram(new HistogramBinning(0, 10, 10));
+		List<Thread> producers = new ArrayList<>();
+
+		for ( int p = 0; p < 4; p++ ) {
+			producers.add(new Thread(() -> {
+				for ( int i = 0; i < 10000; i++ ) {
+					histogram.add(i % 12 - 1);
+				}
+			}));
+		}
+
+		producers.forEach(Thread::start);
+
+		for ( Thread producer : producers ) {
+			producer.join();
+		}
+
+		histogram.addAll(new double[] { 0.5, 9.5, Double.NaN });
+
+		double[] counts = histogram.snapshot();
+
+		assertThat(counts).hasSize(12);
+		assertThat(counts[0]).isEqualTo(4 * 834);
+		assertThat(counts[1]).isEqualTo(4 * 834 + 1);
+		assertThat(counts[10]).isEqualTo(4 * 833 + 1);
+		assertThat(counts[11]).isEqualTo(4 * 833);
+		assertThat(histogram.snapshot()).isEqualTo(counts);
+		assertThat(histogram.getCounts()).isEqualTo(counts);
+
+		histogram.clear();
+
+		assertThat(histogram.snapshot()).containsOnly(0.0);
+
+	}
+
+	/**
+	 * Test of decaying and windowed histograms.
+	 */
+	@Test
+	public void testHistory() {
+
+		System.out.println("  Testing 'decaying' and 'slidingWindow'...");
+
+		HistogramBinning binning = new HistogramBinning(0, 2, 2);
+		StreamingHistogram decaying = StreamingHistogram.decaying(binning, 0.5);
+		StreamingHistogram windowed = StreamingHistogram.slidingWindow(binning, 2);
+
+		for ( int snapshot = 0; snapshot < 3; snapshot++ ) {
+
+			decaying.addAll(new double[] { 0.5, 0.5, 0.5, 0.5 });
+			windowed.addAll(new double[] { 0.5, 1.5 });
+			decaying.snapshot();
+			windowed.snapshot();
+
+		}
+
+		assertThat(decaying.getCounts()).containsExactly(0.0, 7.0, 0.0, 0.0);
+		assertThat(windowed.getCounts()).containsExactly(0.0, 2.0, 2.0, 0.0);
+		assertThat(windowed.snapshot()).containsExactly(0.0, 1.0, 1.0, 0.0);
+		assertThat(windowed.snapshot()).containsExactly(0.0, 0.0, 0.0, 0.0);
+
+	}
+
+}
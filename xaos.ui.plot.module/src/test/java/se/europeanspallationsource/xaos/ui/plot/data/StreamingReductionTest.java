@@ -0,0 +1,264 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ * Copyright (C) 2018-2019 by European Spallation Source ERIC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.europeanspallationsource.xaos.ui.plot.data;
+
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+import javafx.collections.ListChangeListener.Change;
+import javafx.scene.chart.XYChart.Data;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+
+/**
+ * Tests the streaming mode of {@link DataReducingObservableList}, i.e. the
+ * incremental reduction of a {@link RingBufferXYValues} window.
+ *
+ * @author claudio.rosati@esss.se
+ */
+@SuppressWarnings( { "ClassWithoutLogger", "UseOfSystemOutOrSystemErr" } )
+public class StreamingReductionTest {
+
+	private static final int CAPACITY = 1000;
+	private static final int POINTS_COUNT = 100;
+
+	@BeforeClass
+	public static void setUpClass() {
+		System.out.println("---- StreamingReductionTest ------------------------------------");
+	}
+
+	private final List<Data<Double, Double>> copy = new ArrayList<>();
+	private DataReducingObservableList<Double, Double> list;
+	private final Random random = new Random(13);
+	private int removed;
+	private long sequence;
+	private RingBufferXYValues values;
+
+	@Before
+	public void setUp() {
+
+		values = new RingBufferXYValues(CAPACITY);
+		list = new DataReducingObservableList<>(values, Double::valueOf, Double::valueOf);
+		list.setPointsCount(POINTS_COUNT);
+
+		list.addListener(( Change<? extends Data<Double, Double>> change ) -> {
+			while ( change.next() ) {
+
+				assertThat(change.wasPermutated()).isFalse();
+
+				if ( change.wasRemoved() ) {
+
+					assertThat(copy.subList(change.getFrom(), change.getFrom() + change.getRemovedSize())).containsExactlyElementsOf(change.getRemoved());
+
+					copy.subList(change.getFrom(), change.getFrom() + change.getRemovedSize()).clear();
+
+					removed += change.getRemovedSize();
+
+				}
+
+				if ( change.wasAdded() ) {
+					copy.addAll(change.getFrom(), change.getAddedSubList());
+				}
+
+			}
+		});
+
+		sequence = 0;
+
+	}
+
+	/**
+	 * Test of the incremental update of the reduced data while the window
+	 * fills up and wraps several times: only the tail bucket is re-created,
+	 * new buckets appended and expired ones removed.
+	 */
+	@Test
+	public void testIncrementalUpdate() {
+
+		System.out.println("  Testing 'incremental update'...");
+
+		addBatch(CAPACITY / 2);
+		assertReduced();
+
+		for ( int n = 0; n < 300; n++ ) {
+
+			int oldSize = list.size();
+			int batchSize = 1 + random.nextInt(40);
+
+			removed = 0;
+
+			addBatch(batchSize);
+			assertReduced();
+
+			if ( values.getTotalCount() > 2 * CAPACITY ) {
+				//	Steady state: the window has a stable span, so only the
+				//	head and tail buckets should have been updated.
+				assertThat(removed).isLessThan(oldSize / 2);
+			}
+
+		}
+
+		assertThat(values.getFirstSequence()).isGreaterThan(3L * CAPACITY);
+
+	}
+
+	/**
+	 * Test of the updates with batches larger than the window, discarding
+	 * all the previously reduced buckets.
+	 */
+	@Test
+	public void testLargeBatches() {
+
+		System.out.println("  Testing 'large batches'...");
+
+		for ( int n = 0; n < 10; n++ ) {
+			addBatch(CAPACITY / 2 + random.nextInt(2 * CAPACITY));
+			assertReduced();
+		}
+
+	}
+
+	/**
+	 * Test of the fall back to a full rebuild when the window span changes
+	 * too much, the values are cleared, or the points count is changed.
+	 */
+	@Test
+	public void testRebuild() {
+
+		System.out.println("  Testing 'rebuild'...");
+
+		addBatch(CAPACITY + 100);
+		assertReduced();
+
+		//	X gap larger than the window span: all the reduced data is replaced
+		//	even if most of the samples are still in the window.
+		int oldSize = list.size();
+
+		removed = 0;
+		sequence += 5 * CAPACITY;
+
+		addBatch(30);
+		assertReduced();
+		assertThat(removed).isEqualTo(oldSize);
+
+		addBatch(CAPACITY / 3);
+		assertReduced();
+
+		values.clear();
+		assertThat(list).isEmpty();
+		assertThat(copy).isEmpty();
+
+		sequence = 0;
+		addBatch(1);
+		assertReduced();
+		addBatch(1);
+		assertReduced();
+		addBatch(CAPACITY + 100);
+		assertReduced();
+
+		oldSize = list.size();
+		removed = 0;
+
+		list.setPointsCount(POINTS_COUNT / 2);
+		assertReduced();
+		assertThat(removed).isEqualTo(oldSize);
+		assertThat(list.size()).isLessThan(oldSize);
+		addBatch(20);
+		assertReduced();
+
+	}
+
+	/*
+	 * Appends the given number of points, with increasing X values and
+	 * random Y values with some spikes.
+	 */
+	private void addBatch( int size ) {
+
+		double[] x = new double[size];
+		double[] y = new double[size];
+
+		for ( int i = 0; i < size; i++, sequence++ ) {
+			x[i] = 0.1 * sequence;
+			y[i] = ( random.nextInt(50) == 0 ) ? 100 * random.nextGaussian() : random.nextGaussian();
+		}
+
+		values.addAll(x, y);
+
+	}
+
+	/*
+	 * Checks that the reduced data, and the copy updated with the fired
+	 * changes, are equal to the first, minimum, maximum and last points of
+	 * each bucket of the whole window, computed from scratch.
+	 */
+	private void assertReduced() {
+
+		List<Double> expected = new ArrayList<>();
+		List<Double> actual = new ArrayList<>();
+		List<Double> copied = new ArrayList<>();
+		TreeSet<Integer> keyPoints = new TreeSet<>();
+		int first = 0;
+
+		for ( int i = 1; i <= values.size(); i++ ) {
+			if ( i == values.size() || list.streamingBucketIndex(values.getXValue(i)) != list.streamingBucketIndex(values.getXValue(first)) ) {
+
+				int min = first;
+				int max = first;
+
+				for ( int j = first + 1; j < i; j++ ) {
+					if ( values.getYValue(j) < values.getYValue(min) ) {
+						min = j;
+					} else if ( values.getYValue(j) > values.getYValue(max) ) {
+						max = j;
+					}
+				}
+
+				keyPoints.add(first);
+				keyPoints.add(min);
+				keyPoints.add(max);
+				keyPoints.add(i - 1);
+
+				first = i;
+
+			}
+		}
+
+		keyPoints.forEach(index -> {
+			expected.add(values.getXValue(index));
+			expected.add(values.getYValue(index));
+		});
+		list.forEach(point -> {
+			actual.add(point.getXValue());
+			actual.add(point.getYValue());
+		});
+		copy.forEach(point -> {
+			copied.add(point.getXValue());
+			copied.add(point.getYValue());
+		});
+
+		assertThat(actual).containsExactlyElementsOf(expected);
+		assertThat(copied).containsExactlyElementsOf(expected);
+
+	}
+
+}
@@ -0,0 +1,117 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ * Copyright (C) 2018-2019 by European Spallation Source ERIC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.europeanspallationsource.xaos.ui.plot.data;
+
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+
+/**
+ * @author claudio.rosati@esss.se
+ */
+@SuppressWarnings( { "ClassWithoutLogger", "UseOfSystemOutOrSystemErr" } )
+public class XYStatisticsTest {
+
+	private static final int SIZE = 1000;
+
+	@BeforeClass
+	public static void setUpClass() {
+		System.out.println("---- XYStatisticsTest ------------------------------------------");
+	}
+
+	/**
+	 * Test of {@link XYStatistics} against the two-pass formulas, and of
+	 * {@link XYStatistics#combine(XYStatistics)}.
+	 */
+	@Test
+	public void testStatistics() {
+
+		System.out.println("  Testing 'statistics'...");
+
+		double[] x = new double[SIZE];
+		double[] y = new double[SIZE];
+
+		for ( int i = 0; i < SIZE; i++ ) {
+			x[i] = 1e6 + i * 0.01;
+			y[i] = Math.sin(i / 50.0);
+		}
+
+		double meanX = 0.0;
+		double meanY = 0.0;
+
+		for ( int i = 0; i < SIZE; i++ ) {
+			meanX += x[i] / SIZE;
+			meanY += y[i] / SIZE;
+		}
+
+		double varianceX = 0.0;
+		double varianceY = 0.0;
+		double integral = 0.0;
+		double absoluteIntegral = 0.0;
+
+		for ( int i = 0; i < SIZE; i++ ) {
+
+			varianceX += ( x[i] - meanX ) * ( x[i] - meanX ) / ( SIZE - 1 );
+			varianceY += ( y[i] - meanY ) * ( y[i] - meanY ) / ( SIZE - 1 );
+
+			if ( i > 0 ) {
+				integral += ( x[i] - x[i - 1] ) / 2 * ( y[i - 1] + y[i] );
+				absoluteIntegral += Math.abs(( x[i] - x[i - 1] ) / 2 * ( y[i - 1] + y[i] ));
+			}
+
+		}
+
+		XYStatistics statistics = new XYStatistics();
+
+		assertThat(statistics.getMeanX()).isNaN();
+		assertThat(statistics.getVarianceY()).isNaN();
+
+		statistics.addAll(x, y, 0, SIZE);
+
+		assertThat(statistics.getCount()).isEqualTo(SIZE);
+		assertThat(statistics.getMeanX()).isCloseTo(meanX, within(1e-6));
+		assertThat(statistics.getMeanY()).isCloseTo(meanY, within(1e-9));
+		assertThat(statistics.getVarianceX()).isCloseTo(varianceX, within(1e-6));
+		assertThat(statistics.getVarianceY()).isCloseTo(varianceY, within(1e-9));
+		assertThat(statistics.getStandardDeviationY()).isCloseTo(Math.sqrt(varianceY), within(1e-9));
+		assertThat(statistics.getIntegral()).isCloseTo(integral, within(1e-9));
+		assertThat(statistics.getAbsoluteIntegral()).isCloseTo(absoluteIntegral, within(1e-9));
+
+		XYStatistics first = new XYStatistics();
+		XYStatistics second = new XYStatistics();
+
+		first.addAll(x, y, 0, 377);
+		second.addAll(x, y, 377, SIZE);
+
+		XYStatistics combined = first.copy().combine(second);
+
+		assertThat(first.getCount()).isEqualTo(377);
+		assertThat(combined.getCount()).isEqualTo(SIZE);
+		assertThat(combined.getMeanX()).isCloseTo(statistics.getMeanX(), within(1e-6));
+		assertThat(combined.getMeanY()).isCloseTo(statistics.getMeanY(), within(1e-9));
+		assertThat(combined.getVarianceX()).isCloseTo(statistics.getVarianceX(), within(1e-6));
+		assertThat(combined.getVarianceY()).isCloseTo(statistics.getVarianceY(), within(1e-9));
+		assertThat(combined.getIntegral()).isCloseTo(statistics.getIntegral(), within(1e-9));
+		assertThat(combined.getAbsoluteIntegral()).isCloseTo(statistics.getAbsoluteIntegral(), within(1e-9));
+
+	}
+
+}
@@ -0,0 +1,242 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ * Copyright (C) 2018-2019 by European Spallation Source ERIC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.europeanspallationsource.xaos.ui.plot.spi.impl.trend;
+
+
+import java.util.Random;
+import org.apache.commons.math3.linear.SingularMatrixException;
+import org.apache.commons.math3.stat.regression.OLSMultipleLinearRegression;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+
+/**
+ * @author claudio.rosati@esss.se
+ */
+@SuppressWarnings( { "ClassWithoutLogger", "UseOfSystemOutOrSystemErr" } )
+public class LeastSquaresAccumulatorTest {
+
+	private static final int CHUNK_SIZE = 997;
+	private static final int SMALL_SIZE = 5000;
+	private static final int LARGE_SIZE = 3 * LeastSquaresAccumulator.PARALLEL_THRESHOLD + 123;
+
+	@BeforeClass
+	public static void setUpClass() {
+		System.out.println("---- LeastSquaresAccumulatorTest -------------------------------");
+	}
+
+	/**
+	 * Asserts that the accumulator solution and residuals are the ones of
+	 * {@link OLSMultipleLinearRegression} fitting the observations of the given
+	 * trend line.
+	 */
+	private static void assertSameAsOLS( BaseOLSTrendLine trendLine, LeastSquaresAccumulator accumulator, double[] y, double[] x ) {
+
+		double[][] xData = new double[x.length][];
+		double[] yData = new double[y.length];
+
+		for ( int i = 0; i < x.length; i++ ) {
+			xData[i] = trendLine.xVector(x[i]);
+			yData[i] = trendLine.logY() ? Math.log(y[i]) : y[i];
+		}
+
+		OLSMultipleLinearRegression ols = new OLSMultipleLinearRegression();
+
+		ols.setNoIntercept(true);
+		ols.newSampleData(yData, xData);
+
+		double[] expected = ols.estimateRegressionParameters();
+		double[] parameters = accumulator.solve();
+
+		assertThat(accumulator.getCount()).isEqualTo(x.length);
+		assertThat(parameters).hasSameSizeAs(expected);
+
+		for ( int i = 0; i < expected.length; i++ ) {
+			assertThat(parameters[i]).isCloseTo(expected[i], within(1E-9 * Math.max(1, Math.abs(expected[i]))));
+		}
+
+		double residuals = ols.calculateResidualSumOfSquares();
+
+		assertThat(accumulator.getResidualSumOfSquares()).isCloseTo(residuals, within(1E-7 * Math.max(1, residuals)));
+
+	}
+
+	/**
+	 * Fits the given trend line sequentially, in chunks then combined, and in
+	 * parallel, comparing the results with {@link OLSMultipleLinearRegression}.
+	 */
+	private static void assertSameAsOLS( BaseOLSTrendLine trendLine, boolean positiveY ) {
+
+		Random random = new Random(trendLine.getClass().getName().hashCode());
+
+		for ( int size : new int[] { SMALL_SIZE, LARGE_SIZE } ) {
+
+			double[] x = new double[size];
+			double[] y = new double[size];
+
+			for ( int i = 0; i < size; i++ ) {
+				x[i] = 0.1 + 10 * random.nextDouble();
+				y[i] = positiveY
+					? 2 * Math.exp(0.3 * x[i]) * ( 1 + 0.1 * random.nextDouble() )
+					: 1 + 2 * x[i] - 0.5 * x[i] * x[i] + 0.05 * x[i] * x[i] * x[i] + random.nextGaussian();
+			}
+
+			//	Sequential, or parallel above the threshold.
+			assertSameAsOLS(trendLine, LeastSquaresAccumulator.accumulate(trendLine, y, x), y, x);
+
+			//	Chunks accumulated separately, and then combined.
+			LeastSquaresAccumulator accumulator = trendLine.newAccumulator();
+
+			for ( int from = 0; from < size; from += CHUNK_SIZE ) {
+
+				LeastSquaresAccumulator chunk = trendLine.newAccumulator();
+
+				trendLine.accumulate(chunk, y, x, from, Math.min(size, from + CHUNK_SIZE));
+				accumulator.combine(chunk);
+
+			}
+
+			assertSameAsOLS(trendLine, accumulator, y, x);
+
+			//	Single accumulator filled in chunks.
+			accumulator = trendLine.newAccumulator();
+
+			for ( int from = 0; from < size; from += CHUNK_SIZE ) {
+				trendLine.accumulate(accumulator, y, x, from, Math.min(size, from + CHUNK_SIZE));
+			}
+
+			assertSameAsOLS(trendLine, accumulator, y, x);
+
+			trendLine.setValues(y, x);
+
+			assertThat(trendLine.getCoefficients()).containsExactly(LeastSquaresAccumulator.accumulate(trendLine, y, x).solve());
+
+		}
+
+		assertThat(trendLine.isErrorOccurred()).isFalse();
+
+	}
+
+	/**
+	 * Test of argument and state validation.
+	 */
+	@Test
+	public void testErrors() {
+
+		System.out.println("  Testing errors...");
+
+		assertThatThrownBy(() -> new LeastSquaresAccumulator(0)).isInstanceOf(IllegalArgumentException.class);
+
+		LeastSquaresAccumulator accumulator = new LeastSquaresAccumulator(2);
+
+		assertThatThrownBy(() -> accumulator.add(new double[] { 1, 2, 3 }, 1)).isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> accumulator.combine(new LeastSquaresAccumulator(3))).isInstanceOf(IllegalArgumentException.class);
+
+		//	Too few observations.
+		accumulator.add(new double[] { 1, 0 }, 1);
+
+		assertThatThrownBy(accumulator::solve).isInstanceOf(IllegalStateException.class);
+
+		//	Rank deficient: the second predictor is always 0.
+		accumulator.add(new double[] { 1, 0 }, 2);
+		accumulator.add(new double[] { 1, 0 }, 3);
+
+		assertThatThrownBy(accumulator::solve).isInstanceOf(SingularMatrixException.class);
+		assertThatThrownBy(() -> LeastSquaresAccumulator.accumulate(new PolynomialTrendLine(1), new double[2], new double[3]))
+			.isInstanceOf(IllegalArgumentException.class);
+
+	}
+
+	/**
+	 * Test of {@link ExponentialTrendLine} accumulation.
+	 */
+	@Test
+	public void testExponentialTrendLine() {
+		System.out.println("  Testing 'ExponentialTrendLine'...");
+		assertSameAsOLS(new ExponentialTrendLine(0), true);
+	}
+
+	/**
+	 * Test of {@link GaussianTrendLine} streaming fit on exact Gaussian data.
+	 */
+	@Test
+	public void testGaussianTrendLine() {
+
+		System.out.println("  Testing 'GaussianTrendLine'...");
+
+		int size = 2001;
+		double[] x = new double[size];
+		double[] y = new double[size];
+
+		for ( int i = 0; i < size; i++ ) {
+			x[i] = -1 + 6.0 * i / ( size - 1 );
+			y[i] = 3 * Math.exp(-( x[i] - 2 ) * ( x[i] - 2 ) / ( 2 * 0.5 * 0.5 ));
+		}
+
+		GaussianTrendLine trendLine = new GaussianTrendLine();
+
+		trendLine.setValues(LeastSquaresAccumulator.accumulate(trendLine, y, x));
+
+		assertThat(trendLine.isErrorOccurred()).isFalse();
+		assertThat(trendLine.getCoefficients()[0]).isCloseTo(3, within(1E-9));
+		assertThat(trendLine.getCoefficients()[1]).isCloseTo(2, within(1E-9));
+		assertThat(trendLine.getCoefficients()[2]).isCloseTo(0.5, within(1E-9));
+
+		//	A parabola opening upwards is not a Gaussian.
+		for ( int i = 0; i < size; i++ ) {
+			y[i] = Math.exp(x[i] * x[i]);
+		}
+
+		trendLine = new GaussianTrendLine();
+		trendLine.setValues(LeastSquaresAccumulator.accumulate(trendLine, y, x));
+
+		assertThat(trendLine.isErrorOccurred()).isTrue();
+
+	}
+
+	/**
+	 * Test of {@link LogarithmicTrendLine} accumulation.
+	 */
+	@Test
+	public void testLogarithmicTrendLine() {
+		System.out.println("  Testing 'LogarithmicTrendLine'...");
+		assertSameAsOLS(new LogarithmicTrendLine(), false);
+	}
+
+	/**
+	 * Test of {@link PolynomialTrendLine} accumulation.
+	 */
+	@Test
+	public void testPolynomialTrendLine() {
+		System.out.println("  Testing 'PolynomialTrendLine'...");
+		assertSameAsOLS(new PolynomialTrendLine(3), false);
+	}
+
+	/**
+	 * Test of {@link PowerTrendLine} accumulation.
+	 */
+	@Test
+	public void testPowerTrendLine() {
+		System.out.println("  Testing 'PowerTrendLine'...");
+		assertSameAsOLS(new PowerTrendLine(0), true);
+	}
+
+}
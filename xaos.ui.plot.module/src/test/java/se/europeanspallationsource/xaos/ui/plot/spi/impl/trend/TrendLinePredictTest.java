@@ -0,0 +1,194 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ * Copyright (C) 2018-2019 by European Spallation Source ERIC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.europeanspallationsource.xaos.ui.plot.spi.impl.trend;
+
+
+import java.util.Arrays;
+import java.util.Random;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+
+/**
+ * @author claudio.rosati@esss.se
+ */
+@SuppressWarnings( { "ClassWithoutLogger", "UseOfSystemOutOrSystemErr" } )
+public class TrendLinePredictTest {
+
+	private static final int SIZE = 1000;
+
+	@BeforeClass
+	public static void setUpClass() {
+		System.out.println("---- TrendLinePredictTest --------------------------------------");
+	}
+
+	/**
+	 * Fits the given trend line on Gaussian-like data, and asserts that the
+	 * batch and stream predictions are the ones of
+	 * {@link TrendLine#predict(double)}.
+	 */
+	private static void assertBatchPrediction( TrendLine trendLine ) {
+
+		Random random = new Random(trendLine.getClass().getName().hashCode());
+		double[] x = new double[SIZE];
+		double[] y = new double[SIZE];
+
+		for ( int i = 0; i < SIZE; i++ ) {
+			x[i] = 0.1 + 10.0 * i / SIZE;
+			y[i] = 5 * Math.exp(-( x[i] - 4 ) * ( x[i] - 4 ) / 2) * ( 1 + 0.01 * random.nextDouble() ) + 0.01;
+		}
+
+		trendLine.setValues(y, x);
+
+		double[] xs = new double[SIZE];
+
+		for ( int i = 0; i < SIZE; i++ ) {
+			xs[i] = 12 * random.nextDouble();
+		}
+
+		double[] expected = Arrays.stream(xs).map(trendLine::predict).toArray();
+		double[] out = new double[SIZE + 1];
+
+		out[SIZE] = -1;
+
+		trendLine.predict(xs, out);
+
+		for ( int i = 0; i < SIZE; i++ ) {
+			assertThat(out[i]).isCloseTo(expected[i], within(1E-12 * Math.max(1, Math.abs(expected[i]))));
+		}
+
+		assertThat(out[SIZE]).isEqualTo(-1);
+		assertThat(trendLine.predict(Arrays.stream(xs)).toArray()).containsExactly(expected);
+
+		//	In place prediction.
+		double[] inPlace = xs.clone();
+
+		trendLine.predict(inPlace, inPlace);
+
+		assertThat(inPlace).containsExactly(Arrays.copyOf(out, SIZE));
+
+		//	Too short output array.
+		assertThatThrownBy(() -> trendLine.predict(xs, new double[SIZE - 1])).isInstanceOf(IllegalArgumentException.class);
+
+	}
+
+	/**
+	 * Test of {@link ExponentialTrendLine} batch prediction.
+	 */
+	@Test
+	public void testExponentialTrendLine() {
+		System.out.println("  Testing 'ExponentialTrendLine'...");
+		assertBatchPrediction(new ExponentialTrendLine(0));
+	}
+
+	/**
+	 * Test of {@link GaussianTrendLine} batch prediction.
+	 */
+	@Test
+	public void testGaussianTrendLine() {
+		System.out.println("  Testing 'GaussianTrendLine'...");
+		assertBatchPrediction(new GaussianTrendLine());
+	}
+
+	/**
+	 * Test of {@link LogarithmicTrendLine} batch prediction.
+	 */
+	@Test
+	public void testLogarithmicTrendLine() {
+		System.out.println("  Testing 'LogarithmicTrendLine'...");
+		assertBatchPrediction(new LogarithmicTrendLine());
+	}
+
+	/**
+	 * Test of {@link PolynomialTrendLine} batch prediction.
+	 */
+	@Test
+	public void testPolynomialTrendLine() {
+		System.out.println("  Testing 'PolynomialTrendLine'...");
+		assertBatchPrediction(new PolynomialTrendLine(4));
+	}
+
+	/**
+	 * Test of {@link PowerTrendLine} batch prediction.
+	 */
+	@Test
+	public void testPowerTrendLine() {
+		System.out.println("  Testing 'PowerTrendLine'...");
+		assertBatchPrediction(new PowerTrendLine(0));
+	}
+
+	/**
+	 * Test of the default batch prediction of {@link TrendLine}.
+	 */
+	@Test
+	public void testTrendLine() {
+
+		System.out.println("  Testing 'TrendLine' default...");
+
+		PolynomialTrendLine polynomial = new PolynomialTrendLine(2);
+		TrendLine trendLine = new TrendLine() {
+			@Override
+			public void accumulate( LeastSquaresAccumulator accumulator, double[] y, double[] x, int fromIndex, int toIndex ) {
+				polynomial.accumulate(accumulator, y, x, fromIndex, toIndex);
+			}
+			@Override
+			public double[] getCoefficients() {
+				return polynomial.getCoefficients();
+			}
+			@Override
+			public int getDegree() {
+				return polynomial.getDegree();
+			}
+			@Override
+			public double getOffset() {
+				return polynomial.getOffset();
+			}
+			@Override
+			public boolean isErrorOccurred() {
+				return polynomial.isErrorOccurred();
+			}
+			@Override
+			public String nameFor( String seriesName ) {
+				return polynomial.nameFor(seriesName);
+			}
+			@Override
+			public LeastSquaresAccumulator newAccumulator() {
+				return polynomial.newAccumulator();
+			}
+			@Override
+			public double predict( double x ) {
+				return polynomial.predict(x);
+			}
+			@Override
+			public void setValues( double[] y, double[] x ) {
+				polynomial.setValues(y, x);
+			}
+			@Override
+			public void setValues( LeastSquaresAccumulator accumulator ) {
+				polynomial.setValues(accumulator);
+			}
+		};
+
+		assertBatchPrediction(trendLine);
+
+	}
+
+}